@@ -58,6 +58,9 @@ public class WarwickPlus {
         options.addOption(Option.builder("n").argName("number of movies").hasArg()
                                 .desc("The number of movies to load in (and thereby loading in less of the other files too)")
                                 .build());
+        options.addOption(Option.builder().longOpt("train-recommender")
+                                .desc("Train the recommender on the loaded ratings and save it, instead of only loading a saved one")
+                                .build());
         options.addOption("h","help", false, "Show this help message");
 
         // Handle input data files.
@@ -67,6 +70,7 @@ public class WarwickPlus {
         String movieMetadataPath = Constants.defaultMovieMetadataPath;
         String ratingsPath       = Constants.defaultRatingsPath;
         Integer numMovies        = null;
+        boolean trainRecommender = false;
 
         CommandLineParser cliParser = new DefaultParser();
         try{
@@ -81,6 +85,7 @@ public class WarwickPlus {
             if (line.hasOption("keywords")) { keywordsPath = line.getOptionValue("keywords"); }
             if (line.hasOption("movies"))   { movieMetadataPath = line.getOptionValue("movies"); }
             if (line.hasOption("ratings"))  { ratingsPath  = line.getOptionValue("ratings"); }
+            if (line.hasOption("train-recommender")) { trainRecommender = true; }
             if (line.hasOption("n")) 
             { 
                 String optionString = line.getOptionValue("n");
@@ -105,7 +110,7 @@ public class WarwickPlus {
 
         AbstractStores stores = new Stores();
         
-        start(stores, creditsPath, keywordsPath, movieMetadataPath, ratingsPath, numMovies);
+        start(stores, creditsPath, keywordsPath, movieMetadataPath, ratingsPath, numMovies, trainRecommender);
     }
 
     static public void start(AbstractStores stores){
@@ -117,6 +122,10 @@ public class WarwickPlus {
     }
 
     static public void start(AbstractStores stores, String creditsPath, String keywordsPath, String movieMetadataPath, String ratingsPath, Integer numMovies) {
+        start(stores, creditsPath, keywordsPath, movieMetadataPath, ratingsPath, numMovies, false);
+    }
+
+    static public void start(AbstractStores stores, String creditsPath, String keywordsPath, String movieMetadataPath, String ratingsPath, Integer numMovies, boolean trainRecommender) {
         //Create the UI
         JFrame frame = new JFrame("Warwick+");
         frame.setVisible(false);
@@ -168,6 +177,9 @@ public class WarwickPlus {
             else {
                 loading.populate(stores, 0, numMovies);
             }
+            if (trainRecommender){
+                loading.trainRecommender(stores);
+            }
 
             System.out.println("\nFinished Loading...");
             setHomescreen(frame.getContentPane(), stores);
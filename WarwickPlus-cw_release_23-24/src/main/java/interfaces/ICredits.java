@@ -6,6 +6,7 @@ import stores.Person;
 
 public interface ICredits{
     public boolean add(CastCredit[] cast, CrewCredit[] crew, int filmID);
+    public int addAll(CastCredit[][] cast, CrewCredit[][] crew, int[] filmIDs);
     public boolean remove(int filmID);
     
     public CastCredit[] getFilmCast(int filmID);
@@ -16,9 +17,19 @@ public interface ICredits{
     public int[] getCastFilms(int castID);
     public int[] getCrewFilms(int crewID);
     public int[] getCastStarsInFilms(int castID);
+    public int[] getCastFilmsBilledInTop(int castID, int topN);
+    public int[] getFilmsWithAllCast(int[] castIDs);
+    public int[] getFilmsWithCastAndCrew(int castID, int crewID);
 
     public Person[] getMostCastCredits(int numResults);
     public int getNumCastCredits(int castID);
+    public Person[] getTopCollaborators(int castID, int numResults);
+    public Person[] getCastPath(int fromCastID, int toCastID);
+    public int[] getCastPathFilms(int fromCastID, int toCastID);
+    public Person[] getCrewByJob(String job);
+    public Person[] getCrewByDepartment(String department);
+    public int[] getFilmsByCrewJob(int crewID, String job);
+    public Person[] getTopCrewByJob(String job, int numResults);
 
     public int sizeOfCast(int filmID);
     public int sizeofCrew(int filmID);
@@ -28,6 +39,10 @@ public interface ICredits{
 
     public Person[] findCast(String searchTerm);
     public Person[] findCrew(String searchTerm);
+    public Person[] findCastByPrefix(String prefix, int numResults);
+    public Person[] findCrewByPrefix(String prefix, int numResults);
+    public Person[] findCastFuzzy(String name, int maxEdits, int numResults);
+    public Person[] findCrewFuzzy(String name, int maxEdits, int numResults);
 
     public int size();
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ public interface IKeywords{
 
     public boolean add(int filmID, Keyword[] keywords);
     public boolean add(int filmID, Keyword keyword);
+    public int addAll(int[] filmIDs, Keyword[][] keywords);
 
     public boolean remove(int filmID);
     public boolean removeKeywordFromFilm(int filmID, int keywordID);
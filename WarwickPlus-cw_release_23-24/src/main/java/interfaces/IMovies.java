@@ -8,9 +8,11 @@ import stores.Genre;
 public interface IMovies {
     public boolean add(int id, String title, String originalTitle, String overview, String tagline, String status, Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage, double runtime, String homepage, boolean adult, boolean video, String poster);
     public boolean remove(int id);
+    public void ensureCapacity(int expectedFilms);
 
     public int[] getAllIDs();
     public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end);
+    public int[] getIDsReleasedInRange(LocalDate start, LocalDate end, int limit, boolean newestFirst);
 
     public String getTitle(int id);
     public String getOriginalTitle(int id);
@@ -52,6 +54,8 @@ public interface IMovies {
     public String[] getProductionCountries(int movieId);
 
     public int[] findFilms(String searchTerm);
+    public int[] findFilmsRanked(String query, int limit);
+    public int[] searchFilms(String query, int limit);
 
     public int size();
 }
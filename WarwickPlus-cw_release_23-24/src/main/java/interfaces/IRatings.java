@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 
 public interface IRatings {
     public boolean add(int userID, int movieID, float rating, LocalDateTime timestamp);
+    public int addAll(int[] userIDs, int[] movieIDs, float[] ratings, LocalDateTime[] timestamps);
 
     public boolean remove(int userID, int movieID);
 
@@ -19,6 +20,30 @@ public interface IRatings {
     public int getNumRatings(int movieID);
 
     public int[] getTopAverageRatedMovies(int numResults);
+    public int[] getTopWeightedMovies(int numResults, int minVotes);
+    public int[] getSimilarMovies(int movieID, int numResults);
+
+    public boolean resetRecommender(int factors, boolean implicit);
+    public double trainRecommender();
+    public int[] getRecommendedMovies(int userID, int numResults);
+    public boolean saveRecommender(String path);
+    public boolean loadRecommender(String path);
+
+    public float[] getMovieRatingsBetween(int movieID, LocalDateTime start, LocalDateTime end);
+    public int[] getUserRecentMovies(int userID, int numResults);
+    public int[] getMovieRatingHistogram(int movieID, LocalDateTime start, LocalDateTime end, int buckets);
+    public int[] getUserRatingHistogram(int userID, LocalDateTime start, LocalDateTime end, int buckets);
+    public int[] getTrendingMovies(int days, int numResults);
+    public int getRecentRatingCount(int movieID, int days);
+
+    public int[] getMovieRatingDistribution(int movieID);
+    public int[] getUserRatingDistribution(int userID);
+    public float getMovieMedianRating(int movieID);
+    public float getUserMedianRating(int userID);
+    public float getMovieRatingPercentile(int movieID, float percentile);
+    public float getUserRatingPercentile(int userID, float percentile);
+    public float getMovieRatingStdDev(int movieID);
+    public float getUserRatingStdDev(int userID);
 
     public int size();
 }
@@ -405,7 +405,8 @@ class FeaturedCrewMovieReel extends MovieReel{
             return;
         }
 
-        int[] featuredCrewMovies = stores.getCredits().getCrewFilms(foundCrew[0].getID());
+        int[] featuredCrewMovies = stores.getCredits().getFilmsByCrewJob(foundCrew[0].getID(), "Director"); // the films they directed
+        if (featuredCrewMovies.length == 0) featuredCrewMovies = stores.getCredits().getCrewFilms(foundCrew[0].getID());
 
         if (featuredCrewMovies == null || featuredCrewMovies.length == 0) {
             System.out.println("    No films with " + crewName + " were found");
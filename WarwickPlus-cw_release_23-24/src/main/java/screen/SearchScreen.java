@@ -193,6 +193,7 @@ class MovieSearchRunnable implements Runnable {
     private JLabel loadingText;
     private String searchTerm;
     private AbstractStores stores;
+    private static final int RANKED_RESULTS = 200;
 
     public MovieSearchRunnable(JPanel masterPane, JScrollPane scrollPane, JPanel resultsPane, AbstractStores stores, String searchTerm) {
         this.masterPane = masterPane;
@@ -215,7 +216,8 @@ class MovieSearchRunnable implements Runnable {
 
     @Override
     public void run() {
-        int[] idResults = stores.getMovies().findFilms(searchTerm);
+        // Best matches first, then the films only matching a fragment of a word.
+        int[] idResults = stores.getMovies().searchFilms(searchTerm, RANKED_RESULTS);
 
         scrollPane.setVisible(false);
 
@@ -3,13 +3,13 @@ package stores;
 import structures.*;
 
 public class CollectionData {
-    private LinkedList<Integer> filmStore;
+    private IntArrayList filmStore;
     private String collectionName;
     private String collectionPosterPath;
     private String collectionBackdropPath;
 
     public CollectionData(int filmID, String collectionName, String collectionPosterPath, String collectionBackdropPath) {
-        this.filmStore = new LinkedList<>();
+        this.filmStore = new IntArrayList();
         filmStore.add(filmID);
         this.collectionName = collectionName;
         this.collectionPosterPath = collectionPosterPath;
@@ -17,10 +17,11 @@ public class CollectionData {
     }
 
     public boolean filmAdd(int filmID){
+        if (filmStore.contains(filmID)) return false;
         return filmStore.add(filmID);
     }
 
-    public LinkedList<Integer> getFilmStore() {
+    public IntArrayList getFilmStore() {
         return filmStore;
     }
 
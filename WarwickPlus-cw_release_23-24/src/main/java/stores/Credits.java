@@ -2,17 +2,28 @@ package stores;
 
 import structures.*;
 
-import java.util.Comparator;
-
 import interfaces.ICredits;
 
 public class Credits implements ICredits{
     Stores stores;
     private HashMap<CreditInfo> creditInfo;
-    private HashMap<Person> uniqueCast;
-    private HashMap<Person> uniqueCrew;
-    private HashMap<LinkedList<Integer>> castIDToFilmID;
-    private HashMap<LinkedList<Integer>> crewIDToFilmID;
+    private HashMap<Person> people; // Everyone credited, once each whether cast, crew or both.
+    private HashMap<Person> castAliases; // See intern, empty unless ids are reused for different names.
+    private HashMap<Person> crewAliases;
+    private HashMap<SortedIntSet> castIDToFilmID; // Only people with a cast credit, so a key is a reference to people.
+    private HashMap<SortedIntSet> crewIDToFilmID;
+    private HashMap<LongArrayList> castBilling; // Per cast member, one packed (film, order, roles) per film, by film.
+    private IntIntHashMap castCredits; // Roles played per cast member, counting every role in a film.
+    private DirtyIds changedCast; // Cast whose count changed since mostCastCredits was last brought up to date.
+    private Leaderboard mostCastCredits;
+    private CollaborationGraph castGraph; // Cast members linked by the films they share.
+    private StringDictionary jobs; // Crew jobs and departments as dense ids, in the order first seen.
+    private StringDictionary departments;
+    private MyArrayList<CrewJob> crewJobs; // By job id.
+    private MyArrayList<IntIntHashMap> departmentCrew; // By department id, credits in it per crew member.
+    private NameIndex castNames; // Folded names of the cast, scored by number of films.
+    private NameIndex crewNames;
+    private boolean deferNameScores = false; // Set during addAll, which scores each name once at the end.
     
 
 
@@ -26,10 +37,22 @@ public class Credits implements ICredits{
     public Credits (Stores stores) {
         this.stores = stores;
         this.creditInfo = new HashMap<>();        
-        this.uniqueCast = new HashMap<>();
+        this.people = new HashMap<>();
+        this.castAliases = new HashMap<>();
+        this.crewAliases = new HashMap<>();
         this.castIDToFilmID = new HashMap<>();
-        this.uniqueCrew = new HashMap<>();
+        this.castBilling = new HashMap<>();
+        this.castCredits = new IntIntHashMap(16, 0);
+        this.changedCast = new DirtyIds();
+        this.mostCastCredits = new Leaderboard();
+        this.castGraph = new CollaborationGraph();
+        this.jobs = new StringDictionary();
+        this.departments = new StringDictionary();
+        this.crewJobs = new MyArrayList<>();
+        this.departmentCrew = new MyArrayList<>();
         this.crewIDToFilmID = new HashMap<>();
+        this.castNames = new NameIndex();
+        this.crewNames = new NameIndex();
         }
 
     /**
@@ -44,38 +67,105 @@ public class Credits implements ICredits{
     @Override
     public boolean add(CastCredit[] cast, CrewCredit[] crew, int id) {
         if (creditInfo.get(id) != null) return false;
+        cast = inBillingOrder(cast);
         CreditInfo info = new CreditInfo(cast, crew);      
+        int[] castIDs = new int[cast.length];
+        for (int i = 0; i < cast.length; i++) castIDs[i] = cast[i].getID();
+        castGraph.addFilm(id, castIDs);
         for (CastCredit castMember : cast){
-            if (uniqueCast.get(castMember.getID()) == null){
-                uniqueCast.put(castMember.getID(), new Person(castMember.getID(), castMember.getName(), castMember.getProfilePath()));
-            }
-            LinkedList<Integer> temp = castIDToFilmID.get(castMember.getID());
+            bill(castMember.getID(), id, castMember.getOrder());
+            castCredits.addTo(castMember.getID(), 1);
+            changedCast.mark(castMember.getID());
+            SortedIntSet temp = castIDToFilmID.get(castMember.getID());
             if (temp == null){
-                LinkedList<Integer> idList = new LinkedList<>();
+                intern(castMember.getID(), castMember.getName(), castMember.getProfilePath(), castAliases);
+                SortedIntSet idList = new SortedIntSet();
                 idList.add(id);
                 castIDToFilmID.put(castMember.getID(), idList);
+                castNames.add(castMember.getID(), castMember.getName(), 1);
             }
             else{
-                temp.add(id);
+                temp.add(id); // A second role in the same film is not a second film, the set ignores it.
+                if (!deferNameScores) castNames.setScore(castMember.getID(), temp.size());
             }
         }
         for (CrewCredit crewMember : crew){
-            if (uniqueCrew.get(crewMember.getID()) == null){ 
-                uniqueCrew.put(crewMember.getID(), new Person(crewMember.getID(), crewMember.getName(), crewMember.getProfilePath())); 
-            }
-            LinkedList<Integer> temp = crewIDToFilmID.get(crewMember.getID());;
+            fileJob(crewMember, id);
+            SortedIntSet temp = crewIDToFilmID.get(crewMember.getID());
             if (temp == null){
-                LinkedList<Integer> idList = new LinkedList<>();
+                intern(crewMember.getID(), crewMember.getName(), crewMember.getProfilePath(), crewAliases);
+                SortedIntSet idList = new SortedIntSet();
                 idList.add(id);
                 crewIDToFilmID.put(crewMember.getID(), idList);
+                crewNames.add(crewMember.getID(), crewMember.getName(), 1);
             }
             else{
-                temp.add(id);
+                temp.add(id); // A second role in the same film is not a second film, the set ignores it.
+                if (!deferNameScores) crewNames.setScore(crewMember.getID(), temp.size());
             }
         }
         return creditInfo.put(id, info); // always true if code reaches this point
     }
 
+    /**
+     * Adds the credits of many films at once, as add does for each in turn,
+     * with the film map sized for the batch up front and each person's search
+     * score set once at the end rather than at every credit
+     *
+     * @param cast    The cast of each film
+     * @param crew    The crew of each film
+     * @param filmIDs The (unique) movie ID of each film
+     * @return The number of films added. If the arrays differ in length,
+     *         nothing is added
+     */
+    @Override
+    public int addAll(CastCredit[][] cast, CrewCredit[][] crew, int[] filmIDs) {
+        if (cast == null || crew == null || filmIDs == null) return 0;
+        if (cast.length != filmIDs.length || crew.length != filmIDs.length) return 0;
+        creditInfo.ensureCapacity(creditInfo.size() + filmIDs.length);
+        int added = 0;
+        deferNameScores = true;
+        try {
+            for (int i = 0; i < filmIDs.length; i++) if (cast[i] != null && crew[i] != null && add(cast[i], crew[i], filmIDs[i])) added++;
+        } finally {
+            deferNameScores = false;
+            rescore(castNames, castIDToFilmID);
+            rescore(crewNames, crewIDToFilmID);
+        }
+        return added;
+    }
+
+    // Scores every name by its number of films, O(people).
+    private static void rescore(NameIndex names, HashMap<SortedIntSet> films) {
+        for (int slot = films.nextSlot(0); slot >= 0; slot = films.nextSlot(slot + 1)) names.setScore(films.keyAt(slot), films.valueAt(slot).size());
+    }
+
+    // Gives a person their first credit in a role, whose aliases are passed. Ids name one human across
+    // roles, so someone who both acts and directs shares a single Person. If the id is already held
+    // by a differently named person in the other role, as when cast and crew ids are numbered apart,
+    // this role keeps its own Person in its aliases instead, so neither role sees the other's name.
+    private void intern(int personID, String name, String profilePath, HashMap<Person> aliases) {
+        Person known = people.get(personID);
+        if (known == null) people.put(personID, new Person(personID, name, profilePath));
+        else if (known.getName() == null ? name != null : !known.getName().equals(name)) aliases.put(personID, new Person(personID, name, profilePath));
+    }
+
+    // Ends a person's last credit in a role, once its key has left the role map. The role maps only
+    // hold people with at least one film, so a key counts as a reference and a Person is dropped as
+    // soon as neither map holds its id.
+    private void release(int personID, HashMap<Person> aliases, HashMap<SortedIntSet> otherRole, HashMap<Person> otherAliases) {
+        if (aliases.take(personID) != null) return; // This role had its own Person, the shared one is the other role's.
+        Person other = otherAliases.take(personID);
+        if (other != null) people.put(personID, other); // Only the other role is left, its Person becomes the shared one.
+        else if (!otherRole.containsKey(personID)) people.take(personID);
+    }
+
+    // The Person of an id in the role whose aliases are passed.
+    private Person person(int personID, HashMap<Person> aliases) {
+        Person alias = aliases.get(personID);
+        return alias != null ? alias : people.get(personID);
+    }
+
     /**
      * Remove a given films data from the data structure
      * 
@@ -88,18 +178,31 @@ public class Credits implements ICredits{
         if (temp != null){
             CastCredit[] cast = temp.cast;
             CrewCredit[] crew = temp.crew;
+            castGraph.removeFilm(id);
             for (int i = 0; i < cast.length; i++){
-                uniqueCast.take(cast[i].getID());
-                LinkedList<Integer> tempL = castIDToFilmID.get(cast[i].getID());
-                if (tempL != null){
-                    tempL.remove(id);
+                unbill(cast[i].getID(), id);
+                if (castCredits.addTo(cast[i].getID(), -1) == 0) castCredits.remove(cast[i].getID());
+                changedCast.mark(cast[i].getID());
+                SortedIntSet tempL = castIDToFilmID.get(cast[i].getID());
+                if (tempL != null && tempL.remove(id)){ // False for a second role, the film is already gone.
+                    if (tempL.isEmpty()){
+                        castIDToFilmID.take(cast[i].getID());
+                        castNames.remove(cast[i].getID());
+                        release(cast[i].getID(), castAliases, crewIDToFilmID, crewAliases);
+                    }
+                    else castNames.setScore(cast[i].getID(), tempL.size());
                 }
             }
             for (int j = 0; j < crew.length; j++){
-                uniqueCrew.take(crew[j].getID());
-                LinkedList<Integer> tempL = crewIDToFilmID.get(crew[j].getID());
-                if (tempL != null){
-                    tempL.remove(id);
+                unfileJob(crew[j], id);
+                SortedIntSet tempL = crewIDToFilmID.get(crew[j].getID());
+                if (tempL != null && tempL.remove(id)){
+                    if (tempL.isEmpty()){
+                        crewIDToFilmID.take(crew[j].getID());
+                        crewNames.remove(crew[j].getID());
+                        release(crew[j].getID(), crewAliases, castIDToFilmID, castAliases);
+                    }
+                    else crewNames.setScore(crew[j].getID(), tempL.size());
                 }
             }
         }
@@ -181,7 +284,7 @@ public class Credits implements ICredits{
      */
     @Override
     public Person[] getUniqueCast() {
-        return uniqueCast.personList();
+        return lookup(castIDToFilmID.keyList(), castAliases);
     }
 
     /**
@@ -192,7 +295,7 @@ public class Credits implements ICredits{
      */
     @Override
     public Person[] getUniqueCrew() {
-        return uniqueCrew.personList();
+        return lookup(crewIDToFilmID.keyList(), crewAliases);
     }
 
     /**
@@ -204,15 +307,7 @@ public class Credits implements ICredits{
      */
     @Override
     public Person[] findCast(String cast) {
-        Person[] temp = uniqueCast.personList();
-        if (temp.length == 0) return new Person[0];
-        LinkedList<Person> results = new LinkedList<>();
-        for (int i = 0; i < temp.length; i++){
-            if (temp[i].getName().toLowerCase().contains(cast.toLowerCase())){
-                results.add(temp[i]);
-            }
-        }
-        return results.getValuesPerson();
+        return lookup(castNames.find(cast), castAliases);
     }
 
     /**
@@ -224,15 +319,76 @@ public class Credits implements ICredits{
      */
     @Override
     public Person[] findCrew(String crew) {
-        Person[] temp = uniqueCrew.personList();
-        if (temp.length == 0) return new Person[0];
-        LinkedList<Person> results = new LinkedList<>();
-        for (int i = 0; i < temp.length; i++){
-            if (temp[i].getName().toLowerCase().contains(crew.toLowerCase())){
-                results.add(temp[i]);
-            }
-        }
-        return results.getValuesPerson();
+        return lookup(crewNames.find(crew), crewAliases);
+    }
+
+    /**
+     * Get the cast members whose name starts with the given string, for type-ahead
+     * 
+     * @param prefix     The start of the name, case and accents are ignored
+     * @param numResults The maximum number of cast members to return
+     * @return An array of Person objects of the cast members with the most films
+     *         among those whose name starts with prefix, ordered by the number of
+     *         films. If there are none, then return an empty array
+     */
+    @Override
+    public Person[] findCastByPrefix(String prefix, int numResults) {
+        return lookup(castNames.topByPrefix(prefix, numResults), castAliases);
+    }
+
+    /**
+     * Get the crew members whose name starts with the given string, for type-ahead
+     * 
+     * @param prefix     The start of the name, case and accents are ignored
+     * @param numResults The maximum number of crew members to return
+     * @return An array of Person objects of the crew members with the most films
+     *         among those whose name starts with prefix, ordered by the number of
+     *         films. If there are none, then return an empty array
+     */
+    @Override
+    public Person[] findCrewByPrefix(String prefix, int numResults) {
+        return lookup(crewNames.topByPrefix(prefix, numResults), crewAliases);
+    }
+
+    /**
+     * Get the cast members whose name is within a few typing mistakes of the given
+     * name, so that misspelt names such as "Tom Hnaks" are still found
+     * 
+     * @param name       The name to look for, case and accents are ignored
+     * @param maxEdits   The most chars that may be inserted, deleted, changed or
+     *                   swapped with a neighbour to turn a name into the given one
+     * @param numResults The maximum number of cast members to return
+     * @return An array of Person objects of the closest matching cast members,
+     *         ordered by the number of edits and then by the number of films. If
+     *         there are none, then return an empty array
+     */
+    @Override
+    public Person[] findCastFuzzy(String name, int maxEdits, int numResults) {
+        return lookup(castNames.fuzzy(name, maxEdits, numResults), castAliases);
+    }
+
+    /**
+     * Get the crew members whose name is within a few typing mistakes of the given
+     * name, so that misspelt names are still found
+     * 
+     * @param name       The name to look for, case and accents are ignored
+     * @param maxEdits   The most chars that may be inserted, deleted, changed or
+     *                   swapped with a neighbour to turn a name into the given one
+     * @param numResults The maximum number of crew members to return
+     * @return An array of Person objects of the closest matching crew members,
+     *         ordered by the number of edits and then by the number of films. If
+     *         there are none, then return an empty array
+     */
+    @Override
+    public Person[] findCrewFuzzy(String name, int maxEdits, int numResults) {
+        return lookup(crewNames.fuzzy(name, maxEdits, numResults), crewAliases);
+    }
+
+    // Every id taken from a role's name index or film map has a Person in that role.
+    private Person[] lookup(int[] ids, HashMap<Person> aliases) {
+        Person[] result = new Person[ids.length];
+        for (int i = 0; i < ids.length; i++) result[i] = person(ids[i], aliases);
+        return result;
     }
 
     /**
@@ -244,8 +400,7 @@ public class Credits implements ICredits{
      */
     @Override
     public Person getCast(int castID) {
-        if (uniqueCast == null) return null;
-        return uniqueCast.get(castID);
+        return castIDToFilmID.containsKey(castID) ? person(castID, castAliases) : null;
     }
 
     /**
@@ -257,8 +412,7 @@ public class Credits implements ICredits{
      */
     @Override
     public Person getCrew(int crewID){
-        if (uniqueCrew == null) return null; 
-        return uniqueCrew.get(crewID);
+        return crewIDToFilmID.containsKey(crewID) ? person(crewID, crewAliases) : null;
     }
 
     
@@ -272,9 +426,9 @@ public class Credits implements ICredits{
      */
     @Override
     public int[] getCastFilms(int castID){
-        LinkedList<Integer> returnList = castIDToFilmID.get(castID);
+        SortedIntSet returnList = castIDToFilmID.get(castID);
         if (returnList == null) return new int[0]; 
-        return returnList.getValues();
+        return returnList.toArray();
     }
 
     /**
@@ -287,9 +441,46 @@ public class Credits implements ICredits{
      */
     @Override
     public int[] getCrewFilms(int crewID) {
-        LinkedList<Integer> returnList = crewIDToFilmID.get(crewID);
+        SortedIntSet returnList = crewIDToFilmID.get(crewID);
         if (returnList == null) return new int[0];
-        return returnList.getValues();
+        return returnList.toArray();
+    }
+
+    /**
+     * Get the films that every one of the given cast members appears in
+     * 
+     * @param castIDs The cast IDs of the people to be searched for
+     * @return An array of film IDs, in ascending order, that all of the cast
+     *         members appear in. If any cast member cannot be found, or there
+     *         are no shared films, then return an empty array
+     */
+    @Override
+    public int[] getFilmsWithAllCast(int[] castIDs) {
+        if (castIDs == null || castIDs.length == 0) return new int[0];
+        SortedIntSet[] filmSets = new SortedIntSet[castIDs.length];
+        for (int i = 0; i < castIDs.length; i++) {
+            filmSets[i] = castIDToFilmID.get(castIDs[i]);
+            if (filmSets[i] == null) return new int[0];
+        }
+        return SortedIntSet.intersectAll(filmSets); // Runs in time proportional to the smallest film list.
+    }
+
+    /**
+     * Get the films that a given cast member and a given crew member both
+     * worked on
+     * 
+     * @param castID The cast ID of the cast member
+     * @param crewID The crew ID of the crew member
+     * @return An array of film IDs, in ascending order, that both people worked
+     *         on. If either cannot be found, or there are no shared films, then
+     *         return an empty array
+     */
+    @Override
+    public int[] getFilmsWithCastAndCrew(int castID, int crewID) {
+        SortedIntSet castFilms = castIDToFilmID.get(castID);
+        SortedIntSet crewFilms = crewIDToFilmID.get(crewID);
+        if (castFilms == null || crewFilms == null) return new int[0];
+        return SortedIntSet.intersect(castFilms, crewFilms);
     }
 
     /**
@@ -303,24 +494,107 @@ public class Credits implements ICredits{
      *         or the cast member does not exist, return an empty array
      */
     public int[] getCastStarsInFilms(int castID) {
-        LinkedList<Integer> temp = castIDToFilmID.get(castID);
-        if (temp == null) return new int[0];
-        LinkedList<Integer> topBilledFilms = new LinkedList<>();
-        int[] filmIDs = temp.getValues(); 
-        if (filmIDs.length == 0) return new int[0];
-        for (int filmID : filmIDs) {
-            CreditInfo creditInfoT = this.creditInfo.get(filmID); 
-            if (creditInfoT != null) {
-                for (CastCredit castCredit : creditInfoT.getCast()) { 
-                    if (castCredit.getID() == castID && castCredit.getOrder() <= 3) {
-                        topBilledFilms.add(filmID);
-                        break; 
-                    }
-                }
+        return getCastFilmsBilledInTop(castID, starOrder + 1);
+    }
+
+    /**
+     * Get the films where this cast member is billed among the first few cast
+     * members, so 1 gives the films where they have the lead role. This is
+     * determined by the order field in the CastCredit class, which counts from 0
+     * 
+     * @param castID The cast ID of the cast member to be searched for
+     * @param topN   How many of the top billed cast members to look at
+     * @return An array of film IDs, in ascending order, where one of the cast
+     *         member's roles has an order below topN. If there are none, or the
+     *         cast member does not exist, return an empty array
+     */
+    @Override
+    public int[] getCastFilmsBilledInTop(int castID, int topN) {
+        LongArrayList billing = castBilling.get(castID);
+        if (billing == null || topN <= 0) return new int[0];
+        IntArrayList films = new IntArrayList();
+        for (int i = 0; i < billing.size(); i++) {
+            long entry = billing.get(i);
+            if (billedOrder(entry) < topN) films.add(billedFilm(entry));
+        }
+        return films.toArray();
+    }
+
+    // Highest order still counted as starring. Orders count from 0, so this is the first four billed,
+    // which is what the cast member screen has always shown.
+    private static final int starOrder = 3;
+
+    // A billing entry packs the film in the high half, so entries sort by film, then the person's best
+    // order in it in 24 bits and their number of roles in it in 8 bits, both saturating.
+    private static long billing(int filmID, int order, int roles) {
+        return ((long) filmID << 32) | ((long) Math.max(0, Math.min(order, 0xFFFFFF)) << 8) | Math.min(roles, 0xFF);
+    }
+
+    private static int billedFilm(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    private static int billedOrder(long entry) {
+        return (int) (entry >>> 8) & 0xFFFFFF;
+    }
+
+    private static int billedRoles(long entry) {
+        return (int) entry & 0xFF;
+    }
+
+    // Index of filmID in a billing list, or -(insertion point) - 1.
+    private static int billingIndex(LongArrayList billing, int filmID) {
+        int low = 0, high = billing.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int film = billedFilm(billing.get(mid));
+            if (film < filmID) low = mid + 1;
+            else if (film > filmID) high = mid - 1;
+            else return mid;
+        }
+        return -low - 1;
+    }
+
+    // Records one role of castID in filmID. Cast arrays are added in billing order, so the first role
+    // seen in a film carries the person's best order there.
+    private void bill(int castID, int filmID, int order) {
+        LongArrayList billing = castBilling.get(castID);
+        if (billing == null) {
+            billing = new LongArrayList(4);
+            castBilling.put(castID, billing);
+        }
+        int index = billingIndex(billing, filmID);
+        if (index >= 0) {
+            long entry = billing.get(index);
+            billing.set(index, billing(filmID, billedOrder(entry), billedRoles(entry) + 1));
+        } else if (-index - 1 == billing.size()) {
+            billing.add(billing(filmID, order, 1)); // Films mostly arrive in increasing order.
+        } else {
+            billing.add(-index - 1, billing(filmID, order, 1));
+        }
+    }
+
+    // Drops filmID from the billing of castID, a second call for another role finds nothing left.
+    private void unbill(int castID, int filmID) {
+        LongArrayList billing = castBilling.get(castID);
+        if (billing == null) return;
+        int index = billingIndex(billing, filmID);
+        if (index < 0) return;
+        billing.removeAt(index);
+        if (billing.isEmpty()) castBilling.take(castID);
+    }
+
+    // The cast sorted by order, as getFilmCast promises. The caller's array is only copied when it is
+    // out of order, and the sort is stable so equal orders keep their input order.
+    private static CastCredit[] inBillingOrder(CastCredit[] cast) {
+        for (int i = 1; i < cast.length; i++) {
+            if (cast[i - 1].getOrder() > cast[i].getOrder()) {
+                CastCredit[] sorted = cast.clone();
+                Sort.genericSort(sorted, (a, b) -> Integer.compare(b.getOrder(), a.getOrder())); // Largest first by the comparator, so lowest order first.
+                return sorted;
             }
         }
-    
-        return topBilledFilms.getValues();
+        return cast;
     }
     
     /**
@@ -339,26 +613,22 @@ public class Credits implements ICredits{
 
     @Override
     public Person[] getMostCastCredits(int numResults) {
-        int[] castIDList = castIDToFilmID.keyList();
-        if (castIDList == null) return new Person[0];
-        CastCount[] mostCastCredits = new CastCount[castIDList.length];
-        for (int i = 0; i < castIDList.length; i++){
-            LinkedList<Integer> temp = castIDToFilmID.get(castIDList[i]);
-            if (temp != null) { mostCastCredits[i] = new CastCount(castIDList[i], temp.getSize()); } 
-            else { mostCastCredits[i] = new CastCount(castIDList[i], 0); }
-        }
-
-        if (mostCastCredits.length < numResults) numResults = mostCastCredits.length;
-        
-        Comparator<CastCount> moviesStarredCount = (o1, o2) -> Integer.compare(o1.getMoviesStarred(), o2.getMoviesStarred());
-        Sort.genericSort(mostCastCredits, moviesStarredCount);
+        if (numResults <= 0) return new Person[0];
+        refreshMostCastCredits();
+        return lookup(mostCastCredits.top(numResults), castAliases);
+    }
 
-        Person[] returnArray = new Person[numResults];
-        for (int i = 0; i < numResults; i++) {
-            Person holder = uniqueCast.get(mostCastCredits[i].getCastID());
-            if (holder != null) returnArray[i] = holder;
+    // Moves the counts changed since the last call onto the leaderboard, so adding a film costs a few
+    // map updates and the tree only sees each changed person once per query, O(log n). People whose
+    // count changed back find the board already holding it and are skipped in O(1).
+    private void refreshMostCastCredits() {
+        for (int i = 0; i < changedCast.size(); i++) {
+            int castID = changedCast.get(i);
+            int credits = castCredits.get(castID);
+            if (credits == 0) mostCastCredits.remove(castID);
+            else if (mostCastCredits.score(castID) != credits) mostCastCredits.update(castID, credits);
         }
-        return returnArray;
+        changedCast.clear();
     }
 
     /**
@@ -373,9 +643,206 @@ public class Credits implements ICredits{
      */
     @Override
     public int getNumCastCredits(int castID) {
-        LinkedList<Integer> films = castIDToFilmID.get(castID);
-        if (films == null) return -1;
-        return films.getSize(); 
+        int credits = castCredits.get(castID);
+        return credits == 0 ? -1 : credits;
+    }
+
+    /**
+     * Get the cast members who have appeared in the most films alongside a
+     * given cast member
+     * 
+     * @param castID     The cast ID of the cast member to be searched for
+     * @param numResults The maximum number of cast members to return
+     * @return An array of Person objects, ordered by the number of films they
+     *         share with the cast member, most first, with ties going to the
+     *         lower ID. If the cast member cannot be found, return an empty
+     *         array
+     */
+    @Override
+    public Person[] getTopCollaborators(int castID, int numResults) {
+        return lookup(castGraph.topCollaborators(castID, numResults), castAliases);
+    }
+
+    /**
+     * Get a shortest chain of cast members linking two cast members, where
+     * each person in the chain appeared in a film with the next one. The
+     * length of the chain less one is their degrees of separation
+     * 
+     * @param fromCastID The cast ID of the first cast member
+     * @param toCastID   The cast ID of the last cast member
+     * @return An array of Person objects, starting with the first cast member
+     *         and ending with the last. If either cannot be found, or they are
+     *         not linked by any chain of films, return an empty array
+     */
+    @Override
+    public Person[] getCastPath(int fromCastID, int toCastID) {
+        if (!castIDToFilmID.containsKey(fromCastID) || !castIDToFilmID.containsKey(toCastID)) return new Person[0]; // The graph keeps people after their last film.
+        return lookup(castGraph.shortestPath(fromCastID, toCastID), castAliases);
+    }
+
+    /**
+     * Get the films linking the cast members of getCastPath
+     * 
+     * @param fromCastID The cast ID of the first cast member
+     * @param toCastID   The cast ID of the last cast member
+     * @return An array of film IDs, one fewer than the people in the chain,
+     *         where film i has both the i-th and (i+1)-th people of the chain
+     *         in its cast. When they share several films, the lowest film ID
+     *         is used. If there is no chain, return an empty array
+     */
+    @Override
+    public int[] getCastPathFilms(int fromCastID, int toCastID) {
+        int[] path = castGraph.shortestPath(fromCastID, toCastID);
+        int[] films = new int[Math.max(path.length - 1, 0)];
+        for (int i = 0; i < films.length; i++) {
+            films[i] = SortedIntSet.intersect(castIDToFilmID.get(path[i]), castIDToFilmID.get(path[i + 1]))[0];
+        }
+        return films;
+    }
+
+    /**
+     * Get every crew member who has been credited with a given job, such as
+     * "Director" or "Original Music Composer"
+     * 
+     * @param job The job, matched exactly as it appears in the crew credits
+     * @return An array of Person objects in ascending order of ID. If nobody
+     *         has been credited with the job, return an empty array
+     */
+    @Override
+    public Person[] getCrewByJob(String job) {
+        CrewJob crewJob = crewJob(job);
+        if (crewJob == null) return new Person[0];
+        int[] ids = crewJob.films.keyList();
+        Sort.radixSort(ids);
+        return lookup(ids, crewAliases);
+    }
+
+    /**
+     * Get every crew member who has been credited in a given department, such
+     * as "Directing" or "Sound"
+     * 
+     * @param department The department, matched exactly as it appears in the
+     *                   crew credits
+     * @return An array of Person objects in ascending order of ID. If nobody
+     *         has been credited in the department, return an empty array
+     */
+    @Override
+    public Person[] getCrewByDepartment(String department) {
+        int departmentID = department == null ? -1 : departments.get(department);
+        if (departmentID < 0) return new Person[0];
+        int[] ids = departmentCrew.get(departmentID).keyList();
+        Sort.radixSort(ids);
+        return lookup(ids, crewAliases);
+    }
+
+    /**
+     * Get the films where a crew member was credited with a given job
+     * 
+     * @param crewID The crew ID of the crew member
+     * @param job    The job, matched exactly as it appears in the crew credits
+     * @return An array of film IDs in ascending order. If the crew member
+     *         cannot be found, or never had the job, return an empty array
+     */
+    @Override
+    public int[] getFilmsByCrewJob(int crewID, String job) {
+        CrewJob crewJob = crewJob(job);
+        SortedIntSet films = crewJob == null ? null : crewJob.films.get(crewID);
+        return films == null ? new int[0] : films.toArray();
+    }
+
+    /**
+     * Get the crew members credited with a given job in the most films
+     * 
+     * @param job        The job, matched exactly as it appears in the crew
+     *                   credits
+     * @param numResults The maximum number of crew members to return
+     * @return An array of Person objects, ordered by the number of films they
+     *         had the job in, most first, with ties going to the lower ID. If
+     *         nobody has been credited with the job, return an empty array
+     */
+    @Override
+    public Person[] getTopCrewByJob(String job, int numResults) {
+        CrewJob crewJob = crewJob(job);
+        if (crewJob == null || numResults <= 0) return new Person[0];
+        for (int i = 0; i < crewJob.changed.size(); i++) { // Brought up to date lazily, as mostCastCredits is.
+            int crewID = crewJob.changed.get(i);
+            SortedIntSet films = crewJob.films.get(crewID);
+            if (films == null) crewJob.mostFilms.remove(crewID);
+            else if (crewJob.mostFilms.score(crewID) != films.size()) crewJob.mostFilms.update(crewID, films.size());
+        }
+        crewJob.changed.clear();
+        return lookup(crewJob.mostFilms.top(numResults), crewAliases);
+    }
+
+    private CrewJob crewJob(String job) {
+        int jobID = job == null ? -1 : jobs.get(job);
+        return jobID < 0 ? null : crewJobs.get(jobID);
+    }
+
+    // Files a crew credit under its job and department. Jobs count films, as getCrewFilms does, while
+    // departments count credits, so a person leaves a department with their last credit in it.
+    private void fileJob(CrewCredit credit, int filmID) {
+        if (credit.getJob() != null) {
+            int jobID = jobs.add(credit.getJob());
+            if (jobID == crewJobs.size()) crewJobs.add(new CrewJob());
+            CrewJob crewJob = crewJobs.get(jobID);
+            SortedIntSet films = crewJob.films.get(credit.getID());
+            if (films == null) {
+                films = new SortedIntSet();
+                crewJob.films.put(credit.getID(), films);
+            }
+            if (films.add(filmID)) crewJob.changed.mark(credit.getID());
+        }
+        if (credit.getDepartment() != null) {
+            int departmentID = departments.add(credit.getDepartment());
+            if (departmentID == departmentCrew.size()) departmentCrew.add(new IntIntHashMap(16, 0));
+            departmentCrew.get(departmentID).addTo(credit.getID(), 1);
+        }
+    }
+
+    private void unfileJob(CrewCredit credit, int filmID) {
+        CrewJob crewJob = crewJob(credit.getJob());
+        SortedIntSet films = crewJob == null ? null : crewJob.films.get(credit.getID());
+        if (films != null && films.remove(filmID)) { // False for the same job twice in a film, the film is already gone.
+            if (films.isEmpty()) crewJob.films.take(credit.getID());
+            crewJob.changed.mark(credit.getID());
+        }
+        int departmentID = credit.getDepartment() == null ? -1 : departments.get(credit.getDepartment());
+        if (departmentID >= 0 && departmentCrew.get(departmentID).addTo(credit.getID(), -1) <= 0) departmentCrew.get(departmentID).remove(credit.getID());
+    }
+
+    // The postings of one job: the films each crew member had it in, and the members with the most.
+    private static class CrewJob {
+        private final HashMap<SortedIntSet> films = new HashMap<>();
+        private final Leaderboard mostFilms = new Leaderboard();
+        private final DirtyIds changed = new DirtyIds(); // Members whose film count changed since mostFilms was brought up to date.
+    }
+
+    // The ids changed since they were last brought up to date, each listed once however often it
+    // changes, so the list stays bounded by the number of people while no query drains it.
+    private static class DirtyIds {
+        private final IntIntHashMap marked = new IntIntHashMap(16, -1);
+        private final IntArrayList ids = new IntArrayList();
+
+        void mark(int id) {
+            if (marked.containsKey(id)) return;
+            marked.put(id, 0);
+            ids.add(id);
+        }
+
+        int size() {
+            return ids.size();
+        }
+
+        int get(int index) {
+            return ids.get(index);
+        }
+
+        // Unmarks the listed ids one by one, so clearing costs the changes rather than the map's capacity.
+        void clear() {
+            for (int i = 0; i < ids.size(); i++) marked.remove(ids.get(i));
+            ids.clear();
+        }
     }
 
     private class CreditInfo {
@@ -395,22 +862,4 @@ public class Credits implements ICredits{
             return crew;
         }
     }
-
-    private static class CastCount{
-        private int castID;
-        private int moviesStarred;
-
-        public CastCount(int castID, int moviesStarred){
-            this.castID = castID;
-            this.moviesStarred = moviesStarred;
-        }
-
-        public int getMoviesStarred(){
-            return moviesStarred;
-        }
-
-        public int getCastID(){
-            return castID;
-        }
-    }
 }
@@ -2,242 +2,211 @@ package stores;
 
 import interfaces.IKeywords;
 import interfaces.AbstractStores;
+import structures.HashMap;
+import structures.Leaderboard;
 import structures.MyArrayList;
+import structures.SortedIntSet;
+import structures.SubstringIndex;
 
 public class Keywords implements IKeywords{
     AbstractStores stores;
 
-    MyArrayList<Integer> id;
-    MyArrayList<Keyword[]> keywords;
-    MyArrayList<Keyword> unique;
+    // Three views of the same (film, keyword) pairs, all kept in step by add and remove:
+    // filmKeywords answers per film lookups, keywordFilms is the inverted index and
+    // dictionary holds one Keyword per id that is still attached to at least one film.
+    // mostKeywords ranks films by keyword count for getMostKeywordFilms, and names indexes the names
+    // of the dictionary's keywords for findKeywords.
+    private HashMap<Keyword[]> filmKeywords;
+    private HashMap<SortedIntSet> keywordFilms;
+    private HashMap<Keyword> dictionary;
+    private Leaderboard mostKeywords;
+    private SubstringIndex names;
 
     Keywords(AbstractStores stores) {
         this.stores = stores;
-        id = new MyArrayList<>();
-        keywords = new MyArrayList<>();
-        unique = new MyArrayList<>();
+        filmKeywords = new HashMap<>();
+        keywordFilms = new HashMap<>();
+        dictionary = new HashMap<>();
+        mostKeywords = new Leaderboard();
+        names = new SubstringIndex();
     }
 
-    @Override
-    public boolean add(int filmID, Keyword keyword) {
-        boolean result = true;
-
-        for (int i = 0; i < this.id.size(); i++) {
-            if(this.id.get(i) == filmID) {
-                Keyword[] tmp = new Keyword[keywords.get(i).length + 1];
-                for (int j = 0; j < keywords.get(i).length; j++) {
-                    tmp[j] = keywords.get(i)[j];
-                }
-                tmp[keywords.get(i).length] = keyword;
-                keywords.set(i, tmp);
-                return result;
-            }
+    // Records that filmID carries keyword, false if it already did.
+    private boolean index(int filmID, Keyword keyword) {
+        SortedIntSet films = keywordFilms.get(keyword.getID());
+        if (films == null) {
+            films = new SortedIntSet();
+            keywordFilms.put(keyword.getID(), films);
+            dictionary.put(keyword.getID(), keyword);
+            names.add(keyword.getID(), keyword.getName());
         }
+        return films.add(filmID);
+    }
 
-        boolean flag = true;
-        for(int i = 0; i < unique.size(); i++) {
-            if(this.unique.get(i).getID() == keyword.getID()) {
-                flag = false;
-                break;
-            }
+    // Drops filmID from the keyword's postings, and the keyword itself once no film carries it.
+    private void unindex(int filmID, int keywordID) {
+        SortedIntSet films = keywordFilms.get(keywordID);
+        if (films == null) return;
+        films.remove(filmID);
+        if (films.isEmpty()) {
+            keywordFilms.take(keywordID);
+            Keyword keyword = dictionary.take(keywordID);
+            if (keyword != null) names.remove(keywordID, keyword.getName());
         }
+    }
 
-        if (flag) {
-            unique.add(keyword);
+    @Override
+    public boolean add(int filmID, Keyword keyword) {
+        if (keyword == null) return false;
+        Keyword[] current = filmKeywords.get(filmID);
+        if (current == null) {
+            index(filmID, keyword);
+            mostKeywords.update(filmID, 1);
+            return filmKeywords.put(filmID, new Keyword[]{keyword});
         }
-        
-
-        result &= this.id.add(filmID);
-        Keyword[] tmp = {keyword};
-        result &= keywords.add(tmp);
-        return result;
+        if (!index(filmID, keyword)) return false; // The film already has this keyword.
+        Keyword[] tmp = new Keyword[current.length + 1];
+        System.arraycopy(current, 0, tmp, 0, current.length);
+        tmp[current.length] = keyword;
+        filmKeywords.take(filmID);
+        mostKeywords.update(filmID, tmp.length);
+        return filmKeywords.put(filmID, tmp);
     }
 
     @Override
     public boolean add(int id, Keyword[] keywords) {
-        boolean result = true;
-
-        for (int i = 0; i < this.id.size(); i++) {
-            if (this.id.get(i) == id) {
-                Keyword[] tmp = new Keyword[this.keywords.get(i).length + keywords.length];
-                for (int j = 0; j < this.keywords.get(i).length; j++) {
-                    tmp[j] = this.keywords.get(i)[j];
-                }
-                for (int j = 0; j < keywords.length; j++){
-                    tmp[this.keywords.get(i).length+j] = keywords[j];
-                }
-                this.keywords.set(i, tmp);
-                return result;
-            }
+        if (keywords == null) return false;
+        Keyword[] current = filmKeywords.get(id);
+        int existing = current == null ? 0 : current.length;
+        Keyword[] tmp = new Keyword[existing + keywords.length];
+        if (existing > 0) System.arraycopy(current, 0, tmp, 0, existing);
+        int count = existing;
+        for (Keyword keyword : keywords) {
+            if (keyword != null && index(id, keyword)) tmp[count++] = keyword; // Repeated keywords are only kept once.
         }
-
-        for (int i = 0; i < keywords.length; i++) {
-            boolean flag = true;
-            for (int j = 0; j < unique.size(); j++) {
-                if(this.unique.get(j).getID() == keywords[i].getID()) {
-                    flag = false;
-                    break;
-                }
-            }
-            if(flag){
-                unique.add(keywords[i]);
-            }
+        if (current != null) {
+            if (count == existing) return true;
+            filmKeywords.take(id);
         }
+        if (count < tmp.length) {
+            Keyword[] trimmed = new Keyword[count];
+            System.arraycopy(tmp, 0, trimmed, 0, count);
+            tmp = trimmed;
+        }
+        mostKeywords.update(id, tmp.length);
+        return filmKeywords.put(id, tmp);
+    }
 
-        result &= this.id.add(id);
-        result &= this.keywords.add(keywords);
-        return result;
+    /**
+     * Adds the keywords of many films at once, as add does for each in turn,
+     * with the film map sized for the batch up front
+     *
+     * @param filmIDs  The ID of each film
+     * @param keywords The keywords of each film
+     * @return The number of films whose keywords were added. If the arrays
+     *         differ in length, nothing is added
+     */
+    @Override
+    public int addAll(int[] filmIDs, Keyword[][] keywords) {
+        if (filmIDs == null || keywords == null || filmIDs.length != keywords.length) return 0;
+        filmKeywords.ensureCapacity(filmKeywords.size() + filmIDs.length);
+        int added = 0;
+        for (int i = 0; i < filmIDs.length; i++) if (add(filmIDs[i], keywords[i])) added++;
+        return added;
     }
 
     @Override
     public boolean remove(int id) {
-        int index = this.id.indexOf(id);
-        boolean result = this.id.remove(id);
-        result &= this.keywords.remove(this.keywords.get(index));
-        return result;
+        Keyword[] removed = filmKeywords.take(id);
+        if (removed == null) return false;
+        mostKeywords.remove(id);
+        for (Keyword keyword : removed) unindex(id, keyword.getID());
+        return true;
     }
 
     @Override
     public boolean removeKeywordFromFilm(int id, int keywordID) {
-        for (int i = 0; i < this.id.size(); i++) {
-            if(this.id.get(i) == id) {
-                int indexToRemove = -1;
-                for (int j = 0; j < this.keywords.get(i).length; j++) {
-                    if(this.keywords.get(i)[j].getID() == keywordID) {
-                        indexToRemove = j;
-                        break;
-                    }
-                }
-                if (indexToRemove >=0) {
-                    Keyword[] tmp = new Keyword[this.keywords.get(i).length-1];
-                    int counter = 0;
-                    for (int j = 0; j < this.keywords.get(i).length; j++) {
-                        if (j == indexToRemove) {
-                            continue;
-                        }
-                        tmp[counter] = this.keywords.get(i)[j];
-                        counter++;
-                    }
-
-                    this.keywords.set(i, tmp);
-                }
-                return true;
+        Keyword[] current = filmKeywords.get(id);
+        if (current == null) return false;
+        int indexToRemove = -1;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].getID() == keywordID) {
+                indexToRemove = i;
+                break;
             }
         }
-        return false;
+        if (indexToRemove >= 0) {
+            Keyword[] tmp = new Keyword[current.length - 1];
+            System.arraycopy(current, 0, tmp, 0, indexToRemove);
+            System.arraycopy(current, indexToRemove + 1, tmp, indexToRemove, tmp.length - indexToRemove);
+            filmKeywords.take(id);
+            filmKeywords.put(id, tmp); // The film stays listed even with no keywords left, as it did before.
+            mostKeywords.update(id, tmp.length);
+            unindex(id, keywordID);
+        }
+        return true;
     }
 
     @Override
     public int[] getFilmIDs() {
-        int[] result = new int[id.size()];
-        for (int i = 0; i < id.size(); i++) {
-            result[i] = id.get(i);
-        }
-        return result;
+        return filmKeywords.keyList();
     }
 
     @Override
     public int[] getKeywordIDs(){
-        int[] uniqueKeyword = new int[unique.size()];
-
-        for (int i = 0; i < unique.size(); i++) {
-            uniqueKeyword[i] = unique.get(i).getID();
-        }
-
-        return uniqueKeyword;
+        return dictionary.keyList();
     }
 
     @Override
     public int[] getFilmsWithKeyword(int keywordID) {
-        MyArrayList<Integer> tmp = new MyArrayList<>();
-        for (int i = 0; i < this.id.size(); i++) {
-            for (int j = 0; j < this.keywords.get(i).length; j++) {
-                if (keywordID == this.keywords.get(i)[j].getID()) {
-                    tmp.add(this.id.get(i));
-                    break;
-                }
-            }
-        }
-
-        int[] result = new int[tmp.size()];
-        for (int i = 0; i < result.length; i++) {
-            result[i] = tmp.get(i);
-        }
-        return result;
+        SortedIntSet films = keywordFilms.get(keywordID);
+        return films == null ? new int[0] : films.toArray();
     }
 
     @Override
     public Keyword[] getKeywordsForFilm(int id) {
-        int index = this.id.indexOf(id);
-
-        if (index < 0 || index > size()) {
-            return null;
-        }
-        return keywords.get(index);
+        return filmKeywords.get(id);
     }
 
     @Override
     public Keyword[] getUnique() {
-        Keyword[] uniqueKeyword = new Keyword[unique.size()];
-
-        for (int i = 0; i < unique.size(); i++) {
-            uniqueKeyword[i] = unique.get(i);
-        }
-
+        Keyword[] uniqueKeyword = new Keyword[dictionary.size()];
+        int i = 0;
+        for (int slot = dictionary.nextSlot(0); slot >= 0; slot = dictionary.nextSlot(slot + 1)) uniqueKeyword[i++] = dictionary.valueAt(slot);
         return uniqueKeyword;
     }
 
     @Override
     public int size() {
-        return keywords.size();
+        return filmKeywords.size();
     }
 
+    // Searches the dictionary, so each matching keyword is returned once however many films carry it.
+    // The name index ignores case, so its candidates are checked against the name as given.
     @Override
     public Keyword[] findKeywords(String keyword) {
         MyArrayList<Keyword> tmpResult = new MyArrayList<>();
-        for (int i = 0; i < keywords.size(); i++) {
-            for (int j = 0; j < keywords.get(i).length; j++) {
-                if (keywords.get(i)[j].getName().contains(keyword)) {
-                    tmpResult.add(keywords.get(i)[j]);
-                }
+        int[] candidates = keyword == null ? null : names.candidates(SubstringIndex.fold(keyword));
+        if (candidates == null) { // Nothing to narrow by, every keyword is checked.
+            for (int slot = dictionary.nextSlot(0); slot >= 0; slot = dictionary.nextSlot(slot + 1)) {
+                if (dictionary.valueAt(slot).getName().contains(keyword)) tmpResult.add(dictionary.valueAt(slot));
+            }
+        } else {
+            for (int id : candidates) {
+                Keyword candidate = dictionary.get(id);
+                if (candidate != null && candidate.getName().contains(keyword)) tmpResult.add(candidate);
             }
         }
 
         Keyword[] result = new Keyword[tmpResult.size()];
-
         for (int i = 0; i < result.length; i++) {
             result[i] = tmpResult.get(i);
         }
-
         return result;
     }
-    
 
     @Override
     public int[] getMostKeywordFilms(int numResults) {
-        int[] results = new int[numResults];
-        int[] keywordCount = new int[numResults];
-
-        for (int i = 0; i < id.size(); i++) {
-            int currentID = id.get(i);
-            int currentNumKeywords = keywords.get(i).length;
-            for (int j = 0 ; j < results.length; j++) {
-                if (keywordCount[j] == 0) {
-                    results[j] = currentID;
-                    keywordCount[j] = currentNumKeywords;
-                    break;
-                } else if (keywordCount[j] < currentNumKeywords) {
-                    for (int k = (results.length-1); k > j; k--) {
-                        results[k] = results[k-1];
-                        keywordCount[k] = keywordCount[k-1];
-                    }
-                    results[j] = currentID;
-                    keywordCount[j] = currentNumKeywords;
-                    break;
-                }
-            }
-        }
-
-        return results;
+        return mostKeywords.top(numResults);
     }
 }
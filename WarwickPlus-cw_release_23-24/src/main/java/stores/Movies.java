@@ -9,8 +9,10 @@ import structures.*;
 public class Movies implements IMovies{
     Stores stores;
     private HashMap<MovieInfoData> movieInfo;
-    private TreeMap timeTreeMap;
+    private ReleaseIndex releaseIndex;
     private HashMap<CollectionData> collectionInfo;
+    private SubstringIndex textIndex; // Positional, over the title, original title and overview, for findFilms.
+    private TextIndex rankedIndex; // Title, original title, tagline and overview, for findFilmsRanked.
     /**
      * The constructor for the Movies data store. This is where you should
      * initialise your data structures.
@@ -20,10 +22,18 @@ public class Movies implements IMovies{
     public Movies(Stores stores) {
         this.stores = stores;
         movieInfo = new HashMap<>();
-        timeTreeMap = new TreeMap();
+        releaseIndex = new ReleaseIndex();
         collectionInfo = new HashMap<>();
+        textIndex = new SubstringIndex(true);
+        rankedIndex = new TextIndex(rankedFieldWeights, rankedPriorWeight);
     }
 
+    // A term counts three times in a title and more in a tagline than deep in an overview. The prior,
+    // from popularity and votes, adds at most about what one rare word matching in an overview does,
+    // so it orders films that match equally well rather than outweighing the text.
+    private static final float[] rankedFieldWeights = {3f, 2f, 1.5f, 1f};
+    private static final double rankedPriorWeight = 2.0;
+
     /**
      * Adds data about a film to the data structure
      * 
@@ -53,11 +63,24 @@ public class Movies implements IMovies{
     public boolean add(int id, String title, String originalTitle, String overview, String tagline, String status, Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage, double runtime, String homepage, boolean adult, boolean video, String poster) {
         if (movieInfo.get(id) != null) return false;
         movieInfo.put(id, new MovieInfoData(id, title, originalTitle, overview, tagline, status, genres, release, budget, revenue, languages, originalLanguage, runtime, homepage, adult, video, poster));
-        if (release != null) timeTreeMap.put(release, id);
+        releaseIndex.put(release, id);
+        textIndex.add(id, searchText(title, originalTitle, overview));
+        rankedIndex.add(id, rankedFields(title, originalTitle, tagline, overview));
 
         return true;
     }
 
+    /**
+     * Makes room for a number of films in total, so that loading them does
+     * not resize the film maps along the way
+     *
+     * @param expectedFilms The number of films the store is expected to hold
+     */
+    @Override
+    public void ensureCapacity(int expectedFilms) {
+        movieInfo.ensureCapacity(expectedFilms);
+    }
+
     /**
      * Removes a film from the data structure, and any data
      * added through this class related to the film
@@ -69,7 +92,9 @@ public class Movies implements IMovies{
     public boolean remove(int id) {
         MovieInfoData holder = movieInfo.get(id);
         if (holder != null) {
-            timeTreeMap.take(holder.getRelease(), id);
+            releaseIndex.take(holder.getRelease(), id);
+            textIndex.remove(id);
+            rankedIndex.remove(id, rankedFields(holder.getTitle(), holder.getOriginalTitle(), holder.getTagline(), holder.getOverview()));
             movieInfo.take(id); 
             return true;
         }
@@ -97,10 +122,26 @@ public class Movies implements IMovies{
      */
     @Override
     public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end) {
-        if (timeTreeMap == null)return new int[0];
-        LinkedList<Integer> movieIdList = timeTreeMap.getMovieIdsInRange(start, end);
-        if (movieIdList == null) return new int[0];
-        return movieIdList.getValues();
+        if (start == null || end == null) return new int[0];
+        return releaseIndex.getMovieIdsInRange(start, end);
+    }
+
+    /**
+     * Finds at most limit films released within a given range, ordered by
+     * release date
+     * 
+     * @param start       The start point of the range of dates
+     * @param end         The end point of the range of dates
+     * @param limit       The maximum number of film IDs to return
+     * @param newestFirst TRUE to start from the latest release, FALSE to start
+     *                    from the earliest
+     * @return An array of film IDs that were released between start and end, in
+     *         release order
+     */
+    @Override
+    public int[] getIDsReleasedInRange(LocalDate start, LocalDate end, int limit, boolean newestFirst) {
+        if (start == null || end == null || limit <= 0) return new int[0];
+        return releaseIndex.getMovieIdsInRange(start, end, limit, newestFirst);
     }
 
     /**
@@ -330,6 +371,7 @@ public class Movies implements IMovies{
         MovieInfoData setVote = movieInfo.get(id);
         if (setVote == null) return false;
         setVote.setVote(voteAverage, voteCount);
+        rankedIndex.setPrior(id, prior(setVote));
         return true;
     }
 
@@ -385,7 +427,7 @@ public class Movies implements IMovies{
             collection = new CollectionData(filmID, collectionName, collectionPosterPath, collectionBackdropPath);
             collectionInfo.put(collectionID, collection);
         } else {
-            LinkedList<Integer> filmList = collection.getFilmStore();
+            IntArrayList filmList = collection.getFilmStore();
             if (filmList == null) {
                 collection.filmAdd(filmID);
             }
@@ -407,7 +449,7 @@ public class Movies implements IMovies{
     public int[] getFilmsInCollection(int collectionID) {
         CollectionData collectionData = collectionInfo.get(collectionID);
         if (collectionData == null || collectionData.getFilmStore() == null) return new int[0];
-        return collectionData.getFilmStore().getValues();
+        return collectionData.getFilmStore().toArray();
     }
 
     /**
@@ -507,6 +549,7 @@ public class Movies implements IMovies{
         MovieInfoData preventlookup = movieInfo.get(id);
         if (preventlookup == null) return false;
         preventlookup.setPopularity(popularity);
+        rankedIndex.setPrior(id, prior(preventlookup));
         return true;
     }
 
@@ -607,20 +650,79 @@ public class Movies implements IMovies{
     @Override
     public int[] findFilms(String searchTerm) {
         if (searchTerm == null || searchTerm.isEmpty()) return new int[0];
-    
-        MovieInfoData[] movieStore = movieInfo.movieInfoList();
-        LinkedList<Integer> matchingMovieIds = new LinkedList<>();
-    
-        for (int i = 0; i < movieStore.length; i++) {
-            if (movieStore[i].getTitle() != null && movieStore[i].getTitle().toLowerCase().contains(searchTerm.toLowerCase())) { // Assumes case insensitivity.
-                matchingMovieIds.add(movieStore[i].getId());
-            }
-        }
-    
-        if (matchingMovieIds.getSize() == 0) return new int[0];
-        int[] foundFilms = matchingMovieIds.getValues();
-        return foundFilms;
+        String folded = SubstringIndex.fold(searchTerm); // Assumes case insensitivity.
+        if (folded.indexOf('\0') >= 0) return new int[0];
+        return textIndex.find(folded);
     }
 
-}
+    // The searchable fields of a film, folded and joined by '\0', which is a separator to the index and
+    // never part of a query, so no match spans two fields. The original title is left out when it
+    // repeats the title.
+    private static String searchText(String title, String originalTitle, String overview) {
+        StringBuilder text = new StringBuilder();
+        if (title != null) text.append(title);
+        if (originalTitle != null && !originalTitle.equals(title)) text.append('\0').append(originalTitle);
+        if (overview != null) text.append('\0').append(overview);
+        return SubstringIndex.fold(text.toString());
+    }
+
+    /**
+     * Ranks the films matching any word of a query by how well they match,
+     * weighing words in the title above the tagline and the overview, and
+     * breaking close calls by popularity and votes. Text in double quotes must
+     * appear as a phrase
+     * 
+     * @param query The words to search for
+     * @param limit The maximum number of films to return
+     * @return An array of at most limit movie IDs, best match first. If no films
+     *         match, then an empty array should be returned
+     */
+    @Override
+    public int[] findFilmsRanked(String query, int limit) {
+        return rankedIndex.search(query, limit);
+    }
+
+    /**
+     * Searches films the way the search screen shows them: the best ranked
+     * matches of findFilmsRanked first, followed by every other film that
+     * findFilms matches, so that fragments of words are still found
+     * 
+     * @param query The words to search for
+     * @param limit The maximum number of ranked films to put first
+     * @return An array of movie IDs, the ranked matches best first and then
+     *         the remaining findFilms matches in ascending order of ID, each
+     *         film once. If no films match, then an empty array should be
+     *         returned
+     */
+    @Override
+    public int[] searchFilms(String query, int limit) {
+        int[] ranked = findFilmsRanked(query, limit);
+        int[] contained = findFilms(query);
+        IntIntHashMap seen = new IntIntHashMap(ranked.length, -1);
+        for (int id : ranked) seen.put(id, 0);
+        int[] result = new int[ranked.length + contained.length];
+        System.arraycopy(ranked, 0, result, 0, ranked.length);
+        int found = ranked.length;
+        for (int id : contained) if (!seen.containsKey(id)) result[found++] = id;
+        if (found == result.length) return result;
+        int[] trimmed = new int[found];
+        System.arraycopy(result, 0, trimmed, 0, found);
+        return trimmed;
+    }
 
+    // The fields indexed for findFilmsRanked, in the order of rankedFieldWeights. The original title is
+    // left out when it repeats the title.
+    private static String[] rankedFields(String title, String originalTitle, String tagline, String overview) {
+        return new String[] {title, originalTitle != null && originalTitle.equals(title) ? null : originalTitle, tagline, overview};
+    }
+
+    // Popularity and votes mapped into [0, 1]. Both saturate: popularity is halfway at 10, and the vote
+    // average is scaled by count / (count + 50), so a few perfect votes count for little.
+    private static double prior(MovieInfoData film) {
+        double popularity = Math.max(film.getPopularity(), 0);
+        double votes = Math.max(film.getVoteCount(), 0);
+        double vote = Math.max(film.getVoteAverage(), 0) / 10 * votes / (votes + 50);
+        return 0.5 * popularity / (popularity + 10) + 0.5 * Math.min(vote, 1);
+    }
+
+}
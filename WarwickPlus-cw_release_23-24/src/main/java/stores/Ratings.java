@@ -1,15 +1,63 @@
 package stores;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.time.ZoneOffset;
 import interfaces.IRatings;
 import structures.*;
 
 public class Ratings implements IRatings {
     Stores stores;
-    private HashMap<RatingInfo> userRatingsMap;
-    private HashMap<RatingInfo> movieRatingsMap;
+
+    // Ratings are stored column-wise, row i is (rowUser[i], rowMovie[i], rowRating[i], rowTime[i]).
+    // Users and movies are numbered densely in order of first appearance, and rows refer to them by that number.
+    // Rows [0, compacted) are sorted by user and then movie, so a user's ratings are one slice (users.offsets)
+    // and movies.order lists the same rows grouped by movie and sorted by time. users.timeOrder lists them grouped
+    // by user and sorted by time, so a time window of either is found by binary search over its slice.
+    // Rows [compacted, rowCount) are an append buffer, chained per user and per movie, which is merged into
+    // the sorted region once it reaches half its size, so each row is re-sorted O(1) times on average.
+    // A rating is kept as tenths of a star in a byte, a removed row stays in place as a tombstone until the next compaction.
+
+    private int[] rowUser;
+    private int[] rowMovie;
+    private byte[] rowRating;
+    private int[] rowTime; // Epoch seconds (UTC), the same clock the ratings file uses.
+    private int rowCount = 0;
+    private int compacted = 0;
+    private int tombstones = 0;
+    private static final byte removed = -1;
+    private static final int minBuffer = 1 << 12; // Small stores are not worth compacting.
+
+    private final Side users = new Side();
+    private final Side movies = new Side();
+    private Leaderboard moviesByCount; // Brought up to date before each top N query, so they never rescan the ratings.
+    private Leaderboard usersByCount;
+    private Leaderboard moviesByAverage;
+    private TrendIndex movieTrends; // Daily rating counts of the last month and decayed scores, per movie.
+    private Leaderboard[] trendingMovies; // By decayed score, one per entry of trendDays.
+    private int[] trendReaders; // Each trending list's reader of movieChanges.
+    private ChangeLog movieChanges; // Movies rated or unrated, for the rankings refreshed only when they are read.
+    private MyArrayList<WeightedBoard> weightedBoards; // One per minimum votes asked for, the oldest replaced past maxWeightedBoards.
+    private int weightedQueries = 0;
+    private long tenthsTotal = 0; // Sum of every rating, for the mean the weighted rankings pull towards.
+    private ItemSimilarity similarMovies; // Made by the first query for similar movies.
+    private int similarReader; // Its reader of movieChanges.
+    private final MatrixRows matrixRows = new MatrixRows();
+    private FactorModel recommender; // Made by resetRecommender or loadRecommender.
     private int size;
+    private static final int[] trendDays = {1, 7, 30}; // Time constants of the trending lists, in days.
+    private static final int secondsPerDay = 86_400;
+    private static final int maxWeightedBoards = 8;
+    private static final double meanTolerance = 0.01; // Stars the global mean may drift before a weighted ranking is redone.
+    private static final int similarKept = 20; // Similar movies kept per movie.
+    private static final int recommenderMagic = 0x57505246; // "WPRF", first in a saved recommender.
+    private static final int recommenderVersion = 1;
 
     /**
      * The constructor for the Ratings data store. This is where you should
@@ -19,15 +67,31 @@ public class Ratings implements IRatings {
      */
     public Ratings(Stores stores) {
         this.stores = stores;
-        userRatingsMap = new HashMap<>();
-        movieRatingsMap = new HashMap<>();
+        rowUser = new int[16];
+        rowMovie = new int[16];
+        rowRating = new byte[16];
+        rowTime = new int[16];
+        moviesByCount = new Leaderboard();
+        usersByCount = new Leaderboard();
+        moviesByAverage = new Leaderboard();
+        double[] taus = new double[trendDays.length];
+        trendingMovies = new Leaderboard[trendDays.length];
+        trendReaders = new int[trendDays.length];
+        movieChanges = new ChangeLog();
+        for (int w = 0; w < trendDays.length; w++) {
+            taus[w] = trendDays[w] * (double) secondsPerDay;
+            trendingMovies[w] = new Leaderboard();
+            trendReaders[w] = movieChanges.reader();
+        }
+        weightedBoards = new MyArrayList<>();
+        movieTrends = new TrendIndex(secondsPerDay, trendDays[trendDays.length - 1], taus);
         size = 0;
     }
 
     /**
      * Adds a rating to the data structure. The rating is made unique by its user ID
      * and its movie ID
-     * 
+     *
      * @param userID    The user ID
      * @param movieID   The movie ID
      * @param rating    The rating gave to the film by this user (between 0 and 5
@@ -37,61 +101,359 @@ public class Ratings implements IRatings {
      */
 
     @Override
-    public boolean add(int userid, int movieid, float rating, LocalDateTime timestamp) {    
-        RatingInfo userRatingInfo = userRatingsMap.get(userid);
-        if (userRatingInfo == null) {
-            userRatingInfo = new RatingInfo();
-            userRatingsMap.put(userid, userRatingInfo);
-            userRatingsMap.get(userid).setMovieID(userid);
-        }
-       
-        RatingInfo movieRatingInfo = movieRatingsMap.get(movieid);
-        if (movieRatingInfo == null) {
-            movieRatingInfo = new RatingInfo();
-            movieRatingsMap.put(movieid, movieRatingInfo);
-            movieRatingsMap.get(movieid).setMovieID(movieid);
-        }
-        if(!(userRatingInfo.addRating(rating, movieid, timestamp) && movieRatingInfo.addRating(rating, userid, timestamp)))return false;
+    public boolean add(int userid, int movieid, float rating, LocalDateTime timestamp) {
+        int tenths = Math.round(rating * 10);
+        if (tenths < 0 || tenths > 50) return false;
+        int user = users.denseOf.get(userid);
+        int movie = movies.denseOf.get(movieid);
+        if (user >= 0 && movie >= 0 && findRow(user, movie) >= 0) return false;
+        if (user < 0) user = users.add(userid);
+        if (movie < 0) movie = movies.add(movieid);
+
+        if (rowCount == rowUser.length) growRows(rowCount + 1);
+        int row = rowCount++;
+        rowUser[row] = user;
+        rowMovie[row] = movie;
+        rowRating[row] = (byte) tenths;
+        rowTime[row] = timestamp == null ? 0 : epochOf(timestamp);
+        users.link(user, row, compacted);
+        movies.link(movie, row, compacted);
+        users.tally(user, tenths, 1);
+        movies.tally(movie, tenths, 1);
+        movieChanged(movie, movieTrends.record(movie, rowTime[row], 1));
+        tenthsTotal += tenths;
         size++;
+        users.markDirty(user);
+        movies.markDirty(movie);
+
+        if (rowCount - compacted >= Math.max(minBuffer, compacted >> 1)) compact();
         return true;
     }
 
-    
+    /**
+     * Adds many ratings at once, as add does for each in turn. A large batch
+     * is appended without checking for ratings already made and sorted into
+     * place once at the end, where any repeated user and movie pairs are
+     * dropped, so it costs one sort rather than a lookup per rating and a
+     * compaction each time the buffer fills
+     *
+     * @param userIDs    The user ID of each rating
+     * @param movieIDs   The movie ID of each rating
+     * @param ratings    The rating of each, between 0 and 5 inclusive
+     * @param timestamps The time each rating was made
+     * @return The number of ratings added. A rating out of range, or for a
+     *         movie the user has already rated, in the store or earlier in the
+     *         batch, is not added. If the arrays differ in length, nothing is
+     *         added
+     */
+    @Override
+    public int addAll(int[] userIDs, int[] movieIDs, float[] ratings, LocalDateTime[] timestamps) {
+        if (userIDs == null || movieIDs == null || ratings == null || timestamps == null) return 0;
+        int n = userIDs.length;
+        if (movieIDs.length != n || ratings.length != n || timestamps.length != n) return 0;
+        int added = 0;
+        if (n < Math.max(minBuffer, compacted >> 1)) { // Too few to be worth sorting the whole store again.
+            for (int i = 0; i < n; i++) if (add(userIDs[i], movieIDs[i], ratings[i], timestamps[i])) added++;
+            return added;
+        }
+
+        int before = size;
+        if (rowCount + n > rowUser.length) growRows(rowCount + n);
+        int user = -1;
+        for (int i = 0; i < n; i++) {
+            int tenths = Math.round(ratings[i] * 10);
+            if (tenths < 0 || tenths > 50) continue;
+            if (user < 0 || users.ids[user] != userIDs[i]) { // The ratings file lists each user's ratings together.
+                user = users.denseOf.get(userIDs[i]);
+                if (user < 0) user = users.add(userIDs[i]);
+            }
+            int movie = movies.denseOf.get(movieIDs[i]);
+            if (movie < 0) movie = movies.add(movieIDs[i]);
+
+            int row = rowCount++; // Left out of the buffer chains, compact indexes it before anything reads them.
+            rowUser[row] = user;
+            rowMovie[row] = movie;
+            rowRating[row] = (byte) tenths;
+            rowTime[row] = timestamps[i] == null ? 0 : epochOf(timestamps[i]);
+            users.tally(user, tenths, 1);
+            movies.tally(movie, tenths, 1);
+            movieTrends.record(movie, rowTime[row], 1);
+            tenthsTotal += tenths;
+            size++;
+            users.markDirty(user);
+            movies.markDirty(movie);
+        }
+        movieChanges.invalidate(); // Most movies changed, each ranking is redone once rather than read change by change.
+        compact();
+        return size - before;
+    }
+
+    // Moves the totals of every user and movie changed since the last call onto the leaderboards, O(log n) each.
+    // A movie rated a thousand times between two queries costs one leaderboard update rather than a thousand.
+    private void refreshLeaderboards() {
+        for (int i = 0; i < users.dirty.size(); i++) {
+            int user = users.dirty.get(i);
+            users.isDirty[user] = false;
+            if (users.count[user] == 0) usersByCount.remove(users.ids[user]);
+            else usersByCount.update(users.ids[user], users.count[user]);
+        }
+        users.dirty.clear();
+
+        for (int i = 0; i < movies.dirty.size(); i++) {
+            int movie = movies.dirty.get(i);
+            movies.isDirty[movie] = false;
+            if (movies.count[movie] == 0) {
+                moviesByCount.remove(movies.ids[movie]);
+                moviesByAverage.remove(movies.ids[movie]);
+            } else {
+                moviesByCount.update(movies.ids[movie], movies.count[movie]);
+                moviesByAverage.update(movies.ids[movie], movies.average(movie));
+            }
+        }
+        movies.dirty.clear();
+    }
+
+    // Notes a change to a movie's ratings. A rescale of the decayed scores moves every movie at once,
+    // so then every ranking read from movieChanges starts again.
+    private void movieChanged(int movie, boolean rescaled) {
+        if (rescaled) movieChanges.invalidate();
+        movieChanges.add(movie);
+    }
+
+    // Brings one trending list up to date with the changes since it was last asked for. Each list is
+    // refreshed only when it is read, so a stream of ratings costs each list one update per movie
+    // changed between two of its queries.
+    private void refreshTrending(int w) {
+        int reader = trendReaders[w];
+        if (movieChanges.needsRebuild(reader)) { // Rare, the reference time only moves every few hundred days of ratings.
+            for (int movie = 0; movie < movies.size; movie++) rerankTrending(w, movie);
+        } else {
+            for (int i = movieChanges.from(reader); i < movieChanges.size(); i++) rerankTrending(w, movieChanges.get(i));
+        }
+        movieChanges.caughtUp(reader);
+    }
+
+    private void rerankTrending(int w, int movie) {
+        if (movies.count[movie] == 0) trendingMovies[w].remove(movies.ids[movie]);
+        else trendingMovies[w].update(movies.ids[movie], movieTrends.score(w, movie));
+    }
+
+    // The weighted ranking for a minimum number of votes, made and brought up to date. Changed movies
+    // are re-scored against the mean the ranking was built with, and the whole ranking is redone
+    // only once the global mean has drifted more than meanTolerance from it, which on a growing store
+    // happens a handful of times rather than on every query.
+    private WeightedBoard weightedBoard(int minVotes) {
+        WeightedBoard board = null;
+        for (int i = 0; i < weightedBoards.size(); i++) if (weightedBoards.get(i).minVotes == minVotes) board = weightedBoards.get(i);
+        if (board == null) {
+            if (weightedBoards.size() < maxWeightedBoards) {
+                board = new WeightedBoard(movieChanges.reader());
+                weightedBoards.add(board);
+            } else { // Takes over the least recently asked for, which starts again from scratch.
+                board = weightedBoards.get(0);
+                for (int i = 1; i < weightedBoards.size(); i++) if (weightedBoards.get(i).lastQuery < board.lastQuery) board = weightedBoards.get(i);
+                board.ranking.clear();
+                board.mean = Double.NaN;
+            }
+            board.minVotes = minVotes;
+        }
+        board.lastQuery = ++weightedQueries;
+
+        double mean = size == 0 ? 0 : tenthsTotal / (size * 10.0);
+        if (movieChanges.needsRebuild(board.reader) || !(Math.abs(mean - board.mean) <= meanTolerance)) {
+            board.mean = mean;
+            for (int movie = 0; movie < movies.size; movie++) rerankWeighted(board, movie);
+        } else {
+            for (int i = movieChanges.from(board.reader); i < movieChanges.size(); i++) rerankWeighted(board, movieChanges.get(i));
+        }
+        movieChanges.caughtUp(board.reader);
+        return board;
+    }
+
+    // (sum + m * mean) / (count + m), the movie's average pulled towards the mean by m phantom votes.
+    private void rerankWeighted(WeightedBoard board, int movie) {
+        int votes = movies.count[movie];
+        if (votes == 0 || votes < board.minVotes) {
+            board.ranking.remove(movies.ids[movie]);
+            return;
+        }
+        double score = (movies.tenthsSum[movie] / 10.0 + board.minVotes * board.mean) / (votes + board.minVotes);
+        board.ranking.update(movies.ids[movie], score);
+    }
+
+    // Brings the similar movie lists up to date with the movies rated or unrated since they were last
+    // asked for, recomputing only those movies' rows unless many changed. The first query builds them.
+    private void refreshSimilar() {
+        if (similarMovies == null) {
+            similarMovies = new ItemSimilarity(similarKept);
+            similarReader = movieChanges.reader();
+        }
+        if (movieChanges.needsRebuild(similarReader)) {
+            similarMovies.rebuild(matrixRows);
+        } else {
+            IntArrayList changed = new IntArrayList();
+            for (int i = movieChanges.from(similarReader); i < movieChanges.size(); i++) changed.add(movieChanges.get(i));
+            similarMovies.update(matrixRows, changed);
+        }
+        movieChanges.caughtUp(similarReader);
+    }
+
+    // Row holding the live rating of user for movie (dense numbers), or -1.
+    private int findRow(int user, int movie) {
+        if (user < users.offsets.length - 1) { // A user's sorted slice is searched by movie.
+            int low = users.offsets[user], high = users.offsets[user + 1] - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (rowMovie[mid] < movie) low = mid + 1;
+                else if (rowMovie[mid] > movie) high = mid - 1;
+                else {
+                    if (rowRating[mid] != removed) return mid;
+                    break; // Removed, but it may have been re-added since, so check the buffer too.
+                }
+            }
+        }
+        if (users.bufferCount[user] <= movies.bufferCount[movie]) { // Walks whichever buffer chain is shorter.
+            for (int row = users.head[user]; row >= 0; row = users.next[row - compacted]) {
+                if (rowMovie[row] == movie && rowRating[row] != removed) return row;
+            }
+        } else {
+            for (int row = movies.head[movie]; row >= 0; row = movies.next[row - compacted]) {
+                if (rowUser[row] == user && rowRating[row] != removed) return row;
+            }
+        }
+        return -1;
+    }
+
+    private void growRows(int minCapacity) {
+        int newCapacity = Math.max(rowUser.length + (rowUser.length >> 1) + 1, minCapacity);
+        int[] tmpUser = new int[newCapacity];
+        int[] tmpMovie = new int[newCapacity];
+        byte[] tmpRating = new byte[newCapacity];
+        int[] tmpTime = new int[newCapacity];
+        System.arraycopy(rowUser, 0, tmpUser, 0, rowCount);
+        System.arraycopy(rowMovie, 0, tmpMovie, 0, rowCount);
+        System.arraycopy(rowRating, 0, tmpRating, 0, rowCount);
+        System.arraycopy(rowTime, 0, tmpTime, 0, rowCount);
+        rowUser = tmpUser;
+        rowMovie = tmpMovie;
+        rowRating = tmpRating;
+        rowTime = tmpTime;
+    }
+
+    // Drops tombstones, sorts every live row by (user, movie) and rebuilds both row indexes, emptying the buffer.
+    // Rows repeating a pair are only left by addAll, the sort is stable so the first made is the one kept.
+    private void compact() {
+        int[] rows = new int[size];
+        long[] keys = new long[size];
+        int live = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (rowRating[row] == removed) continue;
+            rows[live] = row;
+            keys[live] = ((long) rowUser[row] << 32) | rowMovie[row];
+            live++;
+        }
+        Sort.sortIdsByKey(rows, keys);
+
+        int capacity = live + minBuffer;
+        int[] newUser = new int[capacity];
+        int[] newMovie = new int[capacity];
+        byte[] newRating = new byte[capacity];
+        int[] newTime = new int[capacity];
+        int kept = 0;
+        for (int i = 0; i < live; i++) {
+            int row = rows[i];
+            if (i > 0 && keys[i] == keys[i - 1]) {
+                dropRepeat(row);
+                continue;
+            }
+            newUser[kept] = rowUser[row];
+            newMovie[kept] = rowMovie[row];
+            newRating[kept] = rowRating[row];
+            newTime[kept] = rowTime[row];
+            kept++;
+        }
+        if (kept < live) { // Repeats were dropped, the scratch arrays are cut to the rows kept.
+            rows = new int[kept];
+            keys = new long[kept];
+            live = kept;
+        }
+        rowUser = newUser;
+        rowMovie = newMovie;
+        rowRating = newRating;
+        rowTime = newTime;
+        rowCount = live;
+        compacted = live;
+        tombstones = 0;
+
+        int[] userTimeOrder = new int[live];
+        for (int i = 0; i < live; i++) {
+            userTimeOrder[i] = i;
+            keys[i] = ((long) rowUser[i] << 32) | timeKey(rowTime[i]);
+        }
+        Sort.sortIdsByKey(userTimeOrder, keys);
+        users.index(rowUser, live, null, userTimeOrder);
+        int[] movieOrder = rows; // Reuses the scratch arrays for the movie grouping.
+        for (int i = 0; i < live; i++) {
+            movieOrder[i] = i;
+            keys[i] = ((long) rowMovie[i] << 32) | timeKey(rowTime[i]);
+        }
+        Sort.sortIdsByKey(movieOrder, keys);
+        movies.index(rowMovie, live, movieOrder, movieOrder);
+    }
+
+    // Takes a repeated rating back out of the totals addAll put it in.
+    private void dropRepeat(int row) {
+        int tenths = rowRating[row];
+        users.tally(rowUser[row], tenths, -1);
+        movies.tally(rowMovie[row], tenths, -1);
+        movieTrends.record(rowMovie[row], rowTime[row], -1);
+        tenthsTotal -= tenths;
+        size--;
+    }
+
+    // Flipped sign keeps times ordered as unsigned, for the low half of a sort key.
+    private static long timeKey(int time) {
+        return (time ^ 0x80000000) & 0xFFFFFFFFL;
+    }
+
+    private static int epochOf(LocalDateTime time) {
+        return (int) time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    // A window bound in epoch seconds, clamped to the range rowTime can hold.
+    private static long boundOf(LocalDateTime time) {
+        return Math.max(Integer.MIN_VALUE, Math.min(time.toEpochSecond(ZoneOffset.UTC), Integer.MAX_VALUE + 1L));
+    }
 
     /**
      * Removes a given rating, using the user ID and the movie ID as the unique
      * identifier
-     * 
+     *
      * @param userID  The user ID
      * @param movieID The movie ID
      * @return TRUE if the data was removed successfully, FALSE otherwise
      */
     @Override
     public boolean remove(int userid, int movieid) {
-        boolean removedFromUserMap = false;
-        RatingInfo userRatingsInfo = userRatingsMap.get(userid);
-        if (userRatingsInfo != null) {
-            removedFromUserMap = userRatingsInfo.removeRating(movieid);
-    
-            if (userRatingsInfo.isEmpty()) {
-                userRatingsMap.take(userid);
-            }
-        }
-    
-        boolean removedFromMovieMap = false;
-        RatingInfo movieRatingInfo = movieRatingsMap.get(movieid);
-        if (movieRatingInfo != null) {
-            removedFromMovieMap = movieRatingInfo.removeRating(userid);
-    
-            if (movieRatingInfo.isEmpty()) {
-                movieRatingsMap.take(movieid);
-            }
-        }
-        if (removedFromUserMap && removedFromMovieMap){
-            size--;
-            return true;
-        }
-        else return false;
+        int user = users.denseOf.get(userid);
+        int movie = movies.denseOf.get(movieid);
+        if (user < 0 || movie < 0) return false;
+        int row = findRow(user, movie);
+        if (row < 0) return false;
+
+        int tenths = rowRating[row];
+        rowRating[row] = removed;
+        tombstones++;
+        users.tally(user, tenths, -1);
+        movies.tally(movie, tenths, -1);
+        movieChanged(movie, movieTrends.record(movie, rowTime[row], -1));
+        tenthsTotal -= tenths;
+        size--;
+        users.markDirty(user);
+        movies.markDirty(movie);
+
+        if (tombstones >= Math.max(minBuffer, size)) compact(); // Mostly dead rows, reclaim them.
+        return true;
     }
 
     /**
@@ -99,7 +461,7 @@ public class Ratings implements IRatings {
      * user have already rated the given movie, the new data should overwrite the
      * existing rating. However, if the given user has not already rated the given
      * movie, then this rating should be added to the data structure
-     * 
+     *
      * @param userID    The user ID
      * @param movieID   The movie ID
      * @param rating    The new rating to be given to the film by this user (between
@@ -109,73 +471,101 @@ public class Ratings implements IRatings {
      */
     @Override
     public boolean set(int userid, int movieid, float rating, LocalDateTime timestamp) {
-        RatingInfo movieRatingInfo = movieRatingsMap.get(movieid);
-        if (movieRatingInfo.ratedByUsers(userid)){
-            remove(userid, movieid);
-        }
-        add(userid, movieid, rating, timestamp);
-        return true;
+        int tenths = Math.round(rating * 10);
+        if (tenths < 0 || tenths > 50) return false;
+        remove(userid, movieid);
+        return add(userid, movieid, rating, timestamp);
     }
 
     /**
      * Get all the ratings for a given film
-     * 
+     *
      * @param movieID The movie ID
      * @return An array of ratings. If there are no ratings or the film cannot be
      *         found, then return an empty array
      */
     @Override
     public float[] getMovieRatings(int movieid) {
-        RatingInfo movieRatingInfo = movieRatingsMap.get(movieid);
-        if (movieRatingInfo == null) return new float[0];
-        return movieRatingInfo.getRatingsValues();
+        return ratingsOf(movies, movies.denseOf.get(movieid));
     }
 
     /**
      * Get all the ratings for a given user
-     * 
+     *
      * @param userID The user ID
      * @return An array of ratings. If there are no ratings or the user cannot be
      *         found, then return an empty array
      */
     @Override
     public float[] getUserRatings(int userid) {
-        RatingInfo userRatingsInfo = userRatingsMap.get(userid);
-        if (userRatingsInfo == null) return new float[0]; 
-        return userRatingsInfo.getRatingsValues();
+        return ratingsOf(users, users.denseOf.get(userid));
+    }
+
+    // Live ratings of one user or movie, its sorted slice first and then its buffer chain.
+    private float[] ratingsOf(Side side, int entity) {
+        if (entity < 0 || side.count[entity] == 0) return new float[0];
+        float[] result = new float[side.count[entity]];
+        int filled = 0;
+        if (entity < side.offsets.length - 1) {
+            for (int position = side.offsets[entity]; position < side.offsets[entity + 1]; position++) {
+                int row = side.row(position);
+                if (rowRating[row] != removed) result[filled++] = rowRating[row] / 10f;
+            }
+        }
+        for (int row = side.head[entity]; row >= 0; row = side.next[row - compacted]) {
+            if (rowRating[row] != removed) result[filled++] = rowRating[row] / 10f;
+        }
+        return result;
+    }
+
+    // Appends the live ratings of one user or movie to ratings, and the other side of each to others.
+    private void rowOf(Side side, int entity, int[] rowOther, IntArrayList others, FloatArrayList ratings) {
+        if (entity < side.offsets.length - 1) {
+            for (int position = side.offsets[entity]; position < side.offsets[entity + 1]; position++) {
+                int row = side.row(position);
+                if (rowRating[row] == removed) continue;
+                others.add(rowOther[row]);
+                ratings.add(rowRating[row] / 10f);
+            }
+        }
+        for (int row = side.head[entity]; row >= 0; row = side.next[row - compacted]) {
+            if (rowRating[row] == removed) continue;
+            others.add(rowOther[row]);
+            ratings.add(rowRating[row] / 10f);
+        }
     }
 
     /**
      * Get the average rating for a given film
-     * 
+     *
      * @param movieID The movie ID
-     * @return Produces the average rating for a given film. 
-     *         If the film cannot be found in ratings, but does exist in the movies store, return 0.0f. 
+     * @return Produces the average rating for a given film.
+     *         If the film cannot be found in ratings, but does exist in the movies store, return 0.0f.
      *         If the film cannot be found in ratings or movies stores, return -1.0f.
      */
 
     public float getMovieAverageRating(int movieid) {
-        RatingInfo movieRatingInfo = movieRatingsMap.get(movieid);
-        if (movieRatingInfo == null) return movieRatingInfo == null ? -1.0f : 0.0f;
-        return movieRatingInfo.getAverageRating();
+        int movie = movies.denseOf.get(movieid);
+        if (movie < 0 || movies.count[movie] == 0) return -1.0f;
+        return movies.average(movie);
     }
     /**
      * Get the average rating for a given user
-     * 
+     *
      * @param userID The user ID
      * @return Produces the average rating for a given user. If the user cannot be
      *         found, or there are no rating, return -1
      */
     @Override
     public float getUserAverageRating(int userid) {
-        RatingInfo userRatingInfo = userRatingsMap.get(userid);
-        if (userRatingInfo == null) return userRatingInfo == null ? -1.0f : 0.0f;
-        return userRatingInfo.getAverageRating();
+        int user = users.denseOf.get(userid);
+        if (user < 0 || users.count[user] == 0) return -1.0f;
+        return users.average(user);
     }
 
     /**
      * Gets the top N movies with the most ratings, in order from most to least
-     * 
+     *
      * @param num The number of movies that should be returned
      * @return A sorted array of movie IDs with the most ratings. The array should be
      *         no larger than num. If there are less than num movies in the store,
@@ -183,26 +573,13 @@ public class Ratings implements IRatings {
      */
     @Override
     public int[] getMostRatedMovies(int num) {
-        if (movieRatingsMap.size() == 0) return new int[0];
-        int[] keyListStore = movieRatingsMap.keyList();
-        if (keyListStore == null) return new int[0];
-        
-        RatingInfo[] movieRatings = new RatingInfo[keyListStore.length];
-        for (int i = 0; i < keyListStore.length; i++) movieRatings[i] = movieRatingsMap.get(keyListStore[i]);
-        
-        Comparator<RatingInfo> movieRatingCountComparator = (o1, o2) -> Integer.compare(o1.getCount(), o2.getCount());
-        Sort.genericSort(movieRatings, movieRatingCountComparator);
-
-        int[] returnArr = new int[num];
-        for (int i = 0; i < num; i++) returnArr[i] = movieRatings[i].getMovieID();
-        
-
-        return returnArr;
+        refreshLeaderboards();
+        return moviesByCount.top(num);
     }
 
     /**
      * Gets the top N users with the most ratings, in order from most to least
-     * 
+     *
      * @param num The number of users that should be returned
      * @return A sorted array of user IDs with the most ratings. The array should be
      *         no larger than num. If there are less than num users in the store,
@@ -210,24 +587,14 @@ public class Ratings implements IRatings {
      */
     @Override
     public int[] getMostRatedUsers(int num) {
-        if (userRatingsMap.size() == 0) return new int[0];
-        int[] keyListStore = userRatingsMap.keyList();
-        
-        RatingInfo[] userRatings = new RatingInfo[keyListStore.length];
-        for (int i = 0; i < keyListStore.length; i++) userRatings[i] = userRatingsMap.get(keyListStore[i]);
-        Comparator<RatingInfo> userRatingCountComparator = (o1, o2) -> Integer.compare(o1.getCount(), o2.getCount());
-        Sort.genericSort(userRatings, userRatingCountComparator);
-
-        int[] returnArr = new int[num];
-        for (int i = 0; i < num; i++)returnArr[i] = userRatings[i].getMovieID();
-
-        return returnArr;
+        refreshLeaderboards();
+        return usersByCount.top(num);
     }
 
 
     /**
      * Gets the number of ratings in the data structure
-     * 
+     *
      * @return The number of ratings in the data structure
      */
     @Override
@@ -237,9 +604,9 @@ public class Ratings implements IRatings {
 
     /**
      * Get the number of ratings that a movie has
-     * 
+     *
      * @param movieid The movie id to be found
-     * @return The number of ratings the specified movie has. 
+     * @return The number of ratings the specified movie has.
      *         If the movie exists in the movies store, but there
      *         are no ratings for it, then return 0. If the movie
      *         does not exist in the ratings or movies store, then
@@ -247,17 +614,17 @@ public class Ratings implements IRatings {
      */
     @Override
     public int getNumRatings(int movieid) {
-        RatingInfo movieRatingInfo = movieRatingsMap.get(movieid);
-        if (movieRatingInfo == null) {
+        int movie = movies.denseOf.get(movieid);
+        if (movie < 0 || movies.count[movie] == 0) {
             return -1;
         }
-        return movieRatingInfo.getCount();
+        return movies.count[movie];
     }
 
     /**
      * Get the highest average rated film IDs, in order of there average rating
      * (hightst first).
-     * 
+     *
      * @param numResults The maximum number of results to be returned
      * @return An array of the film IDs with the highest average ratings, highest
      *         first. If there are less than num movies in the store,
@@ -265,85 +632,623 @@ public class Ratings implements IRatings {
      */
     @Override
     public int[] getTopAverageRatedMovies(int numResults) {
-        if (movieRatingsMap.size() == 0) return new int[0];
-        int[] keyListStore = movieRatingsMap.keyList();
-        if (keyListStore == null) return new int[0];
-
-        RatingInfo movieRatingsAverage[] = new RatingInfo[keyListStore.length];
-
-        for (int i = 0; i < keyListStore.length; i++)movieRatingsAverage[i] = movieRatingsMap.get(keyListStore[i]);
-        
-        Comparator<RatingInfo> averageMovieRationsCountComparator = (o1, o2) -> Float.compare(o1.getAverageRating(), o2.getAverageRating());
-        Sort.genericSort(movieRatingsAverage, averageMovieRationsCountComparator);
-
-        int[] returnArr = new int[numResults];
-        for (int i = 0; i < numResults; i++) returnArr[i] = movieRatingsAverage[i].getMovieID();
-        
-
-        return returnArr;
-    }
-
-    class RatingInfo {
-        private HashMap<TimePair> ratings;
-        private float totalRating = 0;
-        private int count = 0;
-        private int movieid;
-    
-        public RatingInfo() {
-            ratings = new HashMap<>();
-        }
-    
-        public boolean addRating(float rating, int userid, LocalDateTime timestamp) {
-            if (!ratings.put(userid, new TimePair(timestamp, rating))) return false;
-            totalRating += rating;
-            count = ratings.size();
+        refreshLeaderboards();
+        return moviesByAverage.top(numResults);
+    }
+
+    /**
+     * Get the highest rated films by weighted rating, the average a film would
+     * have with minVotes more ratings of the mean rating of every film, as
+     * IMDb ranks its top films. A film needs at least minVotes ratings to be
+     * ranked, so a single high rating does not outrank a well loved classic.
+     * The mean is updated as ratings change, though the ranking only follows
+     * it once it has moved by more than a hundredth of a star
+     *
+     * @param numResults The maximum number of results to be returned
+     * @param minVotes   The fewest ratings a film needs, also the weight of
+     *                   the mean
+     * @return An array of the film IDs with the highest weighted ratings,
+     *         highest first, with ties going to the lower ID. If minVotes is
+     *         negative, return an empty array
+     */
+    @Override
+    public int[] getTopWeightedMovies(int numResults, int minVotes) {
+        if (minVotes < 0 || numResults <= 0) return new int[0];
+        return weightedBoard(minVotes).ranking.top(numResults);
+    }
+
+    /**
+     * Get the films most like a film going by how the same people rated them,
+     * for a "people who liked this also liked" reel. Each rating is taken
+     * relative to the average of the user who made it, and two films are
+     * alike when the users who rate one above their own average rate the other
+     * above it too (adjusted cosine similarity). Only films rated more alike
+     * than not are returned, and the 20 most similar are kept per film
+     *
+     * @param movieID    The movie ID
+     * @param numResults The maximum number of films to return, at most 20 are
+     *                   kept
+     * @return An array of movie IDs, most similar first. If the film cannot be
+     *         found, or no film is similar, return an empty array
+     */
+    @Override
+    public int[] getSimilarMovies(int movieID, int numResults) {
+        int movie = movies.denseOf.get(movieID);
+        if (movie < 0 || numResults <= 0) return new int[0];
+        refreshSimilar();
+        int[] similar = similarMovies.similar(movie, numResults);
+        for (int i = 0; i < similar.length; i++) similar[i] = movies.ids[similar[i]];
+        return similar;
+    }
+
+    /**
+     * Starts a new recommender, which learns a number of factors for each user
+     * and film such that their products predict the ratings, and then
+     * recommends each user the films predicted highest for them. It is trained
+     * by calling trainRecommender, and is not retrained as ratings change
+     *
+     * @param factors  The number of factors per user and per film
+     * @param implicit If TRUE, learn which films each user chose to rate, the
+     *                 higher rated counting as the surer choice, rather than
+     *                 the ratings themselves
+     * @return TRUE if the recommender was started, FALSE if factors is not
+     *         positive
+     */
+    @Override
+    public boolean resetRecommender(int factors, boolean implicit) {
+        if (factors <= 0) return false;
+        recommender = new FactorModel(factors, implicit);
+        return true;
+    }
+
+    /**
+     * Trains the recommender for one more round of alternating least squares,
+     * fitting the factors of every user and then of every film to the ratings
+     * as they are now. The solves for each user and film are spread over
+     * every core
+     *
+     * @return The root mean square error of the predictions over every rating
+     *         after the round, against a preference of 1 if the recommender is
+     *         implicit. If there is no recommender, return -1
+     */
+    @Override
+    public double trainRecommender() {
+        if (recommender == null) return -1;
+        return recommender.iterate(matrixRows);
+    }
+
+    /**
+     * Get the films the recommender predicts a user would rate highest, out of
+     * the films they have not rated
+     *
+     * @param userID     The user ID
+     * @param numResults The maximum number of films to return
+     * @return An array of movie IDs, highest predicted first, with ties going
+     *         to the film rated first. If there is no recommender, or the user
+     *         cannot be found or has no ratings the recommender was trained or
+     *         loaded with, return an empty array
+     */
+    @Override
+    public int[] getRecommendedMovies(int userID, int numResults) {
+        int user = users.denseOf.get(userID);
+        if (recommender == null || user < 0 || numResults <= 0) return new int[0];
+        IntArrayList rated = new IntArrayList(users.count[user]);
+        rowOf(users, user, rowMovie, rated, new FloatArrayList(users.count[user]));
+        int[] recommended = recommender.recommend(user, numResults, rated);
+        for (int i = 0; i < recommended.length; i++) recommended[i] = movies.ids[recommended[i]];
+        return recommended;
+    }
+
+    /**
+     * Saves the recommender to a binary file, so a later run with the same
+     * ratings can load it rather than train it again
+     *
+     * @param path The file to write, replaced if it exists
+     * @return TRUE if the recommender was saved, FALSE if there is none or the
+     *         file could not be written
+     */
+    @Override
+    public boolean saveRecommender(String path) {
+        if (recommender == null) return false;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(recommenderMagic);
+            out.writeInt(recommenderVersion);
+            writeFingerprint(out);
+            recommender.write(out, users.ids, movies.ids);
             return true;
+        } catch (IOException e) {
+            return false;
         }
-    
-        public boolean removeRating(int userid) {
-            TimePair ratingToRemove = ratings.take(userid);
-            if (ratingToRemove != null) {
-                totalRating -= ratingToRemove.getRating();
-                count = ratings.size();
-                return true;
-            }
+    }
+
+    /**
+     * Loads a recommender saved by saveRecommender, replacing any there is.
+     * It is only loaded if it was saved from a store with the same number of
+     * ratings, users and films and the same total of ratings as this one
+     *
+     * @param path The file to read
+     * @return TRUE if the recommender was loaded, FALSE if the file cannot be
+     *         read, is not a saved recommender, or was saved with different
+     *         ratings
+     */
+    @Override
+    public boolean loadRecommender(String path) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != recommenderMagic || in.readInt() != recommenderVersion) return false;
+            if (in.readInt() != size || in.readLong() != tenthsTotal || in.readInt() != users.size || in.readInt() != movies.size) return false;
+            recommender = FactorModel.read(in, users.denseOf, users.size, movies.denseOf, movies.size);
+            return true;
+        } catch (IOException e) {
             return false;
         }
-    
-        public float getAverageRating() {
-            return count > 0 ? totalRating / count : 0.0f;
+    }
+
+    // What a saved recommender is checked against, so one trained on other ratings is not loaded.
+    private void writeFingerprint(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        out.writeLong(tenthsTotal);
+        out.writeInt(users.size);
+        out.writeInt(movies.size);
+    }
+
+    /**
+     * Get the films that have been rated the most lately. Each rating counts
+     * for less the older it is, falling by a factor of e every window, so a
+     * window of 7 ranks by the ratings of about the last week. Windows of 1, 7
+     * and 30 days are kept, any other uses the longest of those it covers, or
+     * 1. Age is measured from the newest rating in the store
+     *
+     * @param days       The window, in days
+     * @param numResults The maximum number of films to return
+     * @return An array of movie IDs, trending most first, with ties going to
+     *         the lower ID. If there are less than numResults rated films,
+     *         return all of them
+     */
+    @Override
+    public int[] getTrendingMovies(int days, int numResults) {
+        int w = 0;
+        while (w + 1 < trendDays.length && trendDays[w + 1] <= days) w++;
+        refreshTrending(w);
+        return trendingMovies[w].top(numResults);
+    }
+
+    /**
+     * Get the number of ratings a film has had in the last few days, counted
+     * in whole UTC days back from the day of the newest rating in the store,
+     * that day included
+     *
+     * @param movieID The movie ID
+     * @param days    The number of days, at most 30
+     * @return The number of ratings in those days. If the film cannot be
+     *         found, return -1
+     */
+    @Override
+    public int getRecentRatingCount(int movieID, int days) {
+        int movie = movies.denseOf.get(movieID);
+        if (movie < 0 || movies.count[movie] == 0) return -1;
+        return movieTrends.count(movie, days);
+    }
+
+    /**
+     * Get the ratings of a film made in a window of time, oldest first
+     *
+     * @param movieID The movie ID
+     * @param start   The start of the window, included
+     * @param end     The end of the window, excluded
+     * @return An array of the ratings made from start up to end, in order of
+     *         time. If there are none, or the film cannot be found, return an
+     *         empty array
+     */
+    @Override
+    public float[] getMovieRatingsBetween(int movieID, LocalDateTime start, LocalDateTime end) {
+        int movie = movies.denseOf.get(movieID);
+        if (movie < 0 || start == null || end == null) return new float[0];
+        long from = boundOf(start), to = boundOf(end);
+        IntArrayList window = new IntArrayList();
+        if (movie < movies.offsets.length - 1) {
+            int last = firstAtOrAfter(movies, movie, to);
+            for (int position = firstAtOrAfter(movies, movie, from); position < last; position++) {
+                int row = movies.rowByTime(position);
+                if (rowRating[row] != removed) window.add(row);
+            }
         }
-    
-        public float[] getRatingsValues() {
-            return ratings.ratingValuesTimePair();
+        int sorted = window.size();
+        for (int row = movies.head[movie]; row >= 0; row = movies.next[row - compacted]) {
+            if (rowRating[row] != removed && rowTime[row] >= from && rowTime[row] < to) window.add(row);
         }
-    
-        public boolean isEmpty() {
-            return count == 0;
+        int[] rows = window.toArray();
+        if (rows.length > sorted) { // The buffer rows are in no particular order, sort the window by time again.
+            long[] keys = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) keys[i] = timeKey(rowTime[rows[i]]);
+            Sort.sortIdsByKey(rows, keys);
         }
-    
-        public boolean ratedByUsers(int userid) {
-            return ratings.get(userid) != null;
+        float[] result = new float[rows.length];
+        for (int i = 0; i < rows.length; i++) result[i] = rowRating[rows[i]] / 10f;
+        return result;
+    }
+
+    /**
+     * Get the films a user rated most recently
+     *
+     * @param userID     The user ID
+     * @param numResults The maximum number of films to return
+     * @return An array of movie IDs, most recently rated first, with ratings
+     *         made at the same time going to the lower movie ID. If the user
+     *         cannot be found, return an empty array
+     */
+    @Override
+    public int[] getUserRecentMovies(int userID, int numResults) {
+        int user = users.denseOf.get(userID);
+        if (user < 0 || numResults <= 0) return new int[0];
+        TopK recent = new TopK(Math.min(numResults, users.count[user]));
+        for (int row = users.head[user]; row >= 0; row = users.next[row - compacted]) {
+            if (rowRating[row] != removed) recent.offer(movies.ids[rowMovie[row]], rowTime[row]);
         }
-    
-        public int getCount(){
-            return count;
+        if (user < users.offsets.length - 1) { // Newest first, stopping once the rest are older than everything kept.
+            for (int position = users.offsets[user + 1] - 1; position >= users.offsets[user]; position--) {
+                int row = users.rowByTime(position);
+                if (recent.isFull() && rowTime[row] < recent.threshold()) break;
+                if (rowRating[row] != removed) recent.offer(movies.ids[rowMovie[row]], rowTime[row]);
+            }
         }
-    
-        public int getMovieID(){
-            return movieid;
+        return recent.result();
+    }
+
+    /**
+     * Count the ratings of a film in equal buckets of time
+     *
+     * @param movieID The movie ID
+     * @param start   The start of the first bucket, included
+     * @param end     The end of the last bucket, excluded
+     * @param buckets The number of buckets to split the window into
+     * @return An array of bucket counts, where bucket i counts the ratings
+     *         made from start + i * (end - start) / buckets, rounded down to
+     *         the second, up to the start of bucket i + 1. If the window is
+     *         empty or there are no buckets, return an empty array
+     */
+    @Override
+    public int[] getMovieRatingHistogram(int movieID, LocalDateTime start, LocalDateTime end, int buckets) {
+        return histogram(movies, movies.denseOf.get(movieID), start, end, buckets);
+    }
+
+    /**
+     * Count the ratings of a user in equal buckets of time, as
+     * getMovieRatingHistogram does for a film
+     *
+     * @param userID  The user ID
+     * @param start   The start of the first bucket, included
+     * @param end     The end of the last bucket, excluded
+     * @param buckets The number of buckets to split the window into
+     * @return An array of bucket counts, all zero if the user cannot be found.
+     *         If the window is empty or there are no buckets, return an empty
+     *         array
+     */
+    @Override
+    public int[] getUserRatingHistogram(int userID, LocalDateTime start, LocalDateTime end, int buckets) {
+        return histogram(users, users.denseOf.get(userID), start, end, buckets);
+    }
+
+    /**
+     * Count the ratings of a film in half star steps, without reading the
+     * ratings themselves
+     *
+     * @param movieID The movie ID
+     * @return An array of 10 counts, where count i holds the ratings above
+     *         i / 2 stars up to (i + 1) / 2 stars, a rating of 0 counting
+     *         with the half stars. If the film cannot be found, return an
+     *         empty array
+     */
+    @Override
+    public int[] getMovieRatingDistribution(int movieID) {
+        return distribution(movies, movies.denseOf.get(movieID));
+    }
+
+    /**
+     * Count the ratings of a user in half star steps, as
+     * getMovieRatingDistribution does for a film
+     *
+     * @param userID The user ID
+     * @return An array of 10 counts. If the user cannot be found, return an
+     *         empty array
+     */
+    @Override
+    public int[] getUserRatingDistribution(int userID) {
+        return distribution(users, users.denseOf.get(userID));
+    }
+
+    /**
+     * Get the median rating of a film, to the half star
+     *
+     * @param movieID The movie ID
+     * @return The median rating, as getMovieRatingPercentile(movieID, 50)
+     */
+    @Override
+    public float getMovieMedianRating(int movieID) {
+        return getMovieRatingPercentile(movieID, 50);
+    }
+
+    /**
+     * Get the median rating of a user, to the half star
+     *
+     * @param userID The user ID
+     * @return The median rating, as getUserRatingPercentile(userID, 50)
+     */
+    @Override
+    public float getUserMedianRating(int userID) {
+        return getUserRatingPercentile(userID, 50);
+    }
+
+    /**
+     * Get a percentile of the ratings of a film, to the half star. Ratings
+     * are counted in half star steps, so the result is the step holding the
+     * rating of that rank, rounded up to the half star
+     *
+     * @param movieID    The movie ID
+     * @param percentile The percentile, from 0 to 100
+     * @return The smallest rating that at least percentile percent of the
+     *         film's ratings are at or below, and at least one rating when
+     *         percentile is 0. If the film cannot be found or the percentile
+     *         is out of range, return -1
+     */
+    @Override
+    public float getMovieRatingPercentile(int movieID, float percentile) {
+        return percentile(movies, movies.denseOf.get(movieID), percentile);
+    }
+
+    /**
+     * Get a percentile of the ratings of a user, to the half star, as
+     * getMovieRatingPercentile does for a film
+     *
+     * @param userID     The user ID
+     * @param percentile The percentile, from 0 to 100
+     * @return The percentile rating. If the user cannot be found or the
+     *         percentile is out of range, return -1
+     */
+    @Override
+    public float getUserRatingPercentile(int userID, float percentile) {
+        return percentile(users, users.denseOf.get(userID), percentile);
+    }
+
+    /**
+     * Get the standard deviation of the ratings of a film, taking its
+     * ratings as the whole population
+     *
+     * @param movieID The movie ID
+     * @return The standard deviation, 0 for a single rating. If the film
+     *         cannot be found, return -1
+     */
+    @Override
+    public float getMovieRatingStdDev(int movieID) {
+        int movie = movies.denseOf.get(movieID);
+        if (movie < 0 || movies.count[movie] == 0) return -1.0f;
+        return movies.stdDev(movie);
+    }
+
+    /**
+     * Get the standard deviation of the ratings of a user, taking their
+     * ratings as the whole population
+     *
+     * @param userID The user ID
+     * @return The standard deviation, 0 for a single rating. If the user
+     *         cannot be found, return -1
+     */
+    @Override
+    public float getUserRatingStdDev(int userID) {
+        int user = users.denseOf.get(userID);
+        if (user < 0 || users.count[user] == 0) return -1.0f;
+        return users.stdDev(user);
+    }
+
+    private int[] distribution(Side side, int entity) {
+        if (entity < 0 || side.count[entity] == 0) return new int[0];
+        int[] result = new int[Side.starBuckets];
+        System.arraycopy(side.stars, entity * Side.starBuckets, result, 0, Side.starBuckets);
+        return result;
+    }
+
+    // Nearest rank over the half star counts, at most starBuckets steps.
+    private float percentile(Side side, int entity, float percentile) {
+        if (entity < 0 || side.count[entity] == 0 || !(percentile >= 0 && percentile <= 100)) return -1.0f;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * side.count[entity]));
+        int seen = 0;
+        for (int b = 0; b < Side.starBuckets; b++) {
+            seen += side.stars[entity * Side.starBuckets + b];
+            if (seen >= rank) return (b + 1) / 2f;
+        }
+        return Side.starBuckets / 2f;
+    }
+
+    // Each bucket of the sorted slice is the gap between two binary searches, only scanned for
+    // removed rows when there are some. Buffer rows are placed by a search over the bounds.
+    private int[] histogram(Side side, int entity, LocalDateTime start, LocalDateTime end, int buckets) {
+        if (start == null || end == null || buckets <= 0) return new int[0];
+        long from = boundOf(start), to = boundOf(end);
+        if (to <= from) return new int[0];
+        int[] counts = new int[buckets];
+        if (entity < 0) return counts;
+        long[] bounds = new long[buckets + 1];
+        for (int b = 0; b <= buckets; b++) bounds[b] = from + (to - from) * b / buckets;
+
+        if (entity < side.offsets.length - 1) {
+            int position = firstAtOrAfter(side, entity, from);
+            for (int b = 0; b < buckets; b++) {
+                int bucketEnd = firstAtOrAfter(side, entity, bounds[b + 1]);
+                counts[b] = bucketEnd - position;
+                if (tombstones > 0) {
+                    for (int p = position; p < bucketEnd; p++) if (rowRating[side.rowByTime(p)] == removed) counts[b]--;
+                }
+                position = bucketEnd;
+            }
         }
-    
-        public void setMovieID(int movieidinput){
-            this.movieid = movieidinput;
+        for (int row = side.head[entity]; row >= 0; row = side.next[row - compacted]) {
+            if (rowRating[row] == removed || rowTime[row] < from || rowTime[row] >= to) continue;
+            int low = 0, high = buckets - 1; // Last bucket starting at or before the row.
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (bounds[mid] <= rowTime[row]) low = mid;
+                else high = mid - 1;
+            }
+            counts[low]++;
         }
-    }    
-}
+        return counts;
+    }
+
+    // First position of an entity's sorted slice, in time order, made at or after time.
+    private int firstAtOrAfter(Side side, int entity, long time) {
+        int low = side.offsets[entity], high = side.offsets[entity + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rowTime[side.rowByTime(mid)] < time) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
 
+    // The live ratings as a movie x user matrix, for the similar movie lists and the recommender.
+    private final class MatrixRows implements RatingRows {
+        @Override
+        public int itemCount() {
+            return movies.size;
+        }
 
+        @Override
+        public int userCount() {
+            return users.size;
+        }
 
+        @Override
+        public void itemRow(int movie, IntArrayList raters, FloatArrayList ratings) {
+            rowOf(movies, movie, rowUser, raters, ratings);
+        }
 
+        @Override
+        public void userRow(int user, IntArrayList rated, FloatArrayList ratings) {
+            rowOf(users, user, rowMovie, rated, ratings);
+        }
 
+        @Override
+        public float userMean(int user) {
+            return users.count[user] == 0 ? 0 : users.average(user);
+        }
+    }
+
+    // One weighted ranking and what it was built with.
+    private static final class WeightedBoard {
+        final Leaderboard ranking = new Leaderboard();
+        final int reader; // Of movieChanges.
+        int minVotes;
+        double mean = Double.NaN; // Stars, the global mean the scores were computed with.
+        int lastQuery;
 
+        WeightedBoard(int reader) {
+            this.reader = reader;
+        }
+    }
 
+    // Dense numbering, running totals and row indexes for one side of the ratings, users or movies.
+    private static final class Side {
+        final IntIntHashMap denseOf = new IntIntHashMap();
+        int[] ids = new int[16]; // Original ID of each dense number.
+        int[] count = new int[16];
+        int[] tenthsSum = new int[16];
+        long[] tenthsSquares = new long[16]; // With count and tenthsSum, gives the variance exactly.
+        int[] stars = new int[16 * starBuckets]; // Entity d's half star counts are stars[d * starBuckets .. (d + 1) * starBuckets).
+        int[] head = new int[16]; // Newest buffer row of each entity, -1 when it has none.
+        int[] bufferCount = new int[16];
+        boolean[] isDirty = new boolean[16]; // Changed since the leaderboards were last refreshed.
+        IntArrayList dirty = new IntArrayList();
+        int size = 0;
+        static final int starBuckets = 10;
+
+        // Sorted region index: entity d owns positions offsets[d] to offsets[d + 1] of order,
+        // for the entities that existed at the last compaction. A null order means the rows themselves are grouped this way.
+        // timeOrder lists the same positions with each slice sorted by time.
+        int[] offsets = new int[1];
+        int[] order = null;
+        int[] timeOrder = null;
+        int[] next = new int[16]; // Next older buffer row of the same entity, indexed by row - compacted.
+
+        int add(int id) {
+            if (size == ids.length) {
+                int newCapacity = size + (size >> 1) + 1;
+                ids = copyOf(ids, newCapacity);
+                count = copyOf(count, newCapacity);
+                tenthsSum = copyOf(tenthsSum, newCapacity);
+                long[] tmpSquares = new long[newCapacity];
+                System.arraycopy(tenthsSquares, 0, tmpSquares, 0, size);
+                tenthsSquares = tmpSquares;
+                stars = copyOf(stars, newCapacity * starBuckets);
+                head = copyOf(head, newCapacity);
+                bufferCount = copyOf(bufferCount, newCapacity);
+                boolean[] tmpDirty = new boolean[newCapacity];
+                System.arraycopy(isDirty, 0, tmpDirty, 0, size);
+                isDirty = tmpDirty;
+            }
+            int dense = size++;
+            ids[dense] = id;
+            head[dense] = -1;
+            denseOf.put(id, dense);
+            return dense;
+        }
+
+        void link(int dense, int row, int compacted) {
+            int slot = row - compacted;
+            if (slot >= next.length) next = copyOf(next, Math.max(slot + 1, next.length + (next.length >> 1) + 1));
+            next[slot] = head[dense];
+            head[dense] = row;
+            bufferCount[dense]++;
+        }
+
+        // Adds a rating to the running totals of an entity (delta 1) or takes one away (delta -1), O(1).
+        void tally(int dense, int tenths, int delta) {
+            count[dense] += delta;
+            tenthsSum[dense] += delta * tenths;
+            tenthsSquares[dense] += delta * tenths * tenths;
+            stars[dense * starBuckets + (tenths == 0 ? 0 : (tenths - 1) / 5)] += delta;
+        }
 
+        void markDirty(int dense) {
+            if (isDirty[dense]) return;
+            isDirty[dense] = true;
+            dirty.add(dense);
+        }
+
+        int row(int position) {
+            return order == null ? position : order[position];
+        }
+
+        int rowByTime(int position) {
+            return timeOrder[position];
+        }
+
+        float average(int dense) {
+            return tenthsSum[dense] / (count[dense] * 10f);
+        }
+
+        // Population deviation from exact integer sums, n * sum of squares - sum squared never cancels to below 0.
+        float stdDev(int dense) {
+            long n = count[dense];
+            long spread = n * tenthsSquares[dense] - (long) tenthsSum[dense] * tenthsSum[dense];
+            return (float) (Math.sqrt(spread) / (n * 10.0));
+        }
+
+        // Rebuilds offsets from the dense number of every row, listed in the given orders, and empties the buffer chains.
+        void index(int[] rowEntity, int rows, int[] order, int[] timeOrder) {
+            offsets = new int[size + 1];
+            for (int i = 0; i < rows; i++) offsets[rowEntity[i] + 1]++;
+            for (int d = 0; d < size; d++) offsets[d + 1] += offsets[d];
+            this.order = order;
+            this.timeOrder = timeOrder;
+            for (int d = 0; d < size; d++) {
+                head[d] = -1;
+                bufferCount[d] = 0;
+            }
+        }
+
+        private static int[] copyOf(int[] values, int newLength) {
+            int[] tmp = new int[newLength];
+            System.arraycopy(values, 0, tmp, 0, Math.min(values.length, newLength));
+            return tmp;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package structures;
+
+public class ChangeLog {
+
+    // Entities (dense numbers) changed since some reader last caught up, with repeats, for rankings
+    // that are brought up to date only when they are read. Each reader has a cursor into one shared
+    // list, and the list is emptied once every reader has passed its end. A reader that falls far
+    // behind, or every reader after invalidate, is told to rebuild from scratch instead, which bounds
+    // the list by about twice the number of entities however rarely a reader reads.
+
+    private final IntArrayList changed = new IntArrayList();
+    private int[] cursors = new int[0];
+    private boolean[] rebuild = new boolean[0];
+    private int readers = 0;
+    private int entities = 0; // One past the largest entity seen.
+    private static final int minLength = 1 << 12;
+
+    // Registers a reader, which starts off needing a rebuild.
+    public int reader() {
+        if (readers == cursors.length) {
+            int[] tmpCursors = new int[readers + 4];
+            System.arraycopy(cursors, 0, tmpCursors, 0, readers);
+            cursors = tmpCursors;
+            boolean[] tmpRebuild = new boolean[readers + 4];
+            System.arraycopy(rebuild, 0, tmpRebuild, 0, readers);
+            rebuild = tmpRebuild;
+        }
+        cursors[readers] = changed.size();
+        rebuild[readers] = true;
+        return readers++;
+    }
+
+    public void add(int entity) {
+        entities = Math.max(entities, entity + 1);
+        if (changed.size() >= 2 * entities + minLength) {
+            for (int r = 0; r < readers; r++) rebuild[r] |= cursors[r] < changed.size();
+            restart();
+        }
+        changed.add(entity);
+    }
+
+    // Every reader rebuilds on its next read, for when every entity's ranking changed at once.
+    public void invalidate() {
+        for (int r = 0; r < readers; r++) rebuild[r] = true;
+        restart();
+    }
+
+    public boolean needsRebuild(int reader) {
+        return rebuild[reader];
+    }
+
+    // Position of the first change the reader has not seen, up to size().
+    public int from(int reader) {
+        return cursors[reader];
+    }
+
+    public int size() {
+        return changed.size();
+    }
+
+    public int get(int index) {
+        return changed.get(index);
+    }
+
+    // Marks every change as seen by the reader, and any rebuild as done.
+    public void caughtUp(int reader) {
+        cursors[reader] = changed.size();
+        rebuild[reader] = false;
+        for (int r = 0; r < readers; r++) if (cursors[r] < changed.size()) return;
+        restart();
+    }
+
+    private void restart() {
+        changed.clear();
+        for (int r = 0; r < readers; r++) cursors[r] = 0;
+    }
+}
@@ -0,0 +1,368 @@
+package structures;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class CollaborationGraph {
+
+    // People linked by the films they share, an edge weighted by how many. The graph is held in
+    // compressed sparse rows over dense node numbers: the neighbours of node u are
+    // neighbours[offsets[u]..offsets[u + 1]) in increasing order, with the shared film counts in
+    // weights alongside, so a row is two array scans and no object per edge. Rows are built from the
+    // films in parallel when first queried, so loading costs a map put per film. Films added or
+    // removed after that go into per node delta maps laid over the rows, until the deltas pass a
+    // share of the edges and the next query rebuilds the rows instead.
+
+    private final HashMap<int[]> films; // Film id to its distinct members, by person id.
+    private IntIntHashMap nodeOf; // Person id to node.
+    private IntArrayList idOf; // Node to person id. Nodes from rowCount on were added since the build and have no row.
+    private int rowCount = 0;
+    private int[] offsets = new int[1];
+    private int[] neighbours = new int[0];
+    private int[] weights = new int[0];
+    private HashMap<IntIntHashMap> deltas; // Node to (neighbour node, change in shared films) since the build.
+    private long pendingChanges = 0; // Entries written to deltas since the build, repeats included.
+    private boolean stale = true; // The rows are out of date, changes are not tracked until the next build.
+
+    // Search state, reused between queries. A node is reached by a side when its mark holds the
+    // current search number, so nothing is cleared between searches.
+    private final Side forward = new Side();
+    private final Side backward = new Side();
+    private int search = 0;
+
+    private static final int minRebuildChanges = 1 << 16; // Small graphs are cheap to rebuild, do not track deltas for long.
+    private static final int rebuildShare = 4; // Deltas past 1/rebuildShare of the edges trigger a rebuild.
+    private static final int minRowChunk = 256; // Nodes per parallel build task, at least.
+
+    public CollaborationGraph() {
+        this.films = new HashMap<>();
+        this.nodeOf = new IntIntHashMap(16, -1);
+        this.idOf = new IntArrayList();
+        this.deltas = new HashMap<>();
+    }
+
+    // Adds a film and its members, repeats and people credited twice are counted once.
+    // False if the film is already in the graph.
+    public boolean addFilm(int filmID, int[] people) {
+        if (films.containsKey(filmID)) return false;
+        int[] members = distinct(people);
+        films.put(filmID, members);
+        change(members, 1);
+        return true;
+    }
+
+    public boolean removeFilm(int filmID) {
+        int[] members = films.take(filmID);
+        if (members == null) return false;
+        change(members, -1);
+        return true;
+    }
+
+    public int filmCount() {
+        return films.size();
+    }
+
+    // Sorted copy of people without repeats.
+    private static int[] distinct(int[] people) {
+        int[] sorted = people.clone();
+        Sort.radixSort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) if (i == 0 || sorted[i] != sorted[i - 1]) sorted[count++] = sorted[i];
+        if (count == sorted.length) return sorted;
+        int[] trimmed = new int[count];
+        System.arraycopy(sorted, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    // Applies a film joining (+1) or leaving (-1) to every pair of its members.
+    private void change(int[] members, int sign) {
+        if (stale) return;
+        long changes = (long) members.length * (members.length - 1);
+        if (pendingChanges + changes > Math.max(minRebuildChanges, neighbours.length / rebuildShare)) {
+            stale = true; // Cheaper to rebuild than to keep reading through this many deltas.
+            deltas = new HashMap<>();
+            pendingChanges = 0;
+            return;
+        }
+        pendingChanges += changes;
+        int[] nodes = new int[members.length];
+        for (int i = 0; i < members.length; i++) nodes[i] = node(members[i]);
+        for (int u : nodes) {
+            IntIntHashMap delta = deltas.get(u);
+            if (delta == null) {
+                delta = new IntIntHashMap(nodes.length, 0);
+                deltas.put(u, delta);
+            }
+            for (int v : nodes) if (v != u && delta.addTo(v, sign) == 0) delta.remove(v);
+            if (delta.size() == 0) deltas.take(u);
+        }
+    }
+
+    // The node of a person, numbering them after the built rows if new.
+    private int node(int personID) {
+        int node = nodeOf.get(personID);
+        if (node >= 0) return node;
+        nodeOf.put(personID, idOf.size());
+        idOf.add(personID);
+        return idOf.size() - 1;
+    }
+
+    // Renumbers the people of the current films and builds their rows. Each node's row is found by
+    // gathering the members of its films and counting repeats after a radix sort, which needs no
+    // scratch sized by the whole graph, so chunks of nodes are built on separate threads.
+    private void rebuild() {
+        int[][] memberNodes = new int[films.size()][];
+        nodeOf = new IntIntHashMap(nodeOf.size(), -1);
+        idOf = new IntArrayList(idOf.size());
+        int film = 0;
+        for (int slot = films.nextSlot(0); slot >= 0; slot = films.nextSlot(slot + 1)) {
+            int[] members = films.valueAt(slot);
+            int[] nodes = new int[members.length];
+            for (int i = 0; i < members.length; i++) nodes[i] = node(members[i]);
+            memberNodes[film++] = nodes;
+        }
+        int nodeCount = idOf.size();
+
+        // The films of each node, in the same sparse row layout.
+        int[] filmOffsets = new int[nodeCount + 1];
+        for (int[] nodes : memberNodes) for (int u : nodes) filmOffsets[u + 1]++;
+        for (int u = 0; u < nodeCount; u++) filmOffsets[u + 1] += filmOffsets[u];
+        int[] filmsOf = new int[filmOffsets[nodeCount]];
+        int[] cursor = new int[nodeCount];
+        System.arraycopy(filmOffsets, 0, cursor, 0, nodeCount);
+        for (int f = 0; f < memberNodes.length; f++) for (int u : memberNodes[f]) filmsOf[cursor[u]++] = f;
+
+        int chunk = Math.max(minRowChunk, nodeCount / (ForkJoinPool.getCommonPoolParallelism() * 8) + 1);
+        RowTask[] chunks = new RowTask[(nodeCount + chunk - 1) / chunk];
+        int[] newOffsets = new int[nodeCount + 1];
+        ForkJoinPool.commonPool().invoke(new RowTask(memberNodes, filmOffsets, filmsOf, newOffsets, chunks, chunk, 0, chunks.length));
+        for (int u = 0; u < nodeCount; u++) newOffsets[u + 1] += newOffsets[u];
+        int[] newNeighbours = new int[newOffsets[nodeCount]];
+        int[] newWeights = new int[newOffsets[nodeCount]];
+        for (int c = 0; c < chunks.length; c++) {
+            int start = newOffsets[c * chunk];
+            chunks[c].rowNeighbours.copyTo(newNeighbours, start);
+            chunks[c].rowWeights.copyTo(newWeights, start);
+        }
+
+        offsets = newOffsets;
+        neighbours = newNeighbours;
+        weights = newWeights;
+        rowCount = nodeCount;
+        deltas = new HashMap<>();
+        pendingChanges = 0;
+        stale = false;
+    }
+
+    // Builds the rows of a range of chunks, splitting it in half until a single chunk is left. Each
+    // chunk keeps its rows in its own lists and writes its degrees into offsets[u + 1].
+    private static class RowTask extends RecursiveAction {
+        private final int[][] memberNodes;
+        private final int[] filmOffsets;
+        private final int[] filmsOf;
+        private final int[] offsets;
+        private final RowTask[] chunks; // Shared by every task, each one only fills its own range.
+        private final int chunk;
+        private final int from, to; // Chunk numbers.
+        private IntArrayList rowNeighbours;
+        private IntArrayList rowWeights;
+
+        RowTask(int[][] memberNodes, int[] filmOffsets, int[] filmsOf, int[] offsets, RowTask[] chunks, int chunk, int from, int to) {
+            this.memberNodes = memberNodes;
+            this.filmOffsets = filmOffsets;
+            this.filmsOf = filmsOf;
+            this.offsets = offsets;
+            this.chunks = chunks;
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RowTask(memberNodes, filmOffsets, filmsOf, offsets, chunks, chunk, from, mid),
+                          new RowTask(memberNodes, filmOffsets, filmsOf, offsets, chunks, chunk, mid, to));
+                return;
+            }
+            if (from == to) return;
+            rowNeighbours = new IntArrayList();
+            rowWeights = new IntArrayList();
+            int[] gathered = new int[16];
+            int last = Math.min((from + 1) * chunk, offsets.length - 1);
+            for (int u = from * chunk; u < last; u++) {
+                int size = 0;
+                for (int i = filmOffsets[u]; i < filmOffsets[u + 1]; i++) {
+                    int[] nodes = memberNodes[filmsOf[i]];
+                    if (size + nodes.length > gathered.length) {
+                        int[] grown = new int[Math.max(size + nodes.length, gathered.length * 2)];
+                        System.arraycopy(gathered, 0, grown, 0, size);
+                        gathered = grown;
+                    }
+                    for (int v : nodes) if (v != u) gathered[size++] = v;
+                }
+                Sort.radixSort(gathered, 0, size);
+                int degree = 0;
+                for (int i = 0; i < size; i++) {
+                    if (i > 0 && gathered[i] == gathered[i - 1]) {
+                        rowWeights.set(rowWeights.size() - 1, rowWeights.last() + 1); // Another shared film.
+                    } else {
+                        rowNeighbours.add(gathered[i]);
+                        rowWeights.add(1);
+                        degree++;
+                    }
+                }
+                offsets[u + 1] = degree;
+            }
+            chunks[from] = this;
+        }
+    }
+
+    // Shared films of u and v as held in the rows, v must be a node.
+    private int rowWeight(int u, int v) {
+        if (u >= rowCount || v >= rowCount) return 0;
+        int low = offsets[u], high = offsets[u + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (neighbours[mid] < v) low = mid + 1;
+            else if (neighbours[mid] > v) high = mid - 1;
+            else return weights[mid];
+        }
+        return 0;
+    }
+
+    // Number of films both people are in, 0 if either is unknown.
+    public int sharedFilms(int personA, int personB) {
+        if (stale) rebuild();
+        int u = nodeOf.get(personA), v = nodeOf.get(personB);
+        if (u < 0 || v < 0 || u == v) return 0;
+        IntIntHashMap delta = deltas.get(u);
+        return rowWeight(u, v) + (delta == null ? 0 : delta.get(v));
+    }
+
+    // The k people sharing the most films with person, most first and ties to the lower id.
+    public int[] topCollaborators(int personID, int k) {
+        if (stale) rebuild();
+        int u = nodeOf.get(personID);
+        if (u < 0 || k <= 0) return new int[0];
+        IntIntHashMap delta = deltas.get(u);
+        int degree = (u < rowCount ? offsets[u + 1] - offsets[u] : 0) + (delta == null ? 0 : delta.size());
+        TopK top = new TopK(Math.min(k, degree));
+        if (u < rowCount) {
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                int weight = weights[i] + (delta == null ? 0 : delta.get(neighbours[i]));
+                if (weight > 0) top.offer(idOf.get(neighbours[i]), weight);
+            }
+        }
+        if (delta != null) {
+            for (int slot = delta.nextSlot(0); slot >= 0; slot = delta.nextSlot(slot + 1)) {
+                int v = delta.keyAt(slot);
+                if (delta.valueAt(slot) > 0 && rowWeight(u, v) == 0) top.offer(idOf.get(v), delta.valueAt(slot));
+            }
+        }
+        return top.result();
+    }
+
+    // A shortest chain of people from one person to another, both included, each sharing a film with
+    // the next. Empty if either is unknown or they are not connected.
+    public int[] shortestPath(int fromID, int toID) {
+        if (stale) rebuild();
+        int source = nodeOf.get(fromID), target = nodeOf.get(toID);
+        if (source < 0 || target < 0) return new int[0];
+        if (source == target) return new int[] {fromID};
+        startSearch();
+        forward.start(source, search);
+        backward.start(target, search);
+
+        // Grows the side with the smaller frontier a whole level at a time. Once a level reaches a node
+        // the other side has reached, no shorter path is left, both sides have searched every node
+        // closer than their own levels.
+        int meeting = -1;
+        while (meeting < 0 && forward.frontier.size() > 0 && backward.frontier.size() > 0) {
+            if (forward.frontier.size() <= backward.frontier.size()) meeting = expand(forward, backward);
+            else meeting = expand(backward, forward);
+        }
+        if (meeting < 0) return new int[0];
+
+        IntArrayList path = new IntArrayList();
+        for (int u = meeting; u >= 0; u = forward.parent[u]) path.add(u);
+        int[] chain = new int[path.size() + backward.depthOf(meeting)];
+        for (int i = 0; i < path.size(); i++) chain[i] = idOf.get(path.get(path.size() - 1 - i));
+        int i = path.size();
+        for (int u = backward.parent[meeting]; u >= 0; u = backward.parent[u]) chain[i++] = idOf.get(u);
+        return chain;
+    }
+
+    private void startSearch() {
+        int nodeCount = idOf.size();
+        if (search == Integer.MAX_VALUE || forward.mark.length < nodeCount) {
+            forward.allocate(nodeCount + (nodeCount >> 3));
+            backward.allocate(nodeCount + (nodeCount >> 3));
+            search = 0;
+        }
+        search++;
+    }
+
+    // Moves one side on by a level, returns a node the other side has reached or -1.
+    private int expand(Side side, Side other) {
+        side.next.clear();
+        for (int f = 0; f < side.frontier.size(); f++) {
+            int u = side.frontier.get(f);
+            IntIntHashMap delta = deltas.size() == 0 ? null : deltas.get(u);
+            if (u < rowCount) {
+                for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                    int v = neighbours[i];
+                    if (delta != null && weights[i] + delta.get(v) <= 0) continue; // Every shared film has been removed.
+                    if (side.reach(v, u, search) && other.mark[v] == search) return v;
+                }
+            }
+            if (delta != null) {
+                for (int slot = delta.nextSlot(0); slot >= 0; slot = delta.nextSlot(slot + 1)) {
+                    int v = delta.keyAt(slot);
+                    if (delta.valueAt(slot) <= 0 || rowWeight(u, v) > 0) continue; // Negative, or already seen in the row.
+                    if (side.reach(v, u, search) && other.mark[v] == search) return v;
+                }
+            }
+        }
+        IntArrayList reached = side.frontier;
+        side.frontier = side.next;
+        side.next = reached;
+        return -1;
+    }
+
+    // One direction of a bidirectional breadth first search.
+    private static final class Side {
+        private int[] mark = new int[0];
+        private int[] parent = new int[0];
+        private IntArrayList frontier = new IntArrayList();
+        private IntArrayList next = new IntArrayList();
+
+        private void allocate(int nodeCount) {
+            mark = new int[nodeCount];
+            parent = new int[nodeCount];
+        }
+
+        private void start(int node, int search) {
+            frontier.clear();
+            frontier.add(node);
+            mark[node] = search;
+            parent[node] = -1;
+        }
+
+        // Reaches v from u, false if this side had already reached it.
+        private boolean reach(int v, int u, int search) {
+            if (mark[v] == search) return false;
+            mark[v] = search;
+            parent[v] = u;
+            next.add(v);
+            return true;
+        }
+
+        private int depthOf(int node) {
+            int depth = 0;
+            for (int u = parent[node]; u >= 0; u = parent[u]) depth++;
+            return depth;
+        }
+    }
+}
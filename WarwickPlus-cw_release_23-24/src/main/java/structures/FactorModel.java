@@ -0,0 +1,292 @@
+package structures;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class FactorModel {
+
+    // A vector of factors for each user and each item, whose dot products approximate the ratings,
+    // learnt by alternating least squares. With the item factors held fixed, each user's factors are
+    // a small ridge regression over the items they rated, solved exactly, and then the other way
+    // round. Every row of a sweep is solved on its own, so the rows are shared out to tasks on the
+    // common pool. Factors are kept in flat float arrays, user u's at userFactors[u * factors ..],
+    // and each solve builds a factors x factors system in double and solves it by Cholesky.
+    //
+    // Explicit mode fits the ratings less their global mean, with each row's regularisation scaled
+    // by how many ratings it has. Implicit mode fits a preference of 1 for every rated pair and 0
+    // for every other, the rated pairs weighted by a confidence growing with the rating. The
+    // unrated pairs are all folded into the gram matrix of the fixed side, worked out once a sweep,
+    // so a solve still only visits the rated ones.
+
+    private final int factors;
+    private final boolean implicit;
+    private float mean = 0; // Of every rating, which explicit factors are fitted around.
+    private int users = 0;
+    private int items = 0;
+    private float[] userFactors = new float[0];
+    private float[] itemFactors = new float[0];
+    private int iterations = 0;
+    private final Random random = new Random(25);
+
+    private static final double explicitLambda = 0.1; // Per rating of the row being solved.
+    private static final double implicitLambda = 0.1;
+    private static final double confidence = 2; // Implicit weight of a rated pair is 1 + confidence * rating.
+    private static final float initialScale = 0.1f; // Item factors start uniform in [-initialScale, initialScale).
+    private static final int minTaskRows = 32; // Rows per parallel task, at least.
+
+    public FactorModel(int factors, boolean implicit) {
+        this.factors = factors;
+        this.implicit = implicit;
+    }
+
+    public int factors() {
+        return factors;
+    }
+
+    public boolean implicit() {
+        return implicit;
+    }
+
+    public int iterations() {
+        return iterations;
+    }
+
+    // One sweep over the users and then the items, returns the root mean square error over every
+    // rating after it, of the predicted preference against 1 in implicit mode. Users and items
+    // numbered past the last sweep join with no factors.
+    public double iterate(RatingRows rows) {
+        grow(rows.userCount(), rows.itemCount());
+        if (!implicit) mean = meanOf(rows);
+        SolveTask userSweep = new SolveTask(rows, true, implicit ? gram(itemFactors, items) : null, 0, users);
+        ForkJoinPool.commonPool().invoke(userSweep);
+        SolveTask itemSweep = new SolveTask(rows, false, implicit ? gram(userFactors, users) : null, 0, items);
+        ForkJoinPool.commonPool().invoke(itemSweep);
+        iterations++;
+        return itemSweep.rated == 0 ? 0 : Math.sqrt(itemSweep.squaredError / itemSweep.rated);
+    }
+
+    // Up to k items with the highest predicted rating for user, best first and ties to the lower
+    // number, leaving out the excluded items. O(items * factors) with a heap of k.
+    public int[] recommend(int user, int k, IntArrayList excluded) {
+        if (user < 0 || user >= users || k <= 0) return new int[0];
+        boolean[] skip = new boolean[items];
+        for (int i = 0; i < excluded.size(); i++) if (excluded.get(i) < items) skip[excluded.get(i)] = true;
+        TopK top = new TopK(Math.min(k, Math.max(items - excluded.size(), 0)));
+        for (int item = 0; item < items; item++) {
+            if (!skip[item]) top.offer(item, dot(userFactors, user * factors, itemFactors, item * factors));
+        }
+        return top.result();
+    }
+
+    private void grow(int userCount, int itemCount) {
+        if (userCount > users) {
+            userFactors = Arrays.copyOf(userFactors, userCount * factors);
+            users = userCount;
+        }
+        if (itemCount > items) {
+            itemFactors = Arrays.copyOf(itemFactors, itemCount * factors);
+            for (int i = items * factors; i < itemFactors.length; i++) itemFactors[i] = (random.nextFloat() * 2 - 1) * initialScale;
+            items = itemCount;
+        }
+    }
+
+    private static float meanOf(RatingRows rows) {
+        IntArrayList rated = new IntArrayList();
+        FloatArrayList ratings = new FloatArrayList();
+        double sum = 0;
+        long count = 0;
+        for (int user = 0; user < rows.userCount(); user++) {
+            rated.clear();
+            ratings.clear();
+            rows.userRow(user, rated, ratings);
+            for (int i = 0; i < ratings.size(); i++) sum += ratings.get(i);
+            count += ratings.size();
+        }
+        return count == 0 ? 0 : (float) (sum / count);
+    }
+
+    // Sum of v v^T over the first count rows of a side, lower triangle only.
+    private double[] gram(float[] vectors, int count) {
+        double[] gram = new double[factors * factors];
+        for (int row = 0; row < count; row++) {
+            int base = row * factors;
+            for (int i = 0; i < factors; i++) {
+                double vi = vectors[base + i];
+                for (int j = 0; j <= i; j++) gram[i * factors + j] += vi * vectors[base + j];
+            }
+        }
+        return gram;
+    }
+
+    private static double dot(float[] a, int aBase, float[] b, int bBase, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) sum += a[aBase + i] * b[bBase + i];
+        return sum;
+    }
+
+    private double dot(float[] a, int aBase, float[] b, int bBase) {
+        return dot(a, aBase, b, bBase, factors);
+    }
+
+    // Solves a x = b in place into b, for a symmetric positive definite a given by its lower triangle,
+    // which is overwritten by its Cholesky factor.
+    private static void solve(double[] a, double[] b, int n) {
+        for (int j = 0; j < n; j++) {
+            double diagonal = a[j * n + j];
+            for (int k = 0; k < j; k++) diagonal -= a[j * n + k] * a[j * n + k];
+            diagonal = Math.sqrt(Math.max(diagonal, 1e-12));
+            a[j * n + j] = diagonal;
+            for (int i = j + 1; i < n; i++) {
+                double value = a[i * n + j];
+                for (int k = 0; k < j; k++) value -= a[i * n + k] * a[j * n + k];
+                a[i * n + j] = value / diagonal;
+            }
+        }
+        for (int i = 0; i < n; i++) { // L z = b
+            double value = b[i];
+            for (int k = 0; k < i; k++) value -= a[i * n + k] * b[k];
+            b[i] = value / a[i * n + i];
+        }
+        for (int i = n - 1; i >= 0; i--) { // L^T x = z
+            double value = b[i];
+            for (int k = i + 1; k < n; k++) value -= a[k * n + i] * b[k];
+            b[i] = value / a[i * n + i];
+        }
+    }
+
+    // Solves the rows [from, to) of one side against the fixed factors of the other, halving the
+    // range until it is small. The item sweep also adds up the error of every rating it visits,
+    // with the users already solved, and both halves' sums are gathered into the parent.
+    private class SolveTask extends RecursiveAction {
+        private final RatingRows rows;
+        private final boolean userSide;
+        private final double[] gram; // Of the fixed side, implicit mode only.
+        private final int from, to;
+        private double squaredError = 0;
+        private long rated = 0;
+
+        SolveTask(RatingRows rows, boolean userSide, double[] gram, int from, int to) {
+            this.rows = rows;
+            this.userSide = userSide;
+            this.gram = gram;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > minTaskRows) {
+                int mid = (from + to) >>> 1;
+                SolveTask left = new SolveTask(rows, userSide, gram, from, mid), right = new SolveTask(rows, userSide, gram, mid, to);
+                invokeAll(left, right);
+                squaredError = left.squaredError + right.squaredError;
+                rated = left.rated + right.rated;
+                return;
+            }
+
+            float[] solved = userSide ? userFactors : itemFactors;
+            float[] fixed = userSide ? itemFactors : userFactors;
+            IntArrayList others = new IntArrayList();
+            FloatArrayList ratings = new FloatArrayList();
+            double[] a = new double[factors * factors];
+            double[] b = new double[factors];
+            for (int row = from; row < to; row++) {
+                others.clear();
+                ratings.clear();
+                if (userSide) rows.userRow(row, others, ratings);
+                else rows.itemRow(row, others, ratings);
+                int base = row * factors;
+                if (others.size() == 0) { // Nothing to fit, and no factors beat none.
+                    Arrays.fill(solved, base, base + factors, 0f);
+                    continue;
+                }
+
+                if (implicit) System.arraycopy(gram, 0, a, 0, a.length);
+                else Arrays.fill(a, 0);
+                Arrays.fill(b, 0);
+                for (int n = 0; n < others.size(); n++) {
+                    int other = others.get(n) * factors;
+                    double weight, target;
+                    if (implicit) {
+                        target = 1 + confidence * ratings.get(n); // Confidence times a preference of 1.
+                        weight = target - 1; // The gram matrix already counts every pair once.
+                    } else {
+                        target = ratings.get(n) - mean;
+                        weight = 1;
+                    }
+                    for (int i = 0; i < factors; i++) {
+                        double vi = fixed[other + i];
+                        b[i] += target * vi;
+                        double weighted = weight * vi;
+                        for (int j = 0; j <= i; j++) a[i * factors + j] += weighted * fixed[other + j];
+                    }
+                }
+                double lambda = implicit ? implicitLambda : explicitLambda * others.size();
+                for (int i = 0; i < factors; i++) a[i * factors + i] += lambda;
+                solve(a, b, factors);
+                for (int i = 0; i < factors; i++) solved[base + i] = (float) b[i];
+
+                if (userSide) continue;
+                for (int n = 0; n < others.size(); n++) {
+                    double error = (implicit ? 1 : ratings.get(n) - mean) - dot(userFactors, others.get(n) * factors, itemFactors, base);
+                    squaredError += error * error;
+                }
+                rated += others.size();
+            }
+        }
+    }
+
+    // Writes the model, with the original id of each user and item so it can be read back into a
+    // store that numbers them differently.
+    public void write(DataOutputStream out, int[] userIds, int[] itemIds) throws IOException {
+        out.writeInt(factors);
+        out.writeBoolean(implicit);
+        out.writeFloat(mean);
+        out.writeInt(iterations);
+        writeSide(out, userFactors, users, userIds);
+        writeSide(out, itemFactors, items, itemIds);
+    }
+
+    private void writeSide(DataOutputStream out, float[] vectors, int count, int[] ids) throws IOException {
+        out.writeInt(count);
+        for (int row = 0; row < count; row++) {
+            out.writeInt(ids[row]);
+            for (int i = 0; i < factors; i++) out.writeFloat(vectors[row * factors + i]);
+        }
+    }
+
+    // Reads a model written by write, numbering its users and items as the given maps from id do,
+    // which number userCount users and itemCount items. Users and items the maps do not have are
+    // dropped, and the ones only the maps have get no factors.
+    public static FactorModel read(DataInputStream in, IntIntHashMap userOf, int userCount, IntIntHashMap itemOf, int itemCount) throws IOException {
+        int factors = in.readInt();
+        boolean implicit = in.readBoolean();
+        if (factors <= 0) throw new IOException("Invalid number of factors: " + factors);
+        FactorModel model = new FactorModel(factors, implicit);
+        model.mean = in.readFloat();
+        model.iterations = in.readInt();
+        model.users = userCount;
+        model.items = itemCount;
+        model.userFactors = readSide(in, factors, userOf, userCount);
+        model.itemFactors = readSide(in, factors, itemOf, itemCount);
+        return model;
+    }
+
+    private static float[] readSide(DataInputStream in, int factors, IntIntHashMap denseOf, int count) throws IOException {
+        float[] vectors = new float[count * factors];
+        int stored = in.readInt();
+        for (int row = 0; row < stored; row++) {
+            int dense = denseOf.get(in.readInt());
+            for (int i = 0; i < factors; i++) {
+                float value = in.readFloat();
+                if (dense >= 0 && dense < count) vectors[dense * factors + i] = value;
+            }
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,180 @@
+package structures;
+
+public class FloatArrayList {
+
+    private float[] array;
+    private int size = 0;
+    private static final int defaultCapacity = 4; // Most posting lists are short, so start small.
+
+    public FloatArrayList() {
+        this.array = new float[defaultCapacity];
+    }
+
+    public FloatArrayList(int initialCapacity) {
+        this.array = new float[Math.max(initialCapacity, 1)];
+    }
+
+    // Wraps an existing array without copying it, the list takes ownership of it.
+    public static FloatArrayList wrap(float[] values, int size) {
+        FloatArrayList list = new FloatArrayList(0);
+        list.array = values;
+        list.size = size;
+        return list;
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(array.length + (array.length >> 1) + 1, minCapacity); // 1.5x growth keeps appends amortised O(1).
+        float[] tmp = new float[newCapacity];
+        System.arraycopy(array, 0, tmp, 0, size);
+        array = tmp;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > array.length) grow(minCapacity);
+    }
+
+    public boolean add(float value) {
+        if (size == array.length) grow(size + 1);
+        array[size++] = value;
+        return true;
+    }
+
+    public void add(int index, float value) {
+        if (index < 0 || index > size) throw new ArrayIndexOutOfBoundsException("index > size: " + index + " > " + size);
+        if (size == array.length) grow(size + 1);
+        System.arraycopy(array, index, array, index + 1, size - index);
+        array[index] = value;
+        size++;
+    }
+
+    public void addAll(float[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    public void addAll(float[] values, int from, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(values, from, array, size, length);
+        size += length;
+    }
+
+    public void addAll(FloatArrayList other) {
+        addAll(other.array, 0, other.size);
+    }
+
+    public float get(int index) {
+        if (index >= size) throw new ArrayIndexOutOfBoundsException("index > size: " + index + " >= " + size);
+        return array[index];
+    }
+
+    public float set(int index, float value) {
+        if (index >= size) throw new ArrayIndexOutOfBoundsException("index > size: " + index + " >= " + size);
+        float replaced = array[index];
+        array[index] = value;
+        return replaced;
+    }
+
+    // Returns the last element, used for cheap duplicate checks when appending.
+    public float last() {
+        if (size == 0) throw new ArrayIndexOutOfBoundsException("list is empty");
+        return array[size - 1];
+    }
+
+    public int indexOf(float value) {
+        for (int i = 0; i < size; i++) if (array[i] == value) return i;
+        return -1;
+    }
+
+    public boolean contains(float value) {
+        return indexOf(value) >= 0;
+    }
+
+    // Ordered remove, shifts everything after index down by one.
+    public float removeAt(int index) {
+        if (index >= size) throw new ArrayIndexOutOfBoundsException("index > size: " + index + " >= " + size);
+        float removed = array[index];
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
+        size--;
+        return removed;
+    }
+
+    // Unordered O(1) remove, the last element is moved into the hole.
+    public float swapRemove(int index) {
+        if (index >= size) throw new ArrayIndexOutOfBoundsException("index > size: " + index + " >= " + size);
+        float removed = array[index];
+        array[index] = array[--size];
+        return removed;
+    }
+
+    // Removes the first occurrence of value, keeping the order of the rest.
+    public boolean remove(float value) {
+        int index = indexOf(value);
+        if (index < 0) return false;
+        removeAt(index);
+        return true;
+    }
+
+    // Removes the first occurrence of value without keeping order.
+    public boolean swapRemoveValue(float value) {
+        int index = indexOf(value);
+        if (index < 0) return false;
+        swapRemove(index);
+        return true;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float[] toArray() {
+        float[] values = new float[size];
+        System.arraycopy(array, 0, values, 0, size);
+        return values;
+    }
+
+    // Shrinks the backing array to the current size, for lists that are finished growing.
+    public void trimToSize() {
+        if (array.length != size) array = toArray();
+    }
+
+    // Zero-copy read only view of the list, it always reflects the current contents.
+    public View view() {
+        return new View(this);
+    }
+
+    public static final class View {
+        private final FloatArrayList list;
+
+        private View(FloatArrayList list) {
+            this.list = list;
+        }
+
+        public float get(int index) {
+            return list.get(index);
+        }
+
+        public int size() {
+            return list.size;
+        }
+
+        public float[] toArray() {
+            return list.toArray();
+        }
+    }
+
+    public String toString() {
+        StringBuilder ret = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) ret.append(", ");
+            ret.append(array[i]);
+        }
+        return ret.append(']').toString();
+    }
+}
@@ -3,96 +3,130 @@ import stores.*;
 
 public class HashMap<V> {
 
-    private static class Entry<V> {
-        final Integer key;
-        V value;
-        Entry<V> next; // Pointer to next value in bucket.
-
-        Entry(Integer key, V value, Entry<V> next) {
-            this.key = key;
-            this.value = value;
-            this.next = next;
-        }
-    }
+    // Open addressing with linear probing. Keys and values live in two parallel arrays,
+    // so there is no per-entry node and no boxed Integer key.
+    // A slot is occupied exactly when its value is non-null, which is why null values are rejected.
 
-    private Entry<V>[] map;
+    private int[] keys;
+    private Object[] values;
     private int size = 0;
-    private int capacity = 5;
-    private final double loadFactor = 0.75; // Default loadfactor used in javas implementation of hashmap.
-    private int[] primes = {2, 5, 11, 23, 47, 97, 197, 397, 797, 1597, 3203, 6421, 12853, 25717, 51437, 102877, 205759, 411527, 823117, 1646237, 3292489, 6584983, 13169977, 26339969, 52679969, 105359939, 210719881, 421439783, 842879579, 1685759167};
-    // Precalculated set of primes emulating the method 'prime = nextPrime(prime * 2)'.
-    private int primecount = 2; // Starts the primes at 11.
+    private int capacity; // Always a power of two so that the slot index can be masked.
+    private int mask;
+    private int shift; // 32 - log2(capacity), used by the multiplicative hash.
+    private int threshold;
+    private static final double loadFactor = 0.6; // Linear probing degrades quickly as the table fills, so keep probe runs short.
+    private static final int defaultCapacity = 16;
 
-    @SuppressWarnings("unchecked")
     public HashMap() {
-        map = new Entry[capacity]; // Initialises the hashmap.
-    }
-
-    public int hash(Integer key) {
-        int hash = key;
-        hash ^= (hash >>> 20) ^ (hash >>> 12); // Method works by swapping the bits of the key.
-        hash ^= (hash >>> 7) ^ (hash >>> 4); 
-        return hash & (capacity - 1); // Acts as a modulus, but is optimised due to frequent usage of hash.
-    }
-
-    private void resize() {
-        this.capacity = primes[primecount];
-        primecount++;
-        
-        @SuppressWarnings("unchecked")
-        Entry<V>[] tempMap = new Entry[capacity]; // Makes the replacement hashmap.
-    
-        for (Entry<V> entry : map) { // Replaces every bucket within the hashmap.
-            while (entry != null) {
-                int newIndex = hash(entry.key);
-                Entry<V> nextEntry = entry.next;
-                entry.next = tempMap[newIndex];
-                tempMap[newIndex] = entry;
-                entry = nextEntry;
-            }
+        allocate(defaultCapacity);
+    }
+
+    // Presizing constructor, the map will not resize until more than expectedSize keys are stored.
+    public HashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 1) / loadFactor) + 1;
+        int tableSize = defaultCapacity;
+        while (tableSize < needed) tableSize <<= 1;
+        return tableSize;
+    }
+
+    private void allocate(int tableSize) {
+        this.capacity = tableSize;
+        this.mask = tableSize - 1;
+        this.shift = 32 - Integer.numberOfTrailingZeros(tableSize);
+        this.threshold = (int) (tableSize * loadFactor);
+        this.keys = new int[tableSize];
+        this.values = new Object[tableSize];
+    }
+
+    public int hash(int key) {
+        return (key * 0x9E3779B9) >>> shift; // Fibonacci hashing, the high bits of the product are well mixed.
+    }
+
+    // Returns the slot holding key, or -1 if it is not stored.
+    private int slotOf(int key) {
+        int index = hash(key);
+        while (values[index] != null) {
+            if (keys[index] == key) return index;
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldKeys.length; i++) { // Reinserts every occupied slot, no equality checks are needed.
+            if (oldValues[i] == null) continue;
+            int index = hash(oldKeys[i]);
+            while (values[index] != null) index = (index + 1) & mask;
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
         }
-    
-        map = tempMap;
+    }
+
+    // Grows the table up front so that expectedSize keys fit without further resizes.
+    public void ensureCapacity(int expectedSize) {
+        int tableSize = tableSizeFor(expectedSize);
+        if (tableSize > capacity) resize(tableSize);
     }
 
     public boolean put(int key, V value) {
-        while ((size + 1) >= capacity * loadFactor) resize(); // Resizes if the loadfactor is exceeded.
-    
-        int index = hash(key);
-        for (Entry<V> entry = map[index]; entry != null; entry = entry.next) if (entry.key.equals(key)) return false; // Checks for existing keys.
+        if (value == null) return false;
+        if (size >= threshold) resize(capacity << 1); // Resizes if the loadfactor is exceeded.
 
-        map[index] = new Entry<>(key, value, map[index]); // Adds new entry.
+        int index = hash(key);
+        while (values[index] != null) {
+            if (keys[index] == key) return false; // Checks for existing keys.
+            index = (index + 1) & mask;
+        }
+        keys[index] = key; // Adds new entry into the first free slot.
+        values[index] = value;
         this.size++;
         return true;
     }
 
+    @SuppressWarnings("unchecked")
     public V get(int key) {
-        int hashedkey = hash(key);
-        for (Entry<V> entry = map[hashedkey]; entry != null; entry = entry.next) if (entry.key.equals(key)) return entry.value; // Checks for key.
-        return null; // Key not found.
+        int index = slotOf(key);
+        return index < 0 ? null : (V) values[index]; // Key not found gives null.
+    }
+
+    public boolean containsKey(int key) {
+        return slotOf(key) >= 0;
     }
 
+    @SuppressWarnings("unchecked")
     public V take(int key) {
-        int index = hash(key);
-        Entry<V> prev = null;     // Initialize a reference to keep track of the previous entry in the chain.
-        for (Entry<V> entry = map[index]; entry != null; entry = entry.next) { // Go through bucket.
-            if (entry.key.equals(key)) {
-                V oldValue = entry.value; // Store old value for returning if found. 
-                if (prev == null) map[index] = entry.next; // If this entry is the first in the bucket (no previous entries), then set the next entry as the first entry of this bucket.
-                else prev.next = entry.next; // If there are previous entries, link the previous entry directly to the next entry, effectively removing the current entry from the chain.
-                this.size--; 
-    
-                return oldValue; 
+        int index = slotOf(key);
+        if (index < 0) return null;
+        V oldValue = (V) values[index]; // Store old value for returning.
+
+        // Backward shift deletion: pull later entries of the probe run into the gap, so no tombstones are needed.
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = hash(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) { // The entry at next may legally sit in the gap.
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
             }
-            prev = entry; 
+            next = (next + 1) & mask;
         }
-        return null; 
+        values[gap] = null;
+        this.size--;
+        return oldValue;
     }
 
-    @SuppressWarnings("unchecked")
     public void clear() {
-        this.map = new Entry[capacity]; 
-        this.size = 0; 
+        this.values = new Object[capacity];
+        this.size = 0;
     }
 
     public int size(){
@@ -102,6 +136,52 @@ public class HashMap<V> {
         return capacity;
     }
 
+    // Slot cursor for scanning every entry without building key or value arrays:
+    // for (int slot = map.nextSlot(0); slot >= 0; slot = map.nextSlot(slot + 1)) ...
+
+    // First occupied slot at or after slot, or -1 once the table is exhausted.
+    public int nextSlot(int slot) {
+        for (; slot < capacity; slot++) if (values[slot] != null) return slot;
+        return -1;
+    }
+
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    // Probe statistics. These scan the whole table, so they are meant for diagnostics and benchmarks only.
+
+    // Number of entries that are not stored in their home slot.
+    public int collisions() {
+        int count = 0;
+        for (int i = 0; i < capacity; i++) if (values[i] != null && hash(keys[i]) != i) count++;
+        return count;
+    }
+
+    // Longest distance any entry sits from its home slot (0 when every entry is in its home slot).
+    public int maxProbeLength() {
+        int max = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (values[i] != null) max = Math.max(max, (i - hash(keys[i])) & mask);
+        }
+        return max;
+    }
+
+    // Average number of slots inspected by a successful get.
+    public double averageProbeLength() {
+        if (size == 0) return 0;
+        long total = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (values[i] != null) total += ((i - hash(keys[i])) & mask) + 1;
+        }
+        return total / (double) size;
+    }
+
     // Various methods for returning all associated keys and values.
     // Used to have a generic implementation, but without access to javas newinstance, casting manually was deemed too slow.
 
@@ -109,14 +189,7 @@ public class HashMap<V> {
         float[] valuesArray = new float[size];
         if (size == 0) return valuesArray;
         int i = 0;
-    
-        for (Entry<V> entry : map) {
-            while (entry != null) {
-                valuesArray[i++] = (Float) entry.value;
-                entry = entry.next;
-            }
-        }
-    
+        for (int slot = 0; slot < capacity; slot++) if (values[slot] != null) valuesArray[i++] = (Float) values[slot];
         return valuesArray;
     }
 
@@ -124,84 +197,22 @@ public class HashMap<V> {
         int[] keyListArray = new int[size];
         if (size == 0) return keyListArray;
         int i = 0;
-        
-        for (Entry<V> entry : map) {
-            while (entry != null) {
-                keyListArray[i++] = entry.key;
-                entry = entry.next;
-            }
-        }
+        for (int slot = 0; slot < capacity; slot++) if (values[slot] != null) keyListArray[i++] = keys[slot];
         return keyListArray;
     }
 
     public MovieInfoData[] movieInfoList(){
         MovieInfoData[] movieInfoArray = new MovieInfoData[size];
         int i = 0;
-        
-        for (Entry<V> entry : map) {
-            while (entry != null) {
-                movieInfoArray[i++] = (MovieInfoData) entry.value;
-                entry = entry.next;
-            }
-        }
+        for (int slot = 0; slot < capacity; slot++) if (values[slot] != null) movieInfoArray[i++] = (MovieInfoData) values[slot];
         return movieInfoArray;
     }
 
-    public Person[] personList() {            
+    public Person[] personList() {
         if (size == 0) return new Person[0];
         Person[] valuesArray = new Person[size];
         int i = 0;
-    
-        for (Entry<V> entry : map) {
-            while (entry != null) {
-                valuesArray[i++] = (Person) entry.value;
-                entry = entry.next;
-            }
-        }
-        
+        for (int slot = 0; slot < capacity; slot++) if (values[slot] != null) valuesArray[i++] = (Person) values[slot];
         return valuesArray;
     }
-
-    public float[] ratingValuesTimePair(){
-        TimePair temp;
-        float[] returnArr = new float[size];
-        if (size == 0) return new float[0];
-        int i = 0;
-    
-        for (Entry<V> entry : map) {
-            while (entry != null) {
-                temp = (TimePair) entry.value;
-                returnArr[i++] = temp.getRating();
-                entry = entry.next;
-            }
-        }
-    
-        return returnArr;
-    }
-   
-    // @SuppressWarnings("unchecked")
-    // public <T> T[] valuez(Class<T> clazz) {
-    //     T[] array = (T[]) java.lang.reflect.Array.newInstance(clazz, size);
-    //     if (size == 0) return array;
-    //     int i = 0;
-
-    //     for (Entry<K, V> entry : map) {
-    //         while (entry != null) {
-    //             array[i++] = clazz.cast(entry.value);
-    //             entry = entry.next;
-    //         }
-    //     }
-
-    //     return array;
-    // }
 }
-
-
-
-
-
-
-
-
-
-
@@ -0,0 +1,166 @@
+package structures;
+
+public class IntIntHashMap {
+
+    // Same layout as HashMap (linear probing, Fibonacci hashing, backward shift deletion), but with
+    // int values, so mapping an id to an array index or a count needs no boxed Integer per entry.
+    // Occupancy is tracked in its own array because every int is a valid value.
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size = 0;
+    private int capacity;
+    private int mask;
+    private int shift;
+    private int threshold;
+    private final int missingValue; // Returned by get and remove when the key is absent.
+    private static final double loadFactor = 0.6;
+    private static final int defaultCapacity = 16;
+
+    public IntIntHashMap() {
+        this(0, -1);
+    }
+
+    public IntIntHashMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 1) / loadFactor) + 1;
+        int tableSize = defaultCapacity;
+        while (tableSize < needed) tableSize <<= 1;
+        return tableSize;
+    }
+
+    private void allocate(int tableSize) {
+        this.capacity = tableSize;
+        this.mask = tableSize - 1;
+        this.shift = 32 - Integer.numberOfTrailingZeros(tableSize);
+        this.threshold = (int) (tableSize * loadFactor);
+        this.keys = new int[tableSize];
+        this.values = new int[tableSize];
+        this.used = new boolean[tableSize];
+    }
+
+    private int hash(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    private int slotOf(int key) {
+        int index = hash(key);
+        while (used[index]) {
+            if (keys[index] == key) return index;
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (!oldUsed[i]) continue;
+            int index = hash(oldKeys[i]);
+            while (used[index]) index = (index + 1) & mask;
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+            used[index] = true;
+        }
+    }
+
+    public void ensureCapacity(int expectedSize) {
+        int tableSize = tableSizeFor(expectedSize);
+        if (tableSize > capacity) resize(tableSize);
+    }
+
+    // Stores value under key, replacing any previous value. Returns the previous value or missingValue.
+    public int put(int key, int value) {
+        if (size >= threshold) resize(capacity << 1);
+        int index = hash(key);
+        while (used[index]) {
+            if (keys[index] == key) {
+                int previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        used[index] = true;
+        size++;
+        return missingValue;
+    }
+
+    public int get(int key) {
+        int index = slotOf(key);
+        return index < 0 ? missingValue : values[index];
+    }
+
+    public boolean containsKey(int key) {
+        return slotOf(key) >= 0;
+    }
+
+    // Adds delta to the value under key, starting from 0 when absent. Returns the new value.
+    public int addTo(int key, int delta) {
+        int index = slotOf(key);
+        if (index >= 0) return values[index] += delta;
+        put(key, delta);
+        return delta;
+    }
+
+    public int remove(int key) {
+        int index = slotOf(key);
+        if (index < 0) return missingValue;
+        int oldValue = values[index];
+
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int home = hash(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+        size--;
+        return oldValue;
+    }
+
+    public void clear() {
+        this.used = new boolean[capacity];
+        this.size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Slot cursor, used the same way as HashMap.nextSlot.
+    public int nextSlot(int slot) {
+        for (; slot < capacity; slot++) if (used[slot]) return slot;
+        return -1;
+    }
+
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public int valueAt(int slot) {
+        return values[slot];
+    }
+
+    public int[] keyList() {
+        int[] keyListArray = new int[size];
+        int i = 0;
+        for (int slot = 0; slot < capacity; slot++) if (used[slot]) keyListArray[i++] = keys[slot];
+        return keyListArray;
+    }
+}
@@ -0,0 +1,357 @@
+package structures;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ItemSimilarity {
+
+    // The most similar items to each item, by adjusted cosine over a sparse item x user matrix of
+    // ratings: each rating is centred on its user's mean, and two items score the dot product of
+    // their centred columns over the product of their norms. A row of similarities is one sparse
+    // product, the item's raters are walked and every other item those raters rated is accumulated
+    // into a dense scratch array, so the cost is the sum of its raters' rating counts rather than a
+    // comparison with every item. Rows are computed in parallel over blocks of items of about equal
+    // work. Only the best positive neighbours of each item are kept, half as many again as are
+    // served, in fixed width slices of two arrays, so asking for k of them is O(k).
+    //
+    // A user's mean is fixed the first time it is used and kept until the next full build, so the
+    // similarity of two items only moves when the ratings of one of them do. An update recomputes
+    // the rows of the changed items, takes them out of every other list and puts back the ones whose
+    // new similarity beats the weakest the list held, so a list stays the exact best of its item,
+    // only maybe shorter. One cut short of neighbourCount, with neighbours it never kept, is
+    // recomputed, which the spare width keeps rare. Past a share of the items changed, everything
+    // is rebuilt instead.
+
+    private final int neighbourCount; // Served per item.
+    private final int width; // Kept per item.
+    private int items = 0; // Items with a list, the rest are computed on the next update.
+    private int[] neighbours = new int[0]; // Item i's list is neighbours[i * width ..] for counts[i] entries, most similar first.
+    private float[] similarities = new float[0];
+    private int[] counts = new int[0];
+    private boolean[] complete = new boolean[0]; // The list holds every positive neighbour, not just the best.
+    private float[] norms = new float[0]; // Of each item's centred column, as of its last row.
+    private float[] means = new float[0]; // Each user's mean, NaN until first used.
+
+    private static final int rebuildShare = 4; // More than 1/rebuildShare of the items changed triggers a rebuild.
+    private static final long minTaskWork = 1 << 16; // Multiply-adds per parallel task, at least.
+
+    public ItemSimilarity(int neighbourCount) {
+        this.neighbourCount = neighbourCount;
+        this.width = neighbourCount + (neighbourCount >> 1);
+    }
+
+    public int neighbourCount() {
+        return neighbourCount;
+    }
+
+    // Up to k of the items most similar to item, most similar first, ties to the lower number.
+    public int[] similar(int item, int k) {
+        if (item < 0 || item >= items || k <= 0) return new int[0];
+        int[] result = new int[Math.min(Math.min(k, neighbourCount), counts[item])];
+        System.arraycopy(neighbours, item * width, result, 0, result.length);
+        return result;
+    }
+
+    // Similarity of item to its index-th neighbour, matching similar().
+    public float similarity(int item, int index) {
+        return similarities[item * width + index];
+    }
+
+    // Recomputes every list and forgets every user mean.
+    public void rebuild(RatingRows rows) {
+        int itemCount = rows.itemCount();
+        ensureCapacity(itemCount);
+        means = new float[0];
+        int[] all = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) all[i] = i;
+        compute(rows, all, all.length, null);
+        items = itemCount;
+    }
+
+    // Brings the lists up to date with the ratings of the changed items, which may repeat. Items
+    // numbered past the last update are computed whether listed or not.
+    public void update(RatingRows rows, IntArrayList changed) {
+        int itemCount = rows.itemCount();
+        if (changed.size() == 0 && items == itemCount) return;
+        ensureCapacity(itemCount);
+        boolean[] isChanged = new boolean[itemCount];
+        IntArrayList dirty = new IntArrayList();
+        for (int i = 0; i < changed.size(); i++) mark(changed.get(i), isChanged, dirty);
+        for (int i = items; i < itemCount; i++) mark(i, isChanged, dirty);
+        if (dirty.size() == 0) return;
+        if (items == 0 || dirty.size() > itemCount / rebuildShare) {
+            rebuild(rows);
+            return;
+        }
+
+        RowTask done = compute(rows, dirty.toArray(), dirty.size(), isChanged);
+
+        // Takes the changed items out of every other list, then puts back the patches.
+        for (int j = 0; j < items; j++) {
+            if (isChanged[j]) continue;
+            int base = j * width, kept = 0;
+            for (int n = 0; n < counts[j]; n++) {
+                if (isChanged[neighbours[base + n]]) continue;
+                neighbours[base + kept] = neighbours[base + n];
+                similarities[base + kept] = similarities[base + n];
+                kept++;
+            }
+            counts[j] = kept;
+        }
+        for (int p = 0; p < done.patchItems.size(); p++) insert(done.patchItems.get(p), done.patchNeighbours.get(p), done.patchSimilarities.get(p));
+        IntArrayList shortened = new IntArrayList();
+        for (int j = 0; j < items; j++) if (!complete[j] && counts[j] < neighbourCount) shortened.add(j);
+        if (shortened.size() > 0) compute(rows, shortened.toArray(), shortened.size(), null);
+        items = itemCount;
+    }
+
+    private static void mark(int item, boolean[] isChanged, IntArrayList dirty) {
+        if (isChanged[item]) return;
+        isChanged[item] = true;
+        dirty.add(item);
+    }
+
+    // Puts (neighbour, similarity) into item's list in order, dropping the weakest if it overflows.
+    private void insert(int item, int neighbour, float similarity) {
+        int base = item * width;
+        int n = counts[item];
+        if (n == width) {
+            complete[item] = false;
+            if (!weaker(similarities[base + n - 1], neighbours[base + n - 1], similarity, neighbour)) return;
+            n--;
+        } else {
+            counts[item]++;
+        }
+        while (n > 0 && weaker(similarities[base + n - 1], neighbours[base + n - 1], similarity, neighbour)) {
+            neighbours[base + n] = neighbours[base + n - 1];
+            similarities[base + n] = similarities[base + n - 1];
+            n--;
+        }
+        neighbours[base + n] = neighbour;
+        similarities[base + n] = similarity;
+    }
+
+    // True when (similarityA, itemA) ranks below (similarityB, itemB), as TopK orders them.
+    private static boolean weaker(float similarityA, int itemA, float similarityB, int itemB) {
+        return similarityA < similarityB || (similarityA == similarityB && itemA > itemB);
+    }
+
+    private void ensureCapacity(int itemCount) {
+        if (itemCount <= counts.length) return;
+        int newCapacity = Math.max(itemCount, counts.length + (counts.length >> 1) + 16);
+        int[] tmpNeighbours = new int[newCapacity * width];
+        System.arraycopy(neighbours, 0, tmpNeighbours, 0, neighbours.length);
+        neighbours = tmpNeighbours;
+        float[] tmpSimilarities = new float[newCapacity * width];
+        System.arraycopy(similarities, 0, tmpSimilarities, 0, similarities.length);
+        similarities = tmpSimilarities;
+        int[] tmpCounts = new int[newCapacity];
+        System.arraycopy(counts, 0, tmpCounts, 0, counts.length);
+        counts = tmpCounts;
+        boolean[] tmpComplete = new boolean[newCapacity];
+        System.arraycopy(complete, 0, tmpComplete, 0, complete.length);
+        complete = tmpComplete;
+        float[] tmpNorms = new float[newCapacity];
+        System.arraycopy(norms, 0, tmpNorms, 0, norms.length);
+        norms = tmpNorms;
+    }
+
+    // A user's fixed mean, taken from the ratings the first time it is asked for.
+    private float meanOf(RatingRows rows, int user) {
+        if (user >= means.length) {
+            float[] tmpMeans = new float[Math.max(user + 1, Math.max(rows.userCount(), means.length + (means.length >> 1)))];
+            System.arraycopy(means, 0, tmpMeans, 0, means.length);
+            for (int u = means.length; u < tmpMeans.length; u++) tmpMeans[u] = Float.NaN;
+            means = tmpMeans;
+        }
+        if (Float.isNaN(means[user])) means[user] = rows.userMean(user);
+        return means[user];
+    }
+
+    // Computes the lists of targets[0..count). The centred rows of the targets and of every user
+    // who rated one are gathered first, along with the targets' norms, then the rows are shared out
+    // to tasks. With isChanged given, the similarities to the targets that would enter the lists of
+    // unchanged items are kept as patches.
+    private RowTask compute(RatingRows rows, int[] targets, int count, boolean[] isChanged) {
+        int itemCount = rows.itemCount();
+        IntArrayList raters = new IntArrayList();
+        FloatArrayList ratings = new FloatArrayList();
+        int[] itemOffsets = new int[count + 1];
+        for (int t = 0; t < count; t++) {
+            rows.itemRow(targets[t], raters, ratings);
+            itemOffsets[t + 1] = raters.size();
+        }
+
+        int[] slotOf = new int[rows.userCount()];
+        for (int u = 0; u < slotOf.length; u++) slotOf[u] = -1;
+        IntArrayList userItems = new IntArrayList();
+        FloatArrayList userValues = new FloatArrayList();
+        IntArrayList userOffsets = new IntArrayList();
+        userOffsets.add(0);
+        int slots = 0;
+        float[] itemValues = new float[raters.size()];
+        for (int t = 0; t < count; t++) {
+            double squares = 0;
+            for (int p = itemOffsets[t]; p < itemOffsets[t + 1]; p++) {
+                int user = raters.get(p);
+                float mean = meanOf(rows, user);
+                itemValues[p] = ratings.get(p) - mean;
+                squares += (double) itemValues[p] * itemValues[p];
+                if (slotOf[user] >= 0) {
+                    raters.set(p, slotOf[user]);
+                    continue;
+                }
+                int from = userItems.size();
+                rows.userRow(user, userItems, userValues);
+                for (int q = from; q < userValues.size(); q++) userValues.set(q, userValues.get(q) - mean);
+                userOffsets.add(userItems.size());
+                slotOf[user] = slots;
+                raters.set(p, slots++); // Rows refer to users by slot from here on.
+            }
+            norms[targets[t]] = (float) Math.sqrt(squares);
+        }
+
+        // Work of each target's row is the rating count of its raters, summed into a prefix for splitting.
+        long[] work = new long[count + 1];
+        for (int t = 0; t < count; t++) {
+            long rowWork = 0;
+            for (int p = itemOffsets[t]; p < itemOffsets[t + 1]; p++) rowWork += userOffsets.get(raters.get(p) + 1) - userOffsets.get(raters.get(p));
+            work[t + 1] = work[t] + rowWork;
+        }
+        long taskWork = Math.max(minTaskWork, work[count] / (ForkJoinPool.getCommonPoolParallelism() * 8) + 1);
+        Matrix matrix = new Matrix(itemCount, targets, itemOffsets, raters.toArray(), itemValues,
+                                   userOffsets.toArray(), userItems.toArray(), userValues.toArray(), work, taskWork, isChanged);
+        RowTask root = new RowTask(matrix, 0, count);
+        ForkJoinPool.commonPool().invoke(root);
+        return root;
+    }
+
+    // The gathered rows a compute shares out, read only while the tasks run.
+    private static final class Matrix {
+        final int itemCount;
+        final int[] targets;
+        final int[] itemOffsets; // Target t's raters are itemSlots[itemOffsets[t] .. itemOffsets[t + 1]).
+        final int[] itemSlots;
+        final float[] itemValues;
+        final int[] userOffsets; // Slot s's items are userItems[userOffsets[s] .. userOffsets[s + 1]).
+        final int[] userItems;
+        final float[] userValues;
+        final long[] work;
+        final long taskWork;
+        final boolean[] isChanged;
+
+        Matrix(int itemCount, int[] targets, int[] itemOffsets, int[] itemSlots, float[] itemValues,
+               int[] userOffsets, int[] userItems, float[] userValues, long[] work, long taskWork, boolean[] isChanged) {
+            this.itemCount = itemCount;
+            this.targets = targets;
+            this.itemOffsets = itemOffsets;
+            this.itemSlots = itemSlots;
+            this.itemValues = itemValues;
+            this.userOffsets = userOffsets;
+            this.userItems = userItems;
+            this.userValues = userValues;
+            this.work = work;
+            this.taskWork = taskWork;
+            this.isChanged = isChanged;
+        }
+    }
+
+    // Computes the rows of targets [from, to), splitting the range at its middle of work until a
+    // task has little enough, or one row. Each target's list is written in place, and the patches
+    // of both halves are gathered into the parent.
+    private class RowTask extends RecursiveAction {
+        private final Matrix matrix;
+        private final int from, to;
+        private final IntArrayList patchItems = new IntArrayList();
+        private final IntArrayList patchNeighbours = new IntArrayList();
+        private final FloatArrayList patchSimilarities = new FloatArrayList();
+
+        RowTask(Matrix matrix, int from, int to) {
+            this.matrix = matrix;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            long[] work = matrix.work;
+            if (to - from > 1 && work[to] - work[from] > matrix.taskWork) {
+                long half = (work[from] + work[to]) >>> 1;
+                int low = from + 1, high = to - 1; // First split point with at least half the work before it.
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (work[mid] < half) low = mid + 1;
+                    else high = mid;
+                }
+                RowTask left = new RowTask(matrix, from, low), right = new RowTask(matrix, low, to);
+                invokeAll(left, right);
+                for (RowTask child : new RowTask[] {left, right}) {
+                    patchItems.addAll(child.patchItems);
+                    patchNeighbours.addAll(child.patchNeighbours);
+                    patchSimilarities.addAll(child.patchSimilarities);
+                }
+                return;
+            }
+
+            double[] dots = new double[matrix.itemCount];
+            boolean[] seen = new boolean[matrix.itemCount];
+            IntArrayList touched = new IntArrayList();
+            TopK top = new TopK(width);
+            for (int t = from; t < to; t++) {
+                int item = matrix.targets[t];
+                for (int p = matrix.itemOffsets[t]; p < matrix.itemOffsets[t + 1]; p++) {
+                    int slot = matrix.itemSlots[p];
+                    double value = matrix.itemValues[p];
+                    if (value == 0) continue;
+                    for (int q = matrix.userOffsets[slot]; q < matrix.userOffsets[slot + 1]; q++) {
+                        int other = matrix.userItems[q];
+                        if (!seen[other]) {
+                            seen[other] = true;
+                            touched.add(other);
+                        }
+                        dots[other] += value * matrix.userValues[q];
+                    }
+                }
+
+                top.clear();
+                int offered = 0;
+                float norm = norms[item];
+                for (int n = 0; n < touched.size(); n++) {
+                    int other = touched.get(n);
+                    double dot = dots[other];
+                    dots[other] = 0;
+                    seen[other] = false;
+                    if (other == item || norm == 0 || norms[other] == 0 || dot <= 0) continue;
+                    float similarity = (float) (dot / ((double) norm * norms[other]));
+                    top.offer(other, similarity);
+                    offered++;
+                    if (matrix.isChanged != null && !matrix.isChanged[other] && other < items && ranks(other, item, similarity)) {
+                        patchItems.add(other);
+                        patchNeighbours.add(item);
+                        patchSimilarities.add(similarity);
+                    }
+                }
+                touched.clear();
+
+                int[] best = top.result();
+                double[] bestScores = top.resultScores();
+                int base = item * width;
+                for (int n = 0; n < best.length; n++) {
+                    neighbours[base + n] = best[n];
+                    similarities[base + n] = (float) bestScores[n];
+                }
+                counts[item] = best.length;
+                complete[item] = offered <= width;
+            }
+        }
+
+        // Whether (neighbour, similarity) beats the weakest the unchanged list of item holds, or the
+        // list holds every positive neighbour, so it enters the list as it stands.
+        private boolean ranks(int item, int neighbour, float similarity) {
+            int n = counts[item];
+            if (complete[item] || n == 0) return true;
+            int last = item * width + n - 1;
+            return weaker(similarities[last], neighbours[last], similarity, neighbour);
+        }
+    }
+}
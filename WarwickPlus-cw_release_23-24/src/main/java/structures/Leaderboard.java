@@ -0,0 +1,211 @@
+package structures;
+
+public class Leaderboard {
+
+    // An AVL tree of (score, id) pairs ordered best first, stored in parallel arrays indexed by node.
+    // nodeOf maps each id to its node, so changing an id's score is a delete and an insert, O(log n),
+    // and the best k ids are the first k nodes of an in-order walk, O(k + log n).
+    // Higher scores rank first, equal scores go to the lower id, the same order TopK uses.
+
+    private double[] scores;
+    private int[] ids;
+    private int[] left;
+    private int[] right;
+    private int[] height;
+    private int root = -1;
+    private int size = 0;
+    private int used = 0; // Nodes handed out so far, freed nodes are reused from freeNodes first.
+    private final IntArrayList freeNodes = new IntArrayList();
+    private final IntIntHashMap nodeOf;
+
+    public Leaderboard() {
+        this(16);
+    }
+
+    public Leaderboard(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        scores = new double[capacity];
+        ids = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        height = new int[capacity];
+        nodeOf = new IntIntHashMap(initialCapacity, -1);
+    }
+
+    // True when (scoreA, idA) ranks ahead of (scoreB, idB).
+    private static boolean ahead(double scoreA, int idA, double scoreB, int idB) {
+        return scoreA > scoreB || (scoreA == scoreB && idA < idB);
+    }
+
+    // Sets the score for id, adding it if it is new.
+    public void update(int id, double score) {
+        int node = nodeOf.get(id);
+        if (node >= 0) {
+            if (scores[node] == score) return;
+            root = delete(root, scores[node], id);
+        }
+        node = newNode(id, score);
+        nodeOf.put(id, node);
+        root = insert(root, node);
+        size = nodeOf.size();
+    }
+
+    public boolean remove(int id) {
+        int node = nodeOf.get(id);
+        if (node < 0) return false;
+        root = delete(root, scores[node], id);
+        size = nodeOf.size();
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return nodeOf.containsKey(id);
+    }
+
+    // Current score of id, or NaN when it is not on the board.
+    public double score(int id) {
+        int node = nodeOf.get(id);
+        return node < 0 ? Double.NaN : scores[node];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root = -1;
+        size = 0;
+        used = 0;
+        freeNodes.clear();
+        nodeOf.clear();
+    }
+
+    // The best k ids, best first.
+    public int[] top(int k) {
+        int count = Math.max(0, Math.min(k, size));
+        int[] result = new int[count];
+        if (count == 0) return result;
+        int[] stack = new int[height(root) + 1]; // An in-order walk never holds more than one node per level.
+        int depth = 0;
+        int node = root;
+        int filled = 0;
+        while (filled < count) {
+            while (node >= 0) {
+                stack[depth++] = node;
+                node = left[node];
+            }
+            node = stack[--depth];
+            result[filled++] = ids[node];
+            node = right[node];
+        }
+        return result;
+    }
+
+    private int newNode(int id, double score) {
+        int node;
+        if (!freeNodes.isEmpty()) {
+            node = freeNodes.removeAt(freeNodes.size() - 1);
+        } else {
+            if (used == ids.length) grow();
+            node = used++;
+        }
+        ids[node] = id;
+        scores[node] = score;
+        left[node] = -1;
+        right[node] = -1;
+        height[node] = 1;
+        return node;
+    }
+
+    private void grow() {
+        int newCapacity = ids.length + (ids.length >> 1) + 1;
+        double[] tmpScores = new double[newCapacity];
+        int[] tmpIds = new int[newCapacity];
+        int[] tmpLeft = new int[newCapacity];
+        int[] tmpRight = new int[newCapacity];
+        int[] tmpHeight = new int[newCapacity];
+        System.arraycopy(scores, 0, tmpScores, 0, used);
+        System.arraycopy(ids, 0, tmpIds, 0, used);
+        System.arraycopy(left, 0, tmpLeft, 0, used);
+        System.arraycopy(right, 0, tmpRight, 0, used);
+        System.arraycopy(height, 0, tmpHeight, 0, used);
+        scores = tmpScores;
+        ids = tmpIds;
+        left = tmpLeft;
+        right = tmpRight;
+        height = tmpHeight;
+    }
+
+    private int height(int node) {
+        return node < 0 ? 0 : height[node];
+    }
+
+    private void fixHeight(int node) {
+        height[node] = 1 + Math.max(height(left[node]), height(right[node]));
+    }
+
+    private int rightRotate(int y) {
+        int x = left[y];
+        left[y] = right[x];
+        right[x] = y;
+        fixHeight(y);
+        fixHeight(x);
+        return x;
+    }
+
+    private int leftRotate(int x) {
+        int y = right[x];
+        right[x] = left[y];
+        left[y] = x;
+        fixHeight(x);
+        fixHeight(y);
+        return y;
+    }
+
+    private int balance(int node) {
+        fixHeight(node);
+        int balance = height(left[node]) - height(right[node]);
+        if (balance > 1) {
+            if (height(left[left[node]]) < height(right[left[node]])) left[node] = leftRotate(left[node]);
+            return rightRotate(node);
+        }
+        if (balance < -1) {
+            if (height(right[right[node]]) < height(left[right[node]])) right[node] = rightRotate(right[node]);
+            return leftRotate(node);
+        }
+        return node;
+    }
+
+    private int insert(int node, int fresh) {
+        if (node < 0) return fresh;
+        if (ahead(scores[fresh], ids[fresh], scores[node], ids[node])) left[node] = insert(left[node], fresh);
+        else right[node] = insert(right[node], fresh);
+        return balance(node);
+    }
+
+    // Removes the node holding (score, id) from the subtree and frees it.
+    private int delete(int node, double score, int id) {
+        if (node < 0) return -1;
+        if (ids[node] == id) {
+            nodeOf.remove(id);
+            freeNodes.add(node);
+            if (left[node] < 0) return right[node];
+            if (right[node] < 0) return left[node];
+            int successor = right[node]; // Relinks the in-order successor in place of node, so node indices stay valid for nodeOf.
+            while (left[successor] >= 0) successor = left[successor];
+            right[successor] = detachMin(right[node]);
+            left[successor] = left[node];
+            return balance(successor);
+        }
+        if (ahead(score, id, scores[node], ids[node])) left[node] = delete(left[node], score, id);
+        else right[node] = delete(right[node], score, id);
+        return balance(node);
+    }
+
+    // Unlinks the leftmost node of the subtree without freeing it.
+    private int detachMin(int node) {
+        if (left[node] < 0) return right[node];
+        left[node] = detachMin(left[node]);
+        return balance(node);
+    }
+}
@@ -30,19 +30,6 @@ public class LinkedList<T> {
         return true;
     }
 
-    public void appendList(LinkedList<T> other) {
-        if (other == null || other.head == null) return; 
-        if (this.head == null) { // If the current list is empty, point head to other's head.
-            this.head = other.head;
-        } else {
-            Node<T> current = this.head;
-            while (current.next != null) current = current.next; // Find the last node of the current list.
-            current.next = other.head; // Link the last node of the current list to the head of the other list.
-        }
-        this.size += other.size; 
-    }
-
-
     public boolean remove(T elementToRemove) {
         if (head == null) return false; 
         if (head.element.equals(elementToRemove)) {
@@ -65,18 +52,6 @@ public class LinkedList<T> {
         return false; // Element not found.
     }
 
-    public int[] getValues() {
-        int[] values = new int[this.size];
-        if (size == 0) return values;
-        Node<T> current = this.head; // Start from the head node.
-        int index = this.size - 1;  // Adds elements in reverse to counter stack effect.
-        while (current != null) {
-            values[index--] = (Integer) current.element; // Assumes all elements are Integers.
-            current = current.next;
-        }
-        return values;
-    }
-
     public Company[] getValuesCompany() {
         Company[] values = new Company[this.size];
         if (size == 0) return values;
@@ -0,0 +1,180 @@
+package structures;
+
+public class LongArrayList {
+
+    private long[] array;
+    private int size = 0;
+    private static final int defaultCapacity = 4; // Most posting lists are short, so start small.
+
+    public LongArrayList() {
+        this.array = new long[defaultCapacity];
+    }
+
+    public LongArrayList(int initialCapacity) {
+        this.array = new long[Math.max(initialCapacity, 1)];
+    }
+
+    // Wraps an existing array without copying it, the list takes ownership of it.
+    public static LongArrayList wrap(long[] values, int size) {
+        LongArrayList list = new LongArrayList(0);
+        list.array = values;
+        list.size = size;
+        return list;
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(array.length + (array.length >> 1) + 1, minCapacity); // 1.5x growth keeps appends amortised O(1).
+        long[] tmp = new long[newCapacity];
+        System.arraycopy(array, 0, tmp, 0, size);
+        array = tmp;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > array.length) grow(minCapacity);
+    }
+
+    public boolean add(long value) {
+        if (size == array.length) grow(size + 1);
+        array[size++] = value;
+        return true;
+    }
+
+    public void add(int index, long value) {
+        if (index < 0 || index > size) throw new ArrayIndexOutOfBoundsException("index > size: " + index + " > " + size);
+        if (size == array.length) grow(size + 1);
+        System.arraycopy(array, index, array, index + 1, size - index);
+        array[index] = value;
+        size++;
+    }
+
+    public void addAll(long[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    public void addAll(long[] values, int from, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(values, from, array, size, length);
+        size += length;
+    }
+
+    public void addAll(LongArrayList other) {
+        addAll(other.array, 0, other.size);
+    }
+
+    public long get(int index) {
+        if (index >= size) throw new ArrayIndexOutOfBoundsException("index > size: " + index + " >= " + size);
+        return array[index];
+    }
+
+    public long set(int index, long value) {
+        if (index >= size) throw new ArrayIndexOutOfBoundsException("index > size: " + index + " >= " + size);
+        long replaced = array[index];
+        array[index] = value;
+        return replaced;
+    }
+
+    // Returns the last element, used for cheap duplicate checks when appending.
+    public long last() {
+        if (size == 0) throw new ArrayIndexOutOfBoundsException("list is empty");
+        return array[size - 1];
+    }
+
+    public int indexOf(long value) {
+        for (int i = 0; i < size; i++) if (array[i] == value) return i;
+        return -1;
+    }
+
+    public boolean contains(long value) {
+        return indexOf(value) >= 0;
+    }
+
+    // Ordered remove, shifts everything after index down by one.
+    public long removeAt(int index) {
+        if (index >= size) throw new ArrayIndexOutOfBoundsException("index > size: " + index + " >= " + size);
+        long removed = array[index];
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
+        size--;
+        return removed;
+    }
+
+    // Unordered O(1) remove, the last element is moved into the hole.
+    public long swapRemove(int index) {
+        if (index >= size) throw new ArrayIndexOutOfBoundsException("index > size: " + index + " >= " + size);
+        long removed = array[index];
+        array[index] = array[--size];
+        return removed;
+    }
+
+    // Removes the first occurrence of value, keeping the order of the rest.
+    public boolean remove(long value) {
+        int index = indexOf(value);
+        if (index < 0) return false;
+        removeAt(index);
+        return true;
+    }
+
+    // Removes the first occurrence of value without keeping order.
+    public boolean swapRemoveValue(long value) {
+        int index = indexOf(value);
+        if (index < 0) return false;
+        swapRemove(index);
+        return true;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long[] toArray() {
+        long[] values = new long[size];
+        System.arraycopy(array, 0, values, 0, size);
+        return values;
+    }
+
+    // Shrinks the backing array to the current size, for lists that are finished growing.
+    public void trimToSize() {
+        if (array.length != size) array = toArray();
+    }
+
+    // Zero-copy read only view of the list, it always reflects the current contents.
+    public View view() {
+        return new View(this);
+    }
+
+    public static final class View {
+        private final LongArrayList list;
+
+        private View(LongArrayList list) {
+            this.list = list;
+        }
+
+        public long get(int index) {
+            return list.get(index);
+        }
+
+        public int size() {
+            return list.size;
+        }
+
+        public long[] toArray() {
+            return list.toArray();
+        }
+    }
+
+    public String toString() {
+        StringBuilder ret = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) ret.append(", ");
+            ret.append(array[i]);
+        }
+        return ret.append(']').toString();
+    }
+}
@@ -0,0 +1,107 @@
+package structures;
+
+import java.text.Normalizer;
+
+public class NameIndex {
+
+    // Names of people, folded to lower case without accents so "Penélope Cruz" is found by "penelope",
+    // and indexed twice: a SubstringIndex answers contains queries over the name tokens, and a
+    // PrefixTree over whole names answers type-ahead queries best score first. The folded names are
+    // kept to check the candidates of queries that span separators.
+
+    private final HashMap<String> folded;
+    private final SubstringIndex substrings;
+    private final PrefixTree prefixes;
+
+    public NameIndex() {
+        folded = new HashMap<>();
+        substrings = new SubstringIndex();
+        prefixes = new PrefixTree();
+    }
+
+    // Folded form of each Latin-1 char, worked out once with the Normalizer. Latin-1 covers the accents
+    // of most names, so only names with other chars pay for normalising.
+    private static final char[] latin1 = new char[256];
+
+    static {
+        for (char c = 0; c < 256; c++) {
+            String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            latin1[c] = SubstringIndex.fold(decomposed.charAt(0)); // A decomposed Latin-1 char is its base char then marks.
+        }
+    }
+
+    // Lower case with accents and other combining marks stripped.
+    public static String fold(String name) {
+        boolean latin = true;
+        for (int i = 0; i < name.length() && latin; i++) latin = name.charAt(i) < 256;
+        if (latin) {
+            char[] chars = name.toCharArray();
+            for (int i = 0; i < chars.length; i++) chars[i] = latin1[chars[i]];
+            return new String(chars);
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder stripped = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) stripped.append(SubstringIndex.fold(c));
+        }
+        return stripped.toString();
+    }
+
+    public int size() {
+        return folded.size();
+    }
+
+    public boolean contains(int id) {
+        return folded.containsKey(id);
+    }
+
+    // Adds a person with an initial score, false if id is already indexed.
+    public boolean add(int id, String name, int score) {
+        if (name == null || folded.containsKey(id)) return false;
+        String key = fold(name);
+        folded.put(id, key);
+        substrings.add(id, key);
+        prefixes.add(id, key, score);
+        return true;
+    }
+
+    public boolean remove(int id) {
+        String key = folded.take(id);
+        if (key == null) return false;
+        substrings.remove(id, key);
+        prefixes.remove(id);
+        return true;
+    }
+
+    public boolean setScore(int id, int score) {
+        return prefixes.setScore(id, score);
+    }
+
+    // Ids whose folded name contains the folded query, in increasing order.
+    public int[] find(String query) {
+        String key = fold(query);
+        int[] candidates = substrings.candidates(key);
+        if (candidates == null) { // Nothing to narrow by, every name is checked.
+            candidates = folded.keyList();
+            Sort.radixSort(candidates);
+        } else if (SubstringIndex.isExact(key)) return candidates;
+
+        int found = 0;
+        for (int id : candidates) if (folded.get(id).contains(key)) candidates[found++] = id;
+        int[] result = new int[found];
+        System.arraycopy(candidates, 0, result, 0, found);
+        return result;
+    }
+
+    // The best scored limit ids whose folded name starts with the folded prefix, best first.
+    public int[] topByPrefix(String prefix, int limit) {
+        return prefixes.top(fold(prefix), limit);
+    }
+
+    // The limit ids whose folded name is closest to the folded query, at most maxEdits edits away,
+    // closest first and then best scored.
+    public int[] fuzzy(String query, int maxEdits, int limit) {
+        return prefixes.fuzzy(fold(query), maxEdits, limit);
+    }
+}
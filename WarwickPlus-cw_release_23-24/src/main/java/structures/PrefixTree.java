@@ -0,0 +1,450 @@
+package structures;
+
+public class PrefixTree {
+
+    // A radix tree over string keys, each key holding one or more scored ids, stored in parallel arrays
+    // indexed by node. The edge into a node is labelled text[node][start, end), a slice of a key that
+    // passes through the node, so labels share the key strings instead of copying chars.
+    // best[node] is the highest score anywhere below node, which lets top(prefix, k) walk the subtree
+    // best first and stop after k ids, rather than visiting every key under a short prefix.
+    // Higher scores rank first, equal scores go to the lower id, the same order TopK uses.
+    // Scores must be non-negative.
+
+    private static final int root = 0;
+
+    private String[] text;
+    private int[] start;
+    private int[] end;
+    private char[] first; // First char of the label, so finding a child does not touch the strings.
+    private int[] parent;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] best; // -1 for a subtree with no ids.
+    private int[] head; // First entry at the node, or -1.
+    private int nodes = 0;
+    private final IntArrayList freeNodes = new IntArrayList();
+
+    // Entries are the (id, score) pairs, chained per node through entryNext.
+    private int[] entryId;
+    private int[] entryScore;
+    private int[] entryNode;
+    private int[] entryNext;
+    private int entries = 0;
+    private final IntArrayList freeEntries = new IntArrayList();
+    private final IntIntHashMap entryOf = new IntIntHashMap(16, -1);
+
+    public PrefixTree() {
+        text = new String[16];
+        start = new int[16];
+        end = new int[16];
+        first = new char[16];
+        parent = new int[16];
+        firstChild = new int[16];
+        nextSibling = new int[16];
+        best = new int[16];
+        head = new int[16];
+        entryId = new int[16];
+        entryScore = new int[16];
+        entryNode = new int[16];
+        entryNext = new int[16];
+        newNode("", 0, 0, -1);
+    }
+
+    public int size() {
+        return entryOf.size();
+    }
+
+    public boolean contains(int id) {
+        return entryOf.containsKey(id);
+    }
+
+    // Adds id under key with the given score, false if id is already stored.
+    public boolean add(int id, String key, int score) {
+        if (entryOf.containsKey(id)) return false;
+        int node = root;
+        int position = 0;
+        while (position < key.length()) {
+            int child = childStartingWith(node, key.charAt(position));
+            if (child < 0) {
+                node = newNode(key, position, key.length(), node);
+                break;
+            }
+            int labelLength = end[child] - start[child];
+            int common = 0;
+            while (common < labelLength && position + common < key.length()
+                   && text[child].charAt(start[child] + common) == key.charAt(position + common)) common++;
+            if (common < labelLength) {
+                split(child, common);
+                node = parent[child]; // The new node holding the shared part.
+            } else {
+                node = child;
+            }
+            position += common;
+        }
+        int entry = newEntry(id, score, node);
+        entryOf.put(id, entry);
+        for (int n = node; n >= 0 && best[n] < score; n = parent[n]) best[n] = score;
+        return true;
+    }
+
+    public boolean remove(int id) {
+        int entry = entryOf.remove(id);
+        if (entry < 0) return false;
+        int node = entryNode[entry];
+        if (head[node] == entry) head[node] = entryNext[entry];
+        else {
+            int previous = head[node];
+            while (entryNext[previous] != entry) previous = entryNext[previous];
+            entryNext[previous] = entryNext[entry];
+        }
+        freeEntries.add(entry);
+
+        while (node != root && head[node] < 0 && firstChild[node] < 0) { // Drops the branch that only led to id.
+            int up = parent[node];
+            unlinkChild(up, node);
+            freeNode(node);
+            node = up;
+        }
+        if (node != root && head[node] < 0 && nextSibling[firstChild[node]] < 0) node = mergeWithChild(node);
+        refreshBest(node);
+        return true;
+    }
+
+    // Changes the score of a stored id, false if id is not stored.
+    public boolean setScore(int id, int score) {
+        int entry = entryOf.get(id);
+        if (entry < 0) return false;
+        int old = entryScore[entry];
+        entryScore[entry] = score;
+        if (score > old) {
+            for (int n = entryNode[entry]; n >= 0 && best[n] < score; n = parent[n]) best[n] = score;
+        } else if (score < old) {
+            refreshBest(entryNode[entry]);
+        }
+        return true;
+    }
+
+    public int score(int id) {
+        int entry = entryOf.get(id);
+        return entry < 0 ? -1 : entryScore[entry];
+    }
+
+    // The best k ids whose key starts with prefix, best first.
+    public int[] top(String prefix, int k) {
+        if (k <= 0) return new int[0];
+        int node = find(prefix);
+        if (node < 0 || best[node] < 0) return new int[0];
+
+        // Max heap of packed candidates: score, then a flag that puts subtrees ahead of ids with the same
+        // score (their ids may be lower), then the node, or the id flipped so that lower ids pop first.
+        long[] heap = new long[16];
+        int heapSize = 0;
+        int[] result = new int[Math.min(k, size())];
+        int filled = 0;
+        heap[heapSize++] = packNode(best[node], node);
+        while (heapSize > 0 && filled < result.length) {
+            long top = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, 0);
+            if ((top & (1L << 32)) == 0) {
+                result[filled++] = unpackId(top);
+                continue;
+            }
+            int expanded = (int) top;
+            int needed = 0;
+            for (int entry = head[expanded]; entry >= 0; entry = entryNext[entry]) needed++;
+            for (int child = firstChild[expanded]; child >= 0; child = nextSibling[child]) needed++;
+            if (heapSize + needed > heap.length) {
+                long[] tmp = new long[Math.max(heap.length << 1, heapSize + needed)];
+                System.arraycopy(heap, 0, tmp, 0, heapSize);
+                heap = tmp;
+            }
+            for (int entry = head[expanded]; entry >= 0; entry = entryNext[entry]) {
+                heap[heapSize] = packId(entryScore[entry], entryId[entry]);
+                siftUp(heap, heapSize++);
+            }
+            for (int child = firstChild[expanded]; child >= 0; child = nextSibling[child]) {
+                if (best[child] < 0) continue;
+                heap[heapSize] = packNode(best[child], child);
+                siftUp(heap, heapSize++);
+            }
+        }
+        if (filled == result.length) return result;
+        int[] trimmed = new int[filled];
+        System.arraycopy(result, 0, trimmed, 0, filled);
+        return trimmed;
+    }
+
+    // The best k ids whose key is within maxEdits of key, where inserting, deleting or changing a char
+    // or swapping two neighbouring chars is one edit. Closer keys come first, then higher scores, then
+    // lower ids. The walk keeps one row of the edit distance table per char along the path, and leaves
+    // a branch once its row is all over maxEdits, as no key below can get closer, or once the row and
+    // best show nothing below could beat the k-th id already found.
+    public int[] fuzzy(String key, int maxEdits, int k) {
+        if (k <= 0 || maxEdits < 0 || size() == 0) return new int[0];
+        FuzzyWalk walk = new FuzzyWalk(key, maxEdits, Math.min(k, size()));
+        fuzzyWalk(root, 0, 0, walk);
+        return walk.top.result();
+    }
+
+    // Visits node, whose label starts at depth chars into the path, where the row above had minimum rowMin.
+    private void fuzzyWalk(int node, int depth, int rowMin, FuzzyWalk walk) {
+        for (int i = start[node]; i < end[node]; i++) {
+            rowMin = walk.step(depth++, text[node].charAt(i));
+            if (rowMin > walk.maxEdits || walk.beaten(rowMin, best[node])) return;
+        }
+        int distance = walk.distance(depth);
+        if (distance <= walk.maxEdits) {
+            for (int entry = head[node]; entry >= 0; entry = entryNext[entry]) walk.top.offer(entryId[entry], walk.rank(distance, entryScore[entry]));
+        }
+        for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+            if (best[child] >= 0 && !walk.beaten(rowMin, best[child])) fuzzyWalk(child, depth, rowMin, walk);
+        }
+    }
+
+    private static final class FuzzyWalk {
+        private final String key;
+        private final int maxEdits;
+        private final int width;
+        private int[] rows; // Row d, the distances from the first d chars of the path to each prefix of key, at d * width.
+        private char[] path;
+        private final TopK top;
+
+        FuzzyWalk(String key, int maxEdits, int k) {
+            this.key = key;
+            this.maxEdits = maxEdits;
+            this.top = new TopK(k);
+            width = key.length() + 1;
+            rows = new int[width * 16];
+            path = new char[16];
+            for (int j = 0; j < width; j++) rows[j] = j;
+        }
+
+        // Fills row depth + 1 for the path char c, returning its minimum.
+        int step(int depth, char c) {
+            if ((depth + 2) * width > rows.length) {
+                int[] tmp = new int[rows.length << 1];
+                System.arraycopy(rows, 0, tmp, 0, rows.length);
+                rows = tmp;
+            }
+            if (depth == path.length) {
+                char[] tmp = new char[path.length << 1];
+                System.arraycopy(path, 0, tmp, 0, path.length);
+                path = tmp;
+            }
+            path[depth] = c;
+            int above = depth * width;
+            int row = above + width;
+            rows[row] = depth + 1;
+            int min = depth + 1;
+            for (int j = 1; j < width; j++) {
+                char wanted = key.charAt(j - 1);
+                int distance = Math.min(rows[above + j] + 1, rows[row + j - 1] + 1);
+                distance = Math.min(distance, rows[above + j - 1] + (wanted == c ? 0 : 1));
+                if (depth > 0 && j > 1 && c == key.charAt(j - 2) && path[depth - 1] == wanted) { // Two chars swapped.
+                    distance = Math.min(distance, rows[above - width + j - 2] + 1);
+                }
+                rows[row + j] = distance;
+                if (distance < min) min = distance;
+            }
+            return min;
+        }
+
+        // Distance from the first depth chars of the path to the whole key.
+        int distance(int depth) {
+            return rows[depth * width + width - 1];
+        }
+
+        // Distance first, then score, packed into one exact double for TopK.
+        double rank(int distance, int score) {
+            return (double) (maxEdits - distance) * (1L << 32) + score;
+        }
+
+        // True when no key at least rowMin edits away and scoring at most best can enter the top k.
+        boolean beaten(int rowMin, int best) {
+            return top.isFull() && rank(rowMin, best) < top.threshold();
+        }
+    }
+
+    private static long packNode(int score, int node) {
+        return ((long) score << 33) | (1L << 32) | node;
+    }
+
+    private static long packId(int score, int id) {
+        return ((long) score << 33) | (0xFFFFFFFFL - ((id ^ 0x80000000) & 0xFFFFFFFFL));
+    }
+
+    private static int unpackId(long packed) {
+        return (int) (0xFFFFFFFFL - (packed & 0xFFFFFFFFL)) ^ 0x80000000;
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        long value = heap[index];
+        while (index > 0) {
+            int up = (index - 1) >>> 1;
+            if (heap[up] >= value) break;
+            heap[index] = heap[up];
+            index = up;
+        }
+        heap[index] = value;
+    }
+
+    private static void siftDown(long[] heap, int size, int index) {
+        if (size == 0) return;
+        long value = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1] > heap[child]) child++;
+            if (heap[child] <= value) break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+
+    // The highest node whose keys all start with prefix, or -1 if no key does.
+    private int find(String prefix) {
+        int node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            int child = childStartingWith(node, prefix.charAt(position));
+            if (child < 0) return -1;
+            int labelLength = end[child] - start[child];
+            int compare = Math.min(labelLength, prefix.length() - position);
+            if (!text[child].regionMatches(start[child], prefix, position, compare)) return -1;
+            position += compare;
+            node = child;
+        }
+        return node;
+    }
+
+    private int childStartingWith(int node, char c) {
+        for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+            if (first[child] == c) return child;
+        }
+        return -1;
+    }
+
+    // Cuts the label of node after length chars, putting a new node holding the first part between
+    // node and its parent.
+    private void split(int node, int length) {
+        int up = parent[node];
+        int middle = newNode(text[node], start[node], start[node] + length, up);
+        unlinkChild(up, node);
+        start[node] += length;
+        first[node] = text[node].charAt(start[node]);
+        parent[node] = middle;
+        nextSibling[node] = -1;
+        firstChild[middle] = node;
+        best[middle] = best[node];
+    }
+
+    // Replaces an id-less node by its only child, extending the child's label back over the node's,
+    // which is the same slice of the child's key. Returns the child.
+    private int mergeWithChild(int node) {
+        int child = firstChild[node];
+        int up = parent[node];
+        unlinkChild(up, node);
+        start[child] -= end[node] - start[node];
+        first[child] = first[node];
+        parent[child] = up;
+        nextSibling[child] = firstChild[up];
+        firstChild[up] = child;
+        freeNode(node);
+        return child;
+    }
+
+    private void unlinkChild(int up, int child) {
+        if (firstChild[up] == child) {
+            firstChild[up] = nextSibling[child];
+            return;
+        }
+        int previous = firstChild[up];
+        while (nextSibling[previous] != child) previous = nextSibling[previous];
+        nextSibling[previous] = nextSibling[child];
+    }
+
+    // Recomputes best from node up to the root, stopping once a node's value is unchanged.
+    private void refreshBest(int node) {
+        for (int n = node; n >= 0; n = parent[n]) {
+            int value = -1;
+            for (int entry = head[n]; entry >= 0; entry = entryNext[entry]) value = Math.max(value, entryScore[entry]);
+            for (int child = firstChild[n]; child >= 0; child = nextSibling[child]) value = Math.max(value, best[child]);
+            if (value == best[n] && n != node) return;
+            best[n] = value;
+        }
+    }
+
+    private int newNode(String key, int from, int to, int up) {
+        int node;
+        if (!freeNodes.isEmpty()) node = freeNodes.removeAt(freeNodes.size() - 1);
+        else {
+            if (nodes == text.length) growNodes();
+            node = nodes++;
+        }
+        text[node] = key;
+        start[node] = from;
+        end[node] = to;
+        first[node] = from < to ? key.charAt(from) : 0;
+        parent[node] = up;
+        firstChild[node] = -1;
+        best[node] = -1;
+        head[node] = -1;
+        nextSibling[node] = -1;
+        if (up >= 0) {
+            nextSibling[node] = firstChild[up];
+            firstChild[up] = node;
+        }
+        return node;
+    }
+
+    private void freeNode(int node) {
+        text[node] = null; // Lets the key string go once no label uses it.
+        freeNodes.add(node);
+    }
+
+    private void growNodes() {
+        int capacity = text.length + (text.length >> 1);
+        String[] tmpText = new String[capacity];
+        System.arraycopy(text, 0, tmpText, 0, nodes);
+        text = tmpText;
+        start = grow(start, capacity, nodes);
+        end = grow(end, capacity, nodes);
+        char[] tmpFirst = new char[capacity];
+        System.arraycopy(first, 0, tmpFirst, 0, nodes);
+        first = tmpFirst;
+        parent = grow(parent, capacity, nodes);
+        firstChild = grow(firstChild, capacity, nodes);
+        nextSibling = grow(nextSibling, capacity, nodes);
+        best = grow(best, capacity, nodes);
+        head = grow(head, capacity, nodes);
+    }
+
+    private int newEntry(int id, int score, int node) {
+        int entry;
+        if (!freeEntries.isEmpty()) entry = freeEntries.removeAt(freeEntries.size() - 1);
+        else {
+            if (entries == entryId.length) {
+                int capacity = entryId.length + (entryId.length >> 1);
+                entryId = grow(entryId, capacity, entries);
+                entryScore = grow(entryScore, capacity, entries);
+                entryNode = grow(entryNode, capacity, entries);
+                entryNext = grow(entryNext, capacity, entries);
+            }
+            entry = entries++;
+        }
+        entryId[entry] = id;
+        entryScore[entry] = score;
+        entryNode[entry] = node;
+        entryNext[entry] = head[node];
+        head[node] = entry;
+        return entry;
+    }
+
+    private static int[] grow(int[] array, int capacity, int used) {
+        int[] tmp = new int[capacity];
+        System.arraycopy(array, 0, tmp, 0, used);
+        return tmp;
+    }
+}
@@ -0,0 +1,24 @@
+package structures;
+
+/**
+ * The ratings of a store as the rows of both sides of a sparse item x user matrix, for the models
+ * learnt from them. Items and users are numbered densely. Rows may be read from several threads at
+ * once, but never while the ratings change.
+ */
+public interface RatingRows {
+
+    // Number of items, rated or not, numbered from 0.
+    public int itemCount();
+
+    // Number of users, numbered from 0.
+    public int userCount();
+
+    // Appends the users who rated item, and their ratings, to the lists.
+    public void itemRow(int item, IntArrayList users, FloatArrayList ratings);
+
+    // Appends the items user rated, and the ratings, to the lists.
+    public void userRow(int user, IntArrayList items, FloatArrayList ratings);
+
+    // Mean of the ratings user has made, 0 if none.
+    public float userMean(int user);
+}
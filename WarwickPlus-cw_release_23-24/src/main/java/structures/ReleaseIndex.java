@@ -0,0 +1,133 @@
+package structures;
+import java.time.LocalDate;
+
+public class ReleaseIndex {
+
+    // Films ordered by (release epoch day, film id) in two parallel int arrays, so a date range is
+    // a contiguous slice found with two binary searches. Inserts land in a small unsorted delta buffer
+    // which is sorted and merged into the main arrays once it fills up, or before the next query.
+
+    private int[] days;
+    private int[] ids;
+    private int size = 0;
+
+    private long[] pending; // (day << 32) | id, so sorting the longs sorts by day and then by id.
+    private int pendingSize = 0;
+    private static final int pendingCapacity = 512; // Each merge rewrites the main arrays, so this bounds how often that happens.
+
+    public ReleaseIndex() {
+        this(16);
+    }
+
+    public ReleaseIndex(int initialCapacity) {
+        this.days = new int[Math.max(initialCapacity, 1)];
+        this.ids = new int[days.length];
+        this.pending = new long[pendingCapacity];
+    }
+
+    private static long pack(int day, int id) {
+        return ((long) day << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    public void put(LocalDate release, int id) {
+        if (release == null) return;
+        if (pendingSize == pendingCapacity) merge();
+        pending[pendingSize++] = pack((int) release.toEpochDay(), id);
+    }
+
+    public boolean take(LocalDate release, int id) {
+        if (release == null) return false;
+        long key = pack((int) release.toEpochDay(), id);
+        for (int i = 0; i < pendingSize; i++) { // Not merged yet, drop it straight from the buffer.
+            if (pending[i] == key) {
+                pending[i] = pending[--pendingSize];
+                return true;
+            }
+        }
+        int day = (int) release.toEpochDay();
+        for (int i = lowerBound(day); i < size && days[i] == day; i++) {
+            if (ids[i] == id) {
+                System.arraycopy(days, i + 1, days, i, size - i - 1);
+                System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size + pendingSize;
+    }
+
+    // Sorts the delta buffer and merges it into the main arrays from the back, so no scratch copy of the main arrays is needed.
+    private void merge() {
+        if (pendingSize == 0) return;
+        Sort.radixSort(pending, 0, pendingSize);
+
+        int total = size + pendingSize;
+        if (total > days.length) {
+            int newCapacity = Math.max(days.length + (days.length >> 1) + 1, total);
+            int[] tmpDays = new int[newCapacity];
+            int[] tmpIds = new int[newCapacity];
+            System.arraycopy(days, 0, tmpDays, 0, size);
+            System.arraycopy(ids, 0, tmpIds, 0, size);
+            days = tmpDays;
+            ids = tmpIds;
+        }
+
+        int i = size - 1, j = pendingSize - 1, k = total - 1;
+        while (j >= 0) {
+            long incoming = pending[j];
+            if (i >= 0 && pack(days[i], ids[i]) > incoming) {
+                days[k] = days[i];
+                ids[k] = ids[i];
+                i--;
+            } else {
+                days[k] = (int) (incoming >> 32);
+                ids[k] = (int) incoming;
+                j--;
+            }
+            k--;
+        }
+        size = total;
+        pendingSize = 0;
+    }
+
+    // First index whose day is >= day.
+    private int lowerBound(int day) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < day) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // Film IDs released from start to end, both days included, ordered by release date.
+    public int[] getMovieIdsInRange(LocalDate start, LocalDate end) {
+        merge();
+        int from = lowerBound((int) start.toEpochDay());
+        int to = lowerBound((int) end.toEpochDay() + 1);
+        if (to <= from) return new int[0];
+        int[] result = new int[to - from];
+        System.arraycopy(ids, from, result, 0, to - from);
+        return result;
+    }
+
+    // At most limit film IDs from the same range, the earliest releases first, or the latest first when newestFirst is set.
+    public int[] getMovieIdsInRange(LocalDate start, LocalDate end, int limit, boolean newestFirst) {
+        merge();
+        int from = lowerBound((int) start.toEpochDay());
+        int to = lowerBound((int) end.toEpochDay() + 1);
+        int count = Math.max(0, Math.min(limit, to - from));
+        int[] result = new int[count];
+        if (!newestFirst) {
+            System.arraycopy(ids, from, result, 0, count);
+        } else {
+            for (int i = 0; i < count; i++) result[i] = ids[to - 1 - i];
+        }
+        return result;
+    }
+}
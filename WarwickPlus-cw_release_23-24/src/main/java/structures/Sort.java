@@ -1,40 +1,288 @@
 package structures;
 import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 
 public class Sort {
-    @SuppressWarnings("unchecked")
+
+    // Sorting kernels. genericSort handles objects, everything else works on primitive arrays,
+    // where ids are sorted alongside their keys so no wrapper object is built per element.
+    // All sorts are stable, ids with equal keys keep their input order.
+
+    private static final int insertionThreshold = 32; // Below this a straight insertion sort beats the setup cost of the others.
+    private static final int parallelThreshold = 1 << 16; // Below this, splitting over threads costs more than it saves.
+
+    // Stable merge sort, largest first according to comparator.
     public static <T> void genericSort(T[] array, Comparator<T> comparator) {
         if (array.length <= 1) {
             return;
         }
+        T[] buffer = array.clone(); // Same runtime type as array, so concrete array types are fine.
+        genericSort(buffer, array, 0, array.length, comparator);
+    }
 
-        T[] leftHalf = (T[]) new Object[array.length / 2];
-        T[] rightHalf = (T[]) new Object[array.length - leftHalf.length];
+    // Sorts src[from, to) into dst[from, to). Both hold the same elements on entry, so the
+    // recursion can alternate the roles of the two arrays instead of allocating halves.
+    private static <T> void genericSort(T[] src, T[] dst, int from, int to, Comparator<T> comparator) {
+        if (to - from <= insertionThreshold) {
+            for (int i = from + 1; i < to; i++) {
+                T current = dst[i];
+                int j = i - 1;
+                while (j >= from && comparator.compare(dst[j], current) < 0) { dst[j + 1] = dst[j]; j--; }
+                dst[j + 1] = current;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        genericSort(dst, src, from, mid, comparator);
+        genericSort(dst, src, mid, to, comparator);
 
-        System.arraycopy(array, 0, leftHalf, 0, leftHalf.length);
-        System.arraycopy(array, leftHalf.length, rightHalf, 0, rightHalf.length);
+        int leftIndex = from, rightIndex = mid, mergeIndex = from;
+        while (leftIndex < mid && rightIndex < to) {
+            if (comparator.compare(src[leftIndex], src[rightIndex]) >= 0) {
+                dst[mergeIndex++] = src[leftIndex++];
+            } else {
+                dst[mergeIndex++] = src[rightIndex++];
+            }
+        }
+        System.arraycopy(src, leftIndex, dst, mergeIndex, mid - leftIndex);
+        System.arraycopy(src, rightIndex, dst, mergeIndex, to - rightIndex);
+    }
 
-        genericSort(leftHalf, comparator);
-        genericSort(rightHalf, comparator);
+    // Sorts ids ascending by keys, both arrays are reordered together.
+    public static void sortIdsByKey(int[] ids, int[] keys) {
+        checkLengths(ids, keys.length);
+        long[] packed = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) packed[i] = ((long) keys[i] << 32) | i; // Key in the high half, input position as the tie-break.
+        sortPacked(packed);
+        int[] originalIds = ids.clone();
+        for (int i = 0; i < packed.length; i++) {
+            keys[i] = (int) (packed[i] >> 32);
+            ids[i] = originalIds[(int) packed[i]];
+        }
+    }
 
-        genericMerge(array, leftHalf, rightHalf, comparator);
+    // Sorts ids ascending by keys, both arrays are reordered together. NaN keys sort last.
+    public static void sortIdsByKey(int[] ids, float[] keys) {
+        checkLengths(ids, keys.length);
+        long[] packed = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) packed[i] = ((long) sortableBits(keys[i]) << 32) | i;
+        sortPacked(packed);
+        int[] originalIds = ids.clone();
+        float[] originalKeys = keys.clone();
+        for (int i = 0; i < packed.length; i++) {
+            int index = (int) packed[i];
+            keys[i] = originalKeys[index];
+            ids[i] = originalIds[index];
+        }
     }
 
-    private static <T> void genericMerge(T[] outputArray, T[] leftHalf, T[] rightHalf, Comparator<T> comparator) {
-        int leftIndex = 0;
-        int rightIndex = 0;
-        int mergeIndex = 0;
+    // Sorts ids ascending by keys, for epoch seconds and other 64 bit keys. Both arrays are reordered together.
+    public static void sortIdsByKey(int[] ids, long[] keys) {
+        checkLengths(ids, keys.length);
+        if (keys.length >= parallelThreshold) parallelSort(keys, ids, keys.length);
+        else radixSort(keys, ids, 0, keys.length);
+    }
 
-        while (leftIndex < leftHalf.length && rightIndex < rightHalf.length) {
-            if (comparator.compare(leftHalf[leftIndex], rightHalf[rightIndex]) >= 0) {
-                outputArray[mergeIndex++] = leftHalf[leftIndex++];
-            } else {
-                outputArray[mergeIndex++] = rightHalf[rightIndex++];
+    // Counting sort for keys known to lie in [minKey, maxKey], such as ratings in half stars.
+    // Runs in O(n + range), so it only pays off when the range is small.
+    public static void countingSortIdsByKey(int[] ids, int[] keys, int minKey, int maxKey) {
+        checkLengths(ids, keys.length);
+        int[] count = new int[maxKey - minKey + 2];
+        for (int key : keys) {
+            if (key < minKey || key > maxKey) throw new IllegalArgumentException("key " + key + " outside [" + minKey + ", " + maxKey + "]");
+            count[key - minKey + 1]++;
+        }
+        for (int i = 1; i < count.length; i++) count[i] += count[i - 1]; // count[k - minKey] is now where key k starts.
+        int[] originalIds = ids.clone();
+        int[] originalKeys = keys.clone();
+        for (int i = 0; i < originalKeys.length; i++) {
+            int position = count[originalKeys[i] - minKey]++;
+            keys[position] = originalKeys[i];
+            ids[position] = originalIds[i];
+        }
+    }
+
+    public static void radixSort(int[] values) {
+        radixSort(values, 0, values.length);
+    }
+
+    // LSD radix sort of values[from, to), 8 bits per pass.
+    public static void radixSort(int[] values, int from, int to) {
+        int n = to - from;
+        if (n <= insertionThreshold) {
+            for (int i = from + 1; i < to; i++) {
+                int current = values[i];
+                int j = i - 1;
+                while (j >= from && values[j] > current) { values[j + 1] = values[j]; j--; }
+                values[j + 1] = current;
             }
+            return;
+        }
+        int[] src = values, dst = new int[n];
+        int srcOffset = from, dstOffset = 0;
+        int[] count = new int[256];
+        for (int shift = 0; shift < 32; shift += 8) {
+            for (int i = 0; i < 256; i++) count[i] = 0;
+            for (int i = 0; i < n; i++) count[digit(src[srcOffset + i], shift)]++;
+            if (count[digit(src[srcOffset], shift)] == n) continue; // Every value shares this digit, the pass would not move anything.
+            for (int i = 0, sum = 0; i < 256; i++) { int c = count[i]; count[i] = sum; sum += c; }
+            for (int i = 0; i < n; i++) {
+                int value = src[srcOffset + i];
+                dst[dstOffset + count[digit(value, shift)]++] = value;
+            }
+            int[] tmp = src; src = dst; dst = tmp;
+            int tmpOffset = srcOffset; srcOffset = dstOffset; dstOffset = tmpOffset;
         }
+        if (src != values) System.arraycopy(src, srcOffset, values, from, n);
+    }
 
-        System.arraycopy(leftHalf, leftIndex, outputArray, mergeIndex, leftHalf.length - leftIndex);
-        System.arraycopy(rightHalf, rightIndex, outputArray, mergeIndex, rightHalf.length - rightIndex);
-    } 
-}
\ No newline at end of file
+    public static void radixSort(long[] values) {
+        radixSort(values, null, 0, values.length);
+    }
+
+    public static void radixSort(long[] values, int from, int to) {
+        radixSort(values, null, from, to);
+    }
+
+    // LSD radix sort of keys[from, to), 8 bits per pass, moving ids along with their keys when ids is not null.
+    private static void radixSort(long[] keys, int[] ids, int from, int to) {
+        int n = to - from;
+        if (n <= insertionThreshold) {
+            insertionSort(keys, ids, from, to);
+            return;
+        }
+        long[] srcKeys = keys, dstKeys = new long[n];
+        int[] srcIds = ids, dstIds = ids == null ? null : new int[n];
+        int srcOffset = from, dstOffset = 0;
+        int[] count = new int[256];
+        for (int shift = 0; shift < 64; shift += 8) {
+            for (int i = 0; i < 256; i++) count[i] = 0;
+            for (int i = 0; i < n; i++) count[digit(srcKeys[srcOffset + i], shift)]++;
+            if (count[digit(srcKeys[srcOffset], shift)] == n) continue; // Common for the high bytes of epoch values.
+            for (int i = 0, sum = 0; i < 256; i++) { int c = count[i]; count[i] = sum; sum += c; }
+            for (int i = 0; i < n; i++) {
+                int position = dstOffset + count[digit(srcKeys[srcOffset + i], shift)]++;
+                dstKeys[position] = srcKeys[srcOffset + i];
+                if (ids != null) dstIds[position] = srcIds[srcOffset + i];
+            }
+            long[] tmpKeys = srcKeys; srcKeys = dstKeys; dstKeys = tmpKeys;
+            int[] tmpIds = srcIds; srcIds = dstIds; dstIds = tmpIds;
+            int tmpOffset = srcOffset; srcOffset = dstOffset; dstOffset = tmpOffset;
+        }
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, srcOffset, keys, from, n);
+            if (ids != null) System.arraycopy(srcIds, srcOffset, ids, from, n);
+        }
+    }
+
+    private static void insertionSort(long[] keys, int[] ids, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            long currentKey = keys[i];
+            int currentId = ids == null ? 0 : ids[i];
+            int j = i - 1;
+            while (j >= from && keys[j] > currentKey) {
+                keys[j + 1] = keys[j];
+                if (ids != null) ids[j + 1] = ids[j];
+                j--;
+            }
+            keys[j + 1] = currentKey;
+            if (ids != null) ids[j + 1] = currentId;
+        }
+    }
+
+    // The byte of value at shift, with the sign bit flipped on the top byte so negatives order before positives.
+    private static int digit(int value, int shift) {
+        int d = (value >>> shift) & 0xFF;
+        return shift == 24 ? d ^ 0x80 : d;
+    }
+
+    private static int digit(long value, int shift) {
+        int d = (int) (value >>> shift) & 0xFF;
+        return shift == 56 ? d ^ 0x80 : d;
+    }
+
+    // Maps a float to an int with the same ordering, so float keys can go through the integer kernels.
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value); // Canonical NaN, which ends up above +infinity.
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF); // Negative floats order backwards, so flip their magnitude bits.
+    }
+
+    private static void sortPacked(long[] packed) {
+        if (packed.length >= parallelThreshold) parallelSort(packed, null, packed.length);
+        else radixSort(packed, null, 0, packed.length);
+    }
+
+    // Fork/join merge sort. Ranges above parallelThreshold are split and sorted in parallel,
+    // the pieces below it are radix sorted on their worker thread.
+    public static void parallelSort(long[] values) {
+        parallelSort(values, null, values.length);
+    }
+
+    // Parallel version of sortIdsByKey(int[], long[]) for large inputs.
+    public static void parallelSortIdsByKey(int[] ids, long[] keys) {
+        checkLengths(ids, keys.length);
+        parallelSort(keys, ids, keys.length);
+    }
+
+    private static void parallelSort(long[] keys, int[] ids, int size) {
+        if (size <= parallelThreshold) {
+            radixSort(keys, ids, 0, size);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new MergeSortTask(keys, ids, new long[size], ids == null ? null : new int[size], 0, size));
+    }
+
+    private static class MergeSortTask extends RecursiveAction {
+        private final long[] keys;
+        private final int[] ids;
+        private final long[] keyBuffer; // Shared by every task, each one only touches its own range.
+        private final int[] idBuffer;
+        private final int from, to;
+
+        MergeSortTask(long[] keys, int[] ids, long[] keyBuffer, int[] idBuffer, int from, int to) {
+            this.keys = keys;
+            this.ids = ids;
+            this.keyBuffer = keyBuffer;
+            this.idBuffer = idBuffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= parallelThreshold) {
+                radixSort(keys, ids, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MergeSortTask(keys, ids, keyBuffer, idBuffer, from, mid),
+                      new MergeSortTask(keys, ids, keyBuffer, idBuffer, mid, to));
+            if (keys[mid - 1] <= keys[mid]) return; // The halves are already in order.
+
+            int leftIndex = from, rightIndex = mid, mergeIndex = from;
+            while (leftIndex < mid && rightIndex < to) {
+                if (keys[leftIndex] <= keys[rightIndex]) { // Left first on ties keeps the sort stable.
+                    keyBuffer[mergeIndex] = keys[leftIndex];
+                    if (ids != null) idBuffer[mergeIndex] = ids[leftIndex];
+                    leftIndex++;
+                } else {
+                    keyBuffer[mergeIndex] = keys[rightIndex];
+                    if (ids != null) idBuffer[mergeIndex] = ids[rightIndex];
+                    rightIndex++;
+                }
+                mergeIndex++;
+            }
+            System.arraycopy(keys, leftIndex, keyBuffer, mergeIndex, mid - leftIndex); // Whatever is left of the right half is already in place.
+            if (ids != null) System.arraycopy(ids, leftIndex, idBuffer, mergeIndex, mid - leftIndex);
+            int merged = mergeIndex + (mid - leftIndex) - from;
+            System.arraycopy(keyBuffer, from, keys, from, merged);
+            if (ids != null) System.arraycopy(idBuffer, from, ids, from, merged);
+        }
+    }
+
+    private static void checkLengths(int[] ids, int keyCount) {
+        if (ids.length != keyCount) throw new IllegalArgumentException("ids and keys differ in length: " + ids.length + " != " + keyCount);
+    }
+}
@@ -0,0 +1,227 @@
+package structures;
+
+public class SortedIntSet {
+
+    // Values are kept strictly increasing in a plain int array, so membership is a binary search
+    // and set operations are merges or gallops over the arrays.
+
+    private int[] array;
+    private int size = 0;
+
+    public SortedIntSet() {
+        this.array = new int[4];
+    }
+
+    public SortedIntSet(int initialCapacity) {
+        this.array = new int[Math.max(initialCapacity, 1)];
+    }
+
+    // Builds a set from values in any order, duplicates are dropped.
+    public static SortedIntSet of(int[] values) {
+        SortedIntSet set = new SortedIntSet(values.length);
+        for (int value : values) set.add(value);
+        return set;
+    }
+
+    // Takes ownership of an array that is already strictly increasing.
+    static SortedIntSet wrapSorted(int[] sorted, int size) {
+        SortedIntSet set = new SortedIntSet(0);
+        set.array = sorted;
+        set.size = size;
+        return set;
+    }
+
+    // Index of value if present, otherwise -(insertion point) - 1, as in java.util.Arrays.
+    private static int binarySearch(int[] a, int from, int to, int value) {
+        int low = from, high = to - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (a[mid] < value) low = mid + 1;
+            else if (a[mid] > value) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+
+    public boolean add(int value) {
+        if (size == 0 || array[size - 1] < value) { // Appending in order is the common case when loading.
+            if (size == array.length) grow();
+            array[size++] = value;
+            return true;
+        }
+        if (array[size - 1] == value) return false; // As is adding the last value again.
+        int index = binarySearch(array, 0, size, value);
+        if (index >= 0) return false;
+        index = -index - 1;
+        if (size == array.length) grow();
+        System.arraycopy(array, index, array, index + 1, size - index);
+        array[index] = value;
+        size++;
+        return true;
+    }
+
+    private void grow() {
+        int[] tmp = new int[array.length + (array.length >> 1) + 1];
+        System.arraycopy(array, 0, tmp, 0, size);
+        array = tmp;
+    }
+
+    public boolean remove(int value) {
+        int index = binarySearch(array, 0, size, value);
+        if (index < 0) return false;
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return binarySearch(array, 0, size, value) >= 0;
+    }
+
+    public int get(int index) {
+        if (index >= size) throw new ArrayIndexOutOfBoundsException("index > size: " + index + " >= " + size);
+        return array[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        int[] values = new int[size];
+        System.arraycopy(array, 0, values, 0, size);
+        return values;
+    }
+
+    // First index in [from, size) whose value is >= target. Doubles the step until it overshoots,
+    // then binary searches the last step, so skipping k elements costs O(log k).
+    private int gallop(int from, int target) {
+        int step = 1;
+        int low = from, high = from;
+        while (high < size && array[high] < target) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        if (high > size) high = size;
+        int index = binarySearch(array, low, high, target);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // Values present in both sets. The smaller set drives and gallops through the larger one,
+    // so the cost is O(small * log(large / small)) rather than O(small + large).
+    public static int[] intersect(SortedIntSet a, SortedIntSet b) {
+        if (a.size > b.size) { SortedIntSet tmp = a; a = b; b = tmp; }
+        int[] result = new int[a.size];
+        int count = 0;
+        int position = 0;
+        for (int i = 0; i < a.size && position < b.size; i++) {
+            int value = a.array[i];
+            position = b.gallop(position, value);
+            if (position < b.size && b.array[position] == value) result[count++] = value;
+        }
+        return trim(result, count);
+    }
+
+    // Values present in every set. Sets are intersected smallest first so the candidate list only shrinks.
+    public static int[] intersectAll(SortedIntSet[] sets) {
+        if (sets.length == 0) return new int[0];
+        SortedIntSet[] order = sets.clone();
+        for (int i = 1; i < order.length; i++) { // Insertion sort by size, there are only ever a handful of sets.
+            SortedIntSet current = order[i];
+            int j = i - 1;
+            while (j >= 0 && order[j].size > current.size) { order[j + 1] = order[j]; j--; }
+            order[j + 1] = current;
+        }
+        if (order[0] == null || order[0].size == 0) return new int[0];
+        SortedIntSet candidates = order[0];
+        for (int i = 1; i < order.length && !candidates.isEmpty(); i++) {
+            int[] kept = intersect(candidates, order[i]);
+            candidates = wrapSorted(kept, kept.length);
+        }
+        return candidates.toArray();
+    }
+
+    // Values present in any set, merged k ways with a small min-heap of cursors.
+    public static int[] union(SortedIntSet[] sets) {
+        int total = 0;
+        int k = 0;
+        for (SortedIntSet set : sets) if (set != null && set.size > 0) { total += set.size; k++; }
+        if (k == 0) return new int[0];
+
+        SortedIntSet[] heapSet = new SortedIntSet[k];
+        int[] heapPosition = new int[k];
+        int filled = 0;
+        for (SortedIntSet set : sets) if (set != null && set.size > 0) heapSet[filled++] = set;
+        for (int i = k / 2 - 1; i >= 0; i--) siftDown(heapSet, heapPosition, i, k);
+
+        int[] result = new int[total];
+        int count = 0;
+        while (k > 0) {
+            int value = heapSet[0].array[heapPosition[0]];
+            if (count == 0 || result[count - 1] != value) result[count++] = value; // Drops values shared by several sets.
+            heapPosition[0]++;
+            if (heapPosition[0] == heapSet[0].size) { // This cursor is exhausted, replace the root with the last cursor.
+                k--;
+                heapSet[0] = heapSet[k];
+                heapPosition[0] = heapPosition[k];
+            }
+            if (k > 0) siftDown(heapSet, heapPosition, 0, k);
+        }
+        return trim(result, count);
+    }
+
+    private static void siftDown(SortedIntSet[] sets, int[] positions, int index, int k) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1, right = left + 1;
+            if (left < k && headOf(sets, positions, left) < headOf(sets, positions, smallest)) smallest = left;
+            if (right < k && headOf(sets, positions, right) < headOf(sets, positions, smallest)) smallest = right;
+            if (smallest == index) return;
+            SortedIntSet tmpSet = sets[index]; sets[index] = sets[smallest]; sets[smallest] = tmpSet;
+            int tmpPosition = positions[index]; positions[index] = positions[smallest]; positions[smallest] = tmpPosition;
+            index = smallest;
+        }
+    }
+
+    private static int headOf(SortedIntSet[] sets, int[] positions, int index) {
+        return sets[index].array[positions[index]];
+    }
+
+    // Values in a that are not in b.
+    public static int[] difference(SortedIntSet a, SortedIntSet b) {
+        int[] result = new int[a.size];
+        int count = 0;
+        int position = 0;
+        for (int i = 0; i < a.size; i++) {
+            int value = a.array[i];
+            if (position < b.size) position = b.gallop(position, value);
+            if (position >= b.size || b.array[position] != value) result[count++] = value;
+        }
+        return trim(result, count);
+    }
+
+    private static int[] trim(int[] values, int count) {
+        if (count == values.length) return values;
+        int[] trimmed = new int[count];
+        System.arraycopy(values, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    public String toString() {
+        StringBuilder ret = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) ret.append(", ");
+            ret.append(array[i]);
+        }
+        return ret.append(']').toString();
+    }
+}
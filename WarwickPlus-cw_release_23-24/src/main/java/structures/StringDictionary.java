@@ -0,0 +1,110 @@
+package structures;
+
+public class StringDictionary {
+
+    // Interns strings to dense ids 0, 1, 2, ... in the order they are first added. The table holds
+    // id + 1 per slot (0 marks an empty slot) and probes linearly, while the strings and their hashes
+    // live in arrays indexed by id, so a miss rarely gets past comparing two ints.
+    // Ids are never reused and there is no removal, callers keep their own per id state.
+
+    private int[] table;
+    private int mask;
+    private int shift; // 32 - log2(table length), for the multiplicative hash.
+    private String[] strings;
+    private int[] hashes;
+    private int size = 0;
+    private static final double loadFactor = 0.5;
+
+    public StringDictionary() {
+        this(16);
+    }
+
+    public StringDictionary(int expectedSize) {
+        int tableSize = 16;
+        while (tableSize * loadFactor < expectedSize) tableSize <<= 1;
+        allocate(tableSize);
+        strings = new String[Math.max(expectedSize, 4)];
+        hashes = new int[strings.length];
+    }
+
+    private void allocate(int tableSize) {
+        table = new int[tableSize];
+        mask = tableSize - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(tableSize);
+    }
+
+    // Same value as text.substring(from, to).hashCode(), so whole strings and regions agree.
+    private static int hash(String text, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) h = 31 * h + text.charAt(i);
+        return h;
+    }
+
+    private int home(int hash) {
+        return (hash * 0x9E3779B9) >>> shift; // Fibonacci hashing, String hashes are weak in the low bits.
+    }
+
+    private int find(String text, int from, int to, int hash) {
+        int length = to - from;
+        for (int slot = home(hash); table[slot] != 0; slot = (slot + 1) & mask) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && strings[id].length() == length && strings[id].regionMatches(0, text, from, length)) return id;
+        }
+        return -1;
+    }
+
+    public int get(String text) {
+        return get(text, 0, text.length());
+    }
+
+    // Id of text.substring(from, to), or -1 if it has not been added.
+    public int get(String text, int from, int to) {
+        return find(text, from, to, hash(text, from, to));
+    }
+
+    public int add(String text) {
+        return add(text, 0, text.length());
+    }
+
+    // Id of text.substring(from, to), interning it first if it is new. The substring is only
+    // built for new strings.
+    public int add(String text, int from, int to) {
+        int hash = hash(text, from, to);
+        int id = find(text, from, to, hash);
+        if (id >= 0) return id;
+        if (size + 1 > table.length * loadFactor) rehash();
+        if (size == strings.length) {
+            String[] tmpStrings = new String[strings.length + (strings.length >> 1)];
+            int[] tmpHashes = new int[tmpStrings.length];
+            System.arraycopy(strings, 0, tmpStrings, 0, size);
+            System.arraycopy(hashes, 0, tmpHashes, 0, size);
+            strings = tmpStrings;
+            hashes = tmpHashes;
+        }
+        id = size++;
+        strings[id] = from == 0 && to == text.length() ? text : text.substring(from, to);
+        hashes[id] = hash;
+        int slot = home(hash);
+        while (table[slot] != 0) slot = (slot + 1) & mask;
+        table[slot] = id + 1;
+        return id;
+    }
+
+    private void rehash() {
+        allocate(table.length << 1);
+        for (int id = 0; id < size; id++) {
+            int slot = home(hashes[id]);
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = id + 1;
+        }
+    }
+
+    public String stringAt(int id) {
+        if (id >= size) throw new ArrayIndexOutOfBoundsException("id > size: " + id + " >= " + size);
+        return strings[id];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,640 @@
+package structures;
+
+public class SubstringIndex {
+
+    // Finds the ids whose text contains a query, ignoring case. Folded text is split into tokens, the
+    // maximal runs of letters and digits, and each distinct token is interned once. postings[token]
+    // lists the ids whose text holds that token, and grams maps every 1, 2 and 3 char gram to the
+    // tokens containing it. A run of letters and digits in a query can only occur inside one token,
+    // so its matches are the union of the postings of the tokens containing it, and those tokens are
+    // found through grams without reading any indexed text.
+    // A query with no separators is a single run and its result is exact. A query spanning separators
+    // gives the ids holding every run, which the caller checks against its text.
+    // Grams of chars below 1024 pack exactly into a key, anything else is hashed, so those are
+    // checked against the token strings. Tokens whose postings empty out are kept, they are only
+    // ever a few short strings.
+    //
+    // A positional index also answers queries spanning separators itself, through find. The runs of
+    // separators between tokens are interned as gaps, each id keeps its text as the sequence of gap
+    // and token numbers, gap 0, token 0, gap 1, ..., and the postings keep every occurrence of a
+    // token with its position and the gaps and tokens either side. A query's inner runs must be whole
+    // tokens and its inner separators whole gaps, while its first run ends a token and its last run
+    // starts one, and grams taking in the ends of each token find those directly. Occurrences of the
+    // rarer of the first and last runs are walked in posting order and checked against the gaps and
+    // token next to them, so queries of one or two runs read no sequence at all, and longer ones only
+    // read the sequences of the occurrences that got that far. When an inner run occurs far less
+    // often, its occurrences are walked instead and each is checked against its sequence.
+
+    private final StringDictionary tokens;
+    private Postings[] postings;
+    private final HashMap<SortedIntSet> grams;
+    private int maxId = 0;
+    private boolean negativeIds = false; // Rules out the bitset union.
+
+    private final boolean positional;
+    private StringDictionary gaps; // Positional only, from here on.
+    private Postings[] gapPostings; // Ids holding each gap, for queries made only of separators.
+    private HashMap<int[]> sequences;
+    private int[] firstMarks = new int[0]; // Tokens the first run of the current find may match hold its search number.
+    private int[] lastMarks = new int[0]; // The same for the last run.
+    private int[] leadingMarks = new int[0]; // Gaps ending with the separators before the first run.
+    private int[] trailingMarks = new int[0]; // Gaps starting with the separators after the last run.
+    private int search = 0;
+
+    private static final int sequenceCost = 16; // Reading an occurrence's sequence costs about this many posting reads.
+    private static final char tokenStart = 1, tokenEnd = 2; // Mark the ends of a token in its grams, positional only.
+
+    public SubstringIndex() {
+        this(false);
+    }
+
+    // A positional index keeps the position of every token, so find answers any query exactly.
+    public SubstringIndex(boolean positional) {
+        tokens = new StringDictionary();
+        postings = new Postings[16];
+        grams = new HashMap<>();
+        this.positional = positional;
+        if (positional) {
+            gaps = new StringDictionary();
+            gapPostings = new Postings[16];
+            sequences = new HashMap<>();
+        }
+    }
+
+    public static char fold(char c) {
+        return Character.toLowerCase(c);
+    }
+
+    public static String fold(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) chars[i] = fold(chars[i]);
+        return new String(chars);
+    }
+
+    private static boolean isTokenChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    // True when the folded query is one run of letters and digits, so candidates gives exact matches.
+    public static boolean isExact(String foldedQuery) {
+        if (foldedQuery.isEmpty()) return false;
+        for (int i = 0; i < foldedQuery.length(); i++) if (!isTokenChar(foldedQuery.charAt(i))) return false;
+        return true;
+    }
+
+    // Key of the gram text[from, to), one to three chars. Tokens never hold '\0', so the zero padding
+    // of shorter grams cannot be confused with a real char.
+    private static int gramKey(String text, int from, int to) {
+        char a = to - from == 3 ? text.charAt(from) : 0;
+        char b = to - from >= 2 ? text.charAt(to - 2) : 0;
+        char c = text.charAt(to - 1);
+        if ((a | b | c) < 1024) return (a << 20) | (b << 10) | c;
+        return (((a * 31 + b) * 31 + c) & 0x3FFFFFFF) | 0x40000000; // Never collides with an exact key.
+    }
+
+    private static boolean exactGrams(String text, int from, int to) {
+        for (int i = from; i < to; i++) if (text.charAt(i) >= 1024) return false;
+        return true;
+    }
+
+    // Indexes text under id. Several texts may be added for one id, and ids are best added in
+    // increasing order, which keeps each posting list append only. In a positional index the texts
+    // of one id follow each other, parted by a '\0' that no query run or gap can match.
+    public void add(int id, String text) {
+        if (text == null) return;
+        if (id > maxId) maxId = id;
+        if (id < 0) negativeIds = true;
+        String folded = fold(text);
+        if (positional) {
+            addSequence(id, folded);
+            return;
+        }
+        int length = folded.length();
+        int end = 0;
+        while (end < length) {
+            while (end < length && !isTokenChar(folded.charAt(end))) end++;
+            int start = end;
+            while (end < length && isTokenChar(folded.charAt(end))) end++;
+            if (start == end) continue;
+            int token = intern(folded, start, end); // Interning may grow postings, so it runs before the array is read.
+            postings[token].add(id);
+        }
+    }
+
+    // Texts added to an id that already has one are joined onto its sequence, and every occurrence is
+    // posted again, since the gap and the token after the old last one change.
+    private void addSequence(int id, String folded) {
+        int[] previous = sequences.get(id);
+        if (previous != null) remove(id);
+        IntArrayList sequence = new IntArrayList(previous == null ? 16 : previous.length + 16);
+        String carried = null; // The last gap of the texts already added, which runs into this text's first.
+        if (previous != null) {
+            sequence.addAll(previous, 0, previous.length - 1);
+            carried = gaps.stringAt(previous[previous.length - 1]) + '\0';
+        }
+        int length = folded.length();
+        int end = 0;
+        while (true) {
+            int gapStart = end;
+            while (end < length && !isTokenChar(folded.charAt(end))) end++;
+            sequence.add(carried == null ? internGap(folded, gapStart, end) : internGap(carried + folded.substring(gapStart, end)));
+            carried = null;
+            if (end == length) break;
+            int start = end;
+            while (end < length && isTokenChar(folded.charAt(end))) end++;
+            sequence.add(intern(folded, start, end));
+        }
+        int[] values = sequence.toArray();
+        for (int i = 0; i < values.length; i += 2) {
+            gapPostings[values[i]].add(id);
+            if (i + 1 == values.length) break;
+            int tokenBefore = i > 0 ? values[i - 1] : -1, tokenAfter = i + 3 < values.length ? values[i + 3] : -1;
+            postings[values[i + 1]].add(id, i >> 1, values[i], values[i + 2], tokenBefore, tokenAfter);
+        }
+        sequences.put(id, values);
+    }
+
+    // Removes id from the postings of every token of text. Every text added for id must be removed
+    // together, since a token shared by two of them is only listed once. A positional index removes
+    // every text of id from its sequence, whatever text is given.
+    public void remove(int id, String text) {
+        if (positional) {
+            remove(id);
+            return;
+        }
+        if (text == null) return;
+        String folded = fold(text);
+        int length = folded.length();
+        int end = 0;
+        while (end < length) {
+            while (end < length && !isTokenChar(folded.charAt(end))) end++;
+            int start = end;
+            while (end < length && isTokenChar(folded.charAt(end))) end++;
+            if (start == end) continue;
+            int token = tokens.get(folded, start, end);
+            if (token >= 0) postings[token].remove(id);
+        }
+    }
+
+    // Removes every text of id from a positional index.
+    public void remove(int id) {
+        if (!positional) throw new UnsupportedOperationException("Only a positional index knows the text of an id");
+        int[] sequence = sequences.take(id);
+        if (sequence == null) return;
+        for (int i = 0; i < sequence.length; i++) {
+            if ((i & 1) == 0) gapPostings[sequence[i]].remove(id);
+            else postings[sequence[i]].remove(id);
+        }
+    }
+
+    private int intern(String folded, int start, int end) {
+        int known = tokens.size();
+        int token = tokens.add(folded, start, end);
+        if (token < known) return token;
+        if (token == postings.length) {
+            Postings[] tmp = new Postings[postings.length + (postings.length >> 1)];
+            System.arraycopy(postings, 0, tmp, 0, postings.length);
+            postings = tmp;
+        }
+        postings[token] = new Postings(positional);
+        for (int i = start; i < end; i++) { // Every gram ending at i, new tokens have the largest id so each list appends.
+            for (int from = Math.max(start, i - 2); from <= i; from++) addGram(gramKey(folded, from, i + 1), token);
+        }
+        if (!positional) return token;
+        // The grams taking in an end of the token, so a run that has to start or end one is looked up
+        // directly rather than filtered out of every token holding it.
+        String marked = tokenStart + folded.substring(start, end) + tokenEnd;
+        int last = marked.length() - 1;
+        for (int i = 0; i <= last; i++) {
+            for (int from = Math.max(0, i - 2); from <= i; from++) {
+                if ((from == 0 || i == last) && from < i) addGram(gramKey(marked, from, i + 1), token);
+            }
+        }
+        return token;
+    }
+
+    private void addGram(int key, int token) {
+        SortedIntSet list = grams.get(key);
+        if (list == null) {
+            list = new SortedIntSet(1);
+            grams.put(key, list);
+        }
+        list.add(token);
+    }
+
+    private int internGap(String text) {
+        return internGap(text, 0, text.length());
+    }
+
+    private int internGap(String text, int start, int end) {
+        int known = gaps.size();
+        int gap = gaps.add(text, start, end);
+        if (gap < known) return gap;
+        if (gap == gapPostings.length) {
+            Postings[] tmp = new Postings[gapPostings.length + (gapPostings.length >> 1)];
+            System.arraycopy(gapPostings, 0, tmp, 0, gapPostings.length);
+            gapPostings = tmp;
+        }
+        gapPostings[gap] = new Postings(false);
+        return gap;
+    }
+
+    // Ids whose folded text may contain the folded query, in increasing order. Every one is a match
+    // when isExact(foldedQuery), otherwise the caller checks them. null when the query has no letters
+    // or digits to look up, meaning every id is a candidate.
+    public int[] candidates(String foldedQuery) {
+        int[] result = null;
+        int length = foldedQuery.length();
+        int end = 0;
+        while (end < length) {
+            while (end < length && !isTokenChar(foldedQuery.charAt(end))) end++;
+            int start = end;
+            while (end < length && isTokenChar(foldedQuery.charAt(end))) end++;
+            if (start == end) continue;
+            int[] matching = runTokens(foldedQuery.substring(start, end));
+            int[] ids = union(postings, matching, matching.length);
+            result = result == null ? ids : SortedIntSet.intersect(SortedIntSet.wrapSorted(result, result.length), SortedIntSet.wrapSorted(ids, ids.length));
+            if (result.length == 0) return result;
+        }
+        return result;
+    }
+
+    // Ids whose folded text contains the folded query, in increasing order. Positional indexes only.
+    public int[] find(String foldedQuery) {
+        if (!positional) throw new UnsupportedOperationException("find needs a positional index");
+        int length = foldedQuery.length();
+        IntArrayList bounds = new IntArrayList(); // Start and end of each run.
+        int end = 0;
+        while (end < length) {
+            while (end < length && !isTokenChar(foldedQuery.charAt(end))) end++;
+            int start = end;
+            while (end < length && isTokenChar(foldedQuery.charAt(end))) end++;
+            if (start == end) continue;
+            bounds.add(start);
+            bounds.add(end);
+        }
+        int runs = bounds.size() >> 1;
+        if (runs == 0) return length == 0 ? new int[0] : separatorsOnly(foldedQuery);
+        String leading = foldedQuery.substring(0, bounds.get(0));
+        String trailing = foldedQuery.substring(bounds.get(bounds.size() - 1));
+        if (runs == 1 && leading.isEmpty() && trailing.isEmpty()) {
+            int[] matching = runTokens(foldedQuery);
+            return union(postings, matching, matching.length);
+        }
+        return findRuns(foldedQuery, bounds, leading, trailing);
+    }
+
+    // The rest of find, for queries with a separator next to a run. bounds holds the start and end of
+    // each run.
+    private int[] findRuns(String foldedQuery, IntArrayList bounds, String leading, String trailing) {
+        int runs = bounds.size() >> 1;
+
+        // The gaps between the runs, which must match whole, and the tokens each run may be.
+        int[] between = new int[runs - 1];
+        for (int i = 0; i < between.length; i++) {
+            between[i] = gaps.get(foldedQuery, bounds.get(2 * i + 1), bounds.get(2 * i + 2));
+            if (between[i] < 0) return new int[0];
+        }
+        int[][] matching = new int[runs][];
+        long[] occurrences = new long[runs];
+        int anchor = 0;
+        for (int i = 0; i < runs; i++) {
+            int start = bounds.get(2 * i), stop = bounds.get(2 * i + 1);
+            boolean startsToken = i > 0 || !leading.isEmpty(); // A separator comes before the run.
+            boolean endsToken = i < runs - 1 || !trailing.isEmpty();
+            if (startsToken && endsToken) {
+                int token = tokens.get(foldedQuery, start, stop);
+                matching[i] = token < 0 ? new int[0] : new int[] {token};
+            } else {
+                String run = foldedQuery.substring(start, stop);
+                matching[i] = runTokens(startsToken ? tokenStart + run : endsToken ? run + tokenEnd : run);
+            }
+            if (matching[i].length == 0) return new int[0];
+            for (int token : matching[i]) occurrences[i] += postings[token].occurrences;
+            if (occurrences[i] < occurrences[anchor]) anchor = i;
+        }
+        mark(matching[0], matching[runs - 1], leading, trailing);
+        int last = runs - 1;
+        int walked = occurrences[last] < occurrences[0] ? last : 0; // The end runs are checked through their links.
+        if (occurrences[anchor] * sequenceCost < occurrences[walked]) walked = anchor;
+        boolean readSequence = walked == 0 ? runs > 2 || runs == 2 && !trailing.isEmpty() : walked < last || runs > 2 || !leading.isEmpty();
+
+        // Every occurrence of the walked run's tokens, checked against the tokens and gaps around it.
+        int entries = 0;
+        for (int token : matching[walked]) {
+            postings[token].sort();
+            entries += postings[token].size;
+        }
+        int[] result = new int[entries]; // Each entry gives its id once at most, so it never outgrows this.
+        int found = 0;
+        boolean leads = !leading.isEmpty(), trails = !trailing.isEmpty();
+        for (int token : matching[walked]) found = walk(postings[token], walked, runs, matching, between, leads, trails, readSequence, result, found);
+        int distinct = found;
+        if (matching[walked].length > 1) { // Several posting lists, so ids come out of order and repeated.
+            Sort.radixSort(result, 0, found);
+            distinct = 0;
+            for (int i = 0; i < found; i++) if (distinct == 0 || result[distinct - 1] != result[i]) result[distinct++] = result[i];
+        }
+        if (distinct == result.length) return result;
+        int[] trimmed = new int[distinct];
+        System.arraycopy(result, 0, trimmed, 0, distinct);
+        return trimmed;
+    }
+
+    // Adds to result from found on the id of every entry of list with an occurrence of the walked run
+    // that matches, and returns the new count.
+    private int walk(Postings list, int walked, int runs, int[][] matching, int[] between, boolean leads, boolean trails, boolean readSequence, int[] result, int found) {
+        int[] links = list.links, ends = list.ends;
+        int last = runs - 1;
+        int entry = 0;
+        int[] sequence = null; // Of the id of entry, once read.
+        for (int occurrence = 0; occurrence < list.occurrences; occurrence++) {
+            if (occurrence == ends[entry]) {
+                entry++;
+                sequence = null;
+            }
+            int at = occurrence * Postings.stride;
+            if (walked == 0 ? !matchesForward(links, at, runs, matching, between, leads, trails)
+                            : walked == last && !matchesBackward(links, at, runs, matching, between, trails)) continue;
+            if (readSequence) { // The rest is only in the sequence.
+                int first = links[at] - walked; // Position of the token holding the first run.
+                if (first < 0) continue;
+                if (sequence == null) sequence = sequences.get(list.ids[entry]);
+                if (2 * (first + runs) >= sequence.length || !matchesAt(sequence, first, runs, matching, between, leads, trails)) continue;
+            }
+            result[found++] = list.ids[entry];
+            occurrence = ends[entry] - 1; // On to the next id.
+        }
+        return found;
+    }
+
+    // True when the occurrence of a first run token at links[at] has the gaps and next token the query
+    // needs, as far as the links go.
+    private boolean matchesForward(int[] links, int at, int runs, int[][] matching, int[] between, boolean leading, boolean trailing) {
+        if (leading && leadingMarks[links[at + 1]] != search) return false;
+        if (runs == 1) return !trailing || trailingMarks[links[at + 2]] == search;
+        int next = links[at + 4];
+        if (links[at + 2] != between[0] || next < 0) return false;
+        return runs == 2 ? lastMarks[next] == search : next == matching[1][0];
+    }
+
+    // The same for an occurrence of a last run token, and the gaps and token before it.
+    private boolean matchesBackward(int[] links, int at, int runs, int[][] matching, int[] between, boolean trailing) {
+        if (trailing && trailingMarks[links[at + 2]] != search) return false;
+        int previous = links[at + 3];
+        if (links[at + 1] != between[runs - 2] || previous < 0) return false;
+        return runs == 2 ? firstMarks[previous] == search : previous == matching[runs - 2][0];
+    }
+
+    // Marks with a new search number the tokens the first and last runs may be, and the gaps that may
+    // come before the first and after the last.
+    private void mark(int[] first, int[] last, String leading, String trailing) {
+        if (firstMarks.length < tokens.size() || leadingMarks.length < gaps.size() || search == Integer.MAX_VALUE) {
+            firstMarks = new int[tokens.size() + (tokens.size() >> 3)];
+            lastMarks = new int[firstMarks.length];
+            leadingMarks = new int[gaps.size() + (gaps.size() >> 3)];
+            trailingMarks = new int[leadingMarks.length];
+            search = 0;
+        }
+        search++;
+        for (int token : first) firstMarks[token] = search;
+        for (int token : last) lastMarks[token] = search;
+        for (int gap = 0; gap < gaps.size(); gap++) {
+            String text = gaps.stringAt(gap);
+            if (!leading.isEmpty() && text.endsWith(leading)) leadingMarks[gap] = search;
+            if (!trailing.isEmpty() && text.startsWith(trailing)) trailingMarks[gap] = search;
+        }
+    }
+
+    // True when the runs sit on the tokens from position first of the sequence, with the gaps between
+    // them and around them as the query has.
+    private boolean matchesAt(int[] sequence, int first, int runs, int[][] matching, int[] between, boolean leading, boolean trailing) {
+        for (int i = 0; i < runs; i++) {
+            int token = sequence[2 * (first + i) + 1];
+            if (i == 0 ? firstMarks[token] != search : i == runs - 1 ? lastMarks[token] != search : token != matching[i][0]) return false;
+        }
+        for (int i = 0; i < between.length; i++) if (sequence[2 * (first + i) + 2] != between[i]) return false;
+        if (leading && leadingMarks[sequence[2 * first]] != search) return false;
+        return !trailing || trailingMarks[sequence[2 * (first + runs)]] == search;
+    }
+
+    // Ids holding a gap that contains the query, for queries with no letters or digits.
+    private int[] separatorsOnly(String foldedQuery) {
+        IntArrayList matching = new IntArrayList();
+        for (int gap = 0; gap < gaps.size(); gap++) if (gaps.stringAt(gap).contains(foldedQuery)) matching.add(gap);
+        return union(gapPostings, matching.toArray(), matching.size());
+    }
+
+    // Tokens containing run, in increasing order. In a positional index run may begin with tokenStart,
+    // for tokens starting with the rest, or end with tokenEnd, for tokens ending with it.
+    private int[] runTokens(String run) {
+        int length = run.length();
+        int[] matching;
+        boolean check;
+        if (length <= 3) {
+            SortedIntSet list = grams.get(gramKey(run, 0, length));
+            if (list == null) return new int[0];
+            matching = list.toArray();
+            check = !exactGrams(run, 0, length);
+        } else {
+            SortedIntSet[] lists = new SortedIntSet[length - 2];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = grams.get(gramKey(run, i, i + 3));
+                if (lists[i] == null) return new int[0];
+            }
+            matching = SortedIntSet.intersectAll(lists);
+            check = true; // Holding every trigram does not put them in the right order.
+        }
+        if (!check) return matching;
+        boolean starts = run.charAt(0) == tokenStart, ends = run.charAt(length - 1) == tokenEnd;
+        String inner = run.substring(starts ? 1 : 0, ends ? length - 1 : length);
+        int count = 0;
+        for (int token : matching) {
+            String text = tokens.stringAt(token);
+            if (starts ? text.startsWith(inner) : ends ? text.endsWith(inner) : text.contains(inner)) matching[count++] = token;
+        }
+        if (count == matching.length) return matching;
+        int[] result = new int[count];
+        System.arraycopy(matching, 0, result, 0, count);
+        return result;
+    }
+
+    // Sorted union of the ids of the first count of the lists numbered in matching.
+    private int[] union(Postings[] lists, int[] matching, int count) {
+        if (count == 0) return new int[0];
+        if (count == 1) return lists[matching[0]].toArray();
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            lists[matching[i]].sort(); // Sorting merges repeats, so it comes before the sizes are counted.
+            total += lists[matching[i]].size;
+        }
+        if (!negativeIds && total > (maxId >>> 3)) { // Dense results are cheaper to mark in a bitset than to sort.
+            long[] bits = new long[(maxId >>> 6) + 1];
+            int marked = 0;
+            for (int i = 0; i < count; i++) {
+                Postings ids = lists[matching[i]];
+                for (int j = 0; j < ids.size; j++) {
+                    int id = ids.ids[j];
+                    long bit = 1L << id;
+                    if ((bits[id >>> 6] & bit) == 0) {
+                        bits[id >>> 6] |= bit;
+                        marked++;
+                    }
+                }
+            }
+            int[] result = new int[marked];
+            int filled = 0;
+            for (int word = 0; word < bits.length; word++) {
+                long remaining = bits[word];
+                while (remaining != 0) {
+                    result[filled++] = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                }
+            }
+            return result;
+        }
+        int[] all = new int[(int) total];
+        int filled = 0;
+        for (int i = 0; i < count; i++) {
+            Postings ids = lists[matching[i]];
+            System.arraycopy(ids.ids, 0, all, filled, ids.size);
+            filled += ids.size;
+        }
+        Sort.radixSort(all);
+        int distinct = 0;
+        for (int i = 0; i < all.length; i++) if (distinct == 0 || all[distinct - 1] != all[i]) all[distinct++] = all[i];
+        if (distinct == all.length) return all;
+        int[] result = new int[distinct];
+        System.arraycopy(all, 0, result, 0, distinct);
+        return result;
+    }
+
+    // Ids holding one token, and in a positional index every occurrence of it, those of entry i at
+    // links[start(i) * stride .. ends[i] * stride). Ids are appended in whatever order they arrive, and
+    // a list that is out of order is sorted, merging repeats, the next time it is read, so loading
+    // people or films in any id order stays linear instead of shifting the list on every insert.
+    private static final class Postings {
+        private static final int stride = 5; // Position, gap before, gap after, token before and token after, -1 past an end, of an occurrence.
+
+        private int[] ids = new int[1];
+        private int[] ends; // Positional only.
+        private int[] links;
+        private int size = 0;
+        private int occurrences = 0;
+        private boolean sorted = true;
+
+        Postings(boolean positional) {
+            if (positional) {
+                ends = new int[1];
+                links = new int[stride];
+            }
+        }
+
+        int start(int entry) {
+            return entry == 0 ? 0 : ends[entry - 1];
+        }
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                if (ids[size - 1] == id) return;
+                sorted = false;
+            }
+            if (size == ids.length) {
+                int capacity = ids.length + (ids.length >> 1) + 1;
+                int[] tmp = new int[capacity];
+                System.arraycopy(ids, 0, tmp, 0, size);
+                ids = tmp;
+                if (ends != null) {
+                    tmp = new int[capacity];
+                    System.arraycopy(ends, 0, tmp, 0, size);
+                    ends = tmp;
+                }
+            }
+            ids[size++] = id;
+        }
+
+        // Adds an occurrence to a positional list.
+        void add(int id, int position, int before, int after, int previous, int next) {
+            add(id);
+            if (occurrences * stride == links.length) {
+                int[] tmp = new int[(occurrences + (occurrences >> 1) + 1) * stride];
+                System.arraycopy(links, 0, tmp, 0, occurrences * stride);
+                links = tmp;
+            }
+            int at = occurrences * stride;
+            links[at] = position;
+            links[at + 1] = before;
+            links[at + 2] = after;
+            links[at + 3] = previous;
+            links[at + 4] = next;
+            occurrences++;
+            ends[size - 1] = occurrences;
+        }
+
+        void sort() {
+            if (sorted) return;
+            if (links == null) {
+                Sort.radixSort(ids, 0, size);
+                int distinct = 0;
+                for (int i = 0; i < size; i++) if (distinct == 0 || ids[distinct - 1] != ids[i]) ids[distinct++] = ids[i];
+                size = distinct;
+                sorted = true;
+                return;
+            }
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            int[] keys = new int[size];
+            System.arraycopy(ids, 0, keys, 0, size);
+            Sort.sortIdsByKey(order, keys); // Stable, so the entries of an id added twice keep their occurrences in order.
+            int[] sortedIds = new int[ids.length];
+            int[] sortedEnds = new int[ends.length];
+            int[] sortedLinks = new int[links.length];
+            int distinct = 0, filled = 0;
+            for (int entry : order) {
+                if (distinct == 0 || sortedIds[distinct - 1] != ids[entry]) sortedIds[distinct++] = ids[entry];
+                int from = start(entry);
+                System.arraycopy(links, from * stride, sortedLinks, filled * stride, (ends[entry] - from) * stride);
+                filled += ends[entry] - from;
+                sortedEnds[distinct - 1] = filled;
+            }
+            ids = sortedIds;
+            ends = sortedEnds;
+            links = sortedLinks;
+            size = distinct;
+            sorted = true;
+        }
+
+        void remove(int id) {
+            sort();
+            int low = 0, high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (ids[mid] < id) low = mid + 1;
+                else if (ids[mid] > id) high = mid - 1;
+                else {
+                    System.arraycopy(ids, mid + 1, ids, mid, size - mid - 1);
+                    if (links != null) {
+                        int from = start(mid), removed = ends[mid] - from;
+                        System.arraycopy(links, ends[mid] * stride, links, from * stride, (occurrences - ends[mid]) * stride);
+                        occurrences -= removed;
+                        for (int i = mid; i < size - 1; i++) ends[i] = ends[i + 1] - removed;
+                    }
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        int[] toArray() {
+            sort();
+            int[] values = new int[size];
+            System.arraycopy(ids, 0, values, 0, size);
+            return values;
+        }
+    }
+
+    // Number of distinct tokens seen.
+    public int tokenCount() {
+        return tokens.size();
+    }
+}
@@ -0,0 +1,397 @@
+package structures;
+
+public class TextIndex {
+
+    // A ranked full text index. Each document is a few weighted fields, say a title, tagline and
+    // overview, folded the way NameIndex folds names and split into terms, the maximal runs of letters
+    // and digits, which are interned once. The postings of a term list the documents holding it in
+    // increasing document order, with the term's weighted frequency in each and the positions it occurs
+    // at, so quoted phrases can be checked. Fields are numbered apart by a gap, so no phrase spans two.
+    // search ranks by BM25 over the weighted frequencies plus a prior per document in [0, 1], and
+    // prunes with MaxScore: terms are ordered by the most they can add to a score, and once the k-th
+    // best score is beyond what the weakest terms reach together, documents holding only those terms
+    // are never visited and the others only look those terms up by galloping through their postings.
+    // Ids are given dense document numbers in the order they are added, which keeps every list append
+    // only. The numbers of removed documents are not reused.
+
+    private static final double k1 = 1.2;
+    private static final double b = 0.75;
+
+    private final float[] fieldWeights;
+    private final double priorWeight;
+    private final StringDictionary terms;
+    private Postings[] postings;
+    private final IntIntHashMap documentOf;
+    private int[] idOf;
+    private float[] lengths; // Weighted number of terms of each document.
+    private float[] priors;
+    private int documents = 0; // Numbers handed out so far.
+    private int live = 0;
+    private double totalLength = 0;
+
+    // Scratch space for add, reused so that adding a document allocates little besides its postings.
+    private final IntIntHashMap slotOf = new IntIntHashMap(64, -1);
+    private final IntArrayList slotTerms = new IntArrayList();
+    private final FloatArrayList slotFrequencies = new FloatArrayList();
+    private final IntArrayList occurrenceSlots = new IntArrayList();
+    private final IntArrayList occurrencePositions = new IntArrayList();
+
+    // fieldWeights scales the frequency of a term in each field, priorWeight is the most the prior adds.
+    public TextIndex(float[] fieldWeights, double priorWeight) {
+        this.fieldWeights = fieldWeights.clone();
+        this.priorWeight = priorWeight;
+        terms = new StringDictionary();
+        postings = new Postings[16];
+        documentOf = new IntIntHashMap(16, -1);
+        idOf = new int[16];
+        lengths = new float[16];
+        priors = new float[16];
+    }
+
+    public int size() {
+        return live;
+    }
+
+    public boolean contains(int id) {
+        return documentOf.containsKey(id);
+    }
+
+    // Number of distinct terms seen.
+    public int termCount() {
+        return terms.size();
+    }
+
+    private static boolean isTermChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    // Indexes the fields of id, one per weight given to the constructor, skipping null fields.
+    // False if id is already indexed.
+    public boolean add(int id, String... fields) {
+        if (documentOf.containsKey(id)) return false;
+        if (documents == idOf.length) {
+            int capacity = idOf.length + (idOf.length >> 1);
+            int[] tmpIds = new int[capacity];
+            float[] tmpLengths = new float[capacity];
+            float[] tmpPriors = new float[capacity];
+            System.arraycopy(idOf, 0, tmpIds, 0, documents);
+            System.arraycopy(lengths, 0, tmpLengths, 0, documents);
+            System.arraycopy(priors, 0, tmpPriors, 0, documents);
+            idOf = tmpIds;
+            lengths = tmpLengths;
+            priors = tmpPriors;
+        }
+        int document = documents++;
+        documentOf.put(id, document);
+        idOf[document] = id;
+        priors[document] = 0;
+
+        // Every occurrence as (slot, position), where a slot is one distinct term of this document.
+        slotOf.clear();
+        slotTerms.clear();
+        slotFrequencies.clear();
+        occurrenceSlots.clear();
+        occurrencePositions.clear();
+        float length = 0;
+        int position = 0;
+        for (int field = 0; field < fields.length && field < fieldWeights.length; field++) {
+            if (fields[field] == null) continue;
+            String folded = NameIndex.fold(fields[field]);
+            int end = 0;
+            while (end < folded.length()) {
+                while (end < folded.length() && !isTermChar(folded.charAt(end))) end++;
+                int start = end;
+                while (end < folded.length() && isTermChar(folded.charAt(end))) end++;
+                if (start == end) continue;
+                int term = terms.add(folded, start, end);
+                int slot = slotOf.get(term);
+                if (slot < 0) {
+                    slot = slotTerms.size();
+                    slotOf.put(term, slot);
+                    slotTerms.add(term);
+                    slotFrequencies.add(0);
+                }
+                slotFrequencies.set(slot, slotFrequencies.get(slot) + fieldWeights[field]);
+                occurrenceSlots.add(slot);
+                occurrencePositions.add(position++);
+                length += fieldWeights[field];
+            }
+            position++; // The gap between fields.
+        }
+
+        // Groups the positions by slot with a counting sort, which keeps each slot's positions in order.
+        int slots = slotTerms.size();
+        int[] starts = new int[slots + 1];
+        for (int i = 0; i < occurrenceSlots.size(); i++) starts[occurrenceSlots.get(i) + 1]++;
+        for (int slot = 0; slot < slots; slot++) starts[slot + 1] += starts[slot];
+        int[] grouped = new int[occurrenceSlots.size()];
+        int[] filled = new int[slots];
+        for (int i = 0; i < occurrenceSlots.size(); i++) {
+            int slot = occurrenceSlots.get(i);
+            grouped[starts[slot] + filled[slot]++] = occurrencePositions.get(i);
+        }
+        if (terms.size() > postings.length) {
+            Postings[] tmp = new Postings[Math.max(terms.size(), postings.length + (postings.length >> 1))];
+            System.arraycopy(postings, 0, tmp, 0, postings.length);
+            postings = tmp;
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            int term = slotTerms.get(slot);
+            if (postings[term] == null) postings[term] = new Postings();
+            postings[term].append(document, slotFrequencies.get(slot), grouped, starts[slot], starts[slot + 1]);
+        }
+        lengths[document] = length;
+        totalLength += length;
+        live++;
+        return true;
+    }
+
+    // Removes id, given the same fields it was added with. False if id is not indexed.
+    public boolean remove(int id, String... fields) {
+        int document = documentOf.remove(id);
+        if (document < 0) return false;
+        for (int field = 0; field < fields.length && field < fieldWeights.length; field++) {
+            if (fields[field] == null) continue;
+            String folded = NameIndex.fold(fields[field]);
+            int end = 0;
+            while (end < folded.length()) {
+                while (end < folded.length() && !isTermChar(folded.charAt(end))) end++;
+                int start = end;
+                while (end < folded.length() && isTermChar(folded.charAt(end))) end++;
+                if (start == end) continue;
+                int term = terms.get(folded, start, end);
+                if (term >= 0) postings[term].remove(document); // Repeats of a term find nothing left to remove.
+            }
+        }
+        totalLength -= lengths[document];
+        live--;
+        return true;
+    }
+
+    // Sets the prior of id, clamped to [0, 1]. False if id is not indexed.
+    public boolean setPrior(int id, double prior) {
+        int document = documentOf.get(id);
+        if (document < 0) return false;
+        priors[document] = (float) Math.max(0, Math.min(1, prior));
+        return true;
+    }
+
+    // The limit best ids for the query, best first. Any query term may match, and text in double
+    // quotes must also occur as a phrase. Ties go to the lower id.
+    public int[] search(String query, int limit) {
+        if (query == null || limit <= 0 || live == 0) return new int[0];
+        String folded = NameIndex.fold(query);
+
+        IntArrayList queryTerms = new IntArrayList();
+        int[][] phrases = new int[0][];
+        IntArrayList phrase = new IntArrayList();
+        boolean quoted = false;
+        int end = 0;
+        while (end < folded.length()) {
+            char c = folded.charAt(end);
+            if (c == '"') {
+                if (quoted && phrase.size() > 1) phrases = append(phrases, phrase.toArray());
+                phrase.clear();
+                quoted = !quoted;
+                end++;
+                continue;
+            }
+            if (!isTermChar(c)) {
+                end++;
+                continue;
+            }
+            int start = end;
+            while (end < folded.length() && isTermChar(folded.charAt(end))) end++;
+            int term = terms.get(folded, start, end);
+            if (quoted) {
+                if (term < 0 || postings[term].size == 0) return new int[0]; // The phrase occurs nowhere.
+                phrase.add(term);
+            }
+            if (term >= 0 && postings[term].size > 0 && !queryTerms.contains(term)) queryTerms.add(term);
+        }
+        if (quoted && phrase.size() > 1) phrases = append(phrases, phrase.toArray()); // An unclosed quote runs to the end.
+        int count = queryTerms.size();
+        if (count == 0) return new int[0];
+
+        // Each term's idf and the most it can add to a score: its largest frequency in the shortest
+        // possible document. Terms go weakest first, with bounds[i] the sum of the first i + 1 of them.
+        double averageLength = Math.max(totalLength / live, 1e-9);
+        Postings[] lists = new Postings[count];
+        double[] idfs = new double[count];
+        double[] maxima = new double[count];
+        for (int i = 0; i < count; i++) {
+            Postings list = postings[queryTerms.get(i)];
+            double idf = Math.log(1 + (live - list.size + 0.5) / (list.size + 0.5));
+            double maximum = idf * list.maxFrequency * (k1 + 1) / (list.maxFrequency + k1 * (1 - b));
+            int at = i;
+            while (at > 0 && maxima[at - 1] > maximum) {
+                lists[at] = lists[at - 1];
+                idfs[at] = idfs[at - 1];
+                maxima[at] = maxima[at - 1];
+                at--;
+            }
+            lists[at] = list;
+            idfs[at] = idf;
+            maxima[at] = maximum;
+        }
+        double[] bounds = new double[count];
+        for (int i = 0; i < count; i++) bounds[i] = (i > 0 ? bounds[i - 1] : 0) + maxima[i];
+
+        int candidates = 0; // Documents holding any of the terms, at most.
+        for (int i = 0; i < count && candidates < live; i++) candidates += lists[i].size;
+        TopK top = new TopK(Math.min(limit, Math.min(candidates, live)));
+        int[] cursors = new int[count];
+        int essential = 0; // Terms from here on are walked, the ones before are only looked up.
+        while (true) {
+            double threshold = top.threshold();
+            while (essential < count && bounds[essential] + priorWeight < threshold) essential++;
+            if (essential == count) break;
+            int document = Integer.MAX_VALUE;
+            for (int i = essential; i < count; i++) {
+                if (cursors[i] < lists[i].size) document = Math.min(document, lists[i].documents[cursors[i]]);
+            }
+            if (document == Integer.MAX_VALUE) break;
+
+            double norm = k1 * (1 - b + b * lengths[document] / averageLength);
+            double score = priorWeight * priors[document];
+            for (int i = essential; i < count; i++) {
+                Postings list = lists[i];
+                if (cursors[i] < list.size && list.documents[cursors[i]] == document) {
+                    float frequency = list.frequencies[cursors[i]++];
+                    score += idfs[i] * frequency * (k1 + 1) / (frequency + norm);
+                }
+            }
+            boolean reachable = true;
+            for (int i = essential - 1; i >= 0 && reachable; i--) {
+                if (score + bounds[i] < threshold) reachable = false;
+                else {
+                    Postings list = lists[i];
+                    cursors[i] = list.seek(cursors[i], document);
+                    if (cursors[i] < list.size && list.documents[cursors[i]] == document) {
+                        float frequency = list.frequencies[cursors[i]];
+                        score += idfs[i] * frequency * (k1 + 1) / (frequency + norm);
+                    }
+                }
+            }
+            if (!reachable || score < threshold) continue;
+            if (phrases.length > 0 && !containsPhrases(document, phrases)) continue;
+            top.offer(idOf[document], score);
+        }
+        return top.result();
+    }
+
+    private static int[][] append(int[][] phrases, int[] phrase) {
+        int[][] tmp = new int[phrases.length + 1][];
+        System.arraycopy(phrases, 0, tmp, 0, phrases.length);
+        tmp[phrases.length] = phrase;
+        return tmp;
+    }
+
+    // True when document holds every phrase, each term right after the one before.
+    private boolean containsPhrases(int document, int[][] phrases) {
+        for (int[] phrase : phrases) {
+            int[] entries = new int[phrase.length];
+            for (int j = 0; j < phrase.length; j++) {
+                Postings list = postings[phrase[j]];
+                entries[j] = list.seek(0, document);
+                if (entries[j] >= list.size || list.documents[entries[j]] != document) return false;
+            }
+            Postings first = postings[phrase[0]];
+            boolean found = false;
+            for (int p = first.positionsStart(entries[0]); p < first.ends[entries[0]] && !found; p++) {
+                int position = first.positions[p];
+                found = true;
+                for (int j = 1; j < phrase.length && found; j++) found = postings[phrase[j]].hasPosition(entries[j], position + j);
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    // The documents holding one term, in increasing order, with the weighted frequency of the term in
+    // each and its positions, those of entry i being positions[ends[i - 1], ends[i]).
+    private static final class Postings {
+        private int[] documents = new int[1];
+        private float[] frequencies = new float[1];
+        private int[] ends = new int[1];
+        private int[] positions = new int[2];
+        private int size = 0;
+        private float maxFrequency = 0; // Not lowered on removal, it only has to be an upper bound.
+
+        int positionsStart(int entry) {
+            return entry == 0 ? 0 : ends[entry - 1];
+        }
+
+        void append(int document, float frequency, int[] from, int start, int end) {
+            if (size == documents.length) {
+                int capacity = documents.length + (documents.length >> 1) + 1;
+                int[] tmpDocuments = new int[capacity];
+                float[] tmpFrequencies = new float[capacity];
+                int[] tmpEnds = new int[capacity];
+                System.arraycopy(documents, 0, tmpDocuments, 0, size);
+                System.arraycopy(frequencies, 0, tmpFrequencies, 0, size);
+                System.arraycopy(ends, 0, tmpEnds, 0, size);
+                documents = tmpDocuments;
+                frequencies = tmpFrequencies;
+                ends = tmpEnds;
+            }
+            int used = positionsStart(size);
+            int needed = used + end - start;
+            if (needed > positions.length) {
+                int[] tmp = new int[Math.max(needed, positions.length + (positions.length >> 1))];
+                System.arraycopy(positions, 0, tmp, 0, used);
+                positions = tmp;
+            }
+            System.arraycopy(from, start, positions, used, end - start);
+            documents[size] = document;
+            frequencies[size] = frequency;
+            ends[size] = needed;
+            size++;
+            if (frequency > maxFrequency) maxFrequency = frequency;
+        }
+
+        void remove(int document) {
+            int entry = seek(0, document);
+            if (entry >= size || documents[entry] != document) return;
+            int start = positionsStart(entry);
+            int removed = ends[entry] - start;
+            System.arraycopy(positions, ends[entry], positions, start, ends[size - 1] - ends[entry]);
+            System.arraycopy(documents, entry + 1, documents, entry, size - entry - 1);
+            System.arraycopy(frequencies, entry + 1, frequencies, entry, size - entry - 1);
+            System.arraycopy(ends, entry + 1, ends, entry, size - entry - 1);
+            size--;
+            for (int i = entry; i < size; i++) ends[i] -= removed;
+        }
+
+        // First entry at or after from whose document is at least document, or size. Gallops ahead
+        // then binary searches, so short jumps stay cheap on long lists.
+        int seek(int from, int document) {
+            if (from >= size || documents[from] >= document) return from;
+            int low = from, step = 1;
+            int high = from + 1;
+            while (high < size && documents[high] < document) {
+                low = high;
+                step <<= 1;
+                high = from + step;
+            }
+            high = Math.min(high, size);
+            while (low + 1 < high) { // documents[low] < document, and documents[high] >= document or high == size.
+                int mid = (low + high) >>> 1;
+                if (documents[mid] < document) low = mid;
+                else high = mid;
+            }
+            return high;
+        }
+
+        boolean hasPosition(int entry, int position) {
+            int low = positionsStart(entry), high = ends[entry] - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (positions[mid] < position) low = mid + 1;
+                else if (positions[mid] > position) high = mid - 1;
+                else return true;
+            }
+            return false;
+        }
+    }
+}
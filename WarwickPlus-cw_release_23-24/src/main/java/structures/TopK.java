@@ -0,0 +1,106 @@
+package structures;
+
+public class TopK {
+
+    // Keeps the k best (id, score) pairs seen so far in a min-heap held in two parallel arrays,
+    // so the weakest kept pair sits at the root and a new candidate is one comparison against it.
+    // Selecting from n candidates is O(n log k) and nothing is allocated per candidate.
+    // Higher scores rank first, equal scores are broken towards the lower id so results are deterministic.
+
+    private final int k;
+    private final int[] ids;
+    private final double[] scores;
+    private int size = 0;
+
+    public TopK(int k) {
+        this.k = Math.max(k, 0);
+        this.ids = new int[this.k];
+        this.scores = new double[this.k];
+    }
+
+    // True when (scoreA, idA) ranks below (scoreB, idB).
+    private static boolean weaker(double scoreA, int idA, double scoreB, int idB) {
+        return scoreA < scoreB || (scoreA == scoreB && idA > idB);
+    }
+
+    // Offers a candidate, returns true if it was kept.
+    public boolean offer(int id, double score) {
+        if (size < k) {
+            int index = size++;
+            while (index > 0) { // Sift up from the new leaf.
+                int parent = (index - 1) >>> 1;
+                if (!weaker(score, id, scores[parent], ids[parent])) break;
+                ids[index] = ids[parent];
+                scores[index] = scores[parent];
+                index = parent;
+            }
+            ids[index] = id;
+            scores[index] = score;
+            return true;
+        }
+        if (k == 0 || !weaker(scores[0], ids[0], score, id)) return false; // Not better than the weakest kept.
+        siftDown(ids, scores, size, id, score);
+        return true;
+    }
+
+    // Places (id, score) at the root and sifts it down within the first size slots.
+    private static void siftDown(int[] ids, double[] scores, int size, int id, double score) {
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) break;
+            if (child + 1 < size && weaker(scores[child + 1], ids[child + 1], scores[child], ids[child])) child++;
+            if (!weaker(scores[child], ids[child], score, id)) break;
+            ids[index] = ids[child];
+            scores[index] = scores[child];
+            index = child;
+        }
+        ids[index] = id;
+        scores[index] = score;
+    }
+
+    // Lowest score still kept, once k candidates are held. Anything scoring below it cannot enter,
+    // so callers can skip computing a candidate's full score when a cheap upper bound is already lower.
+    public double threshold() {
+        return size < k || k == 0 ? Double.NEGATIVE_INFINITY : scores[0];
+    }
+
+    public boolean isFull() {
+        return size == k;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // The kept ids, best first. The heap itself is left intact.
+    public int[] result() {
+        int[] ordered = new int[size];
+        drain(ordered, null);
+        return ordered;
+    }
+
+    // The scores matching result(), best first.
+    public double[] resultScores() {
+        double[] ordered = new double[size];
+        drain(null, ordered);
+        return ordered;
+    }
+
+    // Heap sorts a copy of the heap, popping the weakest pair into the back of the outputs.
+    private void drain(int[] orderedIds, double[] orderedScores) {
+        int[] heapIds = new int[size];
+        double[] heapScores = new double[size];
+        System.arraycopy(ids, 0, heapIds, 0, size);
+        System.arraycopy(scores, 0, heapScores, 0, size);
+        for (int remaining = size; remaining > 0; remaining--) {
+            if (orderedIds != null) orderedIds[remaining - 1] = heapIds[0];
+            if (orderedScores != null) orderedScores[remaining - 1] = heapScores[0];
+            siftDown(heapIds, heapScores, remaining - 1, heapIds[remaining - 1], heapScores[remaining - 1]);
+        }
+    }
+}
@@ -6,13 +6,13 @@ public class TreeMap {
 
     private class Node {
         LocalDate key;
-        LinkedList<Integer> movieIds;
+        IntArrayList movieIds;
         Node left, right;
         int height = 0;
 
-        public Node(LocalDate key, Integer id) {
+        public Node(LocalDate key, int id) {
             this.key = key;
-            this.movieIds = new LinkedList<>();
+            this.movieIds = new IntArrayList();
             movieIds.add(id);
             this.height = 1;
         }
@@ -56,11 +56,11 @@ public class TreeMap {
         return (node == null) ? 0 : height(node.left) - height(node.right);
     }
 
-    public void put(LocalDate releaseDate, Integer movieId) {
+    public void put(LocalDate releaseDate, int movieId) {
         root = put(root, releaseDate, movieId);
     }
 
-    private Node put(Node node, LocalDate key, Integer movieId) {
+    private Node put(Node node, LocalDate key, int movieId) {
         if (node == null) {
             return new Node(key, movieId);
         }
@@ -96,11 +96,11 @@ public class TreeMap {
         return node; // This rotates the nodes based off of the length of the left and right node.
     }
 
-    public void take(LocalDate key, Integer movieId) {
+    public void take(LocalDate key, int movieId) {
         root = take(root, key, movieId);
     }
 
-    private Node take(Node node, LocalDate key, Integer movieId) {
+    private Node take(Node node, LocalDate key, int movieId) {
         if (node == null) return null;
         // Travels through the node, using compareTo to judge needed direction.
         int cmp = key.compareTo(node.key);
@@ -111,7 +111,7 @@ public class TreeMap {
         } else {
             node.movieIds.remove(movieId); // Removes value from stored linkedlist.
 
-            if (node.movieIds.getSize() == 0) { // If that was the last value...
+            if (node.movieIds.isEmpty()) { // If that was the last value...
                 if (node.left == null) return node.right;
                 // Case: No left child, replace node with right child.
                 if (node.right == null) return node.left;
@@ -138,16 +138,16 @@ public class TreeMap {
         return balanceNode(node);
     }
 
-    public LinkedList<Integer> getMovieIdsInRange(LocalDate start, LocalDate end) {
-        LinkedList<Integer> result = new LinkedList<>();
+    public IntArrayList getMovieIdsInRange(LocalDate start, LocalDate end) {
+        IntArrayList result = new IntArrayList();
         getMovieIdsInRange(root, start, end, result); // Begins recursive search for root
         return result;
     }
     
-    private void getMovieIdsInRange(Node node, LocalDate start, LocalDate end, LinkedList<Integer> result) {
+    private void getMovieIdsInRange(Node node, LocalDate start, LocalDate end, IntArrayList result) {
         if (node == null) return;
         // If the current node's key (date) is within the [start, end] range, add all its movie IDs to the result list.
-        if (!node.key.isBefore(start) && !node.key.isAfter(end)) for (int movieId : node.movieIds.getValues()) result.add(movieId);
+        if (!node.key.isBefore(start) && !node.key.isAfter(end)) result.addAll(node.movieIds);
         // Recursively search in the left subtree if the start date is before or equal to the current node's date.
         if (start.isBefore(node.key)) getMovieIdsInRange(node.left, start, end, result);
         // Recursively search in the right subtree if the end date is after or equal to the current node's date.
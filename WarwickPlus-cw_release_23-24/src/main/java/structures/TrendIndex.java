@@ -0,0 +1,96 @@
+package structures;
+
+public class TrendIndex {
+
+    // Recent activity of each entity, numbered densely by its owner. An entity has a ring of
+    // bucketCount counters, one per bucketSeconds of time: absolute bucket b lives in slot
+    // b % bucketCount while it is one of the latest bucketCount buckets up to lastBucket, and slots
+    // are zeroed as the ring moves forward, so recording is O(1) amortised and a window count is
+    // O(window). Beside the rings, each time constant tau keeps a decayed score, the sum of
+    // exp((t - reference) / tau) over the entity's events. Every score shares the factor
+    // exp((reference - now) / tau), so ordering by the stored value orders by the decayed one at any
+    // time and nothing needs updating as time passes. The reference moves forward before an exponent
+    // can overflow, rescaling every score, which the owner is told about so it can re-rank.
+
+    private final int bucketSeconds;
+    private final int bucketCount;
+    private final double[] taus; // Time constants, in seconds.
+    private int[] counts = new int[0]; // Entity e's ring is counts[e * bucketCount .. (e + 1) * bucketCount).
+    private long[] lastBucket = new long[0];
+    private double[] scores = new double[0]; // Entity e's score under the w-th time constant is scores[e * taus.length + w].
+    private int capacity = 0;
+    private long reference = 0; // Epoch second the scores are relative to, set by the first event.
+    private long newest = Long.MIN_VALUE; // Latest event seen, the clock windows are measured back from.
+    private static final double maxExponent = 600; // exp overflows a double just past 709.
+    private static final long never = Long.MIN_VALUE / 2; // lastBucket before any event, far enough from overflow for the window arithmetic.
+
+    public TrendIndex(int bucketSeconds, int bucketCount, double[] taus) {
+        this.bucketSeconds = bucketSeconds;
+        this.bucketCount = bucketCount;
+        this.taus = taus.clone();
+    }
+
+    private void ensureCapacity(int entities) {
+        if (entities <= capacity) return;
+        int newCapacity = Math.max(entities, capacity + (capacity >> 1) + 16);
+        int[] tmpCounts = new int[newCapacity * bucketCount];
+        System.arraycopy(counts, 0, tmpCounts, 0, capacity * bucketCount);
+        counts = tmpCounts;
+        long[] tmpLast = new long[newCapacity];
+        System.arraycopy(lastBucket, 0, tmpLast, 0, capacity);
+        for (int e = capacity; e < newCapacity; e++) tmpLast[e] = never;
+        lastBucket = tmpLast;
+        double[] tmpScores = new double[newCapacity * taus.length];
+        System.arraycopy(scores, 0, tmpScores, 0, capacity * taus.length);
+        scores = tmpScores;
+        capacity = newCapacity;
+    }
+
+    // Records an event (delta 1) or takes one back (delta -1) at an epoch second. Taking back an
+    // event that has left the ring only changes the scores. Returns true when every score was
+    // rescaled, so rankings built from them need rebuilding.
+    public boolean record(int entity, long time, int delta) {
+        ensureCapacity(entity + 1);
+        if (newest == Long.MIN_VALUE) reference = time;
+        if (delta > 0) newest = Math.max(newest, time);
+
+        long bucket = Math.floorDiv(time, (long) bucketSeconds);
+        int ring = entity * bucketCount;
+        if (delta > 0 && bucket > lastBucket[entity]) { // Moves the ring forward, zeroing the buckets it passes.
+            long cleared = Math.min(bucket - lastBucket[entity], bucketCount);
+            for (long b = bucket - cleared + 1; b <= bucket; b++) counts[ring + (int) Math.floorMod(b, (long) bucketCount)] = 0;
+            lastBucket[entity] = bucket;
+        }
+        if (bucket <= lastBucket[entity] && bucket > lastBucket[entity] - bucketCount) {
+            counts[ring + (int) Math.floorMod(bucket, (long) bucketCount)] += delta;
+        }
+
+        boolean rescaled = false;
+        if ((time - reference) / taus[0] > maxExponent) {
+            for (int w = 0; w < taus.length; w++) {
+                double factor = Math.exp((reference - time) / taus[w]);
+                for (int e = 0; e < capacity; e++) scores[e * taus.length + w] *= factor;
+            }
+            reference = time;
+            rescaled = true;
+        }
+        for (int w = 0; w < taus.length; w++) scores[entity * taus.length + w] += delta * Math.exp((time - reference) / taus[w]);
+        return rescaled;
+    }
+
+    // The decayed score of an entity under the w-th time constant, comparable between entities only.
+    public double score(int w, int entity) {
+        return entity < capacity ? scores[entity * taus.length + w] : 0;
+    }
+
+    // Events of an entity in the latest buckets buckets, counting back from the newest event of any
+    // entity, its own bucket included. At most bucketCount buckets are kept.
+    public int count(int entity, int buckets) {
+        if (entity >= capacity || newest == Long.MIN_VALUE) return 0;
+        long now = Math.floorDiv(newest, (long) bucketSeconds);
+        long from = Math.max(now - Math.min(buckets, bucketCount), lastBucket[entity] - bucketCount); // Both exclusive.
+        int total = 0;
+        for (long b = Math.min(now, lastBucket[entity]); b > from; b--) total += counts[entity * bucketCount + (int) Math.floorMod(b, (long) bucketCount)];
+        return total;
+    }
+}
@@ -54,5 +54,9 @@ public final class Constants {
     public static final String defaultKeywordsPath      = "data/keywords.csv";
     public static final String defaultMovieMetadataPath = "data/movies_metadata.csv";
     public static final String defaultRatingsPath       = "data/ratings.csv";
+    public static final String defaultRecommenderPath   = "data/recommender.bin";
+
+    public static final int recommenderFactors = 32;
+    public static final int recommenderIterations = 10;
 
 }
@@ -390,6 +390,7 @@ public class LoadData implements Runnable {
         populateCredits(credits, creditRecords);
         populateKeywords(keywords, keywordRecords);
         populateRatings(ratings, ratingRecords);
+        populateRecommender(ratings);
 
         Instant end = Instant.now();
         Duration d = Duration.between(start, end);
@@ -402,20 +403,32 @@ public class LoadData implements Runnable {
 
     private void populateCredits(ICredits credits, ArrayList<CreditRecord> creditRecords){
         System.out.println("Populating Credits Store...");
-        for (CreditRecord cr : creditRecords){
-            credits.add(cr.cast, cr.crew, cr.movieId);
-        }
+        CastCredit[][] cast = new CastCredit[creditRecords.size()][];
+        CrewCredit[][] crew = new CrewCredit[creditRecords.size()][];
+        int[] movieIds = new int[creditRecords.size()];
+        for (int i = 0; i < creditRecords.size(); i++){
+            CreditRecord cr = creditRecords.get(i);
+            cast[i] = cr.cast;
+            crew[i] = cr.crew;
+            movieIds[i] = cr.movieId;
+        }
+        credits.addAll(cast, crew, movieIds);
     }
     
     private void populateKeywords(IKeywords keywords, ArrayList<KeywordRecord> keywordRecords){
         System.out.println("Populating Keywords Store...");
-        for (KeywordRecord kr : keywordRecords){
-            keywords.add(kr.movieId, kr.keywords);
+        int[] movieIds = new int[keywordRecords.size()];
+        Keyword[][] movieKeywords = new Keyword[keywordRecords.size()][];
+        for (int i = 0; i < keywordRecords.size(); i++){
+            movieIds[i] = keywordRecords.get(i).movieId;
+            movieKeywords[i] = keywordRecords.get(i).keywords;
         }
+        keywords.addAll(movieIds, movieKeywords);
     }
 
     private void populateMovies(IMovies movies, ArrayList<MovieRecord> movieRecords){
         System.out.println("Populating Movies Store...");
+        movies.ensureCapacity(movies.size() + movieRecords.size());
         for (MovieRecord mr : movieRecords){
             movies.add(mr.id, mr.title, mr.originalTitle, mr.overview, mr.tagline, mr.status, mr.genres, mr.release, mr.budget, mr.revenue, mr.languages, mr.originalLanguage, mr.runtime, mr.homepage, mr.adult, mr.video, mr.poster);
 
@@ -435,13 +448,51 @@ public class LoadData implements Runnable {
 
     private void populateRatings(IRatings ratings, ArrayList<RatingRecord> ratingRecords){
         System.out.println("Populating Ratings Store...");
-        for (RatingRecord rr : ratingRecords){
-            ratings.add(rr.userId, rr.movieId, rr.rating, rr.timestamp);
-        }
+        int[] userIds = new int[ratingRecords.size()];
+        int[] movieIds = new int[ratingRecords.size()];
+        float[] values = new float[ratingRecords.size()];
+        LocalDateTime[] timestamps = new LocalDateTime[ratingRecords.size()];
+        for (int i = 0; i < ratingRecords.size(); i++){
+            RatingRecord rr = ratingRecords.get(i);
+            userIds[i] = rr.userId;
+            movieIds[i] = rr.movieId;
+            values[i] = rr.rating;
+            timestamps[i] = rr.timestamp;
+        }
+        ratings.addAll(userIds, movieIds, values, timestamps);
     }
 
 
 
+    private void populateRecommender(IRatings ratings){
+        System.out.println("Populating Recommender...");
+        if (ratings.loadRecommender(Constants.defaultRecommenderPath)){
+            System.out.println("Loaded from \"" + Constants.defaultRecommenderPath + "\"");
+        }
+        else {
+            System.out.println("No recommender in \"" + Constants.defaultRecommenderPath + "\" matches the ratings, run with --train-recommender to train one");
+        }
+    }
+
+    /**
+     * Train the recommender of the ratings store from scratch and save it for the next start.
+     * Takes several seconds per iteration on the full dataset, so it is only run when asked for.
+     * @param stores The populated stores
+     */
+    public void trainRecommender(AbstractStores stores){
+        System.out.println("Training Recommender...");
+        IRatings ratings = stores.getRatings();
+        ratings.resetRecommender(Constants.recommenderFactors, false);
+        for (int i = 1; i <= Constants.recommenderIterations; i++){
+            Instant start = Instant.now();
+            double rmse = ratings.trainRecommender();
+            System.out.println(String.format("Iteration %d: RMSE %.4f, %dms", i, rmse, Duration.between(start, Instant.now()).toMillis()));
+        }
+        if (!ratings.saveRecommender(Constants.defaultRecommenderPath)){
+            System.err.println("Unable to save the recommender to \"" + Constants.defaultRecommenderPath + "\"");
+        }
+    }
+
     @Override
     public void run() {
     }
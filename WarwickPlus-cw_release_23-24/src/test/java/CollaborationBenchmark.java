@@ -0,0 +1,142 @@
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import stores.CastCredit;
+import stores.CrewCredit;
+import stores.Person;
+import stores.Stores;
+
+/**
+ * Latency report for the collaboration queries of Credits over a credits.csv shaped sample: 45k
+ * films with about 12 cast members each and a long tail of large casts, drawn from 200k people
+ * so that a few appear in hundreds of films. The graph is compared with answering the same
+ * queries on demand from getCastFilms and getFilmCast, which is what the cast member screen
+ * would have to do without it. The last section adds films between queries, so paths go through
+ * the deltas laid over the rows, and checks every path length against the on demand search.
+ *
+ * Run with: gradle benchmark -PbenchClass=CollaborationBenchmark
+ */
+public class CollaborationBenchmark {
+
+    private static final int FILMS = 45_000;
+    private static final int PEOPLE = 200_000;
+    private static final int QUERIES = 2_000;
+    private static final int ON_DEMAND_QUERIES = 100;
+
+    public static void main(String[] args) {
+        Random random = new Random(17);
+        Stores stores = new Stores();
+        long start = System.nanoTime();
+        for (int film = 1; film <= FILMS; film++) stores.getCredits().add(cast(random, film), new CrewCredit[0], film);
+        long load = System.nanoTime() - start;
+
+        long before = RatingsMemoryBenchmark.usedHeap();
+        start = System.nanoTime();
+        stores.getCredits().getTopCollaborators(1, 10); // Builds the rows.
+        long build = System.nanoTime() - start;
+        long heap = RatingsMemoryBenchmark.usedHeap() - before;
+
+        int[][] pairs = new int[QUERIES][2];
+        for (int i = 0; i < QUERIES; i++) pairs[i] = new int[] {person(random), person(random)};
+
+        long sink = 0;
+        long[] paths = new long[QUERIES];
+        long[] top = new long[QUERIES];
+        long hops = 0, unreachable = 0;
+        for (int round = 0; round < 2; round++) { // The first round warms up the JIT.
+            hops = 0;
+            unreachable = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                start = System.nanoTime();
+                Person[] path = stores.getCredits().getCastPath(pairs[i][0], pairs[i][1]);
+                paths[i] = System.nanoTime() - start;
+                if (path.length == 0) unreachable++;
+                else hops += path.length - 1;
+                start = System.nanoTime();
+                sink += stores.getCredits().getTopCollaborators(pairs[i][0], 10).length;
+                top[i] = System.nanoTime() - start;
+            }
+        }
+
+        long[] onDemandPaths = new long[ON_DEMAND_QUERIES];
+        long[] onDemandTop = new long[ON_DEMAND_QUERIES];
+        for (int i = 0; i < ON_DEMAND_QUERIES; i++) {
+            start = System.nanoTime();
+            sink += onDemandDistance(stores, pairs[i][0], pairs[i][1]);
+            onDemandPaths[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            sink += onDemandCollaborators(stores, pairs[i][0]);
+            onDemandTop[i] = System.nanoTime() - start;
+        }
+
+        // A live catalogue, a new film between queries, each path checked against the on demand search.
+        long[] live = new long[200];
+        int wrong = 0;
+        for (int i = 0; i < live.length; i++) {
+            stores.getCredits().add(cast(random, FILMS + 1 + i), new CrewCredit[0], FILMS + 1 + i);
+            if (i % 10 == 0) stores.getCredits().remove(1 + random.nextInt(FILMS));
+            int from = person(random), to = person(random);
+            start = System.nanoTime();
+            Person[] path = stores.getCredits().getCastPath(from, to);
+            live[i] = System.nanoTime() - start;
+            if (path.length - 1 != onDemandDistance(stores, from, to)) wrong++;
+        }
+
+        System.out.println("\n== " + FILMS + " films, " + stores.getCredits().getUniqueCast().length + " cast members, "
+                           + Runtime.getRuntime().availableProcessors() + " processors ==");
+        System.out.printf("load: %.0f ms, first query builds the graph: %.0f ms, graph heap: %.1f MB%n", load / 1e6, build / 1e6, heap / 1e6);
+        System.out.printf("mean hops: %.2f, unreachable pairs: %d of %d%n", hops / (double) Math.max(QUERIES - unreachable, 1), unreachable, QUERIES);
+        CreditsBenchmark.report("getCastPath", paths);
+        CreditsBenchmark.report("on demand path", onDemandPaths);
+        CreditsBenchmark.report("getTopCollaborators", top);
+        CreditsBenchmark.report("on demand top", onDemandTop);
+        CreditsBenchmark.report("path after add", live);
+        System.out.println("paths not matching the on demand search: " + wrong + " of " + live.length);
+        System.out.println("results: " + sink);
+    }
+
+    // About 12 cast members, a few films with a hundred or more.
+    private static CastCredit[] cast(Random random, int film) {
+        CastCredit[] cast = new CastCredit[1 + Math.min((int) (-Math.log(1 - random.nextDouble()) * 11), 300)];
+        for (int j = 0; j < cast.length; j++) {
+            int person = person(random);
+            cast[j] = new CastCredit(j, "Role", "c" + film + "_" + j, person, "Person " + person, j, "");
+        }
+        return cast;
+    }
+
+    // Skewed towards low ids, so a few people have hundreds of credits.
+    private static int person(Random random) {
+        double skew = random.nextDouble();
+        return 1 + (int) (skew * skew * skew * PEOPLE);
+    }
+
+    // Breadth first search over the film lists, -1 if the two are not linked.
+    private static int onDemandDistance(Stores stores, int from, int to) {
+        if (stores.getCredits().getCast(from) == null || stores.getCredits().getCast(to) == null) return -1;
+        Map<Integer, Integer> depth = new HashMap<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        depth.put(from, 0);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            int person = queue.poll();
+            if (person == to) return depth.get(person);
+            for (int film : stores.getCredits().getCastFilms(person)) {
+                for (CastCredit credit : stores.getCredits().getFilmCast(film)) {
+                    if (depth.putIfAbsent(credit.getID(), depth.get(person) + 1) == null) queue.add(credit.getID());
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int onDemandCollaborators(Stores stores, int person) {
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (int film : stores.getCredits().getCastFilms(person)) {
+            for (CastCredit credit : stores.getCredits().getFilmCast(film)) if (credit.getID() != person) shared.merge(credit.getID(), 1, Integer::sum);
+        }
+        return shared.entrySet().stream().sorted((a, b) -> b.getValue() != a.getValue().intValue() ? b.getValue() - a.getValue() : a.getKey() - b.getKey()).limit(10).mapToInt(Map.Entry::getKey).sum();
+    }
+}
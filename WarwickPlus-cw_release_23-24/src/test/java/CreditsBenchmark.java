@@ -0,0 +1,108 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import stores.CastCredit;
+import stores.CrewCredit;
+import stores.Person;
+import stores.Stores;
+
+/**
+ * Latency report for the per person Credits queries over a credits.csv shaped sample: 45k films
+ * with 5 to 60 cast members each, drawn from 200k people so that a few appear in hundreds of
+ * films, and 2 to 11 crew members from the same people, so many people both act and work as crew.
+ * Queries go to people picked the same way, so busy actors are asked about most, as on the cast
+ * member screen. The heap reported is what the loaded store holds, credits included.
+ *
+ * Run with: gradle benchmark -PbenchClass=CreditsBenchmark
+ */
+public class CreditsBenchmark {
+
+    private static final int FILMS = 45_000;
+    private static final int PEOPLE = 200_000;
+    private static final int QUERIES = 20_000;
+
+    public static void main(String[] args) {
+        Random random = new Random(14);
+        long before = RatingsMemoryBenchmark.usedHeap();
+        Stores stores = new Stores();
+        long start = System.nanoTime();
+        for (int film = 1; film <= FILMS; film++) {
+            CastCredit[] cast = new CastCredit[5 + random.nextInt(56)];
+            for (int j = 0; j < cast.length; j++) {
+                int person = person(random);
+                cast[j] = new CastCredit(j, "Role", "c" + film + "_" + j, person, "Person " + person, j, "");
+            }
+            CrewCredit[] crew = new CrewCredit[2 + random.nextInt(10)];
+            for (int j = 0; j < crew.length; j++) {
+                int person = person(random);
+                crew[j] = new CrewCredit("w" + film + "_" + j, "Crew", person, "Job", "Person " + person, "");
+            }
+            stores.getCredits().add(cast, crew, film);
+        }
+        long load = System.nanoTime() - start;
+        long heap = RatingsMemoryBenchmark.usedHeap() - before;
+
+        int[] people = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) people[i] = person(random);
+
+        long sink = 0;
+        long[] stars = new long[QUERIES];
+        for (int round = 0; round < 2; round++) { // The first round warms up the JIT.
+            for (int i = 0; i < QUERIES; i++) {
+                start = System.nanoTime();
+                sink += stores.getCredits().getCastStarsInFilms(people[i]).length;
+                stars[i] = System.nanoTime() - start;
+            }
+        }
+
+        long[] numCredits = new long[QUERIES];
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < QUERIES; i++) {
+                start = System.nanoTime();
+                sink += stores.getCredits().getNumCastCredits(people[i]);
+                numCredits[i] = System.nanoTime() - start;
+            }
+        }
+        start = System.nanoTime();
+        sink += stores.getCredits().getMostCastCredits(10).length;
+        long firstMost = System.nanoTime() - start;
+        // The home screen list, with a film added between views as a live catalogue would.
+        long[] most = new long[200];
+        for (int i = 0; i < most.length; i++) {
+            CastCredit[] cast = {new CastCredit(0, "Role", "n" + i, person(random), "New person", 0, "")};
+            stores.getCredits().add(cast, new CrewCredit[0], FILMS + 1 + i);
+            start = System.nanoTime();
+            sink += stores.getCredits().getMostCastCredits(10).length;
+            most[i] = System.nanoTime() - start;
+        }
+
+        System.out.println("\n== " + FILMS + " films, " + stores.getCredits().getUniqueCast().length + " cast members ==");
+        Set<Integer> distinct = new HashSet<>();
+        for (Person person : stores.getCredits().getUniqueCast()) distinct.add(person.getID());
+        for (Person person : stores.getCredits().getUniqueCrew()) distinct.add(person.getID());
+        System.out.println("crew members: " + stores.getCredits().getUniqueCrew().length + ", people in either role: " + distinct.size());
+        System.out.printf("load: %.0f ms, heap: %.1f MB%n", load / 1e6, heap / 1e6);
+        report("getCastStarsInFilms", stars);
+        report("getNumCastCredits", numCredits);
+        System.out.printf("first getMostCastCredits(10) after load: %.1f ms%n", firstMost / 1e6);
+        report("getMostCastCredits(10)", most);
+        System.out.println("results: " + sink);
+    }
+
+    // Skewed towards low ids, so a few people have hundreds of credits.
+    private static int person(Random random) {
+        double skew = random.nextDouble();
+        return 1 + (int) (skew * skew * skew * PEOPLE);
+    }
+
+    static void report(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long nano : nanos) total += nano;
+        System.out.printf("%-22s mean: %8.2f us, p50: %8.2f us, p99: %8.2f us, max: %8.1f us%n", label, total / 1e3 / nanos.length,
+                          sorted[sorted.length / 2] / 1e3, sorted[sorted.length * 99 / 100] / 1e3, sorted[sorted.length - 1] / 1e3);
+    }
+}
@@ -124,6 +124,23 @@ public class CreditsTest {
     /**
      * Should not be able to add a film with a non-unique ID
      */
+    /**
+     * The films of manyCreditsStores added in one batch, with film 201 repeated
+     */
+    @Test void testAddAll() {
+        System.out.println("\nStarting testAddAll...");
+        Stores bulkStores = new Stores();
+        CastCredit[][] cast = {{woody}, {buzz}, {woody}, {woody, buzz}, {buzz}};
+        CrewCredit[][] crew = {{johnLasseter}, {johnLasseter}, {janeDoe}, {johnLasseter, janeDoe}, {janeDoe}};
+
+        assertEquals(4, bulkStores.getCredits().addAll(cast, crew, new int[] {201, 202, 203, 204, 201}), "A film already added should be skipped.");
+        assertEquals(4, bulkStores.getCredits().size(), "Incorrect size returned.");
+        assertArrayEquals(manyCreditsStores.getCredits().getCastFilms(buzz.getID()), bulkStores.getCredits().getCastFilms(buzz.getID()), "Incorrect values returned.");
+        assertEquals(woody.getID(), bulkStores.getCredits().findCastByPrefix("t", 1)[0].getID(), "Tom Hanks is in more films than Tim Allen.");
+        assertEquals(johnLasseter.getID(), bulkStores.getCredits().findCrewByPrefix("j", 1)[0].getID(), "John Lasseter worked on more films than Jane Doe.");
+        assertEquals(0, bulkStores.getCredits().addAll(cast, crew, new int[] {205}), "Arrays of different lengths add nothing.");
+    }
+
     @Test
     void testAddNeg() {
         System.out.println("\nStarting testAddNeg...");
@@ -522,6 +539,68 @@ public class CreditsTest {
 
     }
 
+    /**
+     * Names are matched ignoring case and accents, anywhere in the name
+     */
+    @Test void testFindCastFolded(){
+        System.out.println("\nStarting testFindCastFolded...");
+
+        Stores foldedStores = new Stores();
+        CastCredit penelope = new CastCredit(5, "Raimunda", "5", 5, "Penélope Cruz", 0, "");
+        CastCredit chloe = new CastCredit(6, "Hit-Girl", "6", 6, "Chloë Grace Moretz", 1, "");
+        foldedStores.getCredits().add(new CastCredit[]{penelope, chloe}, new CrewCredit[0], 301);
+
+        assertEquals(5, foldedStores.getCredits().findCast("penelope")[0].getID(), "Accents should be ignored.");
+        assertEquals(5, foldedStores.getCredits().findCast("PENÉLOPE")[0].getID(), "Case should be ignored.");
+        assertEquals(6, foldedStores.getCredits().findCast("loe gra")[0].getID(), "Terms spanning names should match.");
+        assertEquals(2, foldedStores.getCredits().findCast("e").length, "Both names contain an e.");
+        assertEquals(0, foldedStores.getCredits().findCast("cruz penelope").length, "The order of the name matters.");
+
+        foldedStores.getCredits().remove(301);
+        assertEquals(0, foldedStores.getCredits().findCast("penelope").length, "Removed cast should not be found.");
+    }
+
+    /**
+     * Prefix search returns the cast members with the most films first
+     */
+    @Test void testFindCastByPrefix(){
+        System.out.println("\nStarting testFindCastByPrefix...");
+
+        Person[] result = starCreditsStores.getCredits().findCastByPrefix("T", 10);
+        assertEquals(2, result.length, "Tom Hanks and Tim Allen start with T.");
+        assertEquals(woody.getID(), result[0].getID(), "Equal film counts go to the lower ID.");
+        assertEquals(buzz.getID(), result[1].getID(), "Equal film counts go to the lower ID.");
+
+        result = manyCreditsStores.getCredits().findCastByPrefix("t", 1);
+        assertEquals(1, result.length, "Results should be limited.");
+        assertEquals(woody.getID(), result[0].getID(), "Tom Hanks is in more films than Tim Allen.");
+
+        assertEquals(1, starCreditsStores.getCredits().findCastByPrefix("tom h", 10).length, "Prefixes may span names.");
+        assertEquals(0, starCreditsStores.getCredits().findCastByPrefix("hanks", 10).length, "Only the start of the name is matched.");
+        assertEquals(1, starCreditsStores.getCredits().findCrewByPrefix("jane", 10).length, "Crew should be searched too.");
+    }
+
+    @Test void testFindCastFuzzy(){
+        System.out.println("\nStarting testFindCastFuzzy...");
+
+        Person[] result = starCreditsStores.getCredits().findCastFuzzy("Tom Hnaks", 1, 10);
+        assertEquals(1, result.length, "Swapped letters should count as one edit.");
+        assertEquals(woody.getID(), result[0].getID(), "Tom Hnaks should find Tom Hanks.");
+        assertEquals(0, starCreditsStores.getCredits().findCastFuzzy("Tom Hnaks", 0, 10).length, "No edits means an exact match.");
+        assertEquals(buzz.getID(), starCreditsStores.getCredits().findCastFuzzy("TIM ALEN", 1, 10)[0].getID(), "Case should be ignored.");
+
+        result = starCreditsStores.getCredits().findCastFuzzy("tim hanks", 5, 10);
+        assertEquals(2, result.length, "Both names are within five edits.");
+        assertEquals(woody.getID(), result[0].getID(), "The closest name should come first.");
+        assertEquals(buzz.getID(), result[1].getID(), "The closest name should come first.");
+
+        result = starCreditsStores.getCredits().findCastFuzzy("tim hanks", 5, 1);
+        assertEquals(1, result.length, "Results should be limited.");
+        assertEquals(woody.getID(), result[0].getID(), "The limit should keep the closest name.");
+        assertEquals(2, starCreditsStores.getCredits().findCastFuzzy("tim hanks", 5, Integer.MAX_VALUE).length, "A limit past the matches should return all of them.");
+        assertEquals(1, starCreditsStores.getCredits().findCrewFuzzy("Jnae Doe", 1, 10).length, "Crew should be searched too.");
+    }
+
     /**
      * Stars should be ids 201, 202, 203
      */
@@ -545,6 +624,208 @@ public class CreditsTest {
         assertArrayEquals(new int[0], emptyCreditsStores.getCredits().getCastStarsInFilms(1), "Should return empty array if there are no credits.");
     }
 
+    @Test void testGetCastFilmsBilledInTop(){
+        System.out.println("\nStarting testGetCastFilmsBilledInTop...");
+        Stores billingStores = new Stores();
+        CastCredit lead = new CastCredit(1, "Lead", "b1", 11, "Lead Actor", 0, "");
+        CastCredit second = new CastCredit(2, "Second", "b2", 12, "Second Actor", 1, "");
+        CastCredit twin = new CastCredit(3, "Twin", "b3", 12, "Second Actor", 5, "");
+        CastCredit extra = new CastCredit(4, "Extra", "b4", 13, "Extra Actor", 9, "");
+        billingStores.getCredits().add(new CastCredit[] {extra, twin, second, lead}, new CrewCredit[0], 302);
+        billingStores.getCredits().add(new CastCredit[] {new CastCredit(5, "Lead", "b5", 12, "Second Actor", 0, ""), extra}, new CrewCredit[0], 301);
+        billingStores.getCredits().add(new CastCredit[] {new CastCredit(6, "Extra", "b6", 11, "Lead Actor", 7, "")}, new CrewCredit[0], 303);
+
+        CastCredit[] cast = billingStores.getCredits().getFilmCast(302);
+        for (int i = 1; i < cast.length; i++) assertTrue(cast[i - 1].getOrder() <= cast[i].getOrder(), "Cast should be in order order.");
+
+        assertArrayEquals(new int[] {302}, billingStores.getCredits().getCastFilmsBilledInTop(11, 1), "Lead roles only.");
+        assertArrayEquals(new int[] {301, 302}, billingStores.getCredits().getCastFilmsBilledInTop(12, 2), "The best order in a film should count.");
+        assertArrayEquals(new int[] {301}, billingStores.getCredits().getCastFilmsBilledInTop(12, 1), "Films should be in ascending order.");
+        assertArrayEquals(new int[] {301, 302}, billingStores.getCredits().getCastStarsInFilms(12), "A second role should not repeat the film.");
+        assertArrayEquals(new int[] {301, 302}, billingStores.getCredits().getCastFilmsBilledInTop(13, 10), "Order 9 is within the top 10.");
+        assertArrayEquals(new int[0], billingStores.getCredits().getCastFilmsBilledInTop(13, 9), "Order 9 is not within the top 9.");
+        assertArrayEquals(new int[0], billingStores.getCredits().getCastFilmsBilledInTop(14, 3), "Unknown cast should have no films.");
+
+        billingStores.getCredits().remove(302);
+        assertArrayEquals(new int[] {301}, billingStores.getCredits().getCastStarsInFilms(12), "Removed films should not be billed.");
+        assertArrayEquals(new int[0], billingStores.getCredits().getCastFilmsBilledInTop(11, 5), "Removed films should not be billed.");
+        assertArrayEquals(new int[] {303}, billingStores.getCredits().getCastFilmsBilledInTop(11, 8), "Other films should be kept.");
+    }
+
+    @Test void testPeopleSharedAcrossRoles(){
+        System.out.println("\nStarting testPeopleSharedAcrossRoles...");
+        Stores sharedStores = new Stores();
+        CastCredit acting = new CastCredit(1, "Himself", "s1", 21, "Clint Eastwood", 0, "clint path");
+        CrewCredit directing = new CrewCredit("s2", "Directing", 21, "Director", "Clint Eastwood", "clint path");
+        CastCredit costar = new CastCredit(2, "Partner", "s3", 22, "Gene Hackman", 1, "");
+        sharedStores.getCredits().add(new CastCredit[] {acting, costar}, new CrewCredit[] {directing}, 401);
+        sharedStores.getCredits().add(new CastCredit[] {costar}, new CrewCredit[] {directing}, 402);
+
+        assertSame(sharedStores.getCredits().getCast(21), sharedStores.getCredits().getCrew(21), "One person should be shared by both roles.");
+        assertNull(sharedStores.getCredits().getCrew(22), "Gene Hackman has no crew credits.");
+
+        sharedStores.getCredits().remove(401);
+        assertNull(sharedStores.getCredits().getCast(21), "Clint Eastwood has no cast credits left.");
+        assertEquals(-1, sharedStores.getCredits().getNumCastCredits(21), "Clint Eastwood has no cast credits left.");
+        assertEquals(0, sharedStores.getCredits().findCast("eastwood").length, "Clint Eastwood has no cast credits left.");
+        assertEquals("Clint Eastwood", sharedStores.getCredits().getCrew(21).getName(), "Directing 402 should keep Clint Eastwood.");
+        assertEquals("Gene Hackman", sharedStores.getCredits().getCast(22).getName(), "Acting in 402 should keep Gene Hackman.");
+        assertEquals(1, sharedStores.getCredits().getUniqueCast().length, "Only Gene Hackman is still cast.");
+
+        sharedStores.getCredits().remove(402);
+        assertNull(sharedStores.getCredits().getCrew(21), "Nobody should be left.");
+        assertEquals(0, sharedStores.getCredits().getUniqueCast().length, "Nobody should be left.");
+        assertEquals(0, sharedStores.getCredits().getUniqueCrew().length, "Nobody should be left.");
+
+        sharedStores.getCredits().add(new CastCredit[] {acting}, new CrewCredit[0], 403);
+        assertEquals("clint path", sharedStores.getCredits().getCast(21).getProfilePath(), "People should be registered again when credited again.");
+    }
+
+    @Test void testPeopleRemovedOnlyWithLastFilm(){
+        System.out.println("\nStarting testPeopleRemovedOnlyWithLastFilm...");
+        Stores sharedStores = new Stores();
+        CastCredit lead = new CastCredit(1, "Lead", "r1", 31, "Frances McDormand", 0, "");
+        sharedStores.getCredits().add(new CastCredit[] {lead}, new CrewCredit[0], 501);
+        sharedStores.getCredits().add(new CastCredit[] {lead}, new CrewCredit[0], 502);
+
+        sharedStores.getCredits().remove(501);
+        assertNotNull(sharedStores.getCredits().getCast(31), "Frances McDormand is still in 502.");
+        assertEquals(1, sharedStores.getCredits().findCast("mcdormand").length, "Frances McDormand should still be found.");
+        assertArrayEquals(new int[] {502}, sharedStores.getCredits().getCastFilms(31), "Only 502 should be left.");
+    }
+
+    /**
+     * 41 and 42 share 701, 42, 43 and 45 share 702, 43 and 44 share 703, and 42 and 45 share 704
+     */
+    @Test void testGetCastPath(){
+        System.out.println("\nStarting testGetCastPath...");
+        Stores graphStores = collaborationStores();
+
+        Person[] path = graphStores.getCredits().getCastPath(41, 44);
+        assertEquals(4, path.length, "41 is three films away from 44.");
+        assertEquals(41, path[0].getID(), "The path should start with the first cast member.");
+        assertEquals(42, path[1].getID(), "41 only shares a film with 42.");
+        assertEquals(43, path[2].getID(), "42 reaches 43 through 702.");
+        assertEquals(44, path[3].getID(), "The path should end with the last cast member.");
+        assertArrayEquals(new int[] {701, 702, 703}, graphStores.getCredits().getCastPathFilms(41, 44), "Each film should link two neighbours of the path.");
+        assertEquals(1, graphStores.getCredits().getCastPath(41, 41).length, "A cast member is no films away from themselves.");
+        assertArrayEquals(new int[0], graphStores.getCredits().getCastPathFilms(41, 41), "No films link a cast member to themselves.");
+        assertEquals(0, graphStores.getCredits().getCastPath(41, 1000).length, "An unknown cast member has no path.");
+
+        graphStores.getCredits().remove(702);
+        assertEquals(0, graphStores.getCredits().getCastPath(41, 44).length, "Without 702 nothing links 42 to 43.");
+        graphStores.getCredits().add(new CastCredit[] {new CastCredit(1, "Role", "g6", 45, "Cast 45", 0, ""), new CastCredit(2, "Role", "g7", 43, "Cast 43", 1, "")}, new CrewCredit[0], 705);
+        assertArrayEquals(new int[] {701, 704, 705, 703}, graphStores.getCredits().getCastPathFilms(41, 44), "705 should link 45 to 43.");
+
+        graphStores.getCredits().remove(703);
+        assertEquals(0, graphStores.getCredits().getCastPath(44, 44).length, "44 is no longer cast in any film.");
+    }
+
+    @Test void testGetTopCollaborators(){
+        System.out.println("\nStarting testGetTopCollaborators...");
+        Stores graphStores = collaborationStores();
+
+        Person[] result = graphStores.getCredits().getTopCollaborators(42, 10);
+        assertEquals(3, result.length, "42 has worked with three cast members.");
+        assertEquals(45, result[0].getID(), "45 shares two films with 42.");
+        assertEquals(41, result[1].getID(), "Ties should go to the lower ID.");
+        assertEquals(43, result[2].getID(), "Ties should go to the lower ID.");
+        assertEquals(1, graphStores.getCredits().getTopCollaborators(42, 1).length, "Results should be limited.");
+        assertEquals(3, graphStores.getCredits().getTopCollaborators(42, Integer.MAX_VALUE).length, "A limit past the collaborators should return all of them.");
+        assertEquals(0, graphStores.getCredits().getTopCollaborators(1000, 10).length, "An unknown cast member has no collaborators.");
+
+        graphStores.getCredits().remove(704);
+        result = graphStores.getCredits().getTopCollaborators(42, 10);
+        assertEquals(41, result[0].getID(), "Once 704 is gone, every collaborator shares one film.");
+        graphStores.getCredits().remove(701);
+        assertEquals(2, graphStores.getCredits().getTopCollaborators(42, 10).length, "41 no longer shares a film with 42.");
+    }
+
+    private Stores collaborationStores() {
+        Stores graphStores = new Stores();
+        CastCredit[] people = new CastCredit[6];
+        for (int id = 41; id <= 45; id++) people[id - 40] = new CastCredit(id, "Role", "g" + id, id, "Cast " + id, 0, "");
+        graphStores.getCredits().add(new CastCredit[] {people[1], people[2]}, new CrewCredit[0], 701);
+        graphStores.getCredits().add(new CastCredit[] {people[2], people[3], people[5]}, new CrewCredit[0], 702);
+        graphStores.getCredits().add(new CastCredit[] {people[3], people[4]}, new CrewCredit[0], 703);
+        graphStores.getCredits().add(new CastCredit[] {people[2], people[5]}, new CrewCredit[0], 704);
+        return graphStores;
+    }
+
+    /**
+     * John Lasseter directs 201, 202 and 204, Jane Doe is light manager on 203 and 204
+     */
+    @Test void testGetCrewByJob(){
+        System.out.println("\nStarting testGetCrewByJob...");
+
+        Person[] result = manyCreditsStores.getCredits().getCrewByJob("Director");
+        assertEquals(1, result.length, "Only John Lasseter directs.");
+        assertEquals(johnLasseter.getID(), result[0].getID(), "John Lasseter should be found as a director.");
+        assertEquals(janeDoe.getID(), manyCreditsStores.getCredits().getCrewByDepartment("Lighting")[0].getID(), "Jane Doe should be found in Lighting.");
+        assertEquals(0, manyCreditsStores.getCredits().getCrewByJob("Composer").length, "Nobody is a composer.");
+        assertEquals(0, manyCreditsStores.getCredits().getCrewByJob(null).length, "A null job should find nobody.");
+        assertArrayEquals(new int[] {201, 202, 204}, manyCreditsStores.getCredits().getFilmsByCrewJob(johnLasseter.getID(), "Director"), "Incorrect films directed.");
+        assertArrayEquals(new int[0], manyCreditsStores.getCredits().getFilmsByCrewJob(janeDoe.getID(), "Director"), "Jane Doe has not directed.");
+        assertArrayEquals(new int[0], manyCreditsStores.getCredits().getFilmsByCrewJob(1000, "Director"), "An unknown crew member has no films.");
+    }
+
+    @Test void testGetTopCrewByJob(){
+        System.out.println("\nStarting testGetTopCrewByJob...");
+        Stores jobStores = new Stores();
+        CrewCredit directing = new CrewCredit("j1", "Directing", 51, "Director", "Kathryn Bigelow", "");
+        CrewCredit writing = new CrewCredit("j2", "Writing", 51, "Screenplay", "Kathryn Bigelow", "");
+        CrewCredit other = new CrewCredit("j3", "Directing", 52, "Director", "Denis Villeneuve", "");
+        jobStores.getCredits().add(new CastCredit[0], new CrewCredit[] {other}, 801);
+        jobStores.getCredits().add(new CastCredit[0], new CrewCredit[] {directing, writing}, 802);
+        jobStores.getCredits().add(new CastCredit[0], new CrewCredit[] {directing}, 803);
+
+        Person[] result = jobStores.getCredits().getTopCrewByJob("Director", 10);
+        assertEquals(2, result.length, "Two people have directed.");
+        assertEquals(51, result[0].getID(), "Kathryn Bigelow directed the most films.");
+        assertEquals(1, jobStores.getCredits().getTopCrewByJob("Director", 1).length, "Results should be limited.");
+        assertEquals(1, jobStores.getCredits().getTopCrewByJob("Screenplay", 10).length, "A second job in a film is indexed too.");
+
+        jobStores.getCredits().remove(803);
+        result = jobStores.getCredits().getTopCrewByJob("Director", 10);
+        assertEquals(51, result[0].getID(), "Ties should go to the lower ID.");
+        jobStores.getCredits().remove(802);
+        result = jobStores.getCredits().getTopCrewByJob("Director", 10);
+        assertEquals(1, result.length, "Kathryn Bigelow no longer directs any film.");
+        assertEquals(52, result[0].getID(), "Only Denis Villeneuve is left.");
+        assertEquals(0, jobStores.getCredits().getCrewByJob("Screenplay").length, "Nobody is left with the screenplay job.");
+        assertEquals(1, jobStores.getCredits().getCrewByDepartment("Directing").length, "Only Denis Villeneuve is left in Directing.");
+    }
+
+    /**
+     * Cast 1 is in films 201, 203, 204 and cast 2 is in 202, 204, so only 204 is shared
+     */
+    @Test void testGetFilmsWithAllCastPos() {
+        System.out.println("\nStarting testGetFilmsWithAllCastPos...");
+
+        assertArrayEquals(new int[]{204}, manyCreditsStores.getCredits().getFilmsWithAllCast(new int[]{1, 2}), "Incorrect values returned.");
+        assertArrayEquals(new int[]{201, 203, 204}, manyCreditsStores.getCredits().getFilmsWithAllCast(new int[]{1}), "Incorrect values returned.");
+    }
+
+    /**
+     * An unknown cast member means there can be no shared films
+     */
+    @Test void testGetFilmsWithAllCastNeg() {
+        System.out.println("\nStarting testGetFilmsWithAllCastNeg...");
+
+        assertArrayEquals(new int[0], manyCreditsStores.getCredits().getFilmsWithAllCast(new int[]{1, 1000}), "Should return empty array for an unknown cast ID.");
+        assertArrayEquals(new int[0], emptyCreditsStores.getCredits().getFilmsWithAllCast(new int[]{1}), "Should return empty array if there are no credits.");
+    }
+
+    /**
+     * Cast 1 (201, 203, 204) and crew 2 (203, 204) share films 203 and 204
+     */
+    @Test void testGetFilmsWithCastAndCrewPos() {
+        System.out.println("\nStarting testGetFilmsWithCastAndCrewPos...");
+
+        assertArrayEquals(new int[]{203, 204}, manyCreditsStores.getCredits().getFilmsWithCastAndCrew(1, 2), "Incorrect values returned.");
+        assertArrayEquals(new int[0], manyCreditsStores.getCredits().getFilmsWithCastAndCrew(1, 1000), "Should return empty array for an unknown crew ID.");
+    }
+
     /**
      * Cast ID 1 should have appeared in the most films, followed by Cast ID 2
      */
@@ -584,6 +865,31 @@ public class CreditsTest {
         assertEquals(3, manyCreditsStores.getCredits().getNumCastCredits(1), "The value is incorrect");
     }
 
+    @Test void testCastCreditsCountRoles() {
+        System.out.println("\nStarting testCastCreditsCountRoles...");
+        Stores roleStores = new Stores();
+        CastCredit twinA = new CastCredit(1, "Twin A", "t1", 41, "Lindsay Lohan", 0, "");
+        CastCredit twinB = new CastCredit(2, "Twin B", "t2", 41, "Lindsay Lohan", 1, "");
+        CastCredit parent = new CastCredit(3, "Parent", "t3", 42, "Dennis Quaid", 2, "");
+        roleStores.getCredits().add(new CastCredit[] {twinA, twinB, parent}, new CrewCredit[0], 601);
+        roleStores.getCredits().add(new CastCredit[] {parent}, new CrewCredit[0], 602);
+
+        assertEquals(2, roleStores.getCredits().getNumCastCredits(41), "Each role should be a credit.");
+        assertEquals(2, roleStores.getCredits().getNumCastCredits(42), "Each film should be a credit.");
+        Person[] most = roleStores.getCredits().getMostCastCredits(5);
+        assertEquals(2, most.length, "There are only two cast members.");
+        assertEquals(41, most[0].getID(), "Equal credits should go to the lower ID.");
+
+        roleStores.getCredits().add(new CastCredit[] {parent}, new CrewCredit[0], 603);
+        assertEquals(42, roleStores.getCredits().getMostCastCredits(1)[0].getID(), "Dennis Quaid should now lead.");
+
+        roleStores.getCredits().remove(601);
+        assertEquals(-1, roleStores.getCredits().getNumCastCredits(41), "Both roles should be removed with the film.");
+        most = roleStores.getCredits().getMostCastCredits(5);
+        assertEquals(1, most.length, "Removed cast should leave the leaderboard.");
+        assertEquals(2, roleStores.getCredits().getNumCastCredits(42), "Dennis Quaid is still in 602 and 603.");
+    }
+
     /**
      * The case member 9 should not exist, so -1 credits
      */
@@ -0,0 +1,112 @@
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import stores.CastCredit;
+import stores.CrewCredit;
+import stores.Stores;
+
+/**
+ * Latency report for the crew job queries of Credits over a credits.csv shaped sample: 45k films
+ * with 2 to 19 crew members each, drawn from 120k people so that a few appear in hundreds of
+ * films, with jobs drawn from a handful of common ones and a long tail. Each query is compared
+ * with answering it from getFilmCrew, by scanning every film or, for one person, their films.
+ *
+ * Run with: gradle benchmark -PbenchClass=CrewJobBenchmark
+ */
+public class CrewJobBenchmark {
+
+    private static final int FILMS = 45_000;
+    private static final int PEOPLE = 120_000;
+    private static final int QUERIES = 2_000;
+    private static final int SCANS = 20;
+    private static final String[][] commonJobs = {{"Directing", "Director"}, {"Writing", "Screenplay"}, {"Production", "Producer"},
+        {"Sound", "Original Music Composer"}, {"Camera", "Director of Photography"}, {"Editing", "Editor"}, {"Production", "Casting"}};
+
+    public static void main(String[] args) {
+        Random random = new Random(18);
+        Stores stores = new Stores();
+        long start = System.nanoTime();
+        for (int film = 1; film <= FILMS; film++) {
+            CrewCredit[] crew = new CrewCredit[2 + random.nextInt(18)];
+            for (int j = 0; j < crew.length; j++) {
+                int person = person(random);
+                String[] job = random.nextInt(3) > 0 ? commonJobs[random.nextInt(commonJobs.length)] : new String[] {"Crew", "Job " + random.nextInt(400)};
+                crew[j] = new CrewCredit("w" + film + "_" + j, job[0], person, job[1], "Person " + person, "");
+            }
+            stores.getCredits().add(new CastCredit[0], crew, film);
+        }
+        long load = System.nanoTime() - start;
+
+        long sink = 0;
+        long[] all = new long[QUERIES];
+        long[] top = new long[QUERIES];
+        long[] films = new long[QUERIES];
+        for (int round = 0; round < 2; round++) { // The first round warms up the JIT.
+            for (int i = 0; i < QUERIES; i++) {
+                String job = commonJobs[i % commonJobs.length][1];
+                start = System.nanoTime();
+                sink += stores.getCredits().getCrewByJob(job).length;
+                all[i] = System.nanoTime() - start;
+                start = System.nanoTime();
+                sink += stores.getCredits().getTopCrewByJob(job, 10).length;
+                top[i] = System.nanoTime() - start;
+                int person = person(random);
+                start = System.nanoTime();
+                sink += stores.getCredits().getFilmsByCrewJob(person, job).length;
+                films[i] = System.nanoTime() - start;
+            }
+        }
+
+        long[] scanAll = new long[SCANS];
+        long[] scanTop = new long[SCANS];
+        long[] scanFilms = new long[QUERIES];
+        for (int i = 0; i < SCANS; i++) {
+            String job = commonJobs[i % commonJobs.length][1];
+            start = System.nanoTime();
+            Set<Integer> people = new HashSet<>();
+            for (int film = 1; film <= FILMS; film++) {
+                for (CrewCredit credit : stores.getCredits().getFilmCrew(film)) if (job.equals(credit.getJob())) people.add(credit.getID());
+            }
+            sink += people.size();
+            scanAll[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            Map<Integer, Set<Integer>> filmsOf = new HashMap<>();
+            for (int film = 1; film <= FILMS; film++) {
+                for (CrewCredit credit : stores.getCredits().getFilmCrew(film)) {
+                    if (job.equals(credit.getJob())) filmsOf.computeIfAbsent(credit.getID(), id -> new HashSet<>()).add(film);
+                }
+            }
+            sink += filmsOf.entrySet().stream().sorted((a, b) -> b.getValue().size() != a.getValue().size() ? b.getValue().size() - a.getValue().size() : a.getKey() - b.getKey())
+                           .limit(10).count();
+            scanTop[i] = System.nanoTime() - start;
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            String job = commonJobs[i % commonJobs.length][1];
+            int person = person(random);
+            start = System.nanoTime();
+            for (int film : stores.getCredits().getCrewFilms(person)) {
+                for (CrewCredit credit : stores.getCredits().getFilmCrew(film)) if (credit.getID() == person && job.equals(credit.getJob())) sink += film;
+            }
+            scanFilms[i] = System.nanoTime() - start;
+        }
+
+        System.out.println("\n== " + FILMS + " films, " + stores.getCredits().getUniqueCrew().length + " crew members ==");
+        System.out.printf("load: %.0f ms%n", load / 1e6);
+        CreditsBenchmark.report("getCrewByJob", all);
+        CreditsBenchmark.report("scan every film", scanAll);
+        CreditsBenchmark.report("getTopCrewByJob(10)", top);
+        CreditsBenchmark.report("scan and count", scanTop);
+        CreditsBenchmark.report("getFilmsByCrewJob", films);
+        CreditsBenchmark.report("scan their films", scanFilms);
+        System.out.println("results: " + sink);
+    }
+
+    // Skewed towards low ids, so a few people have hundreds of credits.
+    private static int person(Random random) {
+        double skew = random.nextDouble();
+        return 1 + (int) (skew * skew * skew * PEOPLE);
+    }
+}
@@ -0,0 +1,118 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import stores.Genre;
+import stores.Stores;
+
+/**
+ * Latency report for Movies.findFilms over a movies_metadata.csv shaped sample: 45k films with
+ * short titles and overviews of 30 to 60 words drawn from a skewed vocabulary. Queries mix whole
+ * words, substrings of titles and three letter fragments, and the p50, p99 and max are reported
+ * for each kind. The most common words occur in most overviews, so those queries are bound by
+ * the size of their result rather than by the search. Each query is timed over several runs, and
+ * the first run and the best are reported apart, since on a shared or single CPU a few runs are
+ * stalled for a scheduler tick whatever they do, which the best run leaves out.
+ *
+ * Run with: gradle benchmark -PbenchClass=FindFilmsBenchmark [-PbenchArgs=<films>]
+ */
+public class FindFilmsBenchmark {
+
+    private static final int QUERIES = 2_000;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        int films = args.length > 0 ? Integer.parseInt(args[0]) : 45_000;
+        Random random = new Random(10);
+        String[] vocabulary = new String[5_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            char[] word = new char[3 + random.nextInt(8)];
+            for (int j = 0; j < word.length; j++) word[j] = (char) ('a' + random.nextInt(26));
+            vocabulary[i] = new String(word);
+        }
+
+        String[] titles = new String[films];
+        Stores stores = new Stores();
+        long before = RatingsMemoryBenchmark.usedHeap();
+        long start = System.nanoTime();
+        for (int id = 1; id <= films; id++) {
+            String title = sentence(random, vocabulary, 1 + random.nextInt(4), true);
+            titles[id - 1] = title;
+            String overview = sentence(random, vocabulary, 30 + random.nextInt(31), false);
+            stores.getMovies().add(id, title, title, overview, "", "Released", new Genre[0], LocalDate.of(1990, 1, 1).plusDays(id % 9000),
+                                   0, 0, new String[]{"en"}, "en", 90, "", false, false, "");
+        }
+        long load = System.nanoTime() - start;
+        long after = RatingsMemoryBenchmark.usedHeap();
+
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            switch (i % 3) {
+                case 0: queries[i] = word(random, vocabulary); break;
+                case 1: {
+                    String title = titles[random.nextInt(films)];
+                    int from = random.nextInt(Math.max(1, title.length() - 4));
+                    queries[i] = title.substring(from, Math.min(title.length(), from + 4 + random.nextInt(8)));
+                    break;
+                }
+                default: queries[i] = word(random, vocabulary).substring(0, 3);
+            }
+        }
+
+        long sink = 0;
+        // Warm up on every query, so none is timed while its path is still being compiled.
+        for (int i = 0; i < QUERIES; i++) sink += stores.getMovies().findFilms(queries[i]).length;
+        long[] firstAll = new long[QUERIES], bestAll = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            bestAll[i] = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                start = System.nanoTime();
+                sink += stores.getMovies().findFilms(queries[i]).length;
+                long nanos = System.nanoTime() - start;
+                if (run == 0) firstAll[i] = nanos;
+                bestAll[i] = Math.min(bestAll[i], nanos);
+            }
+        }
+
+        System.out.println("\n== " + films + " films, " + QUERIES + " queries ==");
+        System.out.printf("load: %.0f ms, retained heap: %.1f MB%n", load / 1e6, (after - before) / 1e6);
+        System.out.println("-- first run --");
+        reportKinds(firstAll);
+        System.out.println("-- best of " + RUNS + " runs --");
+        reportKinds(bestAll);
+        System.out.println("matches: " + sink);
+    }
+
+    static void reportKinds(long[] all) {
+        long[][] nanos = new long[3][QUERIES / 3 + 1];
+        int[] counts = new int[3];
+        for (int i = 0; i < QUERIES; i++) nanos[i % 3][counts[i % 3]++] = all[i];
+        report("all queries", all.clone(), QUERIES);
+        report("whole words", nanos[0], counts[0]);
+        report("title fragments", nanos[1], counts[1]);
+        report("three letters", nanos[2], counts[2]);
+    }
+
+    static void report(String label, long[] nanos, int count) {
+        Arrays.sort(nanos, 0, count);
+        System.out.printf("%-16s p50: %8.1f us, p99: %8.1f us, max: %8.1f us%n", label,
+                          nanos[count / 2] / 1e3, nanos[count * 99 / 100] / 1e3, nanos[count - 1] / 1e3);
+    }
+
+    // Common words dominate, as in real text.
+    static String word(Random random, String[] vocabulary) {
+        double skew = random.nextDouble();
+        return vocabulary[(int) (skew * skew * skew * vocabulary.length)];
+    }
+
+    static String sentence(Random random, String[] vocabulary, int words, boolean capitalised) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) builder.append(' ');
+            String word = word(random, vocabulary);
+            if (capitalised || i == 0) builder.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            else builder.append(word);
+        }
+        return builder.toString();
+    }
+}
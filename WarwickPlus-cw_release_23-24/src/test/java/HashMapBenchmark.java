@@ -0,0 +1,130 @@
+import java.util.Random;
+
+import structures.HashMap;
+
+/**
+ * Compares structures.HashMap (open addressing, primitive keys) against LegacyHashMap, the
+ * boxed, chained map it replaced, at the sizes of the full dataset: ~45k movies and 1M ratings.
+ * Both sizes are run untimed first, so the open map is not timed before the JIT has compiled it.
+ * The legacy map masks its prime capacities with capacity - 1, which leaves most buckets unreachable
+ * and its chains long, so at 1M keys it takes minutes a round and is timed once.
+ *
+ * Run with: gradle benchmark -PbenchClass=HashMapBenchmark
+ */
+public class HashMapBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int[] movies = randomKeys(45_000, 470_000, 1);
+        int[] ratings = randomKeys(1_000_000, Integer.MAX_VALUE, 2);
+        time(movies, 3, 3);
+        time(ratings, 3, 0);
+        run("45k movies", movies);
+        run("1M ratings", ratings);
+    }
+
+    static int[] randomKeys(int count, int bound, long seed) {
+        Random random = new Random(seed);
+        java.util.HashSet<Integer> seen = new java.util.HashSet<>();
+        int[] keys = new int[count];
+        int i = 0;
+        while (i < count) {
+            int key = random.nextInt(bound);
+            if (seen.add(key)) keys[i++] = key;
+        }
+        return keys;
+    }
+
+    static void run(String label, int[] keys) {
+        System.out.println("\n== " + label + " (" + keys.length + " keys) ==");
+        Object value = new Object();
+        long[] best = time(keys, ROUNDS, keys.length > 100_000 ? 1 : ROUNDS);
+
+        HashMap<Object> probed = new HashMap<>();
+        for (int key : keys) probed.put(key, value);
+        System.out.printf("probe stats: capacity=%d collisions=%d maxProbe=%d avgProbe=%.3f%n",
+                probed.capacity(), probed.collisions(), probed.maxProbeLength(), probed.averageProbeLength());
+        System.out.printf("%-6s %14s %14s %8s%n", "op", "open (ns/op)", "legacy (ns/op)", "speedup");
+        report("put", best[0], best[3], keys.length);
+        report("get", best[1], best[4], keys.length);
+        report("take", best[2], best[5], keys.length);
+
+        long openBytes = retainedBytes(() -> {
+            HashMap<Object> map = new HashMap<>();
+            for (int key : keys) map.put(key, value);
+            return map;
+        });
+        long legacyBytes = retainedBytes(() -> {
+            LegacyHashMap<Object> map = new LegacyHashMap<>();
+            for (int key : keys) map.put(key, value);
+            return map;
+        });
+        System.out.printf("heap: open %.1f MB (%.1f B/entry), legacy %.1f MB (%.1f B/entry), saved %.1f MB%n",
+                openBytes / 1e6, openBytes / (double) keys.length,
+                legacyBytes / 1e6, legacyBytes / (double) keys.length,
+                (legacyBytes - openBytes) / 1e6);
+    }
+
+    // Best of the rounds for put, get and take of every key, open then legacy, the legacy map timed
+    // in the first legacyRounds of them.
+    static long[] time(int[] keys, int rounds, int legacyRounds) {
+        Object value = new Object();
+        long bestPut = Long.MAX_VALUE, bestGet = Long.MAX_VALUE, bestTake = Long.MAX_VALUE;
+        long legacyPut = Long.MAX_VALUE, legacyGet = Long.MAX_VALUE, legacyTake = Long.MAX_VALUE;
+        long sink = 0;
+
+        for (int round = 0; round < rounds; round++) {
+            HashMap<Object> map = new HashMap<>();
+            long start = System.nanoTime();
+            for (int key : keys) map.put(key, value);
+            bestPut = Math.min(bestPut, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int key : keys) if (map.get(key) != null) sink++;
+            bestGet = Math.min(bestGet, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int key : keys) if (map.take(key) != null) sink++;
+            bestTake = Math.min(bestTake, System.nanoTime() - start);
+
+            if (round >= legacyRounds) continue;
+            LegacyHashMap<Object> legacy = new LegacyHashMap<>();
+            start = System.nanoTime();
+            for (int key : keys) legacy.put(key, value);
+            legacyPut = Math.min(legacyPut, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int key : keys) if (legacy.get(key) != null) sink++;
+            legacyGet = Math.min(legacyGet, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int key : keys) if (legacy.take(key) != null) sink++;
+            legacyTake = Math.min(legacyTake, System.nanoTime() - start);
+        }
+        if (sink == 42) System.out.println(); // Keeps the JIT from discarding the loops.
+        return new long[] {bestPut, bestGet, bestTake, legacyPut, legacyGet, legacyTake};
+    }
+
+    static void report(String op, long open, long legacy, int n) {
+        System.out.printf("%-6s %14.1f %14.1f %7.2fx%n", op, open / (double) n, legacy / (double) n, legacy / (double) open);
+    }
+
+    // Heap retained by whatever the builder returns, measured as the used heap delta around it.
+    static long retainedBytes(java.util.function.Supplier<Object> builder) {
+        long before = usedHeap();
+        Object retained = builder.get();
+        long after = usedHeap();
+        if (retained.hashCode() == 0) System.out.println();
+        return after - before;
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try { Thread.sleep(50); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,73 @@
+import java.util.Random;
+
+import stores.Keyword;
+import stores.Stores;
+
+/**
+ * Loads a keywords.csv shaped sample (45k films, ~7 keywords each, drawn from a skewed
+ * vocabulary of 20k keywords) through IKeywords and times the load and the queries.
+ *
+ * Run with: gradle benchmark -PbenchClass=KeywordsBenchmark
+ */
+public class KeywordsBenchmark {
+
+    private static final int FILMS = 45_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 10_000;
+
+    public static void main(String[] args) {
+        Random random = new Random(9);
+        Keyword[] vocabulary = new Keyword[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) vocabulary[i] = new Keyword(1000 + i, "keyword " + i);
+        Keyword[][] filmKeywords = new Keyword[FILMS][];
+        for (int film = 0; film < FILMS; film++) {
+            int count = random.nextInt(15);
+            Keyword[] keywords = new Keyword[count];
+            for (int j = 0; j < count; j++) {
+                double skew = random.nextDouble();
+                keywords[j] = vocabulary[(int) (skew * skew * VOCABULARY)]; // Common keywords dominate, as in the file.
+            }
+            filmKeywords[film] = keywords;
+        }
+
+        long start = System.nanoTime();
+        Stores stores = new Stores();
+        for (int film = 0; film < FILMS; film++) stores.getKeywords().add(film + 1, filmKeywords[film]);
+        long load = System.nanoTime() - start;
+
+        long sink = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) sink += stores.getKeywords().getFilmsWithKeyword(vocabulary[random.nextInt(VOCABULARY)].getID()).length;
+        long withKeyword = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            Keyword[] keywords = stores.getKeywords().getKeywordsForFilm(1 + random.nextInt(FILMS));
+            if (keywords != null) sink += keywords.length;
+        }
+        long forFilm = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < 100; i++) sink += stores.getKeywords().findKeywords("word " + random.nextInt(200)).length;
+        long find = System.nanoTime() - start;
+
+        long most = 0, unique = 0;
+        for (int round = 0; round < 2; round++) { // The first round warms up the JIT, the second is reported.
+            start = System.nanoTime();
+            for (int i = 0; i < 100; i++) sink += stores.getKeywords().getMostKeywordFilms(20).length;
+            most = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < 100; i++) sink += stores.getKeywords().getUnique().length;
+            unique = System.nanoTime() - start;
+        }
+
+        System.out.println("\n== " + FILMS + " films, " + VOCABULARY + " keyword vocabulary ==");
+        System.out.printf("load: %.1f ms%n", load / 1e6);
+        System.out.printf("getFilmsWithKeyword: %.2f us%n", withKeyword / 1e3 / QUERIES);
+        System.out.printf("getKeywordsForFilm: %.2f us%n", forFilm / 1e3 / QUERIES);
+        System.out.printf("findKeywords: %.2f us%n", find / 1e3 / 100);
+        System.out.printf("getMostKeywordFilms(20): %.2f us%n", most / 1e3 / 100);
+        System.out.printf("getUnique: %.2f us%n", unique / 1e3 / 100);
+        if (sink == 42) System.out.println(); // Keeps the JIT from discarding the loops.
+    }
+}
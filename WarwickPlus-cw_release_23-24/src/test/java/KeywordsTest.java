@@ -0,0 +1,138 @@
+import stores.*;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class KeywordsTest {
+
+    private Stores keywordStores = new Stores();
+    private Stores removedKeywordStores = new Stores();
+
+    private Keyword jealousy = new Keyword(931, "jealousy");
+    private Keyword toy = new Keyword(4290, "toy");
+    private Keyword boy = new Keyword(5202, "boy");
+    private Keyword friendship = new Keyword(6054, "friendship");
+
+    @BeforeAll
+    void setUp(){
+        keywordStores.getKeywords().add(862, new Keyword[]{jealousy, toy, boy, friendship});
+        keywordStores.getKeywords().add(8844, new Keyword[]{boy, friendship});
+        keywordStores.getKeywords().add(15602, friendship);
+
+        removedKeywordStores.getKeywords().add(862, new Keyword[]{jealousy, toy, boy});
+        removedKeywordStores.getKeywords().add(8844, new Keyword[]{boy});
+        removedKeywordStores.getKeywords().remove(862);
+        removedKeywordStores.getKeywords().removeKeywordFromFilm(8844, boy.getID());
+    }
+
+    int[] sorted(int[] values) {
+        int[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /**
+     * Films carrying a keyword come from the inverted index, in film ID order
+     */
+    @Test void testGetFilmsWithKeyword() {
+        System.out.println("\nStarting testGetFilmsWithKeyword...");
+
+        assertArrayEquals(new int[]{862, 8844, 15602}, keywordStores.getKeywords().getFilmsWithKeyword(friendship.getID()), "Every film with the keyword should be returned.");
+        assertArrayEquals(new int[]{862}, keywordStores.getKeywords().getFilmsWithKeyword(toy.getID()), "Only the film with the keyword should be returned.");
+        assertEquals(0, keywordStores.getKeywords().getFilmsWithKeyword(1).length, "An unknown keyword has no films.");
+    }
+
+    /**
+     * Keywords for a film, and null for a film that is not stored
+     */
+    @Test void testGetKeywordsForFilm() {
+        System.out.println("\nStarting testGetKeywordsForFilm...");
+
+        assertEquals(4, keywordStores.getKeywords().getKeywordsForFilm(862).length, "All four keywords should be stored for the film.");
+        assertEquals(1, keywordStores.getKeywords().getKeywordsForFilm(15602).length, "A single added keyword should be stored.");
+        assertNull(keywordStores.getKeywords().getKeywordsForFilm(1), "A film that is not stored should give null.");
+    }
+
+    /**
+     * Each keyword is listed once however many films carry it
+     */
+    @Test void testUniqueAndFind() {
+        System.out.println("\nStarting testUniqueAndFind...");
+
+        assertArrayEquals(new int[]{931, 4290, 5202, 6054}, sorted(keywordStores.getKeywords().getKeywordIDs()), "Keyword IDs should not repeat.");
+        assertEquals(4, keywordStores.getKeywords().getUnique().length, "Unique keywords should not repeat.");
+        assertEquals(3, keywordStores.getKeywords().size(), "Three films should be stored.");
+
+        Keyword[] found = keywordStores.getKeywords().findKeywords("oy");
+        assertEquals(2, found.length, "toy and boy should each be found once.");
+    }
+
+    /**
+     * Part of a keyword's name matches from the middle of a word, with its case as given
+     */
+    @Test void testFindPartialKeyword() {
+        System.out.println("\nStarting testFindPartialKeyword...");
+
+        Keyword[] found = keywordStores.getKeywords().findKeywords("ealou");
+        assertEquals(1, found.length, "Only jealousy holds the fragment.");
+        assertEquals(jealousy.getID(), found[0].getID(), "The fragment is in the middle of jealousy.");
+        assertEquals(0, keywordStores.getKeywords().findKeywords("EALOU").length, "Keyword search is case sensitive.");
+        assertEquals(0, removedKeywordStores.getKeywords().findKeywords("oy").length, "Keywords no film carries are not found.");
+    }
+
+    /**
+     * A keyword already on a film is not added again
+     */
+    @Test void testAddDuplicateKeyword() {
+        System.out.println("\nStarting testAddDuplicateKeyword...");
+
+        Stores stores = new Stores();
+        assertTrue(stores.getKeywords().add(1, toy), "A new keyword should be added.");
+        assertFalse(stores.getKeywords().add(1, toy), "The film already has this keyword.");
+        assertTrue(stores.getKeywords().add(1, new Keyword[]{toy, boy, boy}), "New keywords in the array should be added.");
+        assertEquals(2, stores.getKeywords().getKeywordsForFilm(1).length, "Repeated keywords should only be stored once.");
+    }
+
+    /**
+     * Removing films and keywords updates every index, and keywords no film carries disappear
+     */
+    @Test void testRemove() {
+        System.out.println("\nStarting testRemove...");
+
+        assertEquals(0, removedKeywordStores.getKeywords().getKeywordIDs().length, "No film carries a keyword any more.");
+        assertEquals(0, removedKeywordStores.getKeywords().getFilmsWithKeyword(boy.getID()).length, "The keyword has been removed from every film.");
+        assertArrayEquals(new int[]{8844}, removedKeywordStores.getKeywords().getFilmIDs(), "A film stays listed after its last keyword is removed.");
+        assertFalse(removedKeywordStores.getKeywords().remove(862), "The film has already been removed.");
+        assertTrue(removedKeywordStores.getKeywords().removeKeywordFromFilm(8844, toy.getID()), "The film is stored, even without the keyword.");
+        assertFalse(removedKeywordStores.getKeywords().removeKeywordFromFilm(862, toy.getID()), "The film is not stored.");
+    }
+
+    @Test void testAddAll() {
+        System.out.println("\nStarting testAddAll...");
+        Stores bulkStores = new Stores();
+        Keyword[][] keywords = {{jealousy, toy, boy, friendship}, {boy, friendship}, {friendship}};
+
+        assertEquals(3, bulkStores.getKeywords().addAll(new int[]{862, 8844, 15602}, keywords), "Every film should be added.");
+        assertArrayEquals(sorted(keywordStores.getKeywords().getFilmsWithKeyword(friendship.getID())), sorted(bulkStores.getKeywords().getFilmsWithKeyword(friendship.getID())), "Incorrect values returned.");
+        assertArrayEquals(keywordStores.getKeywords().getMostKeywordFilms(3), bulkStores.getKeywords().getMostKeywordFilms(3), "Incorrect values returned.");
+        assertEquals(0, bulkStores.getKeywords().addAll(new int[]{1}, new Keyword[0][]), "Arrays of different lengths add nothing.");
+    }
+
+    /**
+     * Films with the most keywords come first
+     */
+    @Test void testGetMostKeywordFilms() {
+        System.out.println("\nStarting testGetMostKeywordFilms...");
+
+        assertArrayEquals(new int[]{862, 8844}, keywordStores.getKeywords().getMostKeywordFilms(2), "Films should be ordered by keyword count.");
+        assertEquals(3, keywordStores.getKeywords().getMostKeywordFilms(10).length, "Results are limited to the stored films.");
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * The structures.HashMap the stores used before it moved to open addressing: separate chaining
+ * with a boxed Integer key per entry and prime capacities. Only the map operations are kept, as
+ * HashMapBenchmark's point of comparison.
+ */
+public class LegacyHashMap<V> {
+
+    private static class Entry<V> {
+        final Integer key;
+        V value;
+        Entry<V> next; // Pointer to next value in bucket.
+
+        Entry(Integer key, V value, Entry<V> next) {
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private Entry<V>[] map;
+    private int size = 0;
+    private int capacity = 5;
+    private final double loadFactor = 0.75; // Default loadfactor used in javas implementation of hashmap.
+    private int[] primes = {2, 5, 11, 23, 47, 97, 197, 397, 797, 1597, 3203, 6421, 12853, 25717, 51437, 102877, 205759, 411527, 823117, 1646237, 3292489, 6584983, 13169977, 26339969, 52679969, 105359939, 210719881, 421439783, 842879579, 1685759167};
+    // Precalculated set of primes emulating the method 'prime = nextPrime(prime * 2)'.
+    private int primecount = 2; // Starts the primes at 11.
+
+    @SuppressWarnings("unchecked")
+    public LegacyHashMap() {
+        map = new Entry[capacity]; // Initialises the hashmap.
+    }
+
+    public int hash(Integer key) {
+        int hash = key;
+        hash ^= (hash >>> 20) ^ (hash >>> 12); // Method works by swapping the bits of the key.
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return hash & (capacity - 1); // Acts as a modulus, but is optimised due to frequent usage of hash.
+    }
+
+    private void resize() {
+        this.capacity = primes[primecount];
+        primecount++;
+
+        @SuppressWarnings("unchecked")
+        Entry<V>[] tempMap = new Entry[capacity]; // Makes the replacement hashmap.
+
+        for (Entry<V> entry : map) { // Replaces every bucket within the hashmap.
+            while (entry != null) {
+                int newIndex = hash(entry.key);
+                Entry<V> nextEntry = entry.next;
+                entry.next = tempMap[newIndex];
+                tempMap[newIndex] = entry;
+                entry = nextEntry;
+            }
+        }
+
+        map = tempMap;
+    }
+
+    public boolean put(int key, V value) {
+        while ((size + 1) >= capacity * loadFactor) resize(); // Resizes if the loadfactor is exceeded.
+
+        int index = hash(key);
+        for (Entry<V> entry = map[index]; entry != null; entry = entry.next) if (entry.key.equals(key)) return false; // Checks for existing keys.
+
+        map[index] = new Entry<>(key, value, map[index]); // Adds new entry.
+        this.size++;
+        return true;
+    }
+
+    public V get(int key) {
+        int hashedkey = hash(key);
+        for (Entry<V> entry = map[hashedkey]; entry != null; entry = entry.next) if (entry.key.equals(key)) return entry.value; // Checks for key.
+        return null; // Key not found.
+    }
+
+    public V take(int key) {
+        int index = hash(key);
+        Entry<V> prev = null; // Keeps track of the previous entry in the chain.
+        for (Entry<V> entry = map[index]; entry != null; entry = entry.next) { // Go through bucket.
+            if (entry.key.equals(key)) {
+                V oldValue = entry.value;
+                if (prev == null) map[index] = entry.next; // First in the bucket, the next entry becomes the first.
+                else prev.next = entry.next; // Otherwise link the previous entry past this one.
+                this.size--;
+                return oldValue;
+            }
+            prev = entry;
+        }
+        return null;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public int capacity(){
+        return capacity;
+    }
+}
@@ -533,6 +533,20 @@ class MoviesTest {
         assertTrue(checkContentsOfArray(expected, result), "The list of IDs does not match what is expected");
     }
 
+    /**
+     * Films released 2000 to 2001 in release order, limited to one film from either end
+     */
+    @Test void testGetIDsReleasedInRangeOrdered() {
+        System.out.println("\nStarting testGetIDsReleasedInRangeOrdered...");
+
+        LocalDate start = LocalDate.of(2000, 1, 1);
+        LocalDate end = LocalDate.of(2001, 1, 1);
+        assertArrayEquals(new int[] {1, 2}, stores.getMovies().getIDsReleasedInRange(start, end, 10, false));
+        assertArrayEquals(new int[] {1}, stores.getMovies().getIDsReleasedInRange(start, end, 1, false));
+        assertArrayEquals(new int[] {2}, stores.getMovies().getIDsReleasedInRange(start, end, 1, true));
+        assertArrayEquals(new int[0], stores.getMovies().getIDsReleasedInRange(start, end, 0, true));
+    }
+
     /**
      * Checks against default value.
      */
@@ -1635,6 +1649,110 @@ class MoviesTest {
 
     }
 
+    /**
+     * Title, original title and overview are all searched ignoring case, and removed films are not found.
+     */
+    @Test void testfindFilmsIndexed(){
+        System.out.println("\nStarting testfindFilmsIndexed...");
+        Stores searchStores = new Stores();
+        Genre[] genres = new Genre[0];
+        String[] languages = {"en"};
+        LocalDate release = LocalDate.of(2000, 1, 1);
+        searchStores.getMovies().add(3, "Toy Story", "Toy Story", "Led by Woody, Andy's toys live happily in his room.", "", "Released", genres, release, 0, 0, languages, "en", 81, "", false, false, "");
+        searchStores.getMovies().add(4, "Spirited Away", "Sen to Chihiro no Kamikakushi", "A girl wanders into a world ruled by gods.", "", "Released", genres, release, 0, 0, languages, "ja", 125, "", false, false, "");
+        searchStores.getMovies().add(5, "Heat", "Heat", "A group of professional bank robbers start to feel the heat.", "", "Released", genres, release, 0, 0, languages, "en", 170, "", false, false, "");
+
+        assertArrayEquals(new int[] {3}, searchStores.getMovies().findFilms("TOY"), "Case should be ignored.");
+        assertArrayEquals(new int[] {4}, searchStores.getMovies().findFilms("chihiro"), "The original title should be searched.");
+        assertArrayEquals(new int[] {3, 4, 5}, searchStores.getMovies().findFilms("ro"), "Short terms should match inside words.");
+        assertArrayEquals(new int[] {4, 5}, searchStores.getMovies().findFilms("rs "), "Terms ending in a separator should match.");
+        assertArrayEquals(new int[] {3}, searchStores.getMovies().findFilms("y, andy's"), "Terms spanning words should match.");
+        assertArrayEquals(new int[0], searchStores.getMovies().findFilms("woody andy"), "Separators in the term must match the text.");
+        assertArrayEquals(new int[0], searchStores.getMovies().findFilms("story led"), "Terms must not span two fields.");
+
+        searchStores.getMovies().remove(5);
+        assertArrayEquals(new int[] {3, 4}, searchStores.getMovies().findFilms("ro"), "Removed films should not be found.");
+        assertArrayEquals(new int[0], searchStores.getMovies().findFilms("heat"), "Removed films should not be found.");
+    }
+
+    @Test void testfindFilmsRanked(){
+        System.out.println("\nStarting testfindFilmsRanked...");
+        Stores searchStores = new Stores();
+        Genre[] genres = new Genre[0];
+        String[] languages = {"en"};
+        LocalDate release = LocalDate.of(2000, 1, 1);
+        searchStores.getMovies().add(3, "Toy Story", "Toy Story", "Led by Woody, Andy's toys live happily in his room.", "The adventure takes off!", "Released", genres, release, 0, 0, languages, "en", 81, "", false, false, "");
+        searchStores.getMovies().add(4, "Spirited Away", "Sen to Chihiro no Kamikakushi", "A girl wanders into a world ruled by gods, and a story of toys.", "", "Released", genres, release, 0, 0, languages, "ja", 125, "", false, false, "");
+        searchStores.getMovies().add(5, "Heat", "Heat", "A group of professional bank robbers start to feel the heat.", "A Los Angeles crime saga", "Released", genres, release, 0, 0, languages, "en", 170, "", false, false, "");
+        searchStores.getMovies().add(6, "Story of a Heist", "Story of a Heist", "A crime saga about a heist.", "", "Released", genres, release, 0, 0, languages, "en", 90, "", false, false, "");
+
+        assertArrayEquals(new int[] {6, 3, 4}, searchStores.getMovies().findFilmsRanked("STORY", 10), "Title matches should rank above overview matches.");
+        assertArrayEquals(new int[] {6}, searchStores.getMovies().findFilmsRanked("story", 1), "The limit should keep the best matches.");
+        assertArrayEquals(new int[] {6, 3, 4}, searchStores.getMovies().findFilmsRanked("story", Integer.MAX_VALUE), "A limit past the matches should return all of them.");
+        assertArrayEquals(new int[] {3}, searchStores.getMovies().findFilmsRanked("adventure", 10), "Taglines should be searched.");
+        assertArrayEquals(new int[] {6, 5}, searchStores.getMovies().findFilmsRanked("crime saga heist", 10), "Films matching more terms should rank first.");
+        assertArrayEquals(new int[] {5}, searchStores.getMovies().findFilmsRanked("\"los angeles\" crime", 10), "Quoted phrases should be required.");
+        assertArrayEquals(new int[0], searchStores.getMovies().findFilmsRanked("\"angeles los\"", 10), "Phrases should be matched in order.");
+        assertArrayEquals(new int[0], searchStores.getMovies().findFilmsRanked("\"story led\"", 10), "Phrases must not span two fields.");
+        assertArrayEquals(new int[0], searchStores.getMovies().findFilmsRanked("unknown", 10), "Unknown terms should match nothing.");
+
+        searchStores.getMovies().add(7, "Heat Wave", "Heat Wave", "", "", "Released", genres, release, 0, 0, languages, "en", 90, "", false, false, "");
+        searchStores.getMovies().add(8, "Heat Wave", "Heat Wave", "", "", "Released", genres, release, 0, 0, languages, "en", 90, "", false, false, "");
+        assertArrayEquals(new int[] {7, 8}, searchStores.getMovies().findFilmsRanked("wave", 10), "Equal scores should go to the lower ID.");
+        searchStores.getMovies().setPopularity(8, 50.0);
+        searchStores.getMovies().setVote(8, 8.0, 1000);
+        assertArrayEquals(new int[] {8, 7}, searchStores.getMovies().findFilmsRanked("wave", 10), "Popular films should win equal matches.");
+
+        searchStores.getMovies().remove(3);
+        assertArrayEquals(new int[] {6, 4}, searchStores.getMovies().findFilmsRanked("story", 10), "Removed films should not be found.");
+    }
+
+    /**
+     * Ranked whole-word matches come first, then films only matching a fragment of a word.
+     */
+    @Test void testSearchFilms(){
+        System.out.println("\nStarting testSearchFilms...");
+        Stores searchStores = new Stores();
+        Genre[] genres = new Genre[0];
+        String[] languages = {"en"};
+        LocalDate release = LocalDate.of(2000, 1, 1);
+        searchStores.getMovies().add(1, "Rocky", "Rocky", "A boxer gets a shot at the title.", "", "Released", genres, release, 0, 0, languages, "en", 120, "", false, false, "");
+        searchStores.getMovies().add(2, "Band", "Band", "A rock band on tour.", "", "Released", genres, release, 0, 0, languages, "en", 95, "", false, false, "");
+
+        assertArrayEquals(new int[] {2}, searchStores.getMovies().findFilmsRanked("rock", 10), "Only Band has the whole word.");
+        assertArrayEquals(new int[] {2, 1}, searchStores.getMovies().searchFilms("rock", 10), "Rocky should follow the whole word match.");
+        assertArrayEquals(new int[] {1}, searchStores.getMovies().searchFilms("ocky", 10), "Fragments alone should still be found.");
+        assertArrayEquals(new int[] {2, 1}, searchStores.getMovies().searchFilms("rock", 1), "The limit only applies to the ranked matches.");
+        assertArrayEquals(new int[0], searchStores.getMovies().searchFilms("unknown", 10), "Unknown terms should match nothing.");
+    }
+
+    @Test void testfindFilmsRankedLimit(){
+        System.out.println("\nStarting testfindFilmsRankedLimit...");
+        Stores searchStores = new Stores();
+        Random random = new Random(12);
+        String[] words = {"space", "war", "love", "city", "night", "dark", "star", "river", "king", "ghost", "summer", "secret"};
+        for (int id = 1; id <= 400; id++) {
+            String[] text = new String[3];
+            for (int field = 0; field < text.length; field++) {
+                StringBuilder builder = new StringBuilder();
+                int length = field == 2 ? 5 + random.nextInt(20) : 1 + random.nextInt(3);
+                for (int i = 0; i < length; i++) builder.append(words[random.nextInt(words.length)]).append(' ');
+                text[field] = builder.toString();
+            }
+            searchStores.getMovies().add(id, text[0], text[0], text[2], text[1], "Released", new Genre[0], LocalDate.of(2000, 1, 1), 0, 0, new String[] {"en"}, "en", 90, "", false, false, "");
+            searchStores.getMovies().setPopularity(id, random.nextInt(100));
+        }
+        for (int query = 0; query < 50; query++) {
+            String terms = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            int[] all = searchStores.getMovies().findFilmsRanked(terms, 1000);
+            for (int limit : new int[] {1, 5, 20}) {
+                int[] expected = new int[Math.min(limit, all.length)];
+                System.arraycopy(all, 0, expected, 0, expected.length);
+                assertArrayEquals(expected, searchStores.getMovies().findFilmsRanked(terms, limit), "Pruned top " + limit + " should match the full ranking for " + terms + ".");
+            }
+        }
+    }
+
     /**
      * Compare size to 2.
      */
@@ -0,0 +1,131 @@
+import java.util.Arrays;
+import java.util.Random;
+
+import stores.CastCredit;
+import stores.CrewCredit;
+import stores.Person;
+import stores.Stores;
+
+/**
+ * Latency report for Credits.findCast, findCastByPrefix and findCastFuzzy over a credits.csv shaped sample:
+ * 45k films with 12 cast members each, drawn from 200k people whose names combine common first
+ * names and surnames, some of them accented. Queries are surnames, name fragments and type-ahead
+ * prefixes, and for fuzzy search whole names with one or two typing mistakes.
+ *
+ * Run with: gradle benchmark -PbenchClass=NameSearchBenchmark [-PbenchArgs=<people>]
+ */
+public class NameSearchBenchmark {
+
+    private static final int FILMS = 45_000;
+    private static final int QUERIES = 2_000;
+    private static final String[] FIRST = {"John", "Mary", "James", "Anna", "Michael", "Sofía", "David", "Zoë", "Robert", "Penélope",
+                                           "William", "Linda", "Richard", "Chloé", "Thomas", "Jürgen", "Charles", "Agnès", "Daniel", "Ingrid"};
+
+    public static void main(String[] args) {
+        int people = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Random random = new Random(11);
+        String[] surnames = new String[20_000];
+        for (int i = 0; i < surnames.length; i++) {
+            char[] name = new char[4 + random.nextInt(6)];
+            for (int j = 0; j < name.length; j++) name[j] = (char) ('a' + random.nextInt(26));
+            name[0] = Character.toUpperCase(name[0]);
+            surnames[i] = new String(name);
+        }
+        String[] names = new String[people];
+        for (int i = 0; i < people; i++) names[i] = FIRST[random.nextInt(FIRST.length)] + " " + surnames[random.nextInt(surnames.length)];
+
+        Stores stores = new Stores();
+        long start = System.nanoTime();
+        for (int film = 1; film <= FILMS; film++) {
+            CastCredit[] cast = new CastCredit[12];
+            for (int j = 0; j < cast.length; j++) {
+                double skew = random.nextDouble();
+                int person = (int) (skew * skew * people); // A few actors appear in many films.
+                cast[j] = new CastCredit(j, "Role", "c" + film + "_" + j, person + 1, names[person], j, "");
+            }
+            stores.getCredits().add(cast, new CrewCredit[0], film);
+        }
+        long load = System.nanoTime() - start;
+
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String name = names[random.nextInt(people)];
+            switch (i % 3) {
+                case 0: queries[i] = name.substring(name.indexOf(' ') + 1); break;
+                case 1: queries[i] = name.substring(name.indexOf(' ') - 2, name.indexOf(' ') + 3); break;
+                default: queries[i] = name.substring(0, 1 + random.nextInt(name.length() - 1));
+            }
+        }
+
+        long sink = 0;
+        for (int i = 0; i < QUERIES / 4; i++) sink += stores.getCredits().findCast(queries[i]).length; // Warm up.
+        long[] find = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            start = System.nanoTime();
+            sink += stores.getCredits().findCast(queries[i]).length;
+            find[i] = System.nanoTime() - start;
+        }
+        long[] prefix = new long[QUERIES];
+        for (int round = 0; round < 2; round++) { // The first round warms up the JIT.
+            for (int i = 0; i < QUERIES; i++) {
+                start = System.nanoTime();
+                sink += stores.getCredits().findCastByPrefix(queries[i], 10).length;
+                prefix[i] = System.nanoTime() - start;
+            }
+        }
+
+        String[] misspelt = new String[QUERIES];
+        int[] intended = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            double skew = random.nextDouble();
+            int person = (int) (skew * skew * people); // Someone with a credit.
+            intended[i] = person + 1;
+            misspelt[i] = typo(random, typo(random, names[person]), i % 2 == 0);
+        }
+        long[][] fuzzy = new long[2][QUERIES];
+        int found = 0;
+        for (int round = 0; round < 2; round++) {
+            for (int edits = 1; edits <= 2; edits++) {
+                for (int i = 0; i < QUERIES; i++) {
+                    start = System.nanoTime();
+                    Person[] matches = stores.getCredits().findCastFuzzy(misspelt[i], edits, 10);
+                    fuzzy[edits - 1][i] = System.nanoTime() - start;
+                    if (edits == 2 && round == 1) for (Person match : matches) if (match.getID() == intended[i]) found++;
+                }
+            }
+        }
+
+        System.out.println("\n== " + stores.getCredits().getUniqueCast().length + " cast members, " + QUERIES + " queries ==");
+        System.out.printf("load: %.0f ms%n", load / 1e6);
+        report("findCast", find);
+        report("findCastByPrefix(10)", prefix);
+        report("findCastFuzzy(1, 10)", fuzzy[0]);
+        report("findCastFuzzy(2, 10)", fuzzy[1]);
+        System.out.println("intended person in the top 10 within 2 edits: " + found + " of " + QUERIES);
+        System.out.println("matches: " + sink);
+    }
+
+    // Swaps two neighbouring chars, or when apply is false leaves the name as it is.
+    private static String typo(Random random, String name, boolean apply) {
+        return apply ? typo(random, name) : name;
+    }
+
+    // Swaps, drops or changes one char, or adds one.
+    private static String typo(Random random, String name) {
+        int at = random.nextInt(name.length() - 1);
+        StringBuilder changed = new StringBuilder(name);
+        switch (random.nextInt(4)) {
+            case 0: changed.setCharAt(at, name.charAt(at + 1)); changed.setCharAt(at + 1, name.charAt(at)); break;
+            case 1: changed.deleteCharAt(at); break;
+            case 2: changed.setCharAt(at, (char) ('a' + random.nextInt(26))); break;
+            default: changed.insert(at, (char) ('a' + random.nextInt(26)));
+        }
+        return changed.toString();
+    }
+
+    static void report(String label, long[] nanos) {
+        Arrays.sort(nanos);
+        System.out.printf("%-22s p50: %8.1f us, p99: %8.1f us, max: %8.1f us%n", label,
+                          nanos[nanos.length / 2] / 1e3, nanos[nanos.length * 99 / 100] / 1e3, nanos[nanos.length - 1] / 1e3);
+    }
+}
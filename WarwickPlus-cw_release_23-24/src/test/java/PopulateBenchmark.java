@@ -0,0 +1,163 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import stores.CastCredit;
+import stores.Company;
+import stores.CrewCredit;
+import stores.Genre;
+import stores.Keyword;
+import stores.Stores;
+
+/**
+ * Load time report for populating every store from a sample shaped like the four files: 45k films
+ * with metadata, companies and countries, credits with about 20 cast and 8 crew each, about 7
+ * keywords each, and ratings with a skewed movie popularity. The stores are filled one record at
+ * a time, as LoadData.populate used to, and again through the bulk entry points it uses now.
+ *
+ * Run with: gradle benchmark -PbenchClass=PopulateBenchmark [-PbenchArgs=<ratings>]
+ */
+public class PopulateBenchmark {
+
+    private static final int FILMS = 45_000;
+    private static final int PEOPLE = 200_000;
+    private static final int KEYWORDS = 20_000;
+
+    public static void main(String[] args) {
+        int ratings = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Random random = new Random(23);
+        String[] vocabulary = new String[5_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            char[] word = new char[3 + random.nextInt(8)];
+            for (int j = 0; j < word.length; j++) word[j] = (char) ('a' + random.nextInt(26));
+            vocabulary[i] = new String(word);
+        }
+
+        String[] titles = new String[FILMS], overviews = new String[FILMS];
+        Company[][] companies = new Company[FILMS][];
+        CastCredit[][] cast = new CastCredit[FILMS][];
+        CrewCredit[][] crew = new CrewCredit[FILMS][];
+        Keyword[][] keywords = new Keyword[FILMS][];
+        for (int f = 0; f < FILMS; f++) {
+            titles[f] = sentence(random, vocabulary, 1 + random.nextInt(4));
+            overviews[f] = sentence(random, vocabulary, 30 + random.nextInt(31));
+            companies[f] = new Company[random.nextInt(4)];
+            for (int j = 0; j < companies[f].length; j++) companies[f][j] = new Company(1 + random.nextInt(5_000), "Company");
+            cast[f] = new CastCredit[1 + random.nextInt(40)];
+            for (int j = 0; j < cast[f].length; j++) {
+                int person = person(random);
+                cast[f][j] = new CastCredit(j, "Role", "c" + f + "_" + j, person, "Person " + person, j, "");
+            }
+            crew[f] = new CrewCredit[1 + random.nextInt(15)];
+            for (int j = 0; j < crew[f].length; j++) {
+                int person = person(random);
+                crew[f][j] = new CrewCredit("w" + f + "_" + j, "Directing", person, "Director", "Person " + person, "");
+            }
+            keywords[f] = new Keyword[random.nextInt(15)];
+            for (int j = 0; j < keywords[f].length; j++) {
+                double skew = random.nextDouble();
+                int keyword = (int) (skew * skew * KEYWORDS);
+                keywords[f][j] = new Keyword(1000 + keyword, "keyword " + keyword);
+            }
+        }
+        int[] userIds = new int[ratings], movieIds = new int[ratings];
+        float[] values = new float[ratings];
+        LocalDateTime[] times = new LocalDateTime[ratings];
+        LocalDateTime epoch = LocalDateTime.of(1995, 1, 1, 0, 0);
+        int user = 1;
+        for (int i = 0; i < ratings; i++) {
+            if (random.nextInt(100) == 0) user++; // Users arrive in runs, as in the file.
+            userIds[i] = user;
+            double skew = random.nextDouble();
+            movieIds[i] = 1 + (int) (skew * skew * skew * FILMS);
+            values[i] = (1 + random.nextInt(10)) / 2.0f;
+            times[i] = epoch.plusSeconds(random.nextInt(700_000_000));
+        }
+
+        int[] filmIds = new int[FILMS];
+        for (int f = 0; f < FILMS; f++) filmIds[f] = f + 1;
+        long[] nanos = new long[4];
+        long[] bulkNanos = new long[4];
+        for (int round = 0; round < 2; round++) { // The first round warms up the JIT.
+            RatingsMemoryBenchmark.usedHeap();
+            Stores stores = new Stores();
+            long start = System.nanoTime();
+            for (int f = 0; f < FILMS; f++) {
+                int id = f + 1;
+                stores.getMovies().add(id, titles[f], titles[f], overviews[f], "", "Released", new Genre[0], LocalDate.of(1990, 1, 1).plusDays(f % 9000),
+                                       0, 0, new String[] {"en"}, "en", 90, "", false, false, "");
+                stores.getMovies().setVote(id, 6.5, 100);
+                stores.getMovies().setIMDB(id, "tt" + id);
+                stores.getMovies().setPopularity(id, 1.5);
+                stores.getMovies().addToCollection(id, f % 10 == 0 ? 1 + f / 30 : -1, "Collection", "", "");
+                for (Company company : companies[f]) stores.getMovies().addProductionCompany(id, company);
+                stores.getMovies().addProductionCountry(id, "United Kingdom");
+            }
+            nanos[0] = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int f = 0; f < FILMS; f++) stores.getCredits().add(cast[f], crew[f], f + 1);
+            nanos[1] = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int f = 0; f < FILMS; f++) stores.getKeywords().add(f + 1, keywords[f]);
+            nanos[2] = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ratings; i++) stores.getRatings().add(userIds[i], movieIds[i], values[i], times[i]);
+            nanos[3] = System.nanoTime() - start;
+            int perRecord = stores.getRatings().size();
+            stores = null;
+
+            RatingsMemoryBenchmark.usedHeap();
+            Stores bulk = new Stores();
+            start = System.nanoTime();
+            bulk.getMovies().ensureCapacity(FILMS);
+            for (int f = 0; f < FILMS; f++) {
+                int id = f + 1;
+                bulk.getMovies().add(id, titles[f], titles[f], overviews[f], "", "Released", new Genre[0], LocalDate.of(1990, 1, 1).plusDays(f % 9000),
+                                     0, 0, new String[] {"en"}, "en", 90, "", false, false, "");
+                bulk.getMovies().setVote(id, 6.5, 100);
+                bulk.getMovies().setIMDB(id, "tt" + id);
+                bulk.getMovies().setPopularity(id, 1.5);
+                bulk.getMovies().addToCollection(id, f % 10 == 0 ? 1 + f / 30 : -1, "Collection", "", "");
+                for (Company company : companies[f]) bulk.getMovies().addProductionCompany(id, company);
+                bulk.getMovies().addProductionCountry(id, "United Kingdom");
+            }
+            bulkNanos[0] = System.nanoTime() - start;
+            start = System.nanoTime();
+            bulk.getCredits().addAll(cast, crew, filmIds);
+            bulkNanos[1] = System.nanoTime() - start;
+            start = System.nanoTime();
+            bulk.getKeywords().addAll(filmIds, keywords);
+            bulkNanos[2] = System.nanoTime() - start;
+            start = System.nanoTime();
+            bulk.getRatings().addAll(userIds, movieIds, values, times);
+            bulkNanos[3] = System.nanoTime() - start;
+            if (bulk.getRatings().size() != perRecord) throw new IllegalStateException("The bulk load kept " + bulk.getRatings().size() + " ratings, not " + perRecord);
+            bulk = null; // Lets the next round start from an empty heap.
+        }
+
+        System.out.println("\n== " + FILMS + " films, " + ratings + " ratings ==");
+        report("one record at a time", nanos);
+        report("bulk", bulkNanos);
+    }
+
+    private static void report(String label, long[] nanos) {
+        System.out.printf("%-22s movies: %5.0f ms, credits: %5.0f ms, keywords: %5.0f ms, ratings: %5.0f ms, total: %5.0f ms%n", label,
+                          nanos[0] / 1e6, nanos[1] / 1e6, nanos[2] / 1e6, nanos[3] / 1e6, (nanos[0] + nanos[1] + nanos[2] + nanos[3]) / 1e6);
+    }
+
+    private static String sentence(Random random, String[] vocabulary, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            double skew = random.nextDouble();
+            if (i > 0) sentence.append(' ');
+            sentence.append(vocabulary[(int) (skew * skew * vocabulary.length)]);
+        }
+        return sentence.toString();
+    }
+
+    // Skewed towards low ids, so a few people have hundreds of credits.
+    private static int person(Random random) {
+        double skew = random.nextDouble();
+        return 1 + (int) (skew * skew * skew * PEOPLE);
+    }
+}
@@ -0,0 +1,92 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import stores.Genre;
+import stores.Stores;
+
+/**
+ * Latency report for Movies.findFilmsRanked over growing movies_metadata.csv shaped samples: short
+ * titles and taglines and 40 to 80 word overviews drawn from a Zipf distributed vocabulary, with
+ * random popularity and votes. Queries are one to three words. Top 10 is compared with ranking every
+ * match (no pruning possible) and with the unranked findFilms of the first word.
+ *
+ * Run with: gradle benchmark -PbenchClass=RankedSearchBenchmark
+ */
+public class RankedSearchBenchmark {
+
+    private static final int VOCABULARY = 30_000;
+    private static final int QUERIES = 2_000;
+
+    public static void main(String[] args) {
+        for (int films : new int[] {11_250, 22_500, 45_000}) run(films);
+    }
+
+    private static void run(int films) {
+        Random random = new Random(12);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            char[] word = new char[3 + random.nextInt(7)];
+            for (int j = 0; j < word.length; j++) word[j] = (char) ('a' + random.nextInt(26));
+            words[i] = new String(word);
+        }
+        double[] cumulative = new double[VOCABULARY]; // Zipf with exponent 1.
+        for (int i = 0; i < VOCABULARY; i++) cumulative[i] = (i > 0 ? cumulative[i - 1] : 0) + 1.0 / (i + 1);
+
+        Stores stores = new Stores();
+        long start = System.nanoTime();
+        for (int id = 1; id <= films; id++) {
+            stores.getMovies().add(id, text(random, words, cumulative, 1 + random.nextInt(4)), "", text(random, words, cumulative, 40 + random.nextInt(41)),
+                                   text(random, words, cumulative, 5 + random.nextInt(6)), "Released", new Genre[0], LocalDate.of(2000, 1, 1), 0, 0,
+                                   new String[] {"en"}, "en", 90, "", false, false, "");
+            stores.getMovies().setPopularity(id, random.nextDouble() * 40);
+            stores.getMovies().setVote(id, random.nextDouble() * 10, random.nextInt(2_000));
+        }
+        long load = System.nanoTime() - start;
+
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) queries[i] = text(random, words, cumulative, 1 + i % 3);
+
+        long sink = 0;
+        long[] top = new long[QUERIES];
+        long[] all = new long[QUERIES];
+        long[] unranked = new long[QUERIES];
+        for (int round = 0; round < 2; round++) { // The first round warms up the JIT.
+            for (int i = 0; i < QUERIES; i++) {
+                start = System.nanoTime();
+                sink += stores.getMovies().findFilmsRanked(queries[i], 10).length;
+                top[i] = System.nanoTime() - start;
+                start = System.nanoTime();
+                sink += stores.getMovies().findFilmsRanked(queries[i], films).length;
+                all[i] = System.nanoTime() - start;
+                start = System.nanoTime();
+                sink += stores.getMovies().findFilms(queries[i].substring(0, queries[i].indexOf(' ') < 0 ? queries[i].length() : queries[i].indexOf(' '))).length;
+                unranked[i] = System.nanoTime() - start;
+            }
+        }
+
+        System.out.println("\n== " + films + " films, " + QUERIES + " queries ==");
+        System.out.printf("load: %.0f ms%n", load / 1e6);
+        report("findFilmsRanked(10)", top);
+        report("findFilmsRanked(all)", all);
+        report("findFilms(word)", unranked);
+        System.out.println("matches: " + sink);
+    }
+
+    private static String text(Random random, String[] words, double[] cumulative, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+            if (i > 0) text.append(' ');
+            text.append(words[index < 0 ? -index - 1 : index]);
+        }
+        return text.toString();
+    }
+
+    static void report(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-22s p50: %8.1f us, p99: %8.1f us, max: %8.1f us%n", label,
+                          sorted[sorted.length / 2] / 1e3, sorted[sorted.length * 99 / 100] / 1e3, sorted[sorted.length - 1] / 1e3);
+    }
+}
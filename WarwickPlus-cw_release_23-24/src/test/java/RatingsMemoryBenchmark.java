@@ -0,0 +1,109 @@
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import stores.Stores;
+
+/**
+ * Memory report for the Ratings store: loads a MovieLens shaped sample through the public
+ * IRatings API and reports the retained heap per rating, plus load and query timings.
+ * The sample uses half-star ratings, a skewed movie popularity and per-user runs of ratings,
+ * like ratings.csv. The time window queries ask for a year of a movie's ratings, a user's ten
+ * latest films and a movie's ratings in twelve buckets. The rating statistics ask for a movie's
+ * half star distribution, median and deviation, compared with working them out from a
+ * getMovieRatings dump.
+ *
+ * Run with: gradle benchmark -PbenchClass=RatingsMemoryBenchmark [-PbenchArgs=<ratings>]
+ */
+public class RatingsMemoryBenchmark {
+
+    public static void main(String[] args) {
+        int ratings = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int users = ratings / 100;
+        int movies = 45_000;
+
+        int[] userIds = new int[ratings];
+        int[] movieIds = new int[ratings];
+        float[] values = new float[ratings];
+        int[] seconds = new int[ratings];
+        Random random = new Random(8);
+        LocalDateTime epoch = LocalDateTime.of(1995, 1, 1, 0, 0);
+        int user = 1;
+        for (int i = 0; i < ratings; i++) {
+            if (random.nextInt(100) == 0 && user < users) user++; // Users arrive in runs, as in the file.
+            userIds[i] = user;
+            double skew = random.nextDouble();
+            movieIds[i] = 1 + (int) (skew * skew * skew * movies); // A few movies collect most ratings.
+            values[i] = (1 + random.nextInt(10)) / 2.0f;
+            seconds[i] = random.nextInt(700_000_000);
+        }
+
+        long before = usedHeap();
+        long start = System.nanoTime();
+        Stores stores = new Stores();
+        int added = 0;
+        for (int i = 0; i < ratings; i++) { // Timestamps are created per add, as the CSV loader parses them.
+            if (stores.getRatings().add(userIds[i], movieIds[i], values[i], epoch.plusSeconds(seconds[i]))) added++;
+        }
+        long loadNanos = System.nanoTime() - start;
+        long after = usedHeap();
+
+        start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < 10_000; i++) sink += stores.getRatings().getMovieRatings(movieIds[i]).length;
+        long movieQueryNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) sink += stores.getRatings().getUserRatings(userIds[i * 7 % ratings]).length;
+        long userQueryNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            LocalDateTime from = epoch.plusSeconds(seconds[i]);
+            sink += stores.getRatings().getMovieRatingsBetween(movieIds[i], from, from.plusYears(1)).length;
+        }
+        long windowNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) sink += stores.getRatings().getUserRecentMovies(userIds[i * 7 % ratings], 10).length;
+        long recentNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) sink += stores.getRatings().getMovieRatingHistogram(movieIds[i], epoch, epoch.plusYears(22), 12)[0];
+        long histogramNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            sink += stores.getRatings().getMovieRatingDistribution(movieIds[i])[9];
+            sink += (long) (stores.getRatings().getMovieMedianRating(movieIds[i]) + stores.getRatings().getMovieRatingStdDev(movieIds[i]));
+        }
+        long statsNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            float[] all = stores.getRatings().getMovieRatings(movieIds[i]);
+            int[] stars = new int[10];
+            double sum = 0, squares = 0;
+            for (float rating : all) {
+                stars[Math.max(0, (int) Math.ceil(rating * 2) - 1)]++;
+                sum += rating;
+                squares += rating * rating;
+            }
+            Arrays.sort(all);
+            sink += stars[9] + (long) (all[(all.length - 1) / 2] + Math.sqrt(squares / all.length - sum * sum / all.length / all.length));
+        }
+        long dumpStatsNanos = System.nanoTime() - start;
+
+        System.out.println("\n== " + added + " ratings, " + users + " users, " + movies + " movies ==");
+        System.out.printf("retained heap: %.1f MB, %.1f bytes per rating%n", (after - before) / 1e6, (after - before) / (double) added);
+        System.out.printf("load: %.0f ms (%.0f ns per add)%n", loadNanos / 1e6, loadNanos / (double) ratings);
+        System.out.printf("getMovieRatings: %.2f us, getUserRatings: %.2f us%n", movieQueryNanos / 1e7, userQueryNanos / 1e7);
+        System.out.printf("getMovieRatingsBetween: %.2f us, getUserRecentMovies: %.2f us, getMovieRatingHistogram: %.2f us%n",
+                          windowNanos / 1e7, recentNanos / 1e7, histogramNanos / 1e7);
+        System.out.printf("distribution, median and deviation: %.2f us, from getMovieRatings: %.2f us%n", statsNanos / 1e7, dumpStatsNanos / 1e7);
+        if (sink == 42 || stores.hashCode() == 0) System.out.println(); // Keeps the store reachable until here.
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try { Thread.sleep(50); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,7 +1,11 @@
 import stores.*;
+import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeAll;
@@ -359,7 +363,367 @@ public class RatingsTest {
 
     // CUSTOM TESTS
 
+    /**
+     * Top lists follow adds, overwrites and removals. Ties go to the lower ID.
+     */
+    @Test void testTopListsFollowChanges() {
+        System.out.println("\nStarting testTopListsFollowChanges...");
+        Stores localStores = new Stores();
+        localStores.getRatings().add(1, 10, 1.0f, calendarYear(2000));
+        localStores.getRatings().add(2, 10, 2.0f, calendarYear(2001));
+        localStores.getRatings().add(1, 11, 5.0f, calendarYear(2002));
+
+        assertArrayEquals(new int[] {10, 11}, localStores.getRatings().getMostRatedMovies(5), "Incorrect values returned.");
+        assertArrayEquals(new int[] {11, 10}, localStores.getRatings().getTopAverageRatedMovies(5), "Incorrect values returned.");
+        assertArrayEquals(new int[] {1, 2}, localStores.getRatings().getMostRatedUsers(5), "Incorrect values returned.");
+
+        localStores.getRatings().set(2, 11, 1.0f, calendarYear(2003)); // Movie 11 now has 2 ratings averaging 3.0, tied with movie 10 on count.
+        localStores.getRatings().set(3, 12, 4.0f, calendarYear(2004)); // First rating for movie 12.
+        assertArrayEquals(new int[] {12, 11, 10}, localStores.getRatings().getTopAverageRatedMovies(5), "Incorrect values returned.");
+        assertArrayEquals(new int[] {10, 11}, localStores.getRatings().getMostRatedMovies(2), "Incorrect values returned.");
+
+        localStores.getRatings().remove(1, 10);
+        localStores.getRatings().remove(2, 10);
+        assertArrayEquals(new int[] {11, 12}, localStores.getRatings().getMostRatedMovies(5), "Incorrect values returned.");
+        assertArrayEquals(new int[] {12, 11}, localStores.getRatings().getTopAverageRatedMovies(5), "Incorrect values returned.");
+        assertArrayEquals(new int[] {1, 2, 3}, localStores.getRatings().getMostRatedUsers(5), "Incorrect values returned.");
+    }
+
+    /**
+     * Movie 1 has a single 5.0, movie 2 a hundred 4.5s and movie 3 fifty 4.0s and fifty 3.0s
+     */
+    @Test void testGetTopWeightedMovies() {
+        System.out.println("\nStarting testGetTopWeightedMovies...");
+        Stores localStores = new Stores();
+        localStores.getRatings().add(1, 1, 5.0f, calendarYear(2000));
+        for (int user = 1; user <= 100; user++) {
+            localStores.getRatings().add(user, 2, 4.5f, calendarYear(2000));
+            localStores.getRatings().add(user, 3, user <= 50 ? 4.0f : 3.0f, calendarYear(2000));
+        }
+
+        assertArrayEquals(new int[] {2, 3}, localStores.getRatings().getTopWeightedMovies(5, 10), "A film with fewer than minVotes ratings should not be ranked.");
+        assertArrayEquals(new int[] {1, 2, 3}, localStores.getRatings().getTopWeightedMovies(5, 0), "With no minimum the raw average ranks.");
+        assertEquals(0, localStores.getRatings().getTopWeightedMovies(5, 101).length, "No film has enough ratings.");
+        assertEquals(0, localStores.getRatings().getTopWeightedMovies(5, -1).length, "A negative minimum is invalid.");
+
+        for (int user = 1; user <= 20; user++) localStores.getRatings().add(user, 4, 5.0f, calendarYear(2001));
+        for (int user = 1; user <= 95; user++) localStores.getRatings().remove(user, 2);
+        assertArrayEquals(new int[] {4, 3}, localStores.getRatings().getTopWeightedMovies(5, 10), "Incorrect values returned.");
+        for (int minVotes = 11; minVotes <= 30; minVotes++) localStores.getRatings().getTopWeightedMovies(1, minVotes); // More rankings than are kept.
+        assertArrayEquals(new int[] {4, 3}, localStores.getRatings().getTopWeightedMovies(5, 10), "Incorrect values returned.");
+        assertArrayEquals(new int[] {1, 4, 2, 3}, localStores.getRatings().getTopWeightedMovies(5, 0), "Incorrect values returned.");
+    }
+
+    @Test void testGetSimilarMovies() {
+        System.out.println("\nStarting testGetSimilarMovies...");
+        Stores localStores = new Stores();
+        for (int user = 1; user <= 20; user++) { // Two groups of users with opposite tastes.
+            boolean first = user <= 10;
+            localStores.getRatings().add(user, 1, first ? 5.0f : 1.0f, calendarYear(2000));
+            localStores.getRatings().add(user, 2, first ? 4.5f : 1.5f, calendarYear(2000));
+            localStores.getRatings().add(user, 3, first ? 1.0f : 5.0f, calendarYear(2000));
+            localStores.getRatings().add(user, 4, first ? 1.5f : 4.5f, calendarYear(2000));
+            localStores.getRatings().add(user, 5, 3.0f, calendarYear(2000)); // Everyone's average, so like nothing else.
+        }
+
+        assertArrayEquals(new int[] {2}, localStores.getRatings().getSimilarMovies(1, 10), "Films liked by the same users should be similar.");
+        assertArrayEquals(new int[] {4}, localStores.getRatings().getSimilarMovies(3, 10), "Films liked by the same users should be similar.");
+        assertEquals(0, localStores.getRatings().getSimilarMovies(5, 10).length, "A film rated at every user's average is like no other.");
+        assertEquals(0, localStores.getRatings().getSimilarMovies(1, 0).length, "No results were asked for.");
+        assertEquals(0, localStores.getRatings().getSimilarMovies(fakeMovieID, 10).length, "An unknown film has no similar films.");
+
+        for (int user = 1; user <= 20; user++) localStores.getRatings().remove(user, 2);
+        for (int movie : localStores.getRatings().getSimilarMovies(1, 10)) assertNotEquals(2, movie, "Film 2 has no ratings left.");
+    }
+
+    /**
+     * Lists brought up to date after a few films change, against a store holding the same ratings
+     * from the start. Each user swaps the ratings of two films, so no user's average moves
+     */
+    @Test void testSimilarMoviesFollowChanges() {
+        System.out.println("\nStarting testSimilarMoviesFollowChanges...");
+        Stores updated = new Stores(), fresh = new Stores();
+        Random random = new Random(24);
+        float[][] ratings = new float[30][41];
+        for (int user = 0; user < 30; user++) {
+            for (int movie = 1; movie <= 40; movie++) {
+                if (random.nextInt(3) == 0) continue;
+                ratings[user][movie] = (1 + random.nextInt(10)) / 2.0f;
+                updated.getRatings().add(user + 1, movie, ratings[user][movie], calendarYear(2000));
+            }
+        }
+        for (int movie = 1; movie <= 40; movie++) updated.getRatings().getSimilarMovies(movie, 20);
+
+        for (int user = 0; user < 30; user++) {
+            float swapped = ratings[user][7];
+            if (swapped == 0 || ratings[user][8] == 0) continue;
+            ratings[user][7] = ratings[user][8];
+            ratings[user][8] = swapped;
+            updated.getRatings().set(user + 1, 7, ratings[user][7], calendarYear(2001));
+            updated.getRatings().set(user + 1, 8, ratings[user][8], calendarYear(2001));
+        }
+        for (int user = 0; user < 30; user++) {
+            for (int movie = 1; movie <= 40; movie++) {
+                if (ratings[user][movie] != 0) fresh.getRatings().add(user + 1, movie, ratings[user][movie], calendarYear(2000));
+            }
+        }
+        for (int movie = 1; movie <= 40; movie++) {
+            assertArrayEquals(fresh.getRatings().getSimilarMovies(movie, 20), updated.getRatings().getSimilarMovies(movie, 20),
+                              "Film " + movie + " should have the same similar films as a store built from scratch.");
+        }
+    }
+
+    /**
+     * Two groups of users who each like their own ten films and dislike the other ten, every user
+     * having rated seven of each. A user's recommendations should be the three of their own films
+     * they have not rated
+     */
+    @Test void testGetRecommendedMovies() {
+        System.out.println("\nStarting testGetRecommendedMovies...");
+        Stores localStores = tasteGroups(true);
+        assertEquals(-1, localStores.getRatings().trainRecommender(), "There is no recommender to train.");
+        assertEquals(0, localStores.getRatings().getRecommendedMovies(1, 3).length, "There is no recommender yet.");
+        assertFalse(localStores.getRatings().resetRecommender(0, false), "A recommender needs at least one factor.");
+
+        assertTrue(localStores.getRatings().resetRecommender(4, false), "Should be able to start a recommender.");
+        double first = localStores.getRatings().trainRecommender(), last = first;
+        for (int i = 0; i < 9; i++) {
+            double rmse = localStores.getRatings().trainRecommender();
+            assertTrue(rmse <= last + 1e-6, "The error should not grow between rounds.");
+            last = rmse;
+        }
+        assertTrue(last < first && last < 0.5, "Training should fit the ratings, got an error of " + last + ".");
+        for (int user = 1; user <= 40; user++) {
+            assertArrayEquals(unratedOwnFilms(user), sorted(localStores.getRatings().getRecommendedMovies(user, 3)), "User " + user + " should be recommended their own unrated films.");
+        }
+        assertEquals(1, localStores.getRatings().getRecommendedMovies(1, 1).length, "Results should be limited.");
+        assertEquals(6, localStores.getRatings().getRecommendedMovies(1, 100).length, "Only unrated films are recommended.");
+        assertEquals(6, localStores.getRatings().getRecommendedMovies(1, Integer.MAX_VALUE).length, "A limit past the unrated films should return all of them.");
+        assertEquals(0, localStores.getRatings().getRecommendedMovies(fakeUserID, 3).length, "An unknown user has no recommendations.");
+
+        Stores implicitStores = tasteGroups(false);
+        implicitStores.getRatings().resetRecommender(2, true); // One factor per group, more would learn which films each user skipped.
+        for (int i = 0; i < 10; i++) implicitStores.getRatings().trainRecommender();
+        for (int user = 1; user <= 40; user++) {
+            assertArrayEquals(unratedOwnFilms(user), sorted(implicitStores.getRatings().getRecommendedMovies(user, 3)), "User " + user + " should be recommended the films their group rates.");
+        }
+    }
+
+    @Test void testSaveAndLoadRecommender() throws IOException {
+        System.out.println("\nStarting testSaveAndLoadRecommender...");
+        File file = File.createTempFile("recommender", ".bin");
+        file.deleteOnExit();
+        Stores trained = tasteGroups(true);
+        assertFalse(trained.getRatings().saveRecommender(file.getPath()), "There is no recommender to save.");
+        trained.getRatings().resetRecommender(4, false);
+        for (int i = 0; i < 5; i++) trained.getRatings().trainRecommender();
+        assertTrue(trained.getRatings().saveRecommender(file.getPath()), "Should be able to save the recommender.");
+
+        Stores reordered = new Stores(); // The same ratings, users and films numbered in another order.
+        for (int user = 40; user >= 1; user--) {
+            for (int movie = 20; movie >= 1; movie--) {
+                float rating = tasteRating(user, movie, true);
+                if (rating > 0) reordered.getRatings().add(user, movie, rating, calendarYear(2000));
+            }
+        }
+        assertTrue(reordered.getRatings().loadRecommender(file.getPath()), "Should be able to load a recommender for the same ratings.");
+        for (int user = 1; user <= 40; user++) {
+            assertArrayEquals(trained.getRatings().getRecommendedMovies(user, 5), reordered.getRatings().getRecommendedMovies(user, 5), "A loaded recommender should recommend the same films.");
+        }
+
+        reordered.getRatings().add(41, 1, 3.0f, calendarYear(2001));
+        assertFalse(reordered.getRatings().loadRecommender(file.getPath()), "A recommender saved with other ratings should not load.");
+        assertFalse(reordered.getRatings().loadRecommender(file.getPath() + ".missing"), "A missing file cannot be loaded.");
+    }
+
+    // Users 1 to 20 like films 1 to 10, users 21 to 40 like films 11 to 20, and each has not rated
+    // three films of each half. With both halves rated, or only their own.
+    private Stores tasteGroups(boolean bothHalves) {
+        Stores localStores = new Stores();
+        for (int user = 1; user <= 40; user++) {
+            for (int movie = 1; movie <= 20; movie++) {
+                float rating = tasteRating(user, movie, bothHalves);
+                if (rating > 0) localStores.getRatings().add(user, movie, rating, calendarYear(2000));
+            }
+        }
+        return localStores;
+    }
+
+    // The rating user gives movie in tasteGroups, 0 if unrated.
+    private float tasteRating(int user, int movie, boolean bothHalves) {
+        boolean own = (user <= 20) == (movie <= 10);
+        if ((movie + user) % 10 < 3 || (!own && !bothHalves)) return 0;
+        if (own) return movie % 2 == 0 ? 5.0f : 4.5f;
+        return movie % 2 == 0 ? 1.0f : 1.5f;
+    }
+
+    private int[] unratedOwnFilms(int user) {
+        int[] films = new int[3];
+        int found = 0;
+        for (int movie = user <= 20 ? 1 : 11; found < 3; movie++) if ((movie + user) % 10 < 3) films[found++] = movie;
+        return films;
+    }
+
+    private static int[] sorted(int[] values) {
+        int[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /**
+     * A batch large enough to be sorted into place, holding a rating already in the store, a pair
+     * rated twice and a rating out of range, then a small batch added one rating at a time
+     */
+    @Test void testAddAll() {
+        System.out.println("\nStarting testAddAll...");
+        Stores localStores = new Stores();
+        LocalDateTime time = calendarYear(2000);
+        localStores.getRatings().add(1, 1, 3.0f, time);
+        int n = 5004;
+        int[] userIDs = new int[n], movieIDs = new int[n];
+        float[] ratings = new float[n];
+        LocalDateTime[] times = new LocalDateTime[n];
+        for (int i = 0; i < 5000; i++) {
+            userIDs[i] = i + 1;
+            movieIDs[i] = 2;
+            ratings[i] = 4.0f;
+            times[i] = time.plusMinutes(i);
+        }
+        userIDs[5000] = 1; movieIDs[5000] = 1; ratings[5000] = 5.0f; times[5000] = time; // Already rated.
+        userIDs[5001] = 2; movieIDs[5001] = 3; ratings[5001] = 1.0f; times[5001] = time;
+        userIDs[5002] = 2; movieIDs[5002] = 3; ratings[5002] = 2.0f; times[5002] = time; // Rated earlier in the batch.
+        userIDs[5003] = 3; movieIDs[5003] = 3; ratings[5003] = 6.0f; times[5003] = time; // Out of range.
+
+        assertEquals(5001, localStores.getRatings().addAll(userIDs, movieIDs, ratings, times), "Incorrect number of ratings added.");
+        assertEquals(5002, localStores.getRatings().size(), "Incorrect size returned.");
+        assertArrayEquals(new float[] {3.0f}, localStores.getRatings().getMovieRatings(1), "The rating already stored should be kept.");
+        assertArrayEquals(new float[] {1.0f}, localStores.getRatings().getMovieRatings(3), "The first rating of a pair should be kept.");
+        assertEquals(1.0f, localStores.getRatings().getMovieAverageRating(3), "Repeats should not count towards the average.");
+        assertEquals(5000, localStores.getRatings().getNumRatings(2), "Incorrect values returned.");
+        assertArrayEquals(new int[] {2, 1, 3}, localStores.getRatings().getMostRatedMovies(3), "Incorrect values returned.");
+        assertArrayEquals(new int[] {2, 3}, localStores.getRatings().getUserRecentMovies(2, 5), "Incorrect values returned.");
+
+        assertEquals(1, localStores.getRatings().addAll(new int[] {1, 1}, new int[] {4, 4}, new float[] {2.0f, 3.0f}, new LocalDateTime[] {time, time}), "A small batch should skip repeats too.");
+        assertArrayEquals(new float[] {2.0f}, localStores.getRatings().getMovieRatings(4), "Incorrect values returned.");
+        assertEquals(0, localStores.getRatings().addAll(new int[] {1}, new int[0], new float[0], new LocalDateTime[0]), "Arrays of different lengths add nothing.");
+    }
+
+    /**
+     * Movie 202 is rated in 1991, 2005, 2007 and 2013, other tests change the ratings of user 101 for movie 201
+     */
+    @Test void testGetMovieRatingsBetween() {
+        System.out.println("\nStarting testGetMovieRatingsBetween...");
+
+        assertArrayEquals(new float[] {3.2f, 2.3f}, stores.getRatings().getMovieRatingsBetween(202, calendarYear(2000), calendarYear(2013)), "Incorrect values returned.");
+        assertEquals(4, stores.getRatings().getMovieRatingsBetween(202, calendarYear(1900), calendarYear(2100)).length, "Every rating is in a wide window.");
+        assertEquals(0, stores.getRatings().getMovieRatingsBetween(202, calendarYear(2013), calendarYear(2013)).length, "The end of the window is excluded.");
+        assertEquals(0, stores.getRatings().getMovieRatingsBetween(fakeMovieID, calendarYear(1900), calendarYear(2100)).length, "An unknown movie has no ratings.");
+    }
 
+    @Test void testGetUserRecentMovies() {
+        System.out.println("\nStarting testGetUserRecentMovies...");
+
+        assertArrayEquals(new int[] {203, 202}, stores.getRatings().getUserRecentMovies(102, 2), "Incorrect values returned.");
+        assertArrayEquals(new int[] {203, 204, 202}, stores.getRatings().getUserRecentMovies(103, 3), "Ties should go to the lower movie ID.");
+        assertArrayEquals(stores.getRatings().getUserRecentMovies(103, 100), stores.getRatings().getUserRecentMovies(103, Integer.MAX_VALUE), "A limit past the user's ratings should return all of them.");
+        assertEquals(0, stores.getRatings().getUserRecentMovies(fakeUserID, 3).length, "An unknown user has no ratings.");
+    }
+
+    @Test void testGetRatingHistogram() {
+        System.out.println("\nStarting testGetRatingHistogram...");
+
+        assertArrayEquals(new int[] {1, 0, 2, 1}, stores.getRatings().getMovieRatingHistogram(202, calendarYear(1990), calendarYear(2014), 4), "Incorrect values returned.");
+        assertArrayEquals(new int[] {2, 2}, stores.getRatings().getUserRatingHistogram(103, calendarYear(2002), calendarYear(2014), 2), "Incorrect values returned.");
+        assertArrayEquals(new int[] {0, 0}, stores.getRatings().getUserRatingHistogram(fakeUserID, calendarYear(1989), calendarYear(1999), 2), "An unknown user has empty buckets.");
+        assertEquals(0, stores.getRatings().getMovieRatingHistogram(201, calendarYear(2000), calendarYear(1990), 4).length, "An empty window has no buckets.");
+    }
+
+    /**
+     * Movie 1 is rated ten times 20 days before the newest rating, movie 2 three times on the newest
+     * day and movie 3 twice 3 days before it
+     */
+    @Test void testGetTrendingMovies() {
+        System.out.println("\nStarting testGetTrendingMovies...");
+        Stores localStores = new Stores();
+        LocalDateTime now = LocalDateTime.of(2015, 6, 30, 12, 0);
+        for (int user = 1; user <= 10; user++) localStores.getRatings().add(user, 1, 3.0f, now.minusDays(20));
+        for (int user = 1; user <= 3; user++) localStores.getRatings().add(user, 2, 3.0f, now.minusHours(user));
+        for (int user = 1; user <= 2; user++) localStores.getRatings().add(user, 3, 3.0f, now.minusDays(3));
+
+        assertArrayEquals(new int[] {2, 3, 1}, localStores.getRatings().getTrendingMovies(1, 5), "The last day should favour movie 2.");
+        assertArrayEquals(new int[] {2, 3, 1}, localStores.getRatings().getTrendingMovies(7, 5), "Movie 1 is too old to trend this week.");
+        assertArrayEquals(new int[] {1, 2, 3}, localStores.getRatings().getTrendingMovies(30, 5), "Movie 1 trends over the month.");
+        assertArrayEquals(new int[] {2}, localStores.getRatings().getTrendingMovies(3, 1), "Results should be limited, 3 days uses the 1 day window.");
+
+        assertEquals(10, localStores.getRatings().getRecentRatingCount(1, 30), "All of movie 1's ratings are in the last 30 days.");
+        assertEquals(0, localStores.getRatings().getRecentRatingCount(1, 7), "None of movie 1's ratings are in the last week.");
+        assertEquals(3, localStores.getRatings().getRecentRatingCount(2, 1), "Movie 2 was rated three times today.");
+        assertEquals(0, localStores.getRatings().getRecentRatingCount(3, 3), "Three days ago is outside the last 3 days.");
+        assertEquals(2, localStores.getRatings().getRecentRatingCount(3, 4), "Three days ago is inside the last 4 days.");
+        assertEquals(-1, localStores.getRatings().getRecentRatingCount(fakeMovieID, 7), "An unknown movie has no count.");
+
+        for (int user = 1; user <= 3; user++) localStores.getRatings().remove(user, 2);
+        assertArrayEquals(new int[] {3, 1}, localStores.getRatings().getTrendingMovies(7, 5), "Movie 2 has no ratings left.");
+        localStores.getRatings().set(1, 1, 4.0f, now.plusDays(700)); // Far enough ahead to move the reference time.
+        assertArrayEquals(new int[] {1, 3}, localStores.getRatings().getTrendingMovies(1, 5), "The newest rating should lead after the scores are rescaled.");
+        assertEquals(0, localStores.getRatings().getRecentRatingCount(3, 30), "Movie 3's ratings are now two years old.");
+        assertEquals(1, localStores.getRatings().getRecentRatingCount(1, 1), "Only the moved rating is recent.");
+    }
+
+    /**
+     * Movie 202 is rated 1.1, 3.2, 2.3 and 4.5, user 102 rates 2.2, 3.2 and 4.2
+     */
+    @Test void testGetRatingDistribution() {
+        System.out.println("\nStarting testGetRatingDistribution...");
+
+        assertArrayEquals(new int[] {0, 0, 1, 0, 1, 0, 1, 0, 1, 0}, stores.getRatings().getMovieRatingDistribution(202), "Incorrect values returned.");
+        assertArrayEquals(new int[] {0, 0, 0, 0, 1, 0, 1, 0, 1, 0}, stores.getRatings().getUserRatingDistribution(102), "Incorrect values returned.");
+        assertEquals(0, stores.getRatings().getMovieRatingDistribution(fakeMovieID).length, "An unknown movie has no distribution.");
+        assertEquals(2.5f, stores.getRatings().getMovieMedianRating(202), "Incorrect median returned.");
+        assertEquals(1.5f, stores.getRatings().getMovieRatingPercentile(202, 0), "The 0th percentile is the lowest rating's step.");
+        assertEquals(4.5f, stores.getRatings().getMovieRatingPercentile(202, 100), "The 100th percentile is the highest rating's step.");
+        assertEquals(3.5f, stores.getRatings().getUserMedianRating(102), "Incorrect median returned.");
+        assertEquals(-1.0f, stores.getRatings().getMovieRatingPercentile(202, 101), "A percentile above 100 is out of range.");
+        assertEquals(-1.0f, stores.getRatings().getUserMedianRating(fakeUserID), "An unknown user has no median.");
+        assertEquals(1.2437f, stores.getRatings().getMovieRatingStdDev(202), 1e-4, "Incorrect standard deviation returned.");
+        assertEquals(0.8165f, stores.getRatings().getUserRatingStdDev(102), 1e-4, "Incorrect standard deviation returned.");
+        assertEquals(-1.0f, stores.getRatings().getMovieRatingStdDev(fakeMovieID), "An unknown movie has no standard deviation.");
+    }
+
+    @Test void testRatingDistributionFollowsChanges() {
+        System.out.println("\nStarting testRatingDistributionFollowsChanges...");
+        Stores localStores = new Stores();
+        LocalDateTime time = calendarYear(2000);
+        for (int user = 1; user <= 5; user++) localStores.getRatings().add(user, 1, user, time);
+        localStores.getRatings().add(6, 1, 0.0f, time);
+        localStores.getRatings().remove(5, 1);
+        localStores.getRatings().set(4, 1, 0.5f, time);
+
+        assertArrayEquals(new int[] {2, 1, 0, 1, 0, 1, 0, 0, 0, 0}, localStores.getRatings().getMovieRatingDistribution(1), "Incorrect values returned.");
+        assertEquals(1.0f, localStores.getRatings().getMovieMedianRating(1), "Incorrect median returned.");
+        assertEquals(Math.sqrt(1.16), localStores.getRatings().getMovieRatingStdDev(1), 1e-5, "Incorrect standard deviation returned.");
+        assertEquals(0.0f, localStores.getRatings().getUserRatingStdDev(1), "A single rating has no spread.");
+        assertEquals(-1.0f, localStores.getRatings().getUserRatingStdDev(5), "A user with no ratings left has no standard deviation.");
+    }
+
+    /**
+     * Enough ratings to sort the buffer into the indexed rows, with some added and removed after
+     */
+    @Test void testTimeQueriesAfterCompaction() {
+        System.out.println("\nStarting testTimeQueriesAfterCompaction...");
+        Stores localStores = new Stores();
+        LocalDateTime start = calendarYear(2000);
+        for (int movie = 1; movie <= 5000; movie++) localStores.getRatings().add(1, movie, 3.0f, start.plusMinutes(5001 - movie));
+        for (int user = 2; user <= 11; user++) localStores.getRatings().add(user, 7, user / 2.5f, start.plusDays(user));
+        localStores.getRatings().remove(1, 1);
+        localStores.getRatings().remove(4, 7);
+        localStores.getRatings().add(1, 6000, 1.0f, start.plusYears(1));
+
+        assertArrayEquals(new int[] {6000, 2, 3}, localStores.getRatings().getUserRecentMovies(1, 3), "Incorrect values returned.");
+        assertArrayEquals(new float[] {0.8f, 1.2f, 3.0f, 2.0f}, localStores.getRatings().getMovieRatingsBetween(7, start.plusDays(2), start.plusDays(6)), "Incorrect values returned.");
+        assertArrayEquals(new int[] {3, 5, 2}, localStores.getRatings().getMovieRatingHistogram(7, start, start.plusDays(15), 3), "Incorrect values returned.");
+        assertArrayEquals(new int[] {4999, 0, 1}, localStores.getRatings().getUserRatingHistogram(1, start, start.plusYears(1).plusDays(1), 3), "Incorrect values returned.");
+    }
     // @Test
     // void testCorrectAverageRating() {
     //     System.out.println("\nStarting testCorrectAverageRating...");
@@ -0,0 +1,85 @@
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import stores.Stores;
+
+/**
+ * Training and query report for the Ratings recommender: a MovieLens shaped sample of skewed movie
+ * popularity, per-user runs of ratings and users who watch more of one of a few groups of movies
+ * and rate them higher.
+ * Reports the time and RMSE of every round of training, a recommendation once trained, and saving
+ * the factors and loading them back, which is what a restart costs instead of training again.
+ *
+ * Run with: gradle benchmark -PbenchClass=RecommenderBenchmark [-PbenchArgs=<ratings>,<factors>,<rounds>]
+ */
+public class RecommenderBenchmark {
+
+    private static final int MOVIES = 45_000;
+    private static final int GROUPS = 20;
+
+    public static void main(String[] args) throws IOException {
+        int ratings = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int factors = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int[] userIds = new int[ratings], movieIds = new int[ratings];
+        float[] values = new float[ratings];
+        LocalDateTime[] times = new LocalDateTime[ratings];
+        Random random = new Random(25);
+        LocalDateTime epoch = LocalDateTime.of(1995, 1, 1, 0, 0);
+        int user = 1;
+        for (int i = 0; i < ratings; i++) {
+            if (random.nextInt(100) == 0) user++; // Users arrive in runs, as in the file.
+            userIds[i] = user;
+            double skew = random.nextDouble();
+            movieIds[i] = 1 + (int) (skew * skew * skew * MOVIES);
+            if (random.nextInt(10) < 3) movieIds[i] = (movieIds[i] / GROUPS) * GROUPS + user % GROUPS; // A share of each user's films come from the group they favour.
+            boolean liked = movieIds[i] % GROUPS == user % GROUPS;
+            values[i] = Math.min(10, Math.max(1, (int) Math.round(6 + random.nextGaussian() * 2 + (liked ? 3 : 0)))) / 2.0f;
+            times[i] = epoch.plusSeconds(i);
+        }
+        Stores stores = new Stores();
+        stores.getRatings().addAll(userIds, movieIds, values, times);
+
+        System.out.println("\n== " + stores.getRatings().size() + " ratings, " + user + " users, " + factors + " factors, "
+                           + ForkJoinPool.getCommonPoolParallelism() + " worker threads ==");
+        stores.getRatings().resetRecommender(factors, false);
+        long trainNanos = 0;
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            double rmse = stores.getRatings().trainRecommender();
+            long nanos = System.nanoTime() - start;
+            trainNanos += nanos;
+            System.out.printf("round %2d: RMSE %.4f, %6.0f ms%n", round, rmse, nanos / 1e6);
+        }
+
+        long[] queries = new long[2_000];
+        long sink = 0;
+        for (int q = 0; q < queries.length; q++) {
+            long start = System.nanoTime();
+            sink += stores.getRatings().getRecommendedMovies(userIds[q * 97 % ratings], 10)[0];
+            queries[q] = System.nanoTime() - start;
+        }
+        int inGroup = 0;
+        for (int u = 1; u <= 1_000; u++) {
+            for (int movie : stores.getRatings().getRecommendedMovies(u, 10)) if (movie % GROUPS == u % GROUPS) inGroup++;
+        }
+
+        File file = File.createTempFile("recommender", ".bin");
+        file.deleteOnExit();
+        long start = System.nanoTime();
+        stores.getRatings().saveRecommender(file.getPath());
+        long saveNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        boolean loaded = stores.getRatings().loadRecommender(file.getPath());
+        long loadNanos = System.nanoTime() - start;
+
+        System.out.printf("training: %.0f ms, save: %.0f ms, load: %.0f ms (%s, %.1f MB)%n", trainNanos / 1e6, saveNanos / 1e6,
+                          loadNanos / 1e6, loaded ? "loaded" : "not loaded", file.length() / 1e6);
+        CreditsBenchmark.report("getRecommendedMovies", queries);
+        System.out.println("top ten in the user's favoured group, first 1000 users: " + inGroup + " of 10000 (" + (10_000 / GROUPS) + " by chance)");
+        System.out.println("results: " + sink);
+    }
+}
@@ -0,0 +1,64 @@
+import java.time.LocalDate;
+import java.util.Random;
+
+import structures.ReleaseIndex;
+import structures.TreeMap;
+
+/**
+ * Compares the epoch-day ReleaseIndex against the LocalDate keyed AVL TreeMap it replaced
+ * in Movies, at the size of the full dataset (~45k movies released 1900 to 2020).
+ * Queries are decade sized ranges like the ones CastScreen and CrewScreen issue.
+ *
+ * Run with: gradle benchmark -PbenchClass=ReleaseIndexBenchmark
+ */
+public class ReleaseIndexBenchmark {
+
+    private static final int MOVIES = 45_000;
+    private static final int QUERIES = 2_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Random random = new Random(4);
+        LocalDate first = LocalDate.of(1900, 1, 1);
+        LocalDate[] releases = new LocalDate[MOVIES];
+        for (int i = 0; i < MOVIES; i++) releases[i] = first.plusDays(random.nextInt(120 * 365));
+        LocalDate[] starts = new LocalDate[QUERIES];
+        for (int i = 0; i < QUERIES; i++) starts[i] = first.plusDays(random.nextInt(110 * 365));
+
+        long bestIndexBuild = Long.MAX_VALUE, bestTreeBuild = Long.MAX_VALUE;
+        long bestIndexQuery = Long.MAX_VALUE, bestTreeQuery = Long.MAX_VALUE, bestLimited = Long.MAX_VALUE;
+        long sink = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            ReleaseIndex index = new ReleaseIndex();
+            for (int i = 0; i < MOVIES; i++) index.put(releases[i], i);
+            index.getMovieIdsInRange(first, first); // Forces the last delta merge into the build time.
+            bestIndexBuild = Math.min(bestIndexBuild, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            TreeMap tree = new TreeMap();
+            for (int i = 0; i < MOVIES; i++) tree.put(releases[i], i);
+            bestTreeBuild = Math.min(bestTreeBuild, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (LocalDate from : starts) sink += index.getMovieIdsInRange(from, from.plusYears(10)).length;
+            bestIndexQuery = Math.min(bestIndexQuery, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (LocalDate from : starts) sink += tree.getMovieIdsInRange(from, from.plusYears(10)).toArray().length;
+            bestTreeQuery = Math.min(bestTreeQuery, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (LocalDate from : starts) sink += index.getMovieIdsInRange(from, from.plusYears(10), 20, true).length;
+            bestLimited = Math.min(bestLimited, System.nanoTime() - start);
+        }
+
+        System.out.println("\n== " + MOVIES + " movies, " + QUERIES + " ten year range queries ==");
+        System.out.printf("build: index %.2f ms, tree %.2f ms%n", bestIndexBuild / 1e6, bestTreeBuild / 1e6);
+        System.out.printf("range: index %.1f us/query, tree %.1f us/query, speedup %.2fx%n",
+                bestIndexQuery / 1e3 / QUERIES, bestTreeQuery / 1e3 / QUERIES, bestTreeQuery / (double) bestIndexQuery);
+        System.out.printf("latest 20 in range: index %.2f us/query%n", bestLimited / 1e3 / QUERIES);
+        if (sink == 42) System.out.println(); // Keeps the JIT from discarding the loops.
+    }
+}
@@ -0,0 +1,109 @@
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import stores.Stores;
+
+/**
+ * Latency report for Ratings.getSimilarMovies: a MovieLens shaped sample of skewed movie
+ * popularity, per-user runs of ratings and users who lean towards one of a few groups of movies.
+ * Reports building every movie's similar list, a query once built, and bringing the lists up to
+ * date after a handful of new ratings, against rebuilding them. The updated lists are compared
+ * with those of a store loaded with the same ratings from scratch, which differ only by the user
+ * averages the update keeps.
+ *
+ * Run with: gradle benchmark -PbenchClass=SimilarMoviesBenchmark [-PbenchArgs=<ratings>]
+ */
+public class SimilarMoviesBenchmark {
+
+    private static final int MOVIES = 45_000;
+    private static final int GROUPS = 20;
+
+    public static void main(String[] args) {
+        int ratings = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int extra = 20_000;
+        int[] userIds = new int[ratings + extra], movieIds = new int[ratings + extra];
+        float[] values = new float[ratings + extra];
+        LocalDateTime[] times = new LocalDateTime[ratings + extra];
+        Random random = new Random(24);
+        LocalDateTime epoch = LocalDateTime.of(1995, 1, 1, 0, 0);
+        int user = 1;
+        for (int i = 0; i < ratings + extra; i++) {
+            if (random.nextInt(100) == 0) user++; // Users arrive in runs, as in the file.
+            userIds[i] = i < ratings ? user : 1 + random.nextInt(user);
+            double skew = random.nextDouble();
+            movieIds[i] = 1 + (int) (skew * skew * skew * MOVIES);
+            boolean liked = movieIds[i] % GROUPS == userIds[i] % GROUPS; // Each user favours one group of movies.
+            values[i] = Math.min(10, Math.max(1, (int) Math.round(6 + random.nextGaussian() * 2 + (liked ? 3 : 0)))) / 2.0f;
+            times[i] = epoch.plusSeconds(i);
+        }
+
+        Stores stores = new Stores();
+        int[] batchUsers = new int[ratings], batchMovies = new int[ratings];
+        float[] batchValues = new float[ratings];
+        LocalDateTime[] batchTimes = new LocalDateTime[ratings];
+        System.arraycopy(userIds, 0, batchUsers, 0, ratings);
+        System.arraycopy(movieIds, 0, batchMovies, 0, ratings);
+        System.arraycopy(values, 0, batchValues, 0, ratings);
+        System.arraycopy(times, 0, batchTimes, 0, ratings);
+        stores.getRatings().addAll(batchUsers, batchMovies, batchValues, batchTimes);
+
+        long start = System.nanoTime();
+        long sink = stores.getRatings().getSimilarMovies(1, 10).length;
+        long buildNanos = System.nanoTime() - start;
+
+        long[] queries = new long[10_000];
+        for (int q = 0; q < queries.length; q++) {
+            start = System.nanoTime();
+            sink += stores.getRatings().getSimilarMovies(movieIds[q], 10).length;
+            queries[q] = System.nanoTime() - start;
+        }
+
+        // New ratings in batches of 1, 10 and 100, each followed by a query that brings the lists up to
+        // date. A first run of single ratings warms up the update.
+        int next = ratings;
+        for (int r = 0; r < 2_000; r++, next++) {
+            stores.getRatings().add(userIds[next], movieIds[next], values[next], times[next]);
+            sink += stores.getRatings().getSimilarMovies(movieIds[next], 10).length;
+        }
+        int[] batches = {1, 10, 100};
+        long[][] updates = new long[batches.length][];
+        for (int b = 0; b < batches.length; b++) {
+            updates[b] = new long[20];
+            for (int r = 0; r < updates[b].length; r++) {
+                for (int i = 0; i < batches[b]; i++, next++) stores.getRatings().add(userIds[next], movieIds[next], values[next], times[next]);
+                start = System.nanoTime();
+                sink += stores.getRatings().getSimilarMovies(movieIds[next - 1], 10).length;
+                updates[b][r] = System.nanoTime() - start;
+            }
+        }
+
+        Stores fresh = new Stores();
+        int loaded = next;
+        batchUsers = new int[loaded];
+        batchMovies = new int[loaded];
+        batchValues = new float[loaded];
+        batchTimes = new LocalDateTime[loaded];
+        System.arraycopy(userIds, 0, batchUsers, 0, loaded);
+        System.arraycopy(movieIds, 0, batchMovies, 0, loaded);
+        System.arraycopy(values, 0, batchValues, 0, loaded);
+        System.arraycopy(times, 0, batchTimes, 0, loaded);
+        fresh.getRatings().addAll(batchUsers, batchMovies, batchValues, batchTimes);
+        start = System.nanoTime();
+        sink += fresh.getRatings().getSimilarMovies(1, 10).length;
+        long rebuildNanos = System.nanoTime() - start;
+        int shared = 0, listed = 0;
+        for (int m = 1; m <= 2_000; m++) {
+            int[] updated = stores.getRatings().getSimilarMovies(m, 10);
+            int[] rebuilt = fresh.getRatings().getSimilarMovies(m, 10);
+            listed += rebuilt.length;
+            for (int a : updated) for (int b : rebuilt) if (a == b) shared++;
+        }
+
+        System.out.println("\n== " + stores.getRatings().size() + " ratings, " + MOVIES + " movies ==");
+        System.out.printf("build every list: %.0f ms, rebuild after the new ratings: %.0f ms%n", buildNanos / 1e6, rebuildNanos / 1e6);
+        CreditsBenchmark.report("getSimilarMovies", queries);
+        for (int b = 0; b < batches.length; b++) CreditsBenchmark.report("update after " + batches[b] + " new", updates[b]);
+        System.out.printf("top ten shared with a rebuild, first 2000 movies: %d of %d%n", shared, listed);
+        System.out.println("results: " + sink);
+    }
+}
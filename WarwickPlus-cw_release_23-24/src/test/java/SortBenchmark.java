@@ -0,0 +1,221 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import structures.Sort;
+
+/**
+ * Compares the primitive kernels in structures.Sort against genericSort over wrapper
+ * objects, the way the stores used to sort, on a full ratings population (1M ratings).
+ * Each kernel sorts movie ids by one kind of key: rating counts, average ratings,
+ * epoch-second timestamps and half-star ratings.
+ * Before timing, every kernel is checked against a stable sort from java.util.Arrays on
+ * few distinct keys, negatives, extreme values, float -0.0, infinities and NaN, at sizes
+ * either side of the insertion and parallel thresholds, and each timed result is checked
+ * to be in order.
+ *
+ * Run with: gradle benchmark -PbenchClass=SortBenchmark
+ */
+public class SortBenchmark {
+
+    private static final int RATINGS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    private static final class Entry {
+        final int id;
+        final float key;
+
+        Entry(int id, float key) {
+            this.id = id;
+            this.key = key;
+        }
+    }
+
+    public static void main(String[] args) {
+        verify();
+        Random random = new Random(6);
+        int[] ids = new int[RATINGS];
+        int[] counts = new int[RATINGS];
+        float[] averages = new float[RATINGS];
+        long[] timestamps = new long[RATINGS];
+        int[] halfStars = new int[RATINGS];
+        for (int i = 0; i < RATINGS; i++) {
+            ids[i] = random.nextInt(470_000);
+            counts[i] = random.nextInt(5_000);
+            averages[i] = random.nextInt(5_000) / 1000f;
+            timestamps[i] = 789_000_000L + random.nextInt(700_000_000);
+            halfStars[i] = random.nextInt(11);
+        }
+
+        long generic = Long.MAX_VALUE, byInt = Long.MAX_VALUE, byFloat = Long.MAX_VALUE;
+        long byLong = Long.MAX_VALUE, radixValues = Long.MAX_VALUE, parallelValues = Long.MAX_VALUE, counting = Long.MAX_VALUE;
+        long sink = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            Entry[] entries = new Entry[RATINGS];
+            for (int i = 0; i < RATINGS; i++) entries[i] = new Entry(ids[i], averages[i]);
+            long start = System.nanoTime();
+            Sort.genericSort(entries, (a, b) -> Float.compare(a.key, b.key));
+            generic = Math.min(generic, System.nanoTime() - start);
+            for (int i = 1; i < RATINGS; i++) check(Float.compare(entries[i - 1].key, entries[i].key) >= 0, "genericSort out of order at " + i); // Largest first.
+            sink += entries[0].id;
+
+            int[] sortedIds = ids.clone();
+            int[] intKeys = counts.clone();
+            start = System.nanoTime();
+            Sort.sortIdsByKey(sortedIds, intKeys);
+            byInt = Math.min(byInt, System.nanoTime() - start);
+            checkOrdered("sortIdsByKey, int keys", intKeys);
+            sink += sortedIds[0];
+
+            sortedIds = ids.clone();
+            float[] floatKeys = averages.clone();
+            start = System.nanoTime();
+            Sort.sortIdsByKey(sortedIds, floatKeys);
+            byFloat = Math.min(byFloat, System.nanoTime() - start);
+            for (int i = 1; i < RATINGS; i++) check(Float.compare(floatKeys[i - 1], floatKeys[i]) <= 0, "sortIdsByKey, float keys out of order at " + i);
+            sink += sortedIds[0];
+
+            sortedIds = ids.clone();
+            long[] longKeys = timestamps.clone();
+            start = System.nanoTime();
+            Sort.sortIdsByKey(sortedIds, longKeys); // Goes parallel at this size.
+            byLong = Math.min(byLong, System.nanoTime() - start);
+            checkOrdered("sortIdsByKey, long keys", longKeys);
+            sink += sortedIds[0];
+
+            longKeys = timestamps.clone();
+            start = System.nanoTime();
+            Sort.radixSort(longKeys);
+            radixValues = Math.min(radixValues, System.nanoTime() - start);
+            checkOrdered("radixSort, long values", longKeys);
+            sink += longKeys[0];
+
+            longKeys = timestamps.clone();
+            start = System.nanoTime();
+            Sort.parallelSort(longKeys);
+            parallelValues = Math.min(parallelValues, System.nanoTime() - start);
+            checkOrdered("parallelSort, long values", longKeys);
+            sink += longKeys[0];
+
+            sortedIds = ids.clone();
+            intKeys = halfStars.clone();
+            start = System.nanoTime();
+            Sort.countingSortIdsByKey(sortedIds, intKeys, 0, 10);
+            counting = Math.min(counting, System.nanoTime() - start);
+            checkOrdered("countingSortIdsByKey", intKeys);
+            sink += sortedIds[0];
+        }
+
+        System.out.println("\n== sorting " + RATINGS + " ids, best of " + ROUNDS + " ==");
+        report("genericSort, boxed entries by float", generic, generic);
+        report("sortIdsByKey, int keys", byInt, generic);
+        report("sortIdsByKey, float keys", byFloat, generic);
+        report("sortIdsByKey, long keys", byLong, generic);
+        report("radixSort, long values", radixValues, generic);
+        report("parallelSort, long values", parallelValues, generic);
+        report("countingSortIdsByKey, half stars", counting, generic);
+        if (sink == 42) System.out.println(); // Keeps the JIT from discarding the loops.
+    }
+
+    static void report(String label, long nanos, long baseline) {
+        System.out.printf("%-40s %8.2f ms %7.2fx%n", label, nanos / 1e6, baseline / (double) nanos);
+    }
+
+    // Every kernel against java.util.Arrays. The ids are the input positions, so a stable sort leaves
+    // the ids of equal keys ascending and the expected order is the positions sorted stably by key.
+    private static void verify() {
+        Random random = new Random(60);
+        float[] specialFloats = {-0.0f, 0.0f, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NaN, Float.MIN_VALUE, -Float.MAX_VALUE, -1.5f, 2.5f};
+        for (int size : new int[] {0, 1, 2, 31, 33, 1_000, 70_000, 200_000}) {
+            int[] intKeys = new int[size];
+            float[] floatKeys = new float[size];
+            long[] longKeys = new long[size];
+            int[] smallKeys = new int[size];
+            for (int i = 0; i < size; i++) {
+                int pick = random.nextInt(50);
+                intKeys[i] = pick == 0 ? Integer.MIN_VALUE : pick == 1 ? Integer.MAX_VALUE : random.nextInt(21) - 10;
+                floatKeys[i] = pick < specialFloats.length ? specialFloats[pick] : (random.nextInt(21) - 10) / 2f;
+                longKeys[i] = pick == 0 ? Long.MIN_VALUE : pick == 1 ? Long.MAX_VALUE : (random.nextInt(41) - 20) * 1_000_000_007L;
+                smallKeys[i] = random.nextInt(11) - 5;
+            }
+
+            int[] ids = positions(size);
+            int[] keys = intKeys.clone();
+            Sort.sortIdsByKey(ids, keys);
+            checkIds("sortIdsByKey, int keys, " + size, ids, expected(size, (a, b) -> Integer.compare(intKeys[a], intKeys[b])));
+            for (int i = 0; i < size; i++) check(keys[i] == intKeys[ids[i]], "sortIdsByKey, int keys, " + size + ": keys not moved with ids");
+
+            ids = positions(size);
+            float[] sortedFloats = floatKeys.clone();
+            Sort.sortIdsByKey(ids, sortedFloats);
+            checkIds("sortIdsByKey, float keys, " + size, ids, expected(size, (a, b) -> Float.compare(floatKeys[a], floatKeys[b])));
+            float[] reference = floatKeys.clone();
+            Arrays.sort(reference); // -0.0 before 0.0 and NaN last, as Float.compare orders them.
+            for (int i = 0; i < size; i++) check(Float.floatToIntBits(sortedFloats[i]) == Float.floatToIntBits(reference[i]), "sortIdsByKey, float keys, " + size + ": wrong key at " + i);
+
+            int[] byLong = expected(size, (a, b) -> Long.compare(longKeys[a], longKeys[b]));
+            ids = positions(size);
+            long[] sortedLongs = longKeys.clone();
+            Sort.sortIdsByKey(ids, sortedLongs);
+            checkIds("sortIdsByKey, long keys, " + size, ids, byLong);
+            for (int i = 0; i < size; i++) check(sortedLongs[i] == longKeys[ids[i]], "sortIdsByKey, long keys, " + size + ": keys not moved with ids");
+            ids = positions(size);
+            sortedLongs = longKeys.clone();
+            Sort.parallelSortIdsByKey(ids, sortedLongs);
+            checkIds("parallelSortIdsByKey, " + size, ids, byLong);
+
+            ids = positions(size);
+            keys = smallKeys.clone();
+            Sort.countingSortIdsByKey(ids, keys, -5, 5);
+            checkIds("countingSortIdsByKey, " + size, ids, expected(size, (a, b) -> Integer.compare(smallKeys[a], smallKeys[b])));
+
+            int[] values = intKeys.clone();
+            int[] sortedValues = intKeys.clone();
+            Sort.radixSort(values);
+            Arrays.sort(sortedValues);
+            check(Arrays.equals(values, sortedValues), "radixSort, int values, " + size);
+            long[] longValues = longKeys.clone();
+            long[] sortedLongValues = longKeys.clone();
+            Arrays.sort(sortedLongValues);
+            Sort.radixSort(longValues);
+            check(Arrays.equals(longValues, sortedLongValues), "radixSort, long values, " + size);
+            longValues = longKeys.clone();
+            Sort.parallelSort(longValues);
+            check(Arrays.equals(longValues, sortedLongValues), "parallelSort, long values, " + size);
+        }
+        System.out.println("\nEvery kernel matches java.util.Arrays, stable on equal keys.");
+    }
+
+    private static int[] positions(int size) {
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) ids[i] = i;
+        return ids;
+    }
+
+    // The positions sorted by comparator, Arrays.sort on objects being a stable merge sort.
+    private static int[] expected(int size, Comparator<Integer> comparator) {
+        Integer[] boxed = new Integer[size];
+        for (int i = 0; i < size; i++) boxed[i] = i;
+        Arrays.sort(boxed, comparator);
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) result[i] = boxed[i];
+        return result;
+    }
+
+    private static void checkIds(String label, int[] ids, int[] expected) {
+        for (int i = 0; i < ids.length; i++) check(ids[i] == expected[i], label + ": id " + ids[i] + " at " + i + ", expected " + expected[i]);
+    }
+
+    private static void checkOrdered(String label, int[] keys) {
+        for (int i = 1; i < keys.length; i++) check(keys[i - 1] <= keys[i], label + " out of order at " + i);
+    }
+
+    private static void checkOrdered(String label, long[] keys) {
+        for (int i = 1; i < keys.length; i++) check(keys[i - 1] <= keys[i], label + " out of order at " + i);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new IllegalStateException(message);
+    }
+}
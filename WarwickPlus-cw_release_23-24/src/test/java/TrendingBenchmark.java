@@ -0,0 +1,65 @@
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import stores.Stores;
+import structures.TopK;
+
+/**
+ * Latency report for Ratings.getTrendingMovies while ratings stream in: two years of ratings in
+ * time order, whose favourite movies drift every few weeks, with a trending query after every
+ * thousand adds. The trending list is compared with ranking every movie by its ratings of the
+ * last week through getMovieRatingsBetween, which is what a query would cost without the
+ * maintained scores.
+ *
+ * Run with: gradle benchmark -PbenchClass=TrendingBenchmark [-PbenchArgs=<ratings>]
+ */
+public class TrendingBenchmark {
+
+    private static final int MOVIES = 45_000;
+    private static final int USERS = 100_000;
+    private static final int SPAN = 2 * 365 * 86_400; // Seconds of ratings.
+
+    public static void main(String[] args) {
+        int ratings = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Random random = new Random(20);
+        LocalDateTime epoch = LocalDateTime.of(2015, 1, 1, 0, 0);
+        Stores stores = new Stores();
+
+        long[] queries = new long[ratings / 1_000];
+        long addNanos = 0, sink = 0;
+        int queried = 0;
+        for (int i = 0; i < ratings; i++) {
+            long second = (long) i * SPAN / ratings;
+            int era = (int) (second / (21 * 86_400)); // The favourites change every three weeks.
+            double skew = random.nextDouble();
+            int movie = 1 + (int) ((skew * skew * skew * MOVIES + era * 977L) % MOVIES);
+            long start = System.nanoTime();
+            stores.getRatings().add(1 + random.nextInt(USERS), movie, (1 + random.nextInt(10)) / 2.0f, epoch.plusSeconds(second));
+            addNanos += System.nanoTime() - start;
+            if (i % 1_000 == 999) {
+                start = System.nanoTime();
+                sink += stores.getRatings().getTrendingMovies(7, 10)[0];
+                queries[queried++] = System.nanoTime() - start;
+            }
+        }
+
+        LocalDateTime now = epoch.plusSeconds(SPAN);
+        long[] rescans = new long[10];
+        for (int r = 0; r < rescans.length; r++) {
+            long start = System.nanoTime();
+            TopK week = new TopK(10);
+            for (int movie = 1; movie <= MOVIES; movie++) week.offer(movie, stores.getRatings().getMovieRatingsBetween(movie, now.minusDays(7), now).length);
+            sink += week.result()[0];
+            rescans[r] = System.nanoTime() - start;
+        }
+
+        System.out.println("\n== " + stores.getRatings().size() + " ratings streamed over two years ==");
+        System.out.printf("add: %.0f ns per rating%n", addNanos / (double) ratings);
+        CreditsBenchmark.report("getTrendingMovies(7)", queries);
+        CreditsBenchmark.report("rescan every movie", rescans);
+        int[] trending = stores.getRatings().getTrendingMovies(7, 10);
+        System.out.print("trending this week, with ratings in the last 7 days:");
+        for (int movie : trending) System.out.print(" " + movie + ":" + stores.getRatings().getRecentRatingCount(movie, 7));
+        System.out.println("\nresults: " + sink);
+    }
+}
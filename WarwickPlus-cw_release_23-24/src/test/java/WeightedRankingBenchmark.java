@@ -0,0 +1,76 @@
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import stores.Stores;
+import structures.TopK;
+
+/**
+ * Latency report for Ratings.getTopWeightedMovies while ratings stream in: a MovieLens shaped
+ * load of skewed movie popularity and half star ratings, with a weighted top ten after every
+ * thousand adds. Each query is compared with computing the weighted rating of every movie from
+ * getNumRatings and getMovieAverageRating, which is what a query would cost without the
+ * maintained ranking.
+ *
+ * Run with: gradle benchmark -PbenchClass=WeightedRankingBenchmark [-PbenchArgs=<ratings>]
+ */
+public class WeightedRankingBenchmark {
+
+    private static final int MOVIES = 45_000;
+    private static final int USERS = 100_000;
+    private static final int MIN_VOTES = 100;
+
+    public static void main(String[] args) {
+        int ratings = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Random random = new Random(22);
+        LocalDateTime epoch = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Stores stores = new Stores();
+
+        long[] queries = new long[ratings / 1_000];
+        long addNanos = 0, sink = 0;
+        int queried = 0;
+        for (int i = 0; i < ratings; i++) {
+            double skew = random.nextDouble();
+            int movie = 1 + (int) (skew * skew * skew * MOVIES);
+            float rating = Math.min(10, Math.max(1, (int) Math.round(7 + random.nextGaussian() * 2 - movie % 5))) / 2.0f; // Some movies are better liked.
+            long start = System.nanoTime();
+            stores.getRatings().add(1 + random.nextInt(USERS), movie, rating, epoch.plusSeconds(i));
+            addNanos += System.nanoTime() - start;
+            if (i % 1_000 == 999) {
+                start = System.nanoTime();
+                sink += stores.getRatings().getTopWeightedMovies(10, MIN_VOTES).length;
+                queries[queried++] = System.nanoTime() - start;
+            }
+        }
+
+        long[] rescans = new long[20];
+        int[] rescanned = null;
+        for (int r = 0; r < rescans.length; r++) {
+            long start = System.nanoTime();
+            double total = 0;
+            for (int movie = 1; movie <= MOVIES; movie++) {
+                int votes = stores.getRatings().getNumRatings(movie);
+                if (votes > 0) total += votes * (double) stores.getRatings().getMovieAverageRating(movie);
+            }
+            double mean = total / stores.getRatings().size();
+            TopK top = new TopK(10);
+            for (int movie = 1; movie <= MOVIES; movie++) {
+                int votes = stores.getRatings().getNumRatings(movie);
+                if (votes >= MIN_VOTES) top.offer(movie, (votes * (double) stores.getRatings().getMovieAverageRating(movie) + MIN_VOTES * mean) / (votes + MIN_VOTES));
+            }
+            rescanned = top.result();
+            sink += rescanned[0];
+            rescans[r] = System.nanoTime() - start;
+        }
+
+        int[] weighted = stores.getRatings().getTopWeightedMovies(10, MIN_VOTES);
+        int shared = 0;
+        for (int movie : weighted) for (int other : rescanned) if (movie == other) shared++;
+
+        System.out.println("\n== " + stores.getRatings().size() + " ratings, " + MOVIES + " movies, minimum " + MIN_VOTES + " votes ==");
+        System.out.printf("add: %.0f ns per rating%n", addNanos / (double) ratings);
+        CreditsBenchmark.report("getTopWeightedMovies", queries);
+        CreditsBenchmark.report("rescan every movie", rescans);
+        System.out.println("top ten shared with the rescan: " + shared + " of " + weighted.length);
+        System.out.println("results: " + sink);
+    }
+}